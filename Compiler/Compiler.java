@@ -1,13 +1,12 @@
-import backend.MipsBuilder;
-import error.ErrorHandler;
-import frontend.Lexer;
-import frontend.Parser;
-import frontend.SemanticAnalysis;
-import ir.IrBuilder;
-import nodes.CompUnitNode;
+import utils.BatchCompiler;
+import utils.CompilationSession;
+import utils.CompileDaemon;
 import utils.IOUtils;
+import utils.OptConfig;
 
+import java.io.FileReader;
 import java.io.IOException;
+import java.io.Reader;
 
 /**
  * @author Gary
@@ -16,43 +15,35 @@ import java.io.IOException;
  */
 public class Compiler {
     public static void main(String[] args) throws IOException {
-        // 读取文件内容
-        String srcCode = IOUtils.read(IOUtils.inputFile);
+        // 优化开关
+        OptConfig.parseArgs(args);
+        // 批量模式：-batch=<目录或清单文件>
+        BatchCompiler batch = BatchCompiler.fromArgs(args);
+        if (batch != null) {
+            batch.run();
+            return;
+        }
+        // 常驻服务模式：-daemon 或 -daemon=<socket文件路径>
+        if (CompileDaemon.runFromArgs(args)) {
+            return;
+        }
         // 清空脏输出文件
         IOUtils.clean(IOUtils.llvmFile);
         IOUtils.clean(IOUtils.outputFile);
         IOUtils.clean(IOUtils.errorFile);
-        // 定义各类前端分析器
-        Lexer lexer = Lexer.getInstance();
-        Parser parser = Parser.getInstance();
-        SemanticAnalysis semanticAnalysis = SemanticAnalysis.getInstance();
-        ErrorHandler errorHandler = ErrorHandler.getInstance();
-
-        /******************* 开始分析 *********************/
-        // 词法分析器
-        lexer.analyze(srcCode);
-        // 语法分析器
-        parser.setTokens(lexer.getTokens());    // 设置语法分析器的词法单元流
-        parser.analyze();
-        // 语义分析器
-        semanticAnalysis.CompUnit(parser.getEntry());
-
-        if (!errorHandler.hasError()) {
-            // 中间代码生成器
-            IrBuilder irBuilder = new IrBuilder(parser.getEntry());
-            irBuilder.generate();
-            // MIPS代码生成器，使用llvm生成的module作为输入
-            MipsBuilder mipsBuilder = new MipsBuilder(irBuilder.getIrModule());
-            mipsBuilder.generate();
-
-            /******************* 开始输出 *********************/
-//            lexer.printResult();
-//            parser.printResult();
-//            semanticAnalysis.printResult();
-            irBuilder.printResult();
-            mipsBuilder.printResult();
-        } else {
-            errorHandler.printErrorTable(IOUtils.errorFile);
+        // 一次编译的全部状态都在会话中，编译结束后关闭；源文件边读边分析
+        try (CompilationSession session = CompilationSession.open();
+             Reader srcReader = new FileReader(IOUtils.inputFile)) {
+            if (session.compile(srcReader)) {
+                /******************* 开始输出 *********************/
+//                session.getLexer().printResult();
+//                session.getParser().printResult();
+//                session.getSemanticAnalysis().printResult();
+                session.getIrBuilder().printResult();
+                session.getMipsBuilder().printResult();
+            } else {
+                session.getErrorHandler().printErrorTable(IOUtils.errorFile);
+            }
         }
     }
 }
@@ -0,0 +1,27 @@
+package backend;
+
+import backend.operands.MipsOperand;
+
+/**
+ * @author Gary
+ * @Description: 折叠后的访存地址 offset(base)，由 GetElementPtr 求出，直接交给 lw/sw 使用
+ * offset 一定是16位有符号立即数
+ * @date 2026/10/18 20:40
+ */
+public class MipsAddress {
+    private final MipsOperand base;
+    private final int offset;
+
+    public MipsAddress(MipsOperand base, int offset) {
+        this.base = base;
+        this.offset = offset;
+    }
+
+    public MipsOperand getBase() {
+        return base;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+}
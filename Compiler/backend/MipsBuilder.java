@@ -2,6 +2,7 @@ package backend;
 
 import backend.instructions.*;
 import backend.operands.*;
+import backend.opt.Peephole;
 import backend.reg.RegBuilder;
 import backend.units.MipsBlock;
 import backend.units.MipsFunction;
@@ -11,6 +12,7 @@ import ir.values.Module;
 import ir.values.constants.ConstInt;
 import utils.IOUtils;
 import utils.MathUtils;
+import utils.OptConfig;
 
 /**
  * @author Gary
@@ -32,6 +34,10 @@ public class MipsBuilder {
         // 下面进行寄存器分配
         RegBuilder regBuilder = new RegBuilder();
         regBuilder.buildRegs();
+        // 寄存器分配之后的窥孔优化
+        if (OptConfig.peephole) {
+            new Peephole().run();
+        }
     }
 
     // 输出MIPS代码
@@ -88,7 +94,14 @@ public class MipsBuilder {
      * @param offset    目的内存相对于基址的偏移量
      */
     public static MipsStore buildStore(MipsOperand src, MipsOperand dstBase, MipsOperand offset, BasicBlock irBlock) {
-        MipsStore store = new MipsStore(src, dstBase, offset);
+        return buildStore(MipsStore.Type.SW, src, dstBase, offset, irBlock);
+    }
+
+    /**
+     * 指定宽度的存储指令，char数组的元素用sb
+     */
+    public static MipsStore buildStore(MipsStore.Type type, MipsOperand src, MipsOperand dstBase, MipsOperand offset, BasicBlock irBlock) {
+        MipsStore store = new MipsStore(type, src, dstBase, offset);
         MipsContext.getBasicBlock(irBlock).addInstruction(store);
         return store;
     }
@@ -100,7 +113,14 @@ public class MipsBuilder {
      * @param offset    源内存相对于基址的偏移量
      */
     public static MipsLoad buildLoad(MipsOperand dst, MipsOperand srcBase, MipsOperand offset, BasicBlock irBlock){
-        MipsLoad load = new MipsLoad(dst, srcBase, offset);
+        return buildLoad(MipsLoad.Type.LW, dst, srcBase, offset, irBlock);
+    }
+
+    /**
+     * 指定宽度的加载指令，char数组的元素用lbu
+     */
+    public static MipsLoad buildLoad(MipsLoad.Type type, MipsOperand dst, MipsOperand srcBase, MipsOperand offset, BasicBlock irBlock){
+        MipsLoad load = new MipsLoad(type, dst, srcBase, offset);
         MipsContext.getBasicBlock(irBlock).addInstruction(load);
         return load;
     }
@@ -114,6 +134,167 @@ public class MipsBuilder {
         return binary;
     }
 
+    /**
+     * buildMulByConst 会生成的指令条数，不能削减时返回 -1，用于指令选择估计代价
+     */
+    public static int mulByConstCost(int c) {
+        long abs = Math.abs((long) c);
+        if (c == 0 || c == 1 || c == -1) {
+            return 1;
+        } else if (MathUtils.isPowerOf2(abs)) {
+            return c > 0 ? 1 : 2;
+        } else if (c > 0 && (MathUtils.isPowerOf2(abs - 1) || MathUtils.isPowerOf2(abs + 1))) {
+            return 2;
+        }
+        return -1;
+    }
+
+    /**
+     * 乘以常数c的强度削减，在Mul中用到
+     * 只有能用不超过两条移位/加减指令完成时才生成（mul本身代价为3），否则什么也不生成
+     * @return 是否已经生成
+     */
+    public static boolean buildMulByConst(MipsOperand dst, MipsOperand src, int c, BasicBlock irBlock) {
+        long abs = Math.abs((long) c);
+        if (c == 0) {
+            buildMove(dst, new MipsImm(0), irBlock);
+        } else if (c == 1) {
+            buildMove(dst, src, irBlock);
+        } else if (c == -1) {
+            buildBinary(MipsBinary.Type.SUBU, dst, MipsRReg.ZERO, src, irBlock);
+        } else if (MathUtils.isPowerOf2(abs)) {
+            // x * 2^k = x << k，负数再取反
+            MipsOperand shifted = c > 0 ? dst : allocateVReg(MipsContext.getCurIrFunction());
+            buildBinary(MipsBinary.Type.SLL, shifted, src, new MipsImm(MathUtils.log2(abs)), irBlock);
+            if (c < 0) {
+                buildBinary(MipsBinary.Type.SUBU, dst, MipsRReg.ZERO, shifted, irBlock);
+            }
+        } else if (c > 0 && (MathUtils.isPowerOf2(abs - 1) || MathUtils.isPowerOf2(abs + 1))) {
+            // x * (2^k + 1) = (x << k) + x，x * (2^k - 1) = (x << k) - x
+            boolean isAdd = MathUtils.isPowerOf2(abs - 1);
+            MipsOperand shifted = allocateVReg(MipsContext.getCurIrFunction());
+            buildBinary(MipsBinary.Type.SLL, shifted, src, new MipsImm(MathUtils.log2(isAdd ? abs - 1 : abs + 1)), irBlock);
+            buildBinary(isAdd ? MipsBinary.Type.ADDU : MipsBinary.Type.SUBU, dst, shifted, src, irBlock);
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 有符号除以常数d（向零取整）的强度削减，在Sdiv中用到
+     * 1. d = ±1：move或取反
+     * 2. |d| = 2^k：负数先加上偏置 2^k - 1 再算术右移，d为负时再取反
+     * 3. 其他：乘以魔数取高32位（mult/mfhi），再修正、右移，负的结果加一
+     * d为0或INT_MIN时什么也不生成
+     * @return 是否已经生成
+     */
+    public static boolean buildDivByConst(MipsOperand dst, MipsOperand src, int d, BasicBlock irBlock) {
+        if (d == 0 || d == Integer.MIN_VALUE) {
+            return false;
+        }
+        Function irFunction = MipsContext.getCurIrFunction();
+        if (d == 1) {
+            buildMove(dst, src, irBlock);
+            return true;
+        }
+        if (d == -1) {
+            buildBinary(MipsBinary.Type.SUBU, dst, MipsRReg.ZERO, src, irBlock);
+            return true;
+        }
+        int abs = Math.abs(d);
+        if (MathUtils.isPowerOf2(abs)) {
+            int k = MathUtils.log2(abs);
+            // 偏置：被除数为负时是 2^k - 1，否则是0。k为1时符号位逻辑右移31位就是偏置
+            MipsOperand sign = src;
+            if (k > 1) {
+                sign = allocateVReg(irFunction);
+                buildBinary(MipsBinary.Type.SRA, sign, src, new MipsImm(31), irBlock);
+            }
+            MipsOperand bias = allocateVReg(irFunction);
+            buildBinary(MipsBinary.Type.SRL, bias, sign, new MipsImm(32 - k), irBlock);
+            MipsOperand biased = allocateVReg(irFunction);
+            buildBinary(MipsBinary.Type.ADDU, biased, src, bias, irBlock);
+            MipsOperand quotient = d > 0 ? dst : allocateVReg(irFunction);
+            buildBinary(MipsBinary.Type.SRA, quotient, biased, new MipsImm(k), irBlock);
+            if (d < 0) {
+                buildBinary(MipsBinary.Type.SUBU, dst, MipsRReg.ZERO, quotient, irBlock);
+            }
+            return true;
+        }
+        int[] magicShift = MathUtils.divMagic(d);
+        int magic = magicShift[0];
+        int shift = magicShift[1];
+        MipsOperand magicReg = buildImmOperand(magic, false, irFunction, irBlock);
+        MipsOperand quotient = allocateVReg(irFunction);
+        buildBinary(MipsBinary.Type.SMMUL, quotient, src, magicReg, irBlock);
+        // 魔数的符号与除数不同时，需要加上（或减去）被除数
+        if (d > 0 && magic < 0) {
+            MipsOperand fixed = allocateVReg(irFunction);
+            buildBinary(MipsBinary.Type.ADDU, fixed, quotient, src, irBlock);
+            quotient = fixed;
+        } else if (d < 0 && magic > 0) {
+            MipsOperand fixed = allocateVReg(irFunction);
+            buildBinary(MipsBinary.Type.SUBU, fixed, quotient, src, irBlock);
+            quotient = fixed;
+        }
+        if (shift > 0) {
+            MipsOperand shifted = allocateVReg(irFunction);
+            buildBinary(MipsBinary.Type.SRA, shifted, quotient, new MipsImm(shift), irBlock);
+            quotient = shifted;
+        }
+        // 结果为负时加一，得到向零取整的商
+        MipsOperand signBit = allocateVReg(irFunction);
+        buildBinary(MipsBinary.Type.SRL, signBit, quotient, new MipsImm(31), irBlock);
+        buildBinary(MipsBinary.Type.ADDU, dst, quotient, signBit, irBlock);
+        return true;
+    }
+
+    /**
+     * 有符号除以常数d取余（余数符号与被除数相同）的强度削减，在Srem中用到
+     * 1. |d| = 1：余数为0
+     * 2. |d| = 2^k：r = ((x + bias) & (2^k - 1)) - bias，被除数为负时偏置 bias = 2^k - 1，否则为0
+     * 3. 其他：r = x - (x / d) * d，其中除法和乘法都按常数进行强度削减
+     * d为0或INT_MIN时什么也不生成
+     * @return 是否已经生成
+     */
+    public static boolean buildRemByConst(MipsOperand dst, MipsOperand src, int d, BasicBlock irBlock) {
+        if (d == 0 || d == Integer.MIN_VALUE) {
+            return false;
+        }
+        Function irFunction = MipsContext.getCurIrFunction();
+        int abs = Math.abs(d);
+        if (abs == 1) {
+            buildMove(dst, MipsRReg.ZERO, irBlock);
+            return true;
+        }
+        if (MathUtils.isPowerOf2(abs)) {
+            int k = MathUtils.log2(abs);
+            MipsOperand sign = src;
+            if (k > 1) {
+                sign = allocateVReg(irFunction);
+                buildBinary(MipsBinary.Type.SRA, sign, src, new MipsImm(31), irBlock);
+            }
+            MipsOperand bias = allocateVReg(irFunction);
+            buildBinary(MipsBinary.Type.SRL, bias, sign, new MipsImm(32 - k), irBlock);
+            MipsOperand biased = allocateVReg(irFunction);
+            buildBinary(MipsBinary.Type.ADDU, biased, src, bias, irBlock);
+            MipsOperand masked = allocateVReg(irFunction);
+            MipsOperand mask = buildImmOperand(abs - 1, true, irFunction, irBlock);
+            buildBinary(MipsBinary.Type.AND, masked, biased, mask, irBlock);
+            buildBinary(MipsBinary.Type.SUBU, dst, masked, bias, irBlock);
+            return true;
+        }
+        MipsOperand quotient = allocateVReg(irFunction);
+        buildDivByConst(quotient, src, d, irBlock);
+        MipsOperand product = allocateVReg(irFunction);
+        if (!buildMulByConst(product, quotient, d, irBlock)) {
+            buildBinary(MipsBinary.Type.MUL, product, quotient, buildImmOperand(d, true, irFunction, irBlock), irBlock);
+        }
+        buildBinary(MipsBinary.Type.SUBU, dst, src, product, irBlock);
+        return true;
+    }
+
     /**
      * 构建比较指令，在Icmp中用到
      */
@@ -172,7 +353,7 @@ public class MipsBuilder {
                 return buildImmOperand(((ConstInt) irValue).getValue(), isImm, irFunction, irBlock);
             }
             // 2.3 函数形参
-            else if (irValue.isArg() && irFunction.getArgValues().contains(irValue)) {
+            else if (irValue.isArg()) {
                 return buildArgOperand(irValue, irFunction);
             }
             // 是指令，需要生成一个新的目的寄存器
@@ -244,6 +425,7 @@ public class MipsBuilder {
 
     /**
      * 给定函数形参，创建MipsOperand对象
+     * 每个形参只在函数开头取一次，之后的使用从opMap中直接拿到同一个虚拟寄存器
      * @param irArg     函数参数（应该是形参）
      */
     public static MipsOperand buildArgOperand(Value irArg, Function irFunction) {
@@ -252,8 +434,8 @@ public class MipsBuilder {
         int argId = irArg.getArgId();
         // 获取函数中打头的基本块
         MipsBlock firstBlock = MipsContext.getBasicBlock(irFunction.getHeadBlock());
-        // 分配虚拟寄存器
-        MipsVReg argReg = allocateVReg(irFunction);
+        // 分配虚拟寄存器，并记录形参与它的映射
+        MipsVReg argReg = allocateVReg(irArg, irFunction);
 
         // 参数编号小于4，存入a0~a3
         if (argId < 4) {
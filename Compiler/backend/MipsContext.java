@@ -6,6 +6,7 @@ import backend.units.MipsFunction;
 import ir.values.BasicBlock;
 import ir.values.Function;
 import ir.values.Value;
+import utils.CompilationSession;
 
 import java.util.HashMap;
 
@@ -15,32 +16,57 @@ import java.util.HashMap;
  * @date 2024/11/29 0:11
  */
 public class MipsContext {
+    // 每个编译会话一个，由 CompilationSession 创建，下面的静态方法都作用在当前会话的对象上
+    private static MipsContext getInstance() {
+        return CompilationSession.current().getMipsContext();
+    }
+
     // ============ 成员变量 ============
     // 当前正在解析的irFunction，只在Function的buildMips时进行赋值
-    public static Function curIrFunction = null;
+    private Function curIrFunction = null;
 
     // ir函数与mips函数的映射
-    private static HashMap<Function, MipsFunction> functionMap = new HashMap<>();
+    private final HashMap<Function, MipsFunction> functionMap = new HashMap<>();
 
     // ir基本块与mips基本块的映射
-    private static HashMap<BasicBlock, MipsBlock> basicBlockMap = new HashMap<>();
+    private final HashMap<BasicBlock, MipsBlock> basicBlockMap = new HashMap<>();
 
     // ir操作数与mips操作数的映射
-    private static HashMap<Value, MipsOperand> opMap = new HashMap<>();
+    private final HashMap<Value, MipsOperand> opMap = new HashMap<>();
+
+    // 被折叠进 lw/sw 的 gep 与其地址 offset(base) 的映射
+    private final HashMap<Value, MipsAddress> addressMap = new HashMap<>();
+
+    /**
+     * 同一基本块内 base + index * scale 的寄存器，访问同一数组同一下标的多个 gep 共用
+     * base 是 ir 基地址（Value）或者已经算好的基址寄存器（MipsOperand）
+     */
+    public record AddressKey(BasicBlock block, Object base, Value index, int scale) {
+    }
+
+    private final HashMap<AddressKey, MipsOperand> addressRegMap = new HashMap<>();
 
     // ============ 成员方法 ============
+    public static Function getCurIrFunction() {
+        return getInstance().curIrFunction;
+    }
+
+    public static void setCurIrFunction(Function irFunction) {
+        getInstance().curIrFunction = irFunction;
+    }
+
     /**
      * 添加ir函数与mips函数的映射
      */
     public static void addFunctionMap(Function irFunction, MipsFunction mipsFunction) {
-        functionMap.put(irFunction, mipsFunction);
+        getInstance().functionMap.put(irFunction, mipsFunction);
     }
 
     /**
      * 添加ir基本块与mips基本块的映射
      */
     public static void addBasicBlockMap(BasicBlock irBasicBlock, MipsBlock mipsBlock) {
-        basicBlockMap.put(irBasicBlock, mipsBlock);
+        getInstance().basicBlockMap.put(irBasicBlock, mipsBlock);
     }
 
     /**
@@ -48,7 +74,18 @@ public class MipsContext {
      * 记录指令的目的寄存器与arg参数，不记录imm和label
      */
     public static void addOperandMap(Value irValue, MipsOperand mipsOperand) {
-        opMap.put(irValue, mipsOperand);
+        getInstance().opMap.put(irValue, mipsOperand);
+    }
+
+    /**
+     * 记录被折叠的gep的地址，它的使用者直接用 offset(base) 访存，gep本身不生成指令
+     */
+    public static void addAddressMap(Value irValue, MipsAddress address) {
+        getInstance().addressMap.put(irValue, address);
+    }
+
+    public static void addAddressReg(AddressKey key, MipsOperand reg) {
+        getInstance().addressRegMap.put(key, reg);
     }
 
     /**
@@ -57,7 +94,7 @@ public class MipsContext {
      * @return            mips函数
      */
     public static MipsFunction getFunction(Function irFunction) {
-        return functionMap.get(irFunction);
+        return getInstance().functionMap.get(irFunction);
     }
 
     /**
@@ -66,10 +103,21 @@ public class MipsContext {
      * @return                mips基本块
      */
     public static MipsBlock getBasicBlock(BasicBlock irBasicBlock) {
-        return basicBlockMap.get(irBasicBlock);
+        return getInstance().basicBlockMap.get(irBasicBlock);
     }
 
     public static MipsOperand getOperand(Value irValue) {
-        return opMap.get(irValue);
+        return getInstance().opMap.get(irValue);
+    }
+
+    /**
+     * 获取被折叠的gep的地址，没有折叠时返回null
+     */
+    public static MipsAddress getAddress(Value irValue) {
+        return getInstance().addressMap.get(irValue);
+    }
+
+    public static MipsOperand getAddressReg(AddressKey key) {
+        return getInstance().addressRegMap.get(key);
     }
 }
@@ -26,6 +26,11 @@ public class MipsBinary extends MipsInstruction {
          * 有符号整数除法：div rd, rs, rt
          */
         DIV("div"),
+        /**
+         * 有符号整数取余：rem rd, rs, rt
+         * 本质是执行**div**指令，余数在HI中，再mfhi到dst寄存器
+         */
+        REM("rem"),
         /**
          * 如果无符号整数rs小于rt，则将目标寄存器设置为1，否则设置为0
          * <br>sltu rd, rs, rt
@@ -46,7 +51,20 @@ public class MipsBinary extends MipsInstruction {
          * 按位与：and rd, rs, rt
          * 专门给trunc指令使用
          */
-        AND("and");
+        AND("and"),
+        /**
+         * 逻辑左移：sll rd, rs, shamt
+         * 以下三种移位的 rt 必须是立即数，用于常数乘除法的强度削减
+         */
+        SLL("sll"),
+        /**
+         * 算术右移：sra rd, rs, shamt
+         */
+        SRA("sra"),
+        /**
+         * 逻辑右移：srl rd, rs, shamt
+         */
+        SRL("srl");
 
         public String name;
         Type(String name) {
@@ -62,6 +80,10 @@ public class MipsBinary extends MipsInstruction {
         this.type = type;
     }
 
+    public Type getType() {
+        return type;
+    }
+
     public String toString() {
         // 1. 若rt为立即数，则应当选择带有i的指令：addiu
         if (getSrc(2) instanceof MipsImm) {
@@ -81,6 +103,11 @@ public class MipsBinary extends MipsInstruction {
                 return "div\t" + getSrc(1) + ",\t" + getSrc(2) + "\n\t" +
                         "mflo\t" + getDst() + "\n";
             }
+            case REM -> {
+                // div $ra, $s0 -> mfhi $s0
+                return "div\t" + getSrc(1) + ",\t" + getSrc(2) + "\n\t" +
+                        "mfhi\t" + getDst() + "\n";
+            }
             case SMMUL -> {
                 // rd = rd+rs*rt
                 return "mult\t" + getSrc(1) + ",\t" + getSrc(2) + "\n\t" +
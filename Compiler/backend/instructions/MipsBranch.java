@@ -1,5 +1,6 @@
 package backend.instructions;
 
+import backend.operands.MipsImm;
 import backend.operands.MipsOperand;
 import backend.units.MipsBlock;
 
@@ -43,12 +44,27 @@ public class MipsBranch extends MipsInstruction {
         this.condType = condType;
     }
 
+    public MipsBlock getTarget() {
+        return target;
+    }
+
+    /**
+     * 无条件跳转指令 j 没有比较条件
+     */
+    public boolean isUnconditional() {
+        return condType == null;
+    }
+
     public String toString() {
         if (getSrc(1) == null) {
             // 1. 没有src，说明是无条件跳转指令
             return "j\t" + target.getName() + "\n";
         } else {
-            // 2. 有条件跳转指令，在枚举类的名字前面加个'b'即表示相应的指令
+            // 2. 和0比较时用 beqz、bltz 等单操作数的形式，不用先把0装进寄存器
+            if (getSrc(2) instanceof MipsImm imm && imm.getValue() == 0) {
+                return "b" + condType + "z\t" + getSrc(1) + ",\t" + target.getName() + "\n";
+            }
+            // 3. 有条件跳转指令，在枚举类的名字前面加个'b'即表示相应的指令
             // 很方便：condType的toString()方法就是对应的指令名
             return "b" + condType + "\t" + getSrc(1) + ",\t" + getSrc(2) + ",\t" + target.getName() + "\n";
         }
@@ -5,9 +5,37 @@ import backend.operands.MipsOperand;
 /**
  * @author Gary
  * @Description: load指令: lw $t1, offset($t2)
+ * char数组按字节存放时用 lbu，取到寄存器里的 char 值在 0~255 之内
  * @date 2024/12/5 22:38
  */
 public class MipsLoad extends MipsInstruction {
+    public enum Type {
+        /**
+         * 取一个字：lw rt, offset(base)
+         */
+        LW("lw", 4),
+        /**
+         * 取一个字节并符号扩展：lb rt, offset(base)
+         */
+        LB("lb", 1),
+        /**
+         * 取一个字节并零扩展：lbu rt, offset(base)
+         */
+        LBU("lbu", 1);
+
+        public String name;
+        // 访问的字节数
+        public int width;
+        Type(String name, int width) {
+            this.name = name;
+            this.width = width;
+        }
+        public String toString() {
+            return name;
+        }
+    }
+    private Type type;
+
     /**
      * 构造函数
      * @param dst   目的寄存器
@@ -15,11 +43,20 @@ public class MipsLoad extends MipsInstruction {
      * @param offset    偏移量
      */
     public MipsLoad(MipsOperand dst, MipsOperand base, MipsOperand offset) {
+        this(Type.LW, dst, base, offset);
+    }
+
+    public MipsLoad(Type type, MipsOperand dst, MipsOperand base, MipsOperand offset) {
         super(dst, base, offset);
+        this.type = type;
+    }
+
+    public Type getType() {
+        return type;
     }
 
     // offset是第二个src，base是第一个src
     public String toString() {
-        return "lw\t" + getDst() + ",\t" + getSrc(2) + "(" + getSrc(1) + ")\n";
+        return type + "\t" + getDst() + ",\t" + getSrc(2) + "(" + getSrc(1) + ")\n";
     }
 }
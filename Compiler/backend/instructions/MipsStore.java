@@ -6,16 +6,49 @@ import backend.operands.MipsOperand;
  * @author Gary
  * @Description: Mips中的Store指令. 这个指令很特殊，有3个操作数，但没有dst
  * sw $s1, 0($s0)
+ * char数组按字节存放时用 sb，只写入寄存器的低8位
  * @date 2024/12/7 16:37
  */
 public class MipsStore extends MipsInstruction {
+    public enum Type {
+        /**
+         * 存一个字：sw rt, offset(base)
+         */
+        SW("sw", 4),
+        /**
+         * 存一个字节：sb rt, offset(base)
+         */
+        SB("sb", 1);
+
+        public String name;
+        // 访问的字节数
+        public int width;
+        Type(String name, int width) {
+            this.name = name;
+            this.width = width;
+        }
+        public String toString() {
+            return name;
+        }
+    }
+    private Type type;
+
     // store指令的3个操作数都是use，而没有def
     public MipsStore(MipsOperand src, MipsOperand dstBase, MipsOperand offset) {
+        this(Type.SW, src, dstBase, offset);
+    }
+
+    public MipsStore(Type type, MipsOperand src, MipsOperand dstBase, MipsOperand offset) {
         super(src, dstBase, offset, true);
+        this.type = type;
+    }
+
+    public Type getType() {
+        return type;
     }
 
     // src: 1, offset: 3, dstBase: 2
     public String toString() {
-        return "sw\t" + getSrc(1) + ",\t" + getSrc(3) + "(" + getSrc(2) +")\n";
+        return type + "\t" + getSrc(1) + ",\t" + getSrc(3) + "(" + getSrc(2) +")\n";
     }
 }
@@ -0,0 +1,159 @@
+package backend.isel;
+
+import backend.instructions.MipsCondType;
+import ir.values.User;
+import ir.values.Value;
+import ir.values.constants.ConstInt;
+import ir.values.instructions.Icmp;
+import ir.values.instructions.Zext;
+import utils.IrUtils;
+
+/**
+ * @author Gary
+ * @Description: 布尔值的降级：把 i1 -> i32 -> i1 的往返化简成对原始比较的判断
+ * 前端的 !x、a < b < c、以及条件中 i32 值和 0 的比较，会生成 icmp (zext (icmp ...)), 常数 这样的链
+ * zext 的结果只有 0 和 1 两种取值，所以外层比较要么是常数，要么等价于内层比较本身或者它的取反
+ * 1. Br 直接按化简后的比较跳转，常数条件变成无条件跳转
+ * 2. 只被这种外层比较使用的 zext 不需要算出来
+ * @date 2026/10/18 21:30
+ */
+public class BoolLowering {
+    /**
+     * 化简后的条件：op1 type op2，或者是常数
+     */
+    public static class Cond {
+        private final Value op1;
+        private final Value op2;
+        private final Icmp.CondType type;
+        private final Boolean constant;
+
+        private Cond(Value op1, Value op2, Icmp.CondType type, Boolean constant) {
+            this.op1 = op1;
+            this.op2 = op2;
+            this.type = type;
+            this.constant = constant;
+        }
+
+        private static Cond of(Value op1, Value op2, Icmp.CondType type) {
+            if (op1 instanceof ConstInt && op2 instanceof ConstInt) {
+                return new Cond(null, null, null, eval(type, IrUtils.getConstIntValue(op1), IrUtils.getConstIntValue(op2)));
+            }
+            // 常数放在右边，这样可以直接作为分支指令的立即数
+            if (op1 instanceof ConstInt) {
+                return new Cond(op2, op1, swap(type), null);
+            }
+            return new Cond(op1, op2, type, null);
+        }
+
+        private Cond negate() {
+            if (constant != null) {
+                return new Cond(null, null, null, !constant);
+            }
+            return new Cond(op1, op2, invert(type), null);
+        }
+
+        public Value getOp1() {
+            return op1;
+        }
+
+        public Value getOp2() {
+            return op2;
+        }
+
+        public MipsCondType getMipsCondType() {
+            return MipsCondType.ir2MipsCondType(type);
+        }
+
+        public boolean isConstant() {
+            return constant != null;
+        }
+
+        public boolean getConstant() {
+            return constant;
+        }
+    }
+
+    /**
+     * 求出一个比较化简后的条件
+     */
+    public static Cond resolve(Icmp icmp) {
+        Value op1 = icmp.getOp(1), op2 = icmp.getOp(2);
+        Icmp.CondType type = icmp.getCondType();
+        boolean zextLeft = op1 instanceof Zext && op2 instanceof ConstInt;
+        boolean zextRight = op2 instanceof Zext && op1 instanceof ConstInt;
+        if (!zextLeft && !zextRight) {
+            return Cond.of(op1, op2, type);
+        }
+        Zext zext = (Zext) (zextLeft ? op1 : op2);
+        if (!(zext.getOp(1) instanceof Icmp inner)) {
+            return Cond.of(op1, op2, type);
+        }
+        // 分别代入 zext 的两种取值
+        int k = IrUtils.getConstIntValue(zextLeft ? op2 : op1);
+        boolean r0 = zextLeft ? eval(type, 0, k) : eval(type, k, 0);
+        boolean r1 = zextLeft ? eval(type, 1, k) : eval(type, k, 1);
+        if (r0 == r1) {
+            return new Cond(null, null, null, r0);
+        }
+        Cond innerCond = resolve(inner);
+        return r1 ? innerCond : innerCond.negate();
+    }
+
+    /**
+     * icmp 的 zext 是否只被"和常数比较"的 icmp 使用，这时比较会被 resolve 化简掉，zext 本身不用生成
+     */
+    public static boolean isAbsorbed(Zext zext) {
+        if (!(zext.getOp(1) instanceof Icmp)) {
+            return false;
+        }
+        for (User user : zext.getUsers()) {
+            if (!(user instanceof Icmp)) {
+                return false;
+            }
+            boolean absorbed = (user.getOp(1) == zext && user.getOp(2) instanceof ConstInt)
+                    || (user.getOp(2) == zext && user.getOp(1) instanceof ConstInt);
+            if (!absorbed) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean eval(Icmp.CondType type, int a, int b) {
+        return switch (type) {
+            case EQL -> a == b;
+            case NEQ -> a != b;
+            case LEQ -> a <= b;
+            case LSS -> a < b;
+            case GEQ -> a >= b;
+            case GRE -> a > b;
+        };
+    }
+
+    /**
+     * 条件取反：!(a < b) 即 a >= b
+     */
+    private static Icmp.CondType invert(Icmp.CondType type) {
+        return switch (type) {
+            case EQL -> Icmp.CondType.NEQ;
+            case NEQ -> Icmp.CondType.EQL;
+            case LEQ -> Icmp.CondType.GRE;
+            case LSS -> Icmp.CondType.GEQ;
+            case GEQ -> Icmp.CondType.LSS;
+            case GRE -> Icmp.CondType.LEQ;
+        };
+    }
+
+    /**
+     * 交换两个操作数：a < b 即 b > a
+     */
+    private static Icmp.CondType swap(Icmp.CondType type) {
+        return switch (type) {
+            case EQL, NEQ -> type;
+            case LEQ -> Icmp.CondType.GEQ;
+            case LSS -> Icmp.CondType.GRE;
+            case GEQ -> Icmp.CondType.LEQ;
+            case GRE -> Icmp.CondType.LSS;
+        };
+    }
+}
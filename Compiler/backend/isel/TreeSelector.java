@@ -0,0 +1,238 @@
+package backend.isel;
+
+import backend.MipsBuilder;
+import backend.MipsContext;
+import backend.instructions.MipsBinary;
+import backend.operands.MipsImm;
+import backend.operands.MipsOperand;
+import ir.values.BasicBlock;
+import ir.values.Function;
+import ir.values.Value;
+import ir.values.constants.ConstInt;
+import ir.values.instructions.Add;
+import ir.values.instructions.Instruction;
+import ir.values.instructions.Mul;
+import ir.values.instructions.Sub;
+import utils.CompilationSession;
+import utils.IrUtils;
+import utils.MathUtils;
+import utils.OptConfig;
+
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * @author Gary
+ * @Description: 加、减、乘法的合并选择：把只被同一块内父指令用一次的子指令并进父指令，一起生成一条（或一组）指令
+ * 1. 标注：每个基本块的 buildMips 开始时，按顺序求每条加减乘指令的形式
+ *    x + c、x - c 记作 x + imm（imm 为16位），0 - y 记作 -y，x * c 记作 x * c
+ * 2. 合并：子指令只有父指令一次使用，且父子能合成下面的一种时，子指令不再生成，父指令按合并后的形式生成
+ *    (x ± c1) ± c2 -> addiu x, c1 ± c2（合并后仍是16位）
+ *    x + (-y) -> subu x, y，x - (-y) -> addu x, y，0 - (-y) -> move y
+ *    (x * c1) * c2 -> x * (c1 * c2)（合并后的代价不超过分开乘）
+ *    合并后的 x + imm、x * c 可以继续并进它的父指令，所以一串加减常数最后只剩一条 addiu
+ * 3. 合并只用子指令本来就用到的 x、y 代替子指令的结果，不会让更多的值同时活跃；其余指令走各自的 buildMips
+ * @date 2026/10/18 21:00
+ */
+public class TreeSelector {
+    private enum Kind {
+        // x + imm
+        ADDI,
+        // 0 - x
+        NEG,
+        // x * imm
+        MULI,
+        // 只在合并后出现：x + y、x - y、move x
+        ADDU, SUBU, MOVE
+    }
+
+    private record Form(Kind kind, Value x, Value y, int imm) {
+    }
+
+    private static final int OTHER_COST = 1;
+    private static final int MUL_COST = 3;
+
+    // 当前块中每条加减乘指令的形式
+    private final HashMap<Instruction, Form> forms = new HashMap<>();
+    // 并入了子指令、要按 forms 中的形式生成的父指令
+    private final HashSet<Instruction> roots = new HashSet<>();
+    // 并入父指令的子指令，自己不生成
+    private final HashSet<Instruction> folded = new HashSet<>();
+
+    // 每个编译会话一个，由 CompilationSession 创建
+    private static TreeSelector getInstance() {
+        return CompilationSession.current().getTreeSelector();
+    }
+
+    /**
+     * 在基本块的 buildMips 开始时调用
+     */
+    public static void labelBlock(BasicBlock irBlock) {
+        getInstance().label(irBlock);
+    }
+
+    private void label(BasicBlock irBlock) {
+        forms.clear();
+        roots.clear();
+        folded.clear();
+        for (Instruction instruction : irBlock.getInstructions()) {
+            Value op1 = instruction.getOp(1), op2 = instruction.getOp(2);
+            Form form = null;
+            if (instruction instanceof Add) {
+                form = op1 instanceof ConstInt ? labelAddImm(instruction, op2, IrUtils.getConstIntValue(op1))
+                        : op2 instanceof ConstInt ? labelAddImm(instruction, op1, IrUtils.getConstIntValue(op2))
+                        : labelAddNeg(instruction, op1, op2);
+            } else if (instruction instanceof Sub) {
+                form = op2 instanceof ConstInt ? labelAddImm(instruction, op1, -(long) IrUtils.getConstIntValue(op2))
+                        : op1 instanceof ConstInt ? labelNeg(instruction, IrUtils.getConstIntValue(op1), op2)
+                        : labelSubNeg(instruction, op1, op2);
+            } else if (instruction instanceof Mul) {
+                form = op1 instanceof ConstInt ? labelMulImm(instruction, op2, IrUtils.getConstIntValue(op1))
+                        : op2 instanceof ConstInt ? labelMulImm(instruction, op1, IrUtils.getConstIntValue(op2))
+                        : null;
+            }
+            if (form != null) {
+                forms.put(instruction, form);
+            }
+        }
+    }
+
+    /**
+     * 返回 value 作为 user 的子指令可以并入时的形式，否则返回 null
+     */
+    private Form childForm(Value value, Kind kind) {
+        Form form = value instanceof Instruction ? forms.get(value) : null;
+        if (form == null || form.kind() != kind || value.getUsers().size() != 1) {
+            return null;
+        }
+        return form;
+    }
+
+    private Form fold(Instruction instruction, Value child, Form form) {
+        folded.add((Instruction) child);
+        roots.add(instruction);
+        return form;
+    }
+
+    // x + imm
+    private Form labelAddImm(Instruction instruction, Value x, long imm) {
+        if (x instanceof ConstInt) {
+            return null;
+        }
+        Form child = childForm(x, Kind.ADDI);
+        if (child != null && fits(child.imm() + imm)) {
+            return fold(instruction, x, new Form(Kind.ADDI, child.x(), null, (int) (child.imm() + imm)));
+        }
+        return fits(imm) ? new Form(Kind.ADDI, x, null, (int) imm) : null;
+    }
+
+    // x + (-y)
+    private Form labelAddNeg(Instruction instruction, Value op1, Value op2) {
+        if (op1 == op2) {
+            return null;
+        }
+        Form child = childForm(op2, Kind.NEG);
+        if (child != null) {
+            return fold(instruction, op2, new Form(Kind.SUBU, op1, child.x(), 0));
+        }
+        child = childForm(op1, Kind.NEG);
+        if (child != null) {
+            return fold(instruction, op1, new Form(Kind.SUBU, op2, child.x(), 0));
+        }
+        return null;
+    }
+
+    // 0 - y，以及 0 - (-y)
+    private Form labelNeg(Instruction instruction, int c, Value y) {
+        if (c != 0) {
+            return null;
+        }
+        Form child = childForm(y, Kind.NEG);
+        if (child != null) {
+            return fold(instruction, y, new Form(Kind.MOVE, child.x(), null, 0));
+        }
+        return new Form(Kind.NEG, y, null, 0);
+    }
+
+    // x - (-y)
+    private Form labelSubNeg(Instruction instruction, Value op1, Value op2) {
+        Form child = op1 == op2 ? null : childForm(op2, Kind.NEG);
+        if (child != null) {
+            return fold(instruction, op2, new Form(Kind.ADDU, op1, child.x(), 0));
+        }
+        return null;
+    }
+
+    // x * c
+    private Form labelMulImm(Instruction instruction, Value x, int c) {
+        if (x instanceof ConstInt) {
+            return null;
+        }
+        Form child = childForm(x, Kind.MULI);
+        if (child != null && mulConstCost(child.imm() * c) <= mulConstCost(child.imm()) + mulConstCost(c)) {
+            return fold(instruction, x, new Form(Kind.MULI, child.x(), null, child.imm() * c));
+        }
+        return new Form(Kind.MULI, x, null, c);
+    }
+
+    /**
+     * 加减乘指令的 buildMips 入口：并入父指令的子指令什么也不生成，父指令按合并后的形式生成
+     * @return 是否已经处理，返回 false 时由指令自己的 buildMips 逐条生成
+     */
+    public static boolean select(Instruction instruction) {
+        return getInstance().selectInstruction(instruction);
+    }
+
+    private boolean selectInstruction(Instruction instruction) {
+        if (folded.contains(instruction)) {
+            return true;
+        }
+        if (!roots.contains(instruction)) {
+            return false;
+        }
+        Form form = forms.get(instruction);
+        BasicBlock irBlock = instruction.getParent();
+        Function irFunction = MipsContext.getCurIrFunction();
+        MipsOperand rd = MipsBuilder.buildOperand(instruction, false, irFunction, irBlock);
+        MipsOperand rs = MipsBuilder.buildOperand(form.x(), false, irFunction, irBlock);
+        switch (form.kind()) {
+            case ADDI -> {
+                if (form.imm() == 0) {
+                    MipsBuilder.buildMove(rd, rs, irBlock);
+                } else {
+                    MipsBuilder.buildBinary(MipsBinary.Type.ADDU, rd, rs, new MipsImm(form.imm()), irBlock);
+                }
+            }
+            case ADDU, SUBU -> {
+                MipsOperand rt = MipsBuilder.buildOperand(form.y(), false, irFunction, irBlock);
+                MipsBuilder.buildBinary(form.kind() == Kind.ADDU ? MipsBinary.Type.ADDU : MipsBinary.Type.SUBU,
+                        rd, rs, rt, irBlock);
+            }
+            case MOVE -> MipsBuilder.buildMove(rd, rs, irBlock);
+            case MULI -> {
+                if (OptConfig.strengthReduce && MipsBuilder.buildMulByConst(rd, rs, form.imm(), irBlock)) {
+                    break;
+                }
+                MipsOperand rt = MipsBuilder.buildImmOperand(form.imm(), true, irFunction, irBlock);
+                MipsBuilder.buildBinary(MipsBinary.Type.MUL, rd, rs, rt, irBlock);
+            }
+            default -> System.out.println("GaryError: 指令 " + instruction.getName() + " 没有可以生成的合并形式");
+        }
+        return true;
+    }
+
+    private static boolean fits(long value) {
+        return value == (int) value && MathUtils.is16BitImm((int) value, true);
+    }
+
+    /**
+     * 乘以常数的代价，按模拟器的周期权重：能削减时是移位和加减的条数，否则是 mul（常数超过16位时再加一条 li）
+     */
+    private static int mulConstCost(int c) {
+        int reduced = OptConfig.strengthReduce ? MipsBuilder.mulByConstCost(c) : -1;
+        if (reduced != -1) {
+            return reduced * OTHER_COST;
+        }
+        return MUL_COST + (MathUtils.is16BitImm(c, true) ? 0 : OTHER_COST);
+    }
+}
@@ -1,6 +1,6 @@
 package backend.operands;
 
-import java.util.Objects;
+import utils.CompilationSession;
 
 /**
  * @author Gary
@@ -8,18 +8,30 @@ import java.util.Objects;
  * @date 2024/12/5 17:48
  */
 public class MipsVReg extends MipsOperand {
-    // 标志虚拟寄存器编号
-    private static int id = 0;
+    // 虚拟寄存器编号，全局唯一，名字由它生成，比较和哈希也都用它
+    private final int id;
 
     // 虚拟寄存器名字，以v开头，代表虚拟寄存器
-    private String name;
+    private final String name;
+
+    // 寄存器分配时在冲突图中的节点编号，每轮分配都会重新编号，只由RegBuilder使用
+    private int nodeIndex = -1;
 
     public MipsVReg() {
-        this.name = "v" + getId();
+        this.id = CompilationSession.current().next(CompilationSession.Counter.VREG);
+        this.name = "v" + id;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int getNodeIndex() {
+        return nodeIndex;
     }
 
-    private int getId() {
-        return id++;
+    public void setNodeIndex(int nodeIndex) {
+        this.nodeIndex = nodeIndex;
     }
 
     public String toString() {
@@ -37,10 +49,10 @@ public class MipsVReg extends MipsOperand {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         MipsVReg that = (MipsVReg) o;
-        return Objects.equals(name, that.name);
+        return id == that.id;
     }
 
     public int hashCode() {
-        return Objects.hash(name);
+        return Integer.hashCode(id);
     }
 }
@@ -0,0 +1,87 @@
+package backend.opt;
+
+import backend.instructions.MipsInstruction;
+import backend.units.MipsBlock;
+import backend.units.MipsFunction;
+import backend.units.MipsInstructionList;
+import backend.units.MipsModule;
+import utils.OptConfig;
+
+import java.util.ArrayList;
+
+/**
+ * @author Gary
+ * @Description: 寄存器分配之后的窥孔优化
+ * 1. 每个块从前往后把指令压入输出栈，每压入一条就在栈顶反复尝试所有规则，直到没有规则命中
+ *    规则只删除或替换栈顶，所以栈顶以下的部分始终是不动点，每个块只需一遍，时间是线性的
+ * 2. 删除块末的 j 之后，块与块之间可能产生新的机会，所以整个函数重复到没有任何命中为止
+ * 3. 规则可以通过 -fno-peephole=名字1,名字2 单独关闭，-fno-peephole 关闭整个优化
+ * 4. 每条规则记录命中次数，-fstats 时输出到标准错误
+ * @date 2026/10/18 20:10
+ */
+public class Peephole {
+    private final ArrayList<PeepholeRule> rules = new ArrayList<>();
+
+    public Peephole() {
+        for (PeepholeRule rule : PeepholeRules.defaultRules()) {
+            register(rule);
+        }
+    }
+
+    /**
+     * 注册一条规则，被命令行关闭的规则不会加入
+     */
+    public void register(PeepholeRule rule) {
+        if (!OptConfig.peepholeDisabled.contains(rule.getName())) {
+            rules.add(rule);
+        }
+    }
+
+    public void run() {
+        for (MipsFunction function : MipsModule.getFunctions()) {
+            if (function.isLibFunc()) {
+                continue;
+            }
+            int hits;
+            do {
+                hits = 0;
+                ArrayList<MipsBlock> blocks = function.getMipsBlocks();
+                for (int i = 0; i < blocks.size(); i++) {
+                    MipsBlock nextBlock = i + 1 < blocks.size() ? blocks.get(i + 1) : null;
+                    hits += runOnBlock(blocks.get(i), nextBlock);
+                }
+            } while (hits > 0);
+        }
+        if (OptConfig.stats) {
+            for (PeepholeRule rule : rules) {
+                System.err.println("Peephole " + rule.getName() + ": " + rule.getHits());
+            }
+        }
+    }
+
+    /**
+     * @return 本块中规则命中的次数
+     */
+    private int runOnBlock(MipsBlock block, MipsBlock nextBlock) {
+        MipsInstructionList out = new MipsInstructionList();
+        PeepholeWindow window = new PeepholeWindow(out, nextBlock);
+        int hits = 0;
+        for (MipsInstruction instruction : block.getInstructions()) {
+            out.add(instruction);
+            boolean changed = true;
+            while (changed && !out.isEmpty()) {
+                changed = false;
+                for (PeepholeRule rule : rules) {
+                    if (rule.apply(window)) {
+                        rule.addHit();
+                        hits++;
+                        changed = true;
+                        break;
+                    }
+                }
+            }
+        }
+        block.setInstructions(out);
+        return hits;
+    }
+}
@@ -0,0 +1,38 @@
+package backend.opt;
+
+/**
+ * @author Gary
+ * @Description: 窥孔优化的一条规则
+ * 规则只看窗口顶部（最新写入的）几条指令，只能删除或替换栈顶的指令，这样整个块的改写是线性的
+ * @date 2026/10/18 20:10
+ */
+public abstract class PeepholeRule {
+    private final String name;
+    /**
+     * 规则命中（成功改写）的次数
+     */
+    private int hits = 0;
+
+    protected PeepholeRule(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getHits() {
+        return hits;
+    }
+
+    public void addHit() {
+        hits++;
+    }
+
+    /**
+     * 尝试在窗口顶部匹配并改写
+     *
+     * @return 是否进行了改写
+     */
+    public abstract boolean apply(PeepholeWindow window);
+}
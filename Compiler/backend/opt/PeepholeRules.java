@@ -0,0 +1,179 @@
+package backend.opt;
+
+import backend.instructions.MipsBinary;
+import backend.instructions.MipsBranch;
+import backend.instructions.MipsInstruction;
+import backend.instructions.MipsLoad;
+import backend.instructions.MipsMove;
+import backend.instructions.MipsStore;
+import backend.operands.MipsImm;
+import backend.operands.MipsOperand;
+import backend.operands.MipsRReg;
+import backend.reg.Reg;
+
+import java.util.ArrayList;
+
+/**
+ * @author Gary
+ * @Description: 内置的窥孔规则，名字用于命令行开关和命中统计
+ * 寄存器分配之后操作数都是物理寄存器，比较寄存器时只看寄存器号
+ * @date 2026/10/18 20:10
+ */
+public class PeepholeRules {
+    /**
+     * 默认注册的规则，按顺序尝试
+     */
+    public static ArrayList<PeepholeRule> defaultRules() {
+        ArrayList<PeepholeRule> rules = new ArrayList<>();
+        rules.add(new SelfMove());
+        rules.add(new AddZero());
+        rules.add(new MoveBack());
+        rules.add(new StoreLoad());
+        rules.add(new LoadStore());
+        rules.add(new JumpNext());
+        return rules;
+    }
+
+    private static boolean sameReg(MipsOperand a, MipsOperand b) {
+        return a instanceof MipsRReg ra && b instanceof MipsRReg rb && ra.getType() == rb.getType();
+    }
+
+    private static boolean sameImm(MipsOperand a, MipsOperand b) {
+        return a instanceof MipsImm ia && b instanceof MipsImm ib && ia.getValue() == ib.getValue();
+    }
+
+    private static boolean isRegMove(MipsInstruction instruction) {
+        return instruction instanceof MipsMove && instruction.getSrc(1) instanceof MipsRReg;
+    }
+
+    /**
+     * move $t0, $t0 -> 删除
+     */
+    static class SelfMove extends PeepholeRule {
+        SelfMove() {
+            super("self-move");
+        }
+
+        public boolean apply(PeepholeWindow window) {
+            MipsInstruction top = window.get(0);
+            if (isRegMove(top) && sameReg(top.getDst(), top.getSrc(1))) {
+                window.removeTop();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * addu/subu rd, rs, 0 -> move rd, rs（rd 与 rs 相同时再被 self-move 删除）
+     */
+    static class AddZero extends PeepholeRule {
+        AddZero() {
+            super("add-zero");
+        }
+
+        public boolean apply(PeepholeWindow window) {
+            if (!(window.get(0) instanceof MipsBinary binary)) {
+                return false;
+            }
+            if (binary.getType() != MipsBinary.Type.ADDU && binary.getType() != MipsBinary.Type.SUBU) {
+                return false;
+            }
+            MipsOperand rt = binary.getSrc(2);
+            boolean isZero = rt instanceof MipsImm imm ? imm.getValue() == 0
+                    : rt instanceof MipsRReg rReg && rReg.getType() == Reg.ZERO;
+            if (isZero && binary.getSrc(1) instanceof MipsRReg) {
+                window.replaceTop(new MipsMove(binary.getDst(), binary.getSrc(1)));
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * move a, b; move b, a -> 删除第二条
+     */
+    static class MoveBack extends PeepholeRule {
+        MoveBack() {
+            super("move-back");
+        }
+
+        public boolean apply(PeepholeWindow window) {
+            MipsInstruction top = window.get(0);
+            MipsInstruction prev = window.get(1);
+            if (isRegMove(top) && isRegMove(prev)
+                    && sameReg(top.getDst(), prev.getSrc(1)) && sameReg(top.getSrc(1), prev.getDst())) {
+                window.removeTop();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * sw r1, off(base); lw r2, off(base) -> lw 换成 move r2, r1（r1 与 r2 相同时直接删除）
+     */
+    static class StoreLoad extends PeepholeRule {
+        StoreLoad() {
+            super("store-load");
+        }
+
+        public boolean apply(PeepholeWindow window) {
+            if (!(window.get(0) instanceof MipsLoad load) || !(window.get(1) instanceof MipsStore store)) {
+                return false;
+            }
+            // 宽度要相同；sb 之后 lb 会符号扩展，和 r1 不一定相等
+            if (!sameReg(load.getSrc(1), store.getSrc(2)) || !sameImm(load.getSrc(2), store.getSrc(3))
+                    || !(store.getSrc(1) instanceof MipsRReg)
+                    || load.getType().width != store.getType().width || load.getType() == MipsLoad.Type.LB) {
+                return false;
+            }
+            if (sameReg(load.getDst(), store.getSrc(1))) {
+                window.removeTop();
+            } else {
+                window.replaceTop(new MipsMove(load.getDst(), store.getSrc(1)));
+            }
+            return true;
+        }
+    }
+
+    /**
+     * lw r, off(base); sw r, off(base) -> 删除 sw，要求 r 不是 base
+     */
+    static class LoadStore extends PeepholeRule {
+        LoadStore() {
+            super("load-store");
+        }
+
+        public boolean apply(PeepholeWindow window) {
+            if (!(window.get(0) instanceof MipsStore store) || !(window.get(1) instanceof MipsLoad load)) {
+                return false;
+            }
+            if (sameReg(store.getSrc(1), load.getDst()) && !sameReg(load.getDst(), load.getSrc(1))
+                    && load.getType().width == store.getType().width
+                    && sameReg(load.getSrc(1), store.getSrc(2)) && sameImm(load.getSrc(2), store.getSrc(3))) {
+                window.removeTop();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * j 到布局中紧跟的下一块 -> 删除
+     */
+    static class JumpNext extends PeepholeRule {
+        JumpNext() {
+            super("jump-next");
+        }
+
+        public boolean apply(PeepholeWindow window) {
+            if (window.get(0) instanceof MipsBranch branch && branch.isUnconditional()
+                    && window.getNextBlock() != null && branch.getTarget() == window.getNextBlock()) {
+                window.removeTop();
+                return true;
+            }
+            return false;
+        }
+    }
+}
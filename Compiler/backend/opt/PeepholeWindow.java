@@ -0,0 +1,52 @@
+package backend.opt;
+
+import backend.instructions.MipsInstruction;
+import backend.units.MipsBlock;
+import backend.units.MipsInstructionList;
+
+/**
+ * @author Gary
+ * @Description: 窥孔优化的窗口：已经处理完的指令像栈一样排列，get(0) 是栈顶，也就是刚写入的那条
+ * @date 2026/10/18 20:10
+ */
+public class PeepholeWindow {
+    private final MipsInstructionList out;
+    private final MipsBlock nextBlock;
+
+    public PeepholeWindow(MipsInstructionList out, MipsBlock nextBlock) {
+        this.out = out;
+        this.nextBlock = nextBlock;
+    }
+
+    /**
+     * 窗口中的指令数
+     */
+    public int size() {
+        return out.size();
+    }
+
+    /**
+     * 从栈顶往下数第 k 条指令，k 超出范围时返回 null
+     */
+    public MipsInstruction get(int k) {
+        if (k >= out.size()) {
+            return null;
+        }
+        return out.get(out.size() - 1 - k);
+    }
+
+    public void removeTop() {
+        out.removeLast();
+    }
+
+    public void replaceTop(MipsInstruction instruction) {
+        out.set(out.size() - 1, instruction);
+    }
+
+    /**
+     * 布局中紧跟在当前块之后的块，当前块是函数的最后一块时为 null
+     */
+    public MipsBlock getNextBlock() {
+        return nextBlock;
+    }
+}
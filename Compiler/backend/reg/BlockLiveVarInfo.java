@@ -4,90 +4,247 @@ import backend.instructions.MipsInstruction;
 import backend.operands.MipsOperand;
 import backend.units.MipsBlock;
 import backend.units.MipsFunction;
+import backend.units.MipsInstructionList;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.function.ToIntFunction;
 
 /**
  * @author Gary
  * @Description: 基本块的活跃变量分析
+ * 寄存器按 RegBuilder 给出的稠密编号存成 long[] 位集合，第 i 位代表第 i 个节点
+ * 用工作表求不动点：只有 liveIn 发生变化的块才会让它的前驱重新入表
  * @date 2024/11/29 18:24
  */
 public class BlockLiveVarInfo {
-    private final HashSet<MipsOperand> liveUse = new HashSet<>();
-    private final HashSet<MipsOperand> liveDef = new HashSet<>();
-    private HashSet<MipsOperand> liveIn = new HashSet<>();
-    private HashSet<MipsOperand> liveOut = new HashSet<>();
+    private final MipsBlock block;
+    private final ToIntFunction<MipsOperand> numbering;
+    private final long[] liveUse;
+    private final long[] liveDef;
+    private final long[] liveIn;
+    private final long[] liveOut;
+
+    private BlockLiveVarInfo(MipsBlock block, ToIntFunction<MipsOperand> numbering, int words) {
+        this.block = block;
+        this.numbering = numbering;
+        this.liveUse = new long[words];
+        this.liveDef = new long[words];
+        this.liveIn = new long[words];
+        this.liveOut = new long[words];
+    }
+
+    /**
+     * 逐条指令访问活跃信息的回调
+     */
+    public interface LiveOutVisitor {
+        /**
+         * @param instruction 当前指令
+         * @param liveOut 该指令之后活跃的节点集合，只读
+         */
+        void visit(MipsInstruction instruction, long[] liveOut);
+    }
 
     /**
      * 对一个函数以块为单位进行活跃变量分析
      *
+     * @param numbering 需要着色的寄存器到节点编号的映射
+     * @param nodeNum 节点总数
      * @return 一个每个 block 都对应的一个 info 的 map
      */
-    public static HashMap<MipsBlock, BlockLiveVarInfo> liveAnalysis(MipsFunction func) {
+    public static HashMap<MipsBlock, BlockLiveVarInfo> liveAnalysis(MipsFunction func,
+                                                                    ToIntFunction<MipsOperand> numbering, int nodeNum) {
+        int words = (nodeNum + 63) >>> 6;
+        ArrayList<MipsBlock> blocks = func.getMipsBlocks();
+        int blockNum = blocks.size();
         HashMap<MipsBlock, BlockLiveVarInfo> liveInfoMap = new HashMap<>();
-        // 开始遍历每一个 block
-        for(MipsBlock block : func.getMipsBlocks()){
-
-            BlockLiveVarInfo blockLiveInfo = new BlockLiveVarInfo();
+        HashMap<MipsBlock, Integer> indexMap = new HashMap<>();
+        BlockLiveVarInfo[] infos = new BlockLiveVarInfo[blockNum];
+        // 开始遍历每一个 block，计算 liveUse 和 liveDef
+        for (int i = 0; i < blockNum; i++) {
+            MipsBlock block = blocks.get(i);
+            BlockLiveVarInfo blockLiveInfo = new BlockLiveVarInfo(block, numbering, words);
+            infos[i] = blockLiveInfo;
             liveInfoMap.put(block, blockLiveInfo);
-            // 开始遍历 block 中的指令, 跟定义中的一模一样
-            for(MipsInstruction instruction : block.getInstructions()){
-                // 还没定义就被使用，这里是正确的
-                instruction.getUseRegs().stream()
-                        .filter(MipsOperand::needsColor)
-                        .filter(use -> !blockLiveInfo.liveDef.contains(use))
-                        .forEach(blockLiveInfo.liveUse::add);
-                // 还没使用就被定义，这里应该是错误的，因为定义就是定义，就是杀死，不会因为使用而不杀死
-                instruction.getDefRegs().stream()
-                        .filter(MipsOperand::needsColor)
-                        .forEach(blockLiveInfo.liveDef::add);
+            indexMap.put(block, i);
+            for (MipsInstruction instruction : block.getInstructions()) {
+                // 还没定义就被使用
+                for (MipsOperand use : instruction.getUseRegs()) {
+                    if (use.needsColor()) {
+                        int x = numbering.applyAsInt(use);
+                        if (!contains(blockLiveInfo.liveDef, x)) {
+                            add(blockLiveInfo.liveUse, x);
+                        }
+                    }
+                }
+                for (MipsOperand def : instruction.getDefRegs()) {
+                    if (def.needsColor()) {
+                        add(blockLiveInfo.liveDef, numbering.applyAsInt(def));
+                    }
+                }
             }
-            // 这里应该是没有问题的
-            blockLiveInfo.liveIn.addAll(blockLiveInfo.liveUse);
+            System.arraycopy(blockLiveInfo.liveUse, 0, blockLiveInfo.liveIn, 0, words);
         }
 
-        // 不动点
-        boolean changed = true;
-        while (changed) {
-            changed = false;
-            // 开始遍历 func 中的 block
-            for(MipsBlock block : func.getMipsBlocks()){
-                BlockLiveVarInfo blockLiveInfo = liveInfoMap.get(block);
-                HashSet<MipsOperand> newLiveOut = new HashSet<>();
-
-                // 下面是加入两个后继,这里是正确的，LiveOut 就是 LiveIn 的并集
-                if (block.getTrueSuccessor() != null) {
-                    BlockLiveVarInfo sucBlockInfo = liveInfoMap.get(block.getTrueSuccessor());
-                    newLiveOut.addAll(sucBlockInfo.liveIn);
+        // 后继与前驱，都用块的下标表示
+        int[][] succs = new int[blockNum][];
+        int[] preCnt = new int[blockNum];
+        for (int i = 0; i < blockNum; i++) {
+            MipsBlock block = blocks.get(i);
+            int trueSucc = block.getTrueSuccessor() == null ? -1 : indexMap.get(block.getTrueSuccessor());
+            int falseSucc = block.getFalseSuccessor() == null ? -1 : indexMap.get(block.getFalseSuccessor());
+            if (trueSucc != -1 && falseSucc != -1) {
+                succs[i] = new int[]{trueSucc, falseSucc};
+            } else if (trueSucc != -1 || falseSucc != -1) {
+                succs[i] = new int[]{Math.max(trueSucc, falseSucc)};
+            } else {
+                succs[i] = new int[0];
+            }
+            for (int succ : succs[i]) {
+                preCnt[succ]++;
+            }
+        }
+        int[][] pres = new int[blockNum][];
+        for (int i = 0; i < blockNum; i++) {
+            pres[i] = new int[preCnt[i]];
+            preCnt[i] = 0;
+        }
+        for (int i = 0; i < blockNum; i++) {
+            for (int succ : succs[i]) {
+                pres[succ][preCnt[succ]++] = i;
+            }
+        }
+
+        // 工作表：活跃变量是逆向问题，按后序（反向图上的逆后序）入表，后继先于前驱处理
+        int[] queue = new int[blockNum];
+        boolean[] inQueue = new boolean[blockNum];
+        int head = 0;
+        int size = 0;
+        for (int b : postOrder(succs, blockNum)) {
+            queue[size++] = b;
+            inQueue[b] = true;
+        }
+        long[] newLiveOut = new long[words];
+        while (size > 0) {
+            int b = queue[head];
+            head = (head + 1) % blockNum;
+            size--;
+            inQueue[b] = false;
+            BlockLiveVarInfo blockLiveInfo = infos[b];
+
+            // LiveOut 就是所有后继 LiveIn 的并集
+            Arrays.fill(newLiveOut, 0);
+            for (int succ : succs[b]) {
+                long[] succIn = infos[succ].liveIn;
+                for (int w = 0; w < words; w++) {
+                    newLiveOut[w] |= succIn[w];
                 }
+            }
+            if (Arrays.equals(newLiveOut, blockLiveInfo.liveOut)) {
+                continue;
+            }
+            System.arraycopy(newLiveOut, 0, blockLiveInfo.liveOut, 0, words);
 
-                if (block.getFalseSuccessor() != null) {
-                    BlockLiveVarInfo sucBlockInfo = liveInfoMap.get(block.getFalseSuccessor());
-                    newLiveOut.addAll(sucBlockInfo.liveIn);
+            // liveIn = liveUse + (liveOut - liveDef)，而且只会变大
+            boolean inChanged = false;
+            for (int w = 0; w < words; w++) {
+                long in = blockLiveInfo.liveUse[w] | (newLiveOut[w] & ~blockLiveInfo.liveDef[w]);
+                if (in != blockLiveInfo.liveIn[w]) {
+                    blockLiveInfo.liveIn[w] = in;
+                    inChanged = true;
                 }
+            }
+            if (inChanged) {
+                for (int pre : pres[b]) {
+                    if (!inQueue[pre]) {
+                        inQueue[pre] = true;
+                        queue[(head + size) % blockNum] = pre;
+                        size++;
+                    }
+                }
+            }
+        }
 
-                // 第一次的时候应该是没有办法 equal 的，这是因为之前 liveOut 并没有被赋值
-                if (!newLiveOut.equals(blockLiveInfo.liveOut)) {
-                    changed = true;
-                    blockLiveInfo.liveOut = newLiveOut;
+        return liveInfoMap;
+    }
 
-                    // 这里模拟的是 LiveUse
-                    blockLiveInfo.liveIn = new HashSet<>(blockLiveInfo.liveUse);
+    /**
+     * 从入口块出发求后序，不可达的块排在最后
+     */
+    private static int[] postOrder(int[][] succs, int blockNum) {
+        int[] order = new int[blockNum];
+        int cnt = 0;
+        boolean[] visited = new boolean[blockNum];
+        int[] stack = new int[blockNum];
+        int[] nextSucc = new int[blockNum];
+        if (blockNum > 0) {
+            int top = 0;
+            stack[top++] = 0;
+            visited[0] = true;
+            while (top > 0) {
+                int b = stack[top - 1];
+                if (nextSucc[b] < succs[b].length) {
+                    int succ = succs[b][nextSucc[b]++];
+                    if (!visited[succ]) {
+                        visited[succ] = true;
+                        stack[top++] = succ;
+                    }
+                } else {
+                    order[cnt++] = b;
+                    top--;
+                }
+            }
+        }
+        for (int b = 0; b < blockNum; b++) {
+            if (!visited[b]) {
+                order[cnt++] = b;
+            }
+        }
+        return order;
+    }
 
-                    // liveIn = liveUse + liveOut - liveDef
-                    // 这里模拟的是取差集，也是符合的，就是不知道为啥外面要加个循环
-                    blockLiveInfo.liveOut.stream()
-                            .filter(objOperand -> !blockLiveInfo.liveDef.contains(objOperand))
-                            .forEach(blockLiveInfo.liveIn::add);
+    /**
+     * 从块尾到块首逐条访问指令，并给出每条指令之后的活跃集合
+     * 访问完一条指令后，活跃集合 = 活跃集合 - def + use
+     */
+    public void walkBackward(LiveOutVisitor visitor) {
+        long[] live = liveOut.clone();
+        MipsInstructionList instructions = block.getInstructions();
+        for (int i = instructions.size() - 1; i >= 0; i--) {
+            MipsInstruction instruction = instructions.get(i);
+            visitor.visit(instruction, live);
+            for (MipsOperand def : instruction.getDefRegs()) {
+                if (def.needsColor()) {
+                    remove(live, numbering.applyAsInt(def));
+                }
+            }
+            for (MipsOperand use : instruction.getUseRegs()) {
+                if (use.needsColor()) {
+                    add(live, numbering.applyAsInt(use));
                 }
             }
         }
+    }
 
-        return liveInfoMap;
+    // ============ 位集合操作 ============
+    public static boolean contains(long[] set, int x) {
+        return (set[x >>> 6] & (1L << x)) != 0;
+    }
+
+    public static void add(long[] set, int x) {
+        set[x >>> 6] |= 1L << x;
+    }
+
+    public static void remove(long[] set, int x) {
+        set[x >>> 6] &= ~(1L << x);
+    }
+
+    public long[] getLiveIn() {
+        return liveIn;
     }
 
-    public HashSet<MipsOperand> getLiveOut() {
+    public long[] getLiveOut() {
         return liveOut;
     }
 }
@@ -0,0 +1,84 @@
+package backend.reg;
+
+import java.util.Arrays;
+
+/**
+ * @author Gary
+ * @Description: 稠密整数集合，元素范围是[0, capacity)
+ * 用items数组存元素、pos数组存下标，增删查都是O(1)，删除时用末尾元素填坑，不产生任何对象
+ * 寄存器分配中的各种worklist都用它来代替HashSet
+ * @date 2026/10/18 16:20
+ */
+public class IntSet {
+    private int[] items;
+    private int[] pos;      // pos[x] = x在items中的下标，不在集合中为-1
+    private int size = 0;
+
+    public IntSet(int capacity) {
+        items = new int[Math.max(capacity, 4)];
+        pos = new int[Math.max(capacity, 4)];
+        Arrays.fill(pos, -1);
+    }
+
+    // 节点空间扩大时（溢出重写会产生新的虚拟寄存器）使用
+    private void ensureCapacity(int x) {
+        if (x < pos.length) {
+            return;
+        }
+        int newLength = Math.max(pos.length * 2, x + 1);
+        int oldLength = pos.length;
+        pos = Arrays.copyOf(pos, newLength);
+        Arrays.fill(pos, oldLength, newLength, -1);
+        items = Arrays.copyOf(items, newLength);
+    }
+
+    public boolean contains(int x) {
+        return x < pos.length && pos[x] != -1;
+    }
+
+    public boolean add(int x) {
+        ensureCapacity(x);
+        if (pos[x] != -1) {
+            return false;
+        }
+        pos[x] = size;
+        items[size++] = x;
+        return true;
+    }
+
+    public boolean remove(int x) {
+        if (!contains(x)) {
+            return false;
+        }
+        int index = pos[x];
+        int last = items[--size];
+        items[index] = last;
+        pos[last] = index;
+        pos[x] = -1;
+        return true;
+    }
+
+    // 取出并删除任意一个元素（最后加入的那个）
+    public int pop() {
+        int x = items[size - 1];
+        remove(x);
+        return x;
+    }
+
+    // 查看任意一个元素而不删除
+    public int peek() {
+        return items[size - 1];
+    }
+
+    public int get(int index) {
+        return items[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+}
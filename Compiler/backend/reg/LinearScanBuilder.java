@@ -0,0 +1,302 @@
+package backend.reg;
+
+import backend.instructions.MipsInstruction;
+import backend.instructions.MipsLoad;
+import backend.instructions.MipsMove;
+import backend.instructions.MipsStore;
+import backend.operands.MipsImm;
+import backend.operands.MipsOperand;
+import backend.operands.MipsRReg;
+import backend.operands.MipsVReg;
+import backend.units.MipsBlock;
+import backend.units.MipsFunction;
+import backend.units.MipsInstructionList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * @author Gary
+ * @Description: 线性扫描寄存器分配，用于图着色太慢的超大函数
+ * 1. 按 getMipsBlocks() 的线性顺序给指令编号，第 i 条指令的 use 在 2i，def 在 2i+1
+ * 2. 每个虚拟寄存器的活跃区间取它所有活跃位置的最小值到最大值（块入口活跃、块出口活跃、def、use）
+ * 3. 按起点扫描区间，寄存器池与图着色相同（Reg.regs4Alloca），不够用时溢出终点最远的区间
+ * 4. 被溢出的区间在每次 use/def 处拆分成只覆盖一条指令的短区间（前面 lw、后面 sw），短区间不会再被溢出，然后重新扫描
+ *    可重物化的区间（见 Remat）不占栈空间，删掉定义，在每次 use 前重新计算
+ * 虚拟寄存器只会分到 t、s 寄存器，与预着色的 a、v、ra 等寄存器没有冲突，所以不需要处理预着色区间
+ * @date 2026/10/18 18:30
+ */
+public class LinearScanBuilder {
+    private final MipsFunction function;
+    private NodeNumbering nodes;
+    private int nodeNum;
+    /**
+     * 每个节点活跃区间的起点和终点，没有出现过的节点起点为 -1
+     */
+    private int[] start;
+    private int[] end;
+    /**
+     * 偏好的节点：move dst, src 中 dst 偏好 src 的寄存器，这样 move 两边可以是同一个寄存器
+     */
+    private int[] hint;
+    /**
+     * 每个节点分到的寄存器号，-1 表示没有
+     */
+    private int[] color;
+    /**
+     * 溢出改写时拆分出的短区间，不能再被溢出
+     */
+    private final HashSet<MipsVReg> splitVRegs = new HashSet<>();
+
+    public LinearScanBuilder(MipsFunction function) {
+        this.function = function;
+    }
+
+    /**
+     * 分配入口：扫描直到没有溢出，再把虚拟寄存器替换成物理寄存器
+     */
+    public void allocate() {
+        while (true) {
+            nodes = new NodeNumbering(function);
+            nodeNum = nodes.size();
+            buildIntervals();
+            ArrayList<Integer> spilled = scan();
+            if (spilled.isEmpty()) {
+                break;
+            }
+            rewriteProgram(spilled);
+        }
+        replaceRegs();
+    }
+
+    // ============ 1. 活跃区间 ============
+    private void buildIntervals() {
+        start = new int[nodeNum];
+        end = new int[nodeNum];
+        hint = new int[nodeNum];
+        Arrays.fill(start, -1);
+        Arrays.fill(end, -1);
+        Arrays.fill(hint, -1);
+        HashMap<MipsBlock, BlockLiveVarInfo> liveInfoMap = BlockLiveVarInfo.liveAnalysis(function, nodes::nodeOf, nodeNum);
+        int pos = 0;
+        for (MipsBlock block : function.getMipsBlocks()) {
+            BlockLiveVarInfo liveInfo = liveInfoMap.get(block);
+            int blockStart = pos;
+            extendAll(liveInfo.getLiveIn(), blockStart);
+            for (MipsInstruction instruction : block.getInstructions()) {
+                for (MipsOperand use : instruction.getUseRegs()) {
+                    if (use instanceof MipsVReg) {
+                        extend(nodes.nodeOf(use), pos);
+                    }
+                }
+                for (MipsOperand def : instruction.getDefRegs()) {
+                    if (def instanceof MipsVReg) {
+                        extend(nodes.nodeOf(def), pos + 1);
+                    }
+                }
+                if (instruction instanceof MipsMove move
+                        && move.getDst() instanceof MipsVReg && move.getSrc(1) instanceof MipsVReg) {
+                    hint[nodes.nodeOf(move.getDst())] = nodes.nodeOf(move.getSrc(1));
+                }
+                pos += 2;
+            }
+            extendAll(liveInfo.getLiveOut(), Math.max(pos - 1, blockStart));
+        }
+    }
+
+    private void extend(int node, int pos) {
+        if (start[node] == -1 || pos < start[node]) {
+            start[node] = pos;
+        }
+        if (pos > end[node]) {
+            end[node] = pos;
+        }
+    }
+
+    private void extendAll(long[] live, int pos) {
+        for (int w = 0; w < live.length; w++) {
+            long bits = live[w];
+            while (bits != 0) {
+                int node = (w << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                if (!NodeNumbering.isPrecolored(node)) {
+                    extend(node, pos);
+                }
+            }
+        }
+    }
+
+    // ============ 2. 扫描 ============
+    /**
+     * @return 被溢出的节点
+     */
+    private ArrayList<Integer> scan() {
+        color = new int[nodeNum];
+        Arrays.fill(color, -1);
+        // 按起点排序：高 32 位是起点，低 32 位是节点号
+        int cnt = 0;
+        long[] order = new long[nodeNum];
+        for (int n = NodeNumbering.PRECOLORED_NUM; n < nodeNum; n++) {
+            if (start[n] != -1) {
+                order[cnt++] = ((long) start[n] << 32) | n;
+            }
+        }
+        Arrays.sort(order, 0, cnt);
+
+        ArrayList<Integer> spilled = new ArrayList<>();
+        boolean[] free = new boolean[NodeNumbering.PRECOLORED_NUM];
+        for (int reg : RegBuilder.allocaOrder) {
+            free[reg] = true;
+        }
+        // 正在占用寄存器的区间，最多有寄存器池那么多个
+        int[] active = new int[RegBuilder.allocaOrder.length];
+        int activeCnt = 0;
+        for (int k = 0; k < cnt; k++) {
+            int cur = (int) order[k];
+            // 释放已经结束的区间
+            for (int i = 0; i < activeCnt; ) {
+                if (end[active[i]] < start[cur]) {
+                    free[color[active[i]]] = true;
+                    active[i] = active[--activeCnt];
+                } else {
+                    i++;
+                }
+            }
+            int reg = pickFreeReg(cur, free);
+            if (reg != -1) {
+                color[cur] = reg;
+                free[reg] = false;
+                active[activeCnt++] = cur;
+                continue;
+            }
+            // 没有空闲寄存器：在正在占用的区间和当前区间里，溢出终点最远的那个
+            int victim = isSplit(cur) ? -1 : cur;
+            int victimIndex = -1;
+            for (int i = 0; i < activeCnt; i++) {
+                int a = active[i];
+                if (!isSplit(a) && (victim == -1 || end[a] > end[victim])) {
+                    victim = a;
+                    victimIndex = i;
+                }
+            }
+            if (victim == -1) {
+                // 同一位置的短区间不会超过寄存器池的大小，不会走到这里
+                System.out.println("GaryError: 线性扫描无法为 " + nodes.get(cur) + " 分配寄存器");
+            } else if (victimIndex == -1) {
+                spilled.add(cur);
+            } else {
+                color[cur] = color[victim];
+                color[victim] = -1;
+                active[victimIndex] = cur;
+                spilled.add(victim);
+            }
+        }
+        return spilled;
+    }
+
+    private boolean isSplit(int node) {
+        return splitVRegs.contains((MipsVReg) nodes.get(node));
+    }
+
+    /**
+     * 优先使用偏好节点的寄存器，否则按寄存器号从小到大选
+     */
+    private int pickFreeReg(int cur, boolean[] free) {
+        int h = hint[cur];
+        if (h != -1 && color[h] != -1 && free[color[h]]) {
+            return color[h];
+        }
+        for (int reg : RegBuilder.allocaOrder) {
+            if (free[reg]) {
+                return reg;
+            }
+        }
+        return -1;
+    }
+
+    // ============ 3. 溢出改写 ============
+    /**
+     * 每个被溢出的节点在栈上占 4 字节，每次 use 之前 lw 到新的虚拟寄存器，每次 def 之后 sw 回栈
+     * 可重物化的节点不分配栈空间，每次 use 之前插入它的定义的复制
+     */
+    private void rewriteProgram(ArrayList<Integer> spilled) {
+        MipsInstruction[] rematDefs = Remat.findRematDefs(function, nodes);
+        MipsImm[] slots = new MipsImm[nodeNum];
+        boolean[] remat = new boolean[nodeNum];
+        for (int n : spilled) {
+            if (rematDefs[n] != null) {
+                remat[n] = true;
+                continue;
+            }
+            slots[n] = function.addStackSlot(4, true).getOffset();
+        }
+        for (MipsBlock block : function.getMipsBlocks()) {
+            MipsInstructionList.Cursor cursor = block.getInstructions().cursor();
+            while (cursor.hasNext()) {
+                MipsInstruction instruction = cursor.next();
+                MipsOperand dst = instruction.getDst();
+                if (dst instanceof MipsVReg && remat[nodes.nodeOf(dst)] && instruction == rematDefs[nodes.nodeOf(dst)]) {
+                    cursor.remove();
+                    continue;
+                }
+                ArrayList<MipsOperand> regs = new ArrayList<>(instruction.getUseRegs());
+                regs.addAll(instruction.getDefRegs());
+                for (MipsOperand reg : regs) {
+                    if (!(reg instanceof MipsVReg)) {
+                        continue;
+                    }
+                    int n = nodes.nodeOf(reg);
+                    if (slots[n] == null && !remat[n]) {
+                        continue;
+                    }
+                    boolean used = instruction.getUseRegs().contains(reg);
+                    boolean defined = instruction.getDefRegs().contains(reg);
+                    // 同一个寄存器在这条指令中出现多次时，第一次就已经全部替换了
+                    if (!used && !defined) {
+                        continue;
+                    }
+                    MipsVReg split = new MipsVReg();
+                    function.addUsedVReg(split);
+                    splitVRegs.add(split);
+                    instruction.replaceReg(reg, split);
+                    if (remat[n]) {
+                        // 可重物化的节点只有被删掉的那一个定义，这里只会是 use
+                        cursor.insertBefore(Remat.rebuild(rematDefs[n], split));
+                        continue;
+                    }
+                    MipsImm slot = slots[n];
+                    if (used) {
+                        cursor.insertBefore(new MipsLoad(split, MipsRReg.SP, slot));
+                    }
+                    if (defined) {
+                        cursor.insertAfter(new MipsStore(split, MipsRReg.SP, slot));
+                    }
+                }
+            }
+            cursor.finish();
+        }
+    }
+
+    // ============ 4. 替换 ============
+    private void replaceRegs() {
+        MipsOperand[] colored = new MipsOperand[nodeNum];
+        for (int n = NodeNumbering.PRECOLORED_NUM; n < nodeNum; n++) {
+            if (color[n] != -1) {
+                colored[n] = new MipsRReg(Reg.getRegType(color[n]), true);
+            }
+        }
+        for (MipsBlock block : function.getMipsBlocks()) {
+            for (MipsInstruction instruction : block.getInstructions()) {
+                ArrayList<MipsOperand> regs = new ArrayList<>(instruction.getDefRegs());
+                regs.addAll(instruction.getUseRegs());
+                for (MipsOperand reg : regs) {
+                    if (reg instanceof MipsVReg && colored[nodes.nodeOf(reg)] != null) {
+                        instruction.replaceReg(reg, colored[nodes.nodeOf(reg)]);
+                    }
+                }
+            }
+        }
+    }
+}
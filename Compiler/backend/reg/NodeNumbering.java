@@ -0,0 +1,81 @@
+package backend.reg;
+
+import backend.instructions.MipsInstruction;
+import backend.operands.MipsOperand;
+import backend.operands.MipsRReg;
+import backend.operands.MipsVReg;
+import backend.units.MipsBlock;
+import backend.units.MipsFunction;
+
+import java.util.ArrayList;
+
+/**
+ * @author Gary
+ * @Description: 给一个函数中所有需要着色的寄存器稠密编号，供寄存器分配和活跃变量分析使用
+ * 0~31 是物理寄存器（预着色），编号就是寄存器号；虚拟寄存器从 32 开始
+ * 编号记在 MipsVReg 里，通过 nodes 核对，所以上一轮或其他函数留下的旧编号不会被误用
+ * @date 2026/10/18 18:10
+ */
+public class NodeNumbering {
+    /**
+     * 预着色节点的数量，即物理寄存器的数量
+     */
+    public static final int PRECOLORED_NUM = 32;
+    /**
+     * 节点编号到操作数的映射，nodes.get(i) 就是第 i 个节点
+     */
+    private final ArrayList<MipsOperand> nodes = new ArrayList<>();
+
+    public NodeNumbering(MipsFunction function) {
+        for (int i = 0; i < PRECOLORED_NUM; i++) {
+            nodes.add(new MipsRReg(i));
+        }
+        for (MipsVReg virReg : function.getUsedVRegs()) {
+            nodeOf(virReg);
+        }
+        // 指令中出现但没有登记在 usedVRegs 中的虚拟寄存器，也要参与分配
+        for (MipsBlock block : function.getMipsBlocks()) {
+            for (MipsInstruction instruction : block.getInstructions()) {
+                for (MipsOperand reg : instruction.getDefRegs()) {
+                    if (reg instanceof MipsVReg) {
+                        nodeOf(reg);
+                    }
+                }
+                for (MipsOperand reg : instruction.getUseRegs()) {
+                    if (reg instanceof MipsVReg) {
+                        nodeOf(reg);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 查询一个需要着色的寄存器的节点编号，虚拟寄存器第一次出现时分配新编号
+     */
+    public int nodeOf(MipsOperand reg) {
+        if (reg instanceof MipsRReg rReg) {
+            return rReg.getType().number;
+        }
+        MipsVReg virReg = (MipsVReg) reg;
+        int index = virReg.getNodeIndex();
+        if (index >= PRECOLORED_NUM && index < nodes.size() && nodes.get(index) == virReg) {
+            return index;
+        }
+        virReg.setNodeIndex(nodes.size());
+        nodes.add(virReg);
+        return nodes.size() - 1;
+    }
+
+    public MipsOperand get(int index) {
+        return nodes.get(index);
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    public static boolean isPrecolored(int u) {
+        return u < PRECOLORED_NUM;
+    }
+}
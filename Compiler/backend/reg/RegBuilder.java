@@ -10,17 +10,19 @@ import backend.operands.MipsRReg;
 import backend.operands.MipsVReg;
 import backend.units.MipsBlock;
 import backend.units.MipsFunction;
+import backend.units.MipsInstructionList;
 import backend.units.MipsModule;
-import utils.MipsUtils;
+import utils.OptConfig;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * @author Gary
  * @Description: 分配寄存器，使用图着色算法
  * 参照教程的步骤来
  * 7步走：1. 构造（build）；2. 简化（simplify）；3. 合并（coalesce）；4. 冻结（freeze）；5. 溢出（spill）；6. 选择（select）；7. 重新开始（restart）
+ * 冲突图中的节点都用整数编号：0~31 是物理寄存器（预着色），编号就是寄存器号；虚拟寄存器从 32 开始，每轮重新编号
+ * 这样边集合可以用三角位矩阵，度、别名、各个 worklist 都可以用数组，不再需要 HashMap 和 Pair
  * @date 2024/11/29 16:22
  */
 public class RegBuilder {
@@ -31,247 +33,395 @@ public class RegBuilder {
      * 在保存现场时需要保存的寄存器数量
      */
     private final int K = Reg.regs4Alloca.size();
+    /**
+     * 可分配寄存器的编号，按寄存器号从小到大，着色时依次尝试
+     */
+    static final int[] allocaOrder = Reg.regs4Alloca.stream().mapToInt(reg -> reg.number).sorted().toArray();
+    /**
+     * 预着色节点的数量，即物理寄存器的数量
+     */
+    private static final int PRECOLORED_NUM = NodeNumbering.PRECOLORED_NUM;
     /**
      * 每个基本块对应的活跃变量分析信息
      */
     private HashMap<MipsBlock, BlockLiveVarInfo> blockLiveInfoMap;
     /**
-     * 根据一个节点查询与之相关的节点组
+     * 本轮的节点编号
+     */
+    private NodeNumbering nodes;
+    /**
+     * 节点总数
+     */
+    private int nodeNum;
+    /**
+     * 根据一个节点查询与之相关的节点组，adjList[u] 的前 adjCnt[u] 个元素有效，预着色节点不记录
      **/
-    private HashMap<MipsOperand, HashSet<MipsOperand>> adjList;
+    private int[][] adjList;
+    private int[] adjCnt;
     /**
-     * 边的集合
+     * 边的集合，下三角位矩阵：(u, v) 且 u > v 时，对应第 u * (u - 1) / 2 + v 位
      */
-    private HashSet<Pair<MipsOperand, MipsOperand>> adjSet;
+    private long[] adjSet;
     /**
      * 当一条传送指令 (u,v) 被合并，且 v 已经被放入 coalescedNodes 中，alias(v) = u
      */
-    private HashMap<MipsOperand, MipsOperand> alias;
+    private int[] alias;
+    /**
+     * 节点的度，预着色节点为无穷大
+     */
+    private int[] degree;
+    /**
+     * 节点的状态：普通（在某个 worklist 中或还未处理）、已合并、已压入 selectStack
+     */
+    private byte[] nodeState;
+    private static final byte NODE_NORMAL = 0;
+    private static final byte NODE_COALESCED = 1;
+    private static final byte NODE_SELECTED = 2;
+    /**
+     * 溢出代价：每次 def/use 按所在块的循环深度加权 10^depth 后求和
+     * 可重物化节点溢出时不需要存栈，它的 def 不计入代价
+     */
+    private double[] spillCost;
+    /**
+     * 每个节点唯一的可重物化定义，见 Remat，不能重物化的节点为 null
+     */
+    private MipsInstruction[] rematDefs;
+    /**
+     * 节点出现的第一条和最后一条指令的位置（逆序遍历时的编号），用于识别短活跃区间
+     */
+    private int[] rangeFirst;
+    private int[] rangeLast;
+    /**
+     * 在某个基本块入口或出口活跃的节点，它们的活跃区间跨越了基本块
+     */
+    private long[] crossBlock;
+    /**
+     * 逆序遍历指令时的当前位置
+     */
+    private int curPos;
     /**
-     * 从一个节点到与该节点相关的 mov 指令之间的映射
+     * 首尾相距不超过这么多条指令、且不跨基本块的活跃区间算作短区间，溢出它不会降低寄存器压力
      */
-    private HashMap<MipsOperand, HashSet<MipsMove>> moveList;
+    private static final int SHORT_RANGE = 2;
     /**
      * 高度数的节点表
      */
-    private HashSet<MipsOperand> spillList;
-    private HashSet<MipsOperand> simplifyList;
+    private IntSet spillList;
+    private IntSet simplifyList;
     /**
      * 低度数的，传送有关的节点表
      */
-    private HashSet<MipsOperand> freezeList;
+    private IntSet freezeList;
     /**
      * 本轮中要被溢出的节点的集合
      */
-    private HashSet<MipsOperand> spilledNodes;
+    private ArrayList<MipsOperand> spilledNodes;
     /**
-     * 已合并的节点的集合，比如将 u 合并到 v，那么将 u 加入这里，然后 v 加入其他集合
+     * 已合并的节点，比如将 u 合并到 v，那么将 u 加入这里，然后 v 加入其他集合
      */
-    private HashSet<MipsOperand> coalescedNodes;
-    /**
-     * 已经合并的传送指令集合
-     */
-    private HashSet<MipsInstruction> coalescedMoves;
+    private IntSet coalescedNodes;
     /**
      * 包含删除的点
      */
-    private Stack<MipsOperand> selectStack;
+    private int[] selectStack;
+    private int selectTop;
     /**
-     * 源操作数和目标操作数冲突的传送指令集合
+     * 所有与着色相关的 move 指令，下标就是 move 的编号
      */
-    private HashSet<MipsMove> constrainedMoves;
+    private ArrayList<MipsMove> moves;
     /**
-     * 不考虑合并的传送指令集合
+     * 从一个节点到与该节点相关的 move 编号之间的映射，moveList[u] 的前 moveCnt[u] 个元素有效
      */
-    private HashSet<MipsMove> frozenMoves;
+    private int[][] moveList;
+    private int[] moveCnt;
     /**
-     * 有可能合并的move指令集合
+     * move 的状态：已合并、受抑制（源和目标冲突）、冻结（不考虑合并）、还未做好合并准备
      */
-    private HashSet<MipsMove> mergableMoves;
+    private byte[] moveState;
+    private static final byte MOVE_MERGABLE = 0;
+    private static final byte MOVE_ACTIVE = 1;
+    private static final byte MOVE_COALESCED = 2;
+    private static final byte MOVE_CONSTRAINED = 3;
+    private static final byte MOVE_FROZEN = 4;
     /**
-     * 还未做好合并准备的传送指令集合
+     * 有可能合并的move指令集合
      */
-    private HashSet<MipsMove> activeMoves;
+    private IntSet mergableMoves;
     /**
-     * 节点的度
+     * 求并集时用于去重的标记数组，mark[i] == stamp 说明本次已经见过 i
      */
-    private HashMap<MipsOperand, Integer> degree;
+    private int[] nodeMark;
+    private int[] moveMark;
+    private int stamp = 0;
     /**
      * 新的虚拟寄存器，用来处理溢出解决时引入的新的虚拟寄存器
      */
     private MipsVReg vReg = null;
-    /**
-     * 存储操作数和所在的基本块对应的循环深度
-     */
-    private final HashMap<MipsOperand, Integer> loopDepths = new HashMap<>();
 
     /**
-     * 初始化记录状态的数据结构
+     * 给本轮出现的所有寄存器编号，并初始化记录状态的数据结构
      */
     private void init() {
-        blockLiveInfoMap = BlockLiveVarInfo.liveAnalysis(curFunction);
-        adjList = new HashMap<>();
-        adjSet = new HashSet<>();
-        alias = new HashMap<>();
-        moveList = new HashMap<>();
-        simplifyList = new HashSet<>();
-        freezeList = new HashSet<>();
-        spillList = new HashSet<>();
-        spilledNodes = new HashSet<>();
-        coalescedNodes = new HashSet<>();
-        selectStack = new Stack<>();
-
-        mergableMoves = new HashSet<>();
-        activeMoves = new HashSet<>();
-        // 下面这三个变量不一定用得到，但是 coalescedMoves 考虑删掉里面所有的 move，似乎是之前代码没有办到的
-        coalescedMoves = new HashSet<>();
-        frozenMoves = new HashSet<>();
-        constrainedMoves = new HashSet<>();
-
-        degree = new HashMap<>();
+        nodes = new NodeNumbering(curFunction);
+        nodeNum = nodes.size();
+        blockLiveInfoMap = BlockLiveVarInfo.liveAnalysis(curFunction, this::nodeOf, nodeNum);
+
+        adjList = new int[nodeNum][];
+        adjCnt = new int[nodeNum];
+        adjSet = new long[(int) ((triangleIndex(nodeNum, 0) >>> 6) + 1)];
+        alias = new int[nodeNum];
+        degree = new int[nodeNum];
+        nodeState = new byte[nodeNum];
+        spillCost = new double[nodeNum];
+        rematDefs = Remat.findRematDefs(curFunction, nodes);
+        rangeFirst = new int[nodeNum];
+        rangeLast = new int[nodeNum];
+        Arrays.fill(rangeLast, Integer.MIN_VALUE);
+        crossBlock = new long[(nodeNum + 63) >>> 6];
+        curPos = 0;
+        simplifyList = new IntSet(nodeNum);
+        freezeList = new IntSet(nodeNum);
+        spillList = new IntSet(nodeNum);
+        spilledNodes = new ArrayList<>();
+        coalescedNodes = new IntSet(nodeNum);
+        selectStack = new int[nodeNum];
+        selectTop = 0;
+
+        moves = new ArrayList<>();
+        moveList = new int[nodeNum][];
+        moveCnt = new int[nodeNum];
+        mergableMoves = new IntSet(16);
+        nodeMark = new int[nodeNum];
+        stamp = 0;
+
         // 物理寄存器需要度无限大
-        for (int i = 0; i < 32; i++) {
-            degree.put(new MipsRReg(i), Integer.MAX_VALUE);
+        for (int i = 0; i < PRECOLORED_NUM; i++) {
+            degree[i] = Integer.MAX_VALUE;
         }
     }
 
+    private int nodeOf(MipsOperand reg) {
+        return nodes.nodeOf(reg);
+    }
+
+    private boolean isPrecolored(int u) {
+        return NodeNumbering.isPrecolored(u);
+    }
+
+    private static long triangleIndex(int u, int v) {
+        return (long) u * (u - 1) / 2 + v;
+    }
+
+    private boolean hasEdge(int u, int v) {
+        if (u < v) {
+            int tmp = u;
+            u = v;
+            v = tmp;
+        }
+        long index = triangleIndex(u, v);
+        return (adjSet[(int) (index >>> 6)] & (1L << index)) != 0;
+    }
+
+    /**
+     * 向一个可变长的整数数组末尾追加元素，返回追加后的数组（可能扩容）
+     */
+    private static int[] append(int[] array, int cnt, int x) {
+        if (array == null) {
+            array = new int[4];
+        } else if (cnt == array.length) {
+            array = Arrays.copyOf(array, cnt * 2);
+        }
+        array[cnt] = x;
+        return array;
+    }
+
     /**
      * 在冲突图上添加无向边
      *
      * @param u 第一个节点
      * @param v 第二个节点
      */
-    private void addEdge(MipsOperand u, MipsOperand v) {
+    private void addEdge(int u, int v) {
         // 如果没有这条边而且这个边不是自环
-        // 从上面就可以看出，adjSet 是个边的集合，边是用 pair 模拟的
-        if (!adjSet.contains(new Pair<>(u, v)) && !u.equals(v)) {
-            // 无向边的加法
-            adjSet.add(new Pair<>(u, v));
-            adjSet.add(new Pair<>(v, u));
+        if (u != v && !hasEdge(u, v)) {
+            // 无向边只需要在下三角记录一次
+            long index = u > v ? triangleIndex(u, v) : triangleIndex(v, u);
+            adjSet[(int) (index >>> 6)] |= 1L << index;
 
             // 操作条件都是没有被预着色
-            if (!u.isPrecolored()) {
-                // 从这里看，adjList 是一个可以用节点查询所连接的所有节点的一个结构
-                adjList.putIfAbsent(u, new HashSet<>());
-                adjList.get(u).add(v);
-                // degree.putIfAbsent(u, 0);
-                // degree 则是用来表示节点的度的
-                degree.compute(u, (key, value) -> value == null ? 0 : value + 1);
+            if (!isPrecolored(u)) {
+                // adjList 是一个可以用节点查询所连接的所有节点的一个结构，degree 则是用来表示节点的度的
+                adjList[u] = append(adjList[u], adjCnt[u]++, v);
+                degree[u]++;
             }
-            if (!v.isPrecolored()) {
-                adjList.putIfAbsent(v, new HashSet<>());
-                adjList.get(v).add(u);
-                degree.compute(v, (key, value) -> value == null ? 0 : value + 1);
+            if (!isPrecolored(v)) {
+                adjList[v] = append(adjList[v], adjCnt[v]++, u);
+                degree[v]++;
             }
         }
     }
 
     /**
      * 通过逆序遍历函数中的所有指令, 生成冲突图
-     * live 是每条指令的冲突变量集合
+     * 每条指令之后的活跃集合由活跃变量分析逐条给出，这里只负责连边
      */
     private void buildConflictGraph() {
         // 倒序遍历 block
         ArrayList<MipsBlock> blocks = curFunction.getMipsBlocks();
         for (int i = blocks.size() - 1; i >= 0; i--) {
             MipsBlock block = blocks.get(i);
-            // 假设出口活跃
-            // live 是一个很有意思的东西，他看似一个 block 只有一个，但是因为每条指令都更新它，所以它本质是一个指令颗粒度的东西
-            // 根据 live 的内容去构建冲突图
-            HashSet<MipsOperand> live = new HashSet<>(blockLiveInfoMap.get(block).getLiveOut());
-
-            // 倒序遍历 Instruction
-            LinkedList<MipsInstruction> instructions = block.getInstructions();
-            for (int j = instructions.size() - 1; j >= 0; j--) {
-                MipsInstruction instruction = instructions.get(j);
+            // 循环深度过大时权重封顶，避免溢出成无穷大
+            double weight = Math.pow(10, Math.min(block.getLoopDepth(), 8));
+            BlockLiveVarInfo liveInfo = blockLiveInfoMap.get(block);
+            for (int w = 0; w < crossBlock.length; w++) {
+                crossBlock[w] |= liveInfo.getLiveIn()[w] | liveInfo.getLiveOut()[w];
+            }
+            // 倒序遍历 Instruction，live 是这条指令之后的活跃集合
+            liveInfo.walkBackward((instruction, live) -> {
                 ArrayList<MipsOperand> regDef = instruction.getDefRegs();
                 ArrayList<MipsOperand> regUse = instruction.getUseRegs();
 
-                // 对于 mov 指令，需要特殊处理
+                // 对于 mov 指令，需要特殊处理：源操作数不与目标冲突，这样两者才有可能合并
+                int moveSrc = -1;
                 if (instruction instanceof MipsMove move) {
                     MipsOperand src = move.getSrc(1);
                     MipsOperand dst = move.getDst();
 
                     if (src.needsColor() && dst.needsColor()) {
-                        live.remove(src);
-
-                        moveList.putIfAbsent(src, new HashSet<>());
-                        moveList.get(src).add(move);
-
-                        moveList.putIfAbsent(dst, new HashSet<>());
-                        moveList.get(dst).add(move);
+                        int s = nodeOf(src);
+                        int d = nodeOf(dst);
+                        moveSrc = s;
+
+                        int m = moves.size();
+                        moves.add(move);
+                        moveList[s] = append(moveList[s], moveCnt[s]++, m);
+                        moveList[d] = append(moveList[d], moveCnt[d]++, m);
                         // 此时是有可能被合并的
-                        mergableMoves.add(move);
-//                        System.out.println("特殊处理move指令：" + move);
+                        mergableMoves.add(m);
                     }
                 }
 
-                regDef.stream().filter(MipsOperand::needsColor).forEach(live::add);
-
                 // 构建冲突边的时候，只是构建了 def 与 live 的冲突，这样似乎不够
                 // 但是其实，是够得，因为在一个个指令的遍历中，能增加边的，只有 def 导致的活跃
-                regDef.stream().filter(MipsOperand::needsColor).forEach(d -> live.forEach(l -> addEdge(l, d)));
+                // 同一条指令的多个 def 之间也互相冲突
+                for (MipsOperand reg : regDef) {
+                    if (!reg.needsColor()) {
+                        continue;
+                    }
+                    int d = nodeOf(reg);
+                    for (int w = 0; w < live.length; w++) {
+                        long bits = live[w];
+                        while (bits != 0) {
+                            int l = (w << 6) + Long.numberOfTrailingZeros(bits);
+                            bits &= bits - 1;
+                            if (l != moveSrc) {
+                                addEdge(l, d);
+                            }
+                        }
+                    }
+                    for (MipsOperand other : regDef) {
+                        if (other.needsColor()) {
+                            addEdge(nodeOf(other), d);
+                        }
+                    }
+                }
 
                 // 启发式算法的依据，用于后面挑选出溢出节点
                 for (MipsOperand reg : regDef) {
-                    loopDepths.put(reg, block.getLoopDepth() + 1);
+                    if (reg.needsColor()) {
+                        int d = nodeOf(reg);
+                        recordOccurrence(d, rematDefs[d] == null ? weight : 0);
+                    }
                 }
                 for (MipsOperand reg : regUse) {
-                    loopDepths.put(reg, block.getLoopDepth() + 1);
+                    if (reg.needsColor()) {
+                        recordOccurrence(nodeOf(reg), weight);
+                    }
                 }
+                curPos--;
+            });
+        }
+        moveState = new byte[moves.size()];
+        moveMark = new int[moves.size()];
+    }
 
-                // 这里的删除是为了给前一个指令一个交代（倒序遍历），说明这个指令不再存活了（因为在这个指令被遍历了）
-                regDef.stream().filter(MipsOperand::needsColor).forEach(live::remove);
-                // 这里代表着又活了一个指令
-                regUse.stream().filter(MipsOperand::needsColor).forEach(live::add);
-            }
+    /**
+     * 记录节点在当前位置出现一次（def 或 use）
+     */
+    private void recordOccurrence(int n, double weight) {
+        if (rangeLast[n] == Integer.MIN_VALUE) {
+            rangeLast[n] = curPos;
         }
+        rangeFirst[n] = curPos;
+        spillCost[n] += weight;
+    }
+
+    /**
+     * 短活跃区间：不跨基本块，且首尾相距不超过 SHORT_RANGE 条指令
+     * 溢出改写引入的临时寄存器都是这样的区间，再溢出它们只会死循环
+     */
+    private boolean isShortRange(int n) {
+        return !BlockLiveVarInfo.contains(crossBlock, n) && rangeLast[n] - rangeFirst[n] <= SHORT_RANGE;
     }
 
     /**
      * 遍历非预着色点, 分配加入不同的 workList
      */
     private void buildWorklist() {
-        // 把一个函数中用到的所有虚拟寄存器都提出来
-        for (MipsVReg virReg : curFunction.getUsedVRegs()) {
+        // 函数中用到的所有虚拟寄存器，编号都在 PRECOLORED_NUM 之后
+        for (int n = PRECOLORED_NUM; n < nodeNum; n++) {
             // 度大于等于 K，spillWorklist
-            if (degree.getOrDefault(virReg, 0) >= K) {
-                spillList.add(virReg);
+            if (degree[n] >= K) {
+                spillList.add(n);
             }
             // 与 mov 指令相关的操作加入 freezeWorklist
-            else if (isMoveRelated(virReg)) {
-                freezeList.add(virReg);
+            else if (isMoveRelated(n)) {
+                freezeList.add(n);
             }
             // 可进行化简，加入 simplifyWorklist
             else {
-                simplifyList.add(virReg);
+                simplifyList.add(n);
             }
         }
     }
 
     /**
-     * 判断一个寄存器是否为move的操作数
+     * 判断一个 move 是否在 activeMoves 或 workListMoves 中
      */
-    private boolean isMoveRelated(MipsOperand u) {
-        return !getMoveSetByOperand(u).isEmpty();
+    private boolean isMoveAlive(int m) {
+        return moveState[m] == MOVE_MERGABLE || moveState[m] == MOVE_ACTIVE;
     }
 
     /**
-     * 取出 activeMoves 和 workListMoves 中的，带有u寄存器的所有move指令
+     * 判断一个寄存器是否为move的操作数（只考虑 activeMoves 和 workListMoves 中的 move）
      */
-    private Set<MipsMove> getMoveSetByOperand(MipsOperand u) {
-        return moveList.getOrDefault(u, new HashSet<>()).stream()
-                .filter(move -> activeMoves.contains(move) || mergableMoves.contains(move))
-                .collect(Collectors.toSet());
+    private boolean isMoveRelated(int u) {
+        for (int k = 0; k < moveCnt[u]; k++) {
+            if (isMoveAlive(moveList[u][k])) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
-     * 取出顶点列表中，不在 selectStack 和 coalesceNode 里的结点
+     * 邻接点中，不在 selectStack 和 coalesceNode 里的才算数
      */
-    private Set<MipsOperand> getAdjacent(MipsOperand u) {
-        return adjList.getOrDefault(u, new HashSet<>()).stream()
-                .filter(v -> !(selectStack.contains(v) || coalescedNodes.contains(v)))
-                .collect(Collectors.toSet());
+    private boolean isAdjacent(int v) {
+        return nodeState[v] == NODE_NORMAL;
+    }
+
+    /**
+     * 将一个节点相关的 activeMoves 都转入 workListMoves
+     */
+    private void enableNodeMoves(int u) {
+        for (int k = 0; k < moveCnt[u]; k++) {
+            int m = moveList[u][k];
+            if (moveState[m] == MOVE_ACTIVE) {
+                moveState[m] = MOVE_MERGABLE;
+                mergableMoves.add(m);
+            }
+        }
     }
 
     /**
@@ -279,31 +429,22 @@ public class RegBuilder {
      * 也就是将这个节点和与其相连的 mov 节点都从“不能合并”状态转换为“能合并”状态
      * 从这里可以看出，能合并要求度是 K - 1 以下
      */
-    private void enableMoves(MipsOperand u) {
-        getMoveSetByOperand(u).stream()
-                .filter(activeMoves::contains)
-                .forEach(m ->
-                {
-                    activeMoves.remove(m);
-                    mergableMoves.add(m);
-                });
-
-        getAdjacent(u).forEach(a -> getMoveSetByOperand(a).stream()
-                .filter(activeMoves::contains)
-                .forEach(m ->
-                {
-                    activeMoves.remove(m);
-                    mergableMoves.add(m);
-                }));
+    private void enableMoves(int u) {
+        enableNodeMoves(u);
+        for (int k = 0; k < adjCnt[u]; k++) {
+            int a = adjList[u][k];
+            if (isAdjacent(a)) {
+                enableNodeMoves(a);
+            }
+        }
     }
 
     /**
      * 降低一个节点的度，并这个过程中可能会移动其所在的list
      */
-    private void decreaseDegree(MipsOperand u) {
-//        System.out.println("decreaseDegree " + u + " get:" + degree.get(u));
-        int d = degree.get(u);
-        degree.put(u, d - 1);
+    private void decreaseDegree(int u) {
+        int d = degree[u];
+        degree[u] = d - 1;
 
         // 当未修改的度是 K 的时候，那么修改过后就是 K - 1， 那么此时就需要特殊处理
         if (d == K) {
@@ -321,14 +462,18 @@ public class RegBuilder {
      * 选择能够进行着色的点，将其从simplifyWorklist中取出并入栈，降低该节点相邻节点的度
      */
     private void doSimplify() {
-        MipsOperand n = simplifyList.iterator().next();
         // 从可以简化的列表中取出一个节点
-        simplifyList.remove(n);
+        int n = simplifyList.pop();
         // selectStack 就是图着色时用的栈
-        selectStack.push(n);
-//        System.out.println("选择结点 " + n);
+        selectStack = append(selectStack, selectTop++, n);
+        nodeState[n] = NODE_SELECTED;
         // 把与这个删掉的点有关的点的度都降低
-        getAdjacent(n).forEach(this::decreaseDegree);
+        for (int k = 0; k < adjCnt[n]; k++) {
+            int a = adjList[n][k];
+            if (isAdjacent(a)) {
+                decreaseDegree(a);
+            }
+        }
     }
 
     /**
@@ -337,21 +482,19 @@ public class RegBuilder {
      * @param u 被合并节点
      * @return 被合并的另一个节点
      */
-    private MipsOperand getAlias(MipsOperand u) {
-        while (coalescedNodes.contains(u)) {
-            u = alias.get(u);
+    private int getAlias(int u) {
+        while (nodeState[u] == NODE_COALESCED) {
+            u = alias[u];
         }
         return u;
     }
 
-// TODO coalesce1
-
     /**
      * 将一个节点从 freezeWorklist 移动到 simplifyWorklist 中
      * coalesce 过程的子方法，主要用于合并
      */
-    private void addWorklist(MipsOperand u) {
-        if (!u.isPrecolored() && !isMoveRelated(u) && degree.getOrDefault(u, 0) < K) {
+    private void addWorklist(int u) {
+        if (!isPrecolored(u) && !isMoveRelated(u) && degree[u] < K) {
             freezeList.remove(u);
             simplifyList.add(u);
         }
@@ -365,8 +508,14 @@ public class RegBuilder {
      * @param u 可能是物理寄存器
      * @return 可以合并
      */
-    private boolean adjOk(MipsOperand v, MipsOperand u) {
-        return getAdjacent(v).stream().allMatch(t -> ok(t, u));
+    private boolean adjOk(int v, int u) {
+        for (int k = 0; k < adjCnt[v]; k++) {
+            int t = adjList[v][k];
+            if (isAdjacent(t) && !ok(t, u)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -378,8 +527,8 @@ public class RegBuilder {
      * @param r 待合并的预着色寄存器
      * @return 可以合并就是 true
      */
-    private boolean ok(MipsOperand t, MipsOperand r) {
-        return degree.get(t) < K || t.isPrecolored() || adjSet.contains(new Pair<>(t, r));
+    private boolean ok(int t, int r) {
+        return degree[t] < K || isPrecolored(t) || hasEdge(t, r);
     }
 
     /**
@@ -390,41 +539,68 @@ public class RegBuilder {
      * @param v 待合并的节点 2
      * @return 可以合并就是 true
      */
-    private boolean conservative(MipsOperand u, MipsOperand v) {
-        Set<MipsOperand> uAdjacent = getAdjacent(u);
-        Set<MipsOperand> vAdjacent = getAdjacent(v);
-        uAdjacent.addAll(vAdjacent);
-        long count = uAdjacent.stream().filter(n -> degree.get(n) >= K).count();
+    private boolean conservative(int u, int v) {
+        // 两个节点的邻接点求并集，用 nodeMark 去重
+        stamp++;
+        int count = countHighDegree(u) + countHighDegree(v);
         return count < K;
     }
 
+    /**
+     * 统计 u 的邻接点中本次还没见过的高度数节点个数
+     */
+    private int countHighDegree(int u) {
+        int count = 0;
+        for (int k = 0; k < adjCnt[u]; k++) {
+            int t = adjList[u][k];
+            if (isAdjacent(t) && nodeMark[t] != stamp) {
+                nodeMark[t] = stamp;
+                if (degree[t] >= K) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
     /**
      * 这是合并操作
      *
      * @param u 待合并的节点 1
      * @param v 待合并的节点 2
      */
-    // TODO bug here
-    private void combine(MipsOperand u, MipsOperand v) {
+    private void combine(int u, int v) {
         // 这里做的是把他们从原有的 worklist 中移出
         if (freezeList.contains(v)) {
             freezeList.remove(v);
         } else {
             spillList.remove(v);
         }
-//        System.out.println("合并结点" + u + ", " + v);
         coalescedNodes.add(v);
+        nodeState[v] = NODE_COALESCED;
         // 这里没有问题，相当于 alias 的 key 是虚拟寄存器，而 value 是物理寄存器
-        alias.put(v, u);
-        moveList.get(u).addAll(moveList.get(v));
-        // enableMoves.accept(v);
-        getAdjacent(v).forEach(t ->
-        {
-            addEdge(t, u);
-            decreaseDegree(t);
-        });
-
-        if (degree.getOrDefault(u, 0) >= K && freezeList.contains(u)) {
+        alias[v] = u;
+        // moveList[u] 并上 moveList[v]，用 moveMark 去重
+        stamp++;
+        for (int k = 0; k < moveCnt[u]; k++) {
+            moveMark[moveList[u][k]] = stamp;
+        }
+        for (int k = 0; k < moveCnt[v]; k++) {
+            int m = moveList[v][k];
+            if (moveMark[m] != stamp) {
+                moveMark[m] = stamp;
+                moveList[u] = append(moveList[u], moveCnt[u]++, m);
+            }
+        }
+        for (int k = 0; k < adjCnt[v]; k++) {
+            int t = adjList[v][k];
+            if (isAdjacent(t)) {
+                addEdge(t, u);
+                decreaseDegree(t);
+            }
+        }
+
+        if (degree[u] >= K && freezeList.contains(u)) {
             freezeList.remove(u);
             spillList.add(u);
         }
@@ -434,67 +610,62 @@ public class RegBuilder {
      * 用于合并节点
      */
     private void coalesce() {
-        MipsMove objMove = mergableMoves.iterator().next();
-        MipsOperand u = getAlias(objMove.getDst());
-        MipsOperand v = getAlias(objMove.getSrc(1));
+        int m = mergableMoves.pop();
+        MipsMove objMove = moves.get(m);
+        int u = getAlias(nodeOf(objMove.getDst()));
+        int v = getAlias(nodeOf(objMove.getSrc(1)));
 
         // 如果 v 是物理寄存器，那么就需要交换一下，最后的结果就是如果有物理寄存器的话，那么一定是 u
         // 之所以这么操作，是因为合并也是一种着色，我们需要让合并后剩下的那个节点，是预着色点
-        if (v.isPrecolored()) {
-            MipsOperand tmp = u;
+        if (isPrecolored(v)) {
+            int tmp = u;
             u = v;
             v = tmp;
-//            System.out.println("coalesce合并且交换" + objMove);
         }
 
-        mergableMoves.remove(objMove);
-
         // 这个对应可以要进行合并了
-        if (u.equals(v)) {
-            coalescedMoves.add(objMove);
+        if (u == v) {
+            moveState[m] = MOVE_COALESCED;
             addWorklist(u);
-//            System.out.println("执行coalesce合并1：" + objMove);
         }
-        // 对应源操作数和目的操作数冲突的情况，此时的 mov 就是受到抑制的，也就是
-        else if (v.isPrecolored() || adjSet.contains(new Pair<>(u, v))) {
-            constrainedMoves.add(objMove);
+        // 对应源操作数和目的操作数冲突的情况，此时的 mov 就是受到抑制的
+        else if (isPrecolored(v) || hasEdge(u, v)) {
+            moveState[m] = MOVE_CONSTRAINED;
             addWorklist(u);
             addWorklist(v);
-//            System.out.println("执行coalesce合并2：" + objMove);
         }
-        // TODO HERE
-        else if ((u.isPrecolored() && adjOk(v, u)) ||
-                (!u.isPrecolored() && conservative(u, v))) {
-            coalescedMoves.add(objMove);
+        else if ((isPrecolored(u) && adjOk(v, u)) ||
+                (!isPrecolored(u) && conservative(u, v))) {
+            moveState[m] = MOVE_COALESCED;
             combine(u, v);
             addWorklist(u);
-//            System.out.println("执行coalesce合并3：" + objMove + (u.isPrecolored() && adjOk(v, u)) + " " + (!u.isPrecolored() && conservative(u, v)));
         } else {
-            activeMoves.add(objMove);
-//            System.out.println("执行coalesce合并4：" + objMove);
+            moveState[m] = MOVE_ACTIVE;
         }
     }
 
-// TODO coalesce2
-
     /**
      * 这个会遍历每一条与 u 有关的 mov 指令，然后将这些 mov 指令从 active 和 worklist 中移出
      * 这就意味着他们不会再被考虑合并
      *
      * @param u 待冻结的节点
      */
-    private void freezeMoves(MipsOperand u) {
-        for (MipsMove move : getMoveSetByOperand(u)) {
-            if (activeMoves.contains(move)) {
-                activeMoves.remove(move);
-            } else {
-                mergableMoves.remove(move);
+    private void freezeMoves(int u) {
+        for (int k = 0; k < moveCnt[u]; k++) {
+            int m = moveList[u][k];
+            if (!isMoveAlive(m)) {
+                continue;
             }
+            if (moveState[m] == MOVE_MERGABLE) {
+                mergableMoves.remove(m);
+            }
+            moveState[m] = MOVE_FROZEN;
 
-            frozenMoves.add(move);
-            MipsOperand v = getAlias(move.getDst()).equals(getAlias(u)) ? getAlias(move.getSrc(1)) : getAlias(move.getDst());
+            MipsMove move = moves.get(m);
+            int dst = getAlias(nodeOf(move.getDst()));
+            int v = dst == getAlias(u) ? getAlias(nodeOf(move.getSrc(1))) : dst;
 
-            if (!isMoveRelated(v) && degree.getOrDefault(v, 0) < K) {
+            if (!isMoveRelated(v) && degree[v] < K) {
                 freezeList.remove(v);
                 simplifyList.add(v);
             }
@@ -506,66 +677,70 @@ public class RegBuilder {
      * 那么进行 freeze，就是放弃一个低度数的 mov 的点，这样就可以 simplify 了
      */
     private void doFreeze() {
-        MipsOperand u = freezeList.iterator().next();
-        freezeList.remove(u);
+        int u = freezeList.pop();
         simplifyList.add(u);
         freezeMoves(u);
     }
 
     /**
-     * 这里用到了启发式算法，因为没有 loopDepth 所以只采用一个很简单的方式，调出一个需要溢出的节点，
-     * 这个节点的性质是溢出后边会大幅减少
+     * 选择溢出代价 / 当前度数最小的节点：访存次数（按循环深度加权）越少、冲突越多的节点越优先溢出
+     * 短活跃区间溢出后没有收益，只有在别无选择时才会被选中
      */
     private void doSelectSpill() {
-        double magicNum = 1.414;
-        MipsOperand m = spillList.stream().max((l, r) ->
-        {
-            double value1 = degree.getOrDefault(l, 0).doubleValue() / Math.pow(magicNum, loopDepths.getOrDefault(l, 0));
-            double value2 = degree.getOrDefault(r, 0).doubleValue() / Math.pow(magicNum, loopDepths.getOrDefault(l, 0));
-
-            return Double.compare(value1, value2);
-        }).get();
-        // MipsOperand m = spillWorklist.iterator().next();
+        int m = -1;
+        double minValue = Double.MAX_VALUE;
+        for (int k = 0; k < spillList.size(); k++) {
+            int n = spillList.get(k);
+            if (isShortRange(n)) {
+                continue;
+            }
+            double value = spillCost[n] / Math.max(degree[n], 1);
+            if (m == -1 || value < minValue) {
+                minValue = value;
+                m = n;
+            }
+        }
+        if (m == -1) {
+            m = spillList.get(0);
+        }
         simplifyList.add(m);
         freezeMoves(m);
         spillList.remove(m);
     }
 
     private void assignColors(MipsFunction func) {
-        // colored 是记录虚拟寄存器到物理寄存器的映射关系的
-        HashMap<MipsOperand, MipsOperand> colored = new HashMap<>();
-//        System.out.println("[调用染色函数]");
-        while (!selectStack.isEmpty()) {
+        // colored 是记录虚拟寄存器到物理寄存器的映射关系的，下标是节点编号
+        MipsOperand[] colored = new MipsOperand[nodeNum];
+        while (selectTop > 0) {
             // 从栈上弹出一个节点
-            MipsOperand n = selectStack.pop();
-//            System.out.println("本轮染色结点:  " + n);
-//            System.out.println("assign color："+n);
-            // 这里做了一个包含所有待分配颜色的数组，可以看到是对于每个弹出节点，都会有这样的一个集合，表示这个节点可能的颜色
-            // 这个集合会通过与其邻接点比对而不断缩小
-            HashSet<Reg> okColors = new HashSet<>(Reg.regs4Alloca);
+            int n = selectStack[--selectTop];
+            // 每个弹出节点都有一个可能的颜色集合，通过与其邻接点比对而不断缩小
+            // 这里反过来记录不能用的颜色，第 i 位对应 i 号寄存器
+            int forbidden = 0;
             // 遍历与这个弹出的节点
-            for (MipsOperand w : adjList.getOrDefault(n, new HashSet<>())) {
-                MipsOperand a = getAlias(w);
+            for (int k = 0; k < adjCnt[n]; k++) {
+                int a = getAlias(adjList[n][k]);
                 // 如果这个邻接点是物理寄存器，那么就要移除掉
-                if (a.isAllocated() || a.isPrecolored()) {
-                    okColors.remove(((MipsRReg) a).getType());
+                if (isPrecolored(a)) {
+                    forbidden |= 1 << a;
                 }
                 // 如果邻接点是一个虚拟寄存器，而且已经被着色了
-                else if (a instanceof MipsVReg) {
-                    if (colored.containsKey(a)) {
-                        MipsOperand color = colored.get(a);
-                        okColors.remove(((MipsRReg) color).getType());
-                    }
+                else if (colored[a] != null) {
+                    forbidden |= 1 << ((MipsRReg) colored[a]).getType().number;
+                }
+            }
+            Reg color = null;
+            for (int number : allocaOrder) {
+                if ((forbidden & (1 << number)) == 0) {
+                    color = Reg.getRegType(number);
+                    break;
                 }
             }
             // 如果没有备选颜色，那么就发生实际溢出
-            if (okColors.isEmpty()) {
-                spilledNodes.add(n);
-//                System.out.println("发生溢出" + n);
+            if (color == null) {
+                spilledNodes.add(nodes.get(n));
             } else {
-                Reg color = okColors.iterator().next();
-                colored.put(n, new MipsRReg(color, true));
-//                System.out.println("进行染色:  " + n + " - " + color);
+                colored[n] = new MipsRReg(color, true);
             }
         }
 
@@ -574,39 +749,34 @@ public class RegBuilder {
         }
         // 当处理完 stack 后如果还没有问题，那么就可以处理合并节点了
         // 这里的原理相当于在一开始 stack 中只压入部分点（另一些点由栈中的点代表）
-        for (MipsOperand coalescedNode : coalescedNodes) {
-            MipsOperand alias = getAlias(coalescedNode);
+        for (int k = 0; k < coalescedNodes.size(); k++) {
+            int coalescedNode = coalescedNodes.get(k);
+            int alias = getAlias(coalescedNode);
             // 如果合并的节点里有物理寄存器，而且还是一个预着色寄存器
-            if (alias.isPrecolored()) {
-                colored.put(coalescedNode, alias);
-//                System.out.println("添加映射2: " + coalescedNode + " - " + alias);
+            if (isPrecolored(alias)) {
+                colored[coalescedNode] = nodes.get(alias);
             }
             // 如果全是虚拟寄存器
             else {
-                colored.put(coalescedNode, colored.get(alias));
-//                System.out.println("添加映射3: "+ coalescedNode + " - " + colored.get(alias));
+                colored[coalescedNode] = colored[alias];
             }
         }
 
         // 完成替换
         for(MipsBlock block : func.getMipsBlocks()){
             for(MipsInstruction instruction : block.getInstructions()){
-//                System.out.println("准备进行替换: " + func.getName() + " 指令: " + instruction);
                 // 透过遍历的复制数组，可以避免遍历时修改的Exception
                 ArrayList<MipsOperand> defRegs = new ArrayList<>(instruction.getDefRegs());
                 ArrayList<MipsOperand> useRegs = new ArrayList<>(instruction.getUseRegs());
 
                 for (MipsOperand def : defRegs) {
-//                    System.out.println("defReg " + def);
-                    if (colored.containsKey(def)) {
-//                        System.out.println("完成def替换: " + "原寄存器: " + def + " ，新寄存器: " + colored.get(def));
-                        instruction.replaceReg(def, colored.get(def));
+                    if (def instanceof MipsVReg && colored[nodeOf(def)] != null) {
+                        instruction.replaceReg(def, colored[nodeOf(def)]);
                     }
                 }
                 for (MipsOperand use : useRegs) {
-                    if (colored.containsKey(use)) {
-//                        System.out.println("完成use替换: " + "原寄存器: " + use + " ，新寄存器: " + colored.get(use));
-                        instruction.replaceReg(use, colored.get(use));
+                    if (use instanceof MipsVReg && colored[nodeOf(use)] != null) {
+                        instruction.replaceReg(use, colored[nodeOf(use)]);
                     }
                 }
             }
@@ -615,63 +785,65 @@ public class RegBuilder {
     }
 
 
+
     /**
-     * 寄存器溢出替换：首次使用
+     * 寄存器溢出替换：首次使用（且之前没有定义）的指令位置，要在它之前插入 lw，-1 表示没有
      */
-    private MipsInstruction firstUseStore = null;
+    private int firstUsePos = -1;
     /**
-     * 寄存器溢出替换：最后一次定义
+     * 寄存器溢出替换：最后一次定义的指令位置，要在它之后插入 sw，-1 表示没有
      */
-    private MipsInstruction lastDefLoad = null;
+    private int lastDefPos = -1;
     /**
-     * 替换者所在的基本块的指令序列
+     * 寄存器溢出替换：当前溢出节点在栈上的槽的偏移量
      */
-    private LinkedList<MipsInstruction> srcInstructions = new LinkedList<>();
+    private MipsImm spillOffset;
+
     /**
-     * 当前指令序列的迭代器
+     * 为当前这一段的 vReg 插入访存指令，位置都是改写后序列中的下标
+     * 先插后面的 sw，再插前面的 lw，这样 lw 的位置不会受影响
      */
-//    private ListIterator<MipsInstruction> srcIterator = null;
-    // TODO 草率修改代码，认定load无作用，但事实上其承担着溢出寄存器在栈上的实现
-    private void checkPoint(MipsFunction func) {
-        int offset = func.getAllocaSize();
-        MipsImm offsetImm = new MipsImm(offset);
+    private void checkPoint(MipsInstructionList.Cursor cursor) {
         // 在定义之后，插入存栈的指令
-        if (lastDefLoad != null) {
-            MipsStore store = new MipsStore(vReg, MipsRReg.SP, offsetImm);
-            MipsUtils.insertAfter(srcInstructions, lastDefLoad, store);
-//            System.out.println("成功替换溢出者:" + lastDefLoad + ", 新的指令：" + store);
-            lastDefLoad = null;
+        if (lastDefPos != -1) {
+            MipsStore store = new MipsStore(vReg, MipsRReg.SP, spillOffset);
+            cursor.insert(lastDefPos + 1, store);
+            lastDefPos = -1;
         }
         // 在使用之前，插入从栈中读取的指令
-        if (firstUseStore != null) {
-            MipsLoad load = new MipsLoad(vReg, MipsRReg.SP, offsetImm);
-            MipsUtils.insertBefore(srcInstructions, firstUseStore, load);
-//            System.out.println("成功替换溢出者:" + firstUseStore + ", 新的指令：" + load);
-            firstUseStore = null;
+        if (firstUsePos != -1) {
+            MipsLoad load = new MipsLoad(vReg, MipsRReg.SP, spillOffset);
+            cursor.insert(firstUsePos, load);
+            firstUsePos = -1;
         }
         vReg = null;
     }
 
-    // TODO 还是的采用边遍历边修改数组的老方法：直接采用int i=0进行遍历，而在遍历useReg和defReg时，采用复制的数组
     /**
      * 处理寄存器不够用（溢出），转而要在栈中存储变量的场合
+     * 每个基本块用改写游标遍历一遍，插入的访存指令不会被重复访问
      */
     private void rewriteProgram(MipsFunction func){
         for (MipsOperand n : spilledNodes) {
-//            System.out.println("处理溢出的结点：" + n);
-
+            MipsInstruction rematDef = rematDefs[nodeOf(n)];
+            if (rematDef != null) {
+                rematerialize(func, n, rematDef);
+                continue;
+            }
+            // 为这个临时变量在栈上分配空间
+            spillOffset = func.addStackSlot(4, true).getOffset();
             // 遍历所有基本块
             ArrayList<MipsBlock> blocks = func.getMipsBlocks();
             for (MipsBlock block : blocks) {
                 vReg = null;
-                firstUseStore = null;
-                lastDefLoad = null;
+                firstUsePos = -1;
+                lastDefPos = -1;
 
-                srcInstructions = block.getInstructions();
+                MipsInstructionList.Cursor cursor = block.getInstructions().cursor();
                 // 遍历所有指令
                 int cntInstr = 0;
-                for(int i = 0; i < srcInstructions.size(); i++){
-                    MipsInstruction instruction = srcInstructions.get(i);
+                while (cursor.hasNext()) {
+                    MipsInstruction instruction = cursor.next();
                     ArrayList<MipsOperand> defRegs = new ArrayList<>(instruction.getDefRegs());
                     ArrayList<MipsOperand> useRegs = new ArrayList<>(instruction.getUseRegs());
 
@@ -684,8 +856,8 @@ public class RegBuilder {
                             }
                             instruction.replaceReg(use, vReg);
 
-                            if (firstUseStore == null && lastDefLoad == null) {
-                                firstUseStore = instruction;
+                            if (firstUsePos == -1 && lastDefPos == -1) {
+                                firstUsePos = cursor.position();
                             }
                         }
                     }
@@ -698,26 +870,39 @@ public class RegBuilder {
                                 func.addUsedVReg(vReg);
                             }
                             instruction.replaceReg(def, vReg);
-                            lastDefLoad = instruction;
+                            lastDefPos = cursor.position();
                         }
                     }
-//                    try {
-//                        insertLoadBeforeUse(func);
-//                    } catch ( ConcurrentModificationException e){
-//                        System.out.println("[InsertLoadException] " + e + ", function: " + func.getName());
-//                    }
+                    // 开头的一段指令共用一个 vReg，之后每条指令单独处理
                     if (cntInstr > 30) {
-                        if(firstUseStore != null){
-                            i++;
-                        }
-                        checkPoint(func);
+                        checkPoint(cursor);
                     }
                     cntInstr++;
                 }
-                checkPoint(func);
+                checkPoint(cursor);
+                cursor.finish();
             }
-            // 为这个临时变量在栈上分配空间
-            func.addAllocaSize(4);
+        }
+    }
+
+    /**
+     * 溢出可重物化的节点：删掉原来的定义，在每条使用它的指令之前重新计算到新的虚拟寄存器，不占栈空间
+     */
+    private void rematerialize(MipsFunction func, MipsOperand n, MipsInstruction rematDef) {
+        for (MipsBlock block : func.getMipsBlocks()) {
+            MipsInstructionList.Cursor cursor = block.getInstructions().cursor();
+            while (cursor.hasNext()) {
+                MipsInstruction instruction = cursor.next();
+                if (instruction == rematDef) {
+                    cursor.remove();
+                } else if (instruction.getUseRegs().contains(n)) {
+                    MipsVReg tmp = new MipsVReg();
+                    func.addUsedVReg(tmp);
+                    instruction.replaceReg(n, tmp);
+                    cursor.insertBefore(Remat.rebuild(rematDef, tmp));
+                }
+            }
+            cursor.finish();
         }
     }
 
@@ -745,6 +930,25 @@ public class RegBuilder {
         }
     }
 
+    /**
+     * 判断一个函数是否改用线性扫描：指定了 linear，或者 auto 模式下函数超过阈值
+     */
+    private boolean useLinearScan(MipsFunction function) {
+        switch (OptConfig.regAlloc) {
+            case "linear":
+                return true;
+            case "graph":
+                return false;
+            default:
+                int instructionCnt = 0;
+                for (MipsBlock block : function.getMipsBlocks()) {
+                    instructionCnt += block.getInstructions().size();
+                }
+                return function.getUsedVRegs().size() > OptConfig.linearScanVRegs
+                        || instructionCnt > OptConfig.linearScanInstructions;
+        }
+    }
+
     /**
      * 寄存器图着色分配的入口
      */
@@ -756,6 +960,10 @@ public class RegBuilder {
                 continue;
             }
 //            System.out.println("开始分析函数 " + function.getName());
+            if (useLinearScan(function)) {
+                new LinearScanBuilder(function).allocate();
+                continue;
+            }
             curFunction = function;
             // 对于每个函数，进行活跃变量分析直至不再变化
             boolean finished = false;
@@ -807,6 +1015,10 @@ public class RegBuilder {
             if (function1.isLibFunc()) {
                 continue;
             }
+            // 活跃范围不重叠的栈槽共用空间，必须在 rebuildStack 计算栈帧大小之前
+            if (OptConfig.stackSlotColoring) {
+                new StackSlotColoring(function1).run();
+            }
             function1.rebuildStack();
         }
     }
@@ -0,0 +1,82 @@
+package backend.reg;
+
+import backend.instructions.MipsBinary;
+import backend.instructions.MipsInstruction;
+import backend.instructions.MipsMove;
+import backend.operands.MipsImm;
+import backend.operands.MipsLabel;
+import backend.operands.MipsOperand;
+import backend.operands.MipsRReg;
+import backend.operands.MipsVReg;
+import backend.units.MipsBlock;
+import backend.units.MipsFunction;
+
+/**
+ * @author Gary
+ * @Description: 重物化（rematerialization）：有些虚拟寄存器的值随时可以用一条指令重新算出来，溢出它们时不必存栈
+ * 只有一个定义、且定义是下面三种之一的虚拟寄存器可以重物化：
+ * 1. li v, imm（buildImmOperand）
+ * 2. la v, label（buildGVOperand）
+ * 3. addiu v, $sp, imm（Alloca 的栈地址，函数体中 $sp 只在调用前后临时移动，期间不会用到这些值）
+ * 溢出时删掉原来的定义，在每次使用之前插入一条同样的指令算到新的虚拟寄存器里
+ * @date 2026/10/18 19:10
+ */
+public class Remat {
+    /**
+     * 找出每个节点唯一的可重物化定义
+     *
+     * @return 下标是节点编号，不能重物化的节点为 null
+     */
+    public static MipsInstruction[] findRematDefs(MipsFunction function, NodeNumbering nodes) {
+        int nodeNum = nodes.size();
+        MipsInstruction[] rematDefs = new MipsInstruction[nodeNum];
+        // 被定义多次的节点（比如 phi 对应的寄存器）不能重物化
+        boolean[] multiDef = new boolean[nodeNum];
+        for (MipsBlock block : function.getMipsBlocks()) {
+            for (MipsInstruction instruction : block.getInstructions()) {
+                for (MipsOperand def : instruction.getDefRegs()) {
+                    if (!(def instanceof MipsVReg)) {
+                        continue;
+                    }
+                    int n = nodes.nodeOf(def);
+                    if (multiDef[n]) {
+                        continue;
+                    }
+                    if (rematDefs[n] != null || !isRematerializable(instruction)) {
+                        multiDef[n] = true;
+                        rematDefs[n] = null;
+                    } else {
+                        rematDefs[n] = instruction;
+                    }
+                }
+            }
+        }
+        return rematDefs;
+    }
+
+    /**
+     * 判断一条指令的结果能否在任意位置重新计算
+     */
+    public static boolean isRematerializable(MipsInstruction instruction) {
+        if (instruction instanceof MipsMove) {
+            MipsOperand src = instruction.getSrc(1);
+            return src instanceof MipsImm || src instanceof MipsLabel;
+        }
+        if (instruction instanceof MipsBinary binary && binary.getType() == MipsBinary.Type.ADDU) {
+            return binary.getSrc(1) instanceof MipsRReg rReg && rReg.getType() == Reg.SP
+                    && binary.getSrc(2) instanceof MipsImm;
+        }
+        return false;
+    }
+
+    /**
+     * 复制一条可重物化的定义，结果写到 dst 中
+     * 立即数对象直接共用，这样 rebuildStack 对它的修改也会同步到复制出来的指令
+     */
+    public static MipsInstruction rebuild(MipsInstruction def, MipsOperand dst) {
+        if (def instanceof MipsBinary binary) {
+            return new MipsBinary(binary.getType(), dst, binary.getSrc(1), binary.getSrc(2));
+        }
+        return new MipsMove(dst, def.getSrc(1));
+    }
+}
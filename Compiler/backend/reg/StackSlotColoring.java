@@ -0,0 +1,259 @@
+package backend.reg;
+
+import backend.instructions.MipsInstruction;
+import backend.instructions.MipsLoad;
+import backend.instructions.MipsStore;
+import backend.operands.MipsImm;
+import backend.units.MipsBlock;
+import backend.units.MipsFunction;
+import backend.units.MipsStackSlot;
+import utils.OptConfig;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+/**
+ * @author Gary
+ * @Description: 栈槽着色：活跃范围不重叠的栈槽共用同一段栈空间，在寄存器分配之后、rebuildStack 之前进行
+ * 1. 以基本块为粒度求每个槽"存在"的块：块内有访问，或者块入口/出口处内容还会被用到（之前访问过、之后还要访问）
+ *    溢出槽的访问就是 lw/sw offset($sp)，sw 会覆盖旧的内容；alloca 槽的访问块在指令选择时由 IR 求出，地址逃逸的槽整个函数都存在
+ * 2. 两个槽在同一个块中存在就冲突
+ * 3. 按分配顺序依次给每个槽选择不与冲突槽重叠的最低偏移（first fit），新偏移不会超过原来的偏移
+ * 4. 节省的字节数作为返回值，-fstats 时也输出到标准错误
+ * @date 2026/10/18 19:50
+ */
+public class StackSlotColoring {
+    private final MipsFunction function;
+    private final ArrayList<MipsStackSlot> slots;
+    private final ArrayList<MipsBlock> blocks;
+    private final int slotWords;
+    /**
+     * slotBlocks[s] 是槽 s 存在的块的集合，第 i 位对应第 i 个块
+     */
+    private long[][] slotBlocks;
+    /**
+     * 地址逃逸的 alloca 槽，与所有槽冲突
+     */
+    private boolean[] escaped;
+
+    public StackSlotColoring(MipsFunction function) {
+        this.function = function;
+        this.slots = function.getStackSlots();
+        this.blocks = function.getMipsBlocks();
+        this.slotWords = (slots.size() + 63) >>> 6;
+    }
+
+    /**
+     * 重排入口，返回节省的字节数
+     */
+    public int run() {
+        int oldSize = function.getAllocaSize();
+        int slotSize = 0;
+        for (MipsStackSlot slot : slots) {
+            slotSize += slot.getSize();
+        }
+        // 还有不属于任何槽的空间时，不知道谁在用它，不做重排
+        if (slots.isEmpty() || slotSize != oldSize) {
+            return 0;
+        }
+        analyzeLifetimes();
+        int[] newOffsets = new int[slots.size()];
+        int newSize = assignOffsets(newOffsets);
+        for (int i = 0; i < slots.size(); i++) {
+            if (newOffsets[i] > slots.get(i).getOffset().getValue()) {
+                System.out.println("GaryError: 栈槽着色后偏移变大，放弃重排 " + function.getName());
+                return 0;
+            }
+        }
+        for (int i = 0; i < slots.size(); i++) {
+            slots.get(i).getOffset().setValue(newOffsets[i]);
+        }
+        function.setAllocaSize(newSize);
+        if (OptConfig.stats) {
+            System.err.println("StackSlotColoring " + function.getName() + ": " + oldSize + " -> " + newSize
+                    + " bytes, saved " + (oldSize - newSize));
+        }
+        return oldSize - newSize;
+    }
+
+    // ============ 1. 活跃范围 ============
+    private void analyzeLifetimes() {
+        int blockNum = blocks.size();
+        HashMap<MipsBlock, Integer> indexMap = new HashMap<>();
+        for (int b = 0; b < blockNum; b++) {
+            indexMap.put(blocks.get(b), b);
+        }
+        IdentityHashMap<MipsImm, Integer> spillSlots = new IdentityHashMap<>();
+        escaped = new boolean[slots.size()];
+        for (int s = 0; s < slots.size(); s++) {
+            MipsStackSlot slot = slots.get(s);
+            if (slot.isSpill()) {
+                spillSlots.put(slot.getOffset(), s);
+            } else if (slot.getAccessBlocks() == null) {
+                escaped[s] = true;
+            }
+        }
+
+        // 每个块内：入口处就要用到旧内容的槽（use）、被整体覆盖的槽（kill）、访问过的槽（access）
+        long[][] use = new long[blockNum][slotWords];
+        long[][] kill = new long[blockNum][slotWords];
+        long[][] access = new long[blockNum][slotWords];
+        for (int s = 0; s < slots.size(); s++) {
+            MipsStackSlot slot = slots.get(s);
+            if (slot.isSpill() || escaped[s]) {
+                continue;
+            }
+            // 数组只会被部分覆盖，alloca 槽的访问都当作 use
+            for (MipsBlock block : slot.getAccessBlocks()) {
+                Integer b = indexMap.get(block);
+                if (b != null) {
+                    BlockLiveVarInfo.add(use[b], s);
+                    BlockLiveVarInfo.add(access[b], s);
+                }
+            }
+        }
+        for (int b = 0; b < blockNum; b++) {
+            for (MipsInstruction instruction : blocks.get(b).getInstructions()) {
+                Integer s = null;
+                if (instruction instanceof MipsLoad) {
+                    s = spillSlots.get(instruction.getSrc(2));
+                    if (s != null && !BlockLiveVarInfo.contains(kill[b], s)) {
+                        BlockLiveVarInfo.add(use[b], s);
+                    }
+                } else if (instruction instanceof MipsStore) {
+                    s = spillSlots.get(instruction.getSrc(3));
+                    if (s != null) {
+                        BlockLiveVarInfo.add(kill[b], s);
+                    }
+                }
+                if (s != null) {
+                    BlockLiveVarInfo.add(access[b], s);
+                }
+            }
+        }
+
+        int[][] succs = new int[blockNum][];
+        ArrayList<ArrayList<Integer>> pres = new ArrayList<>();
+        for (int b = 0; b < blockNum; b++) {
+            pres.add(new ArrayList<>());
+        }
+        for (int b = 0; b < blockNum; b++) {
+            MipsBlock block = blocks.get(b);
+            ArrayList<Integer> succList = new ArrayList<>();
+            for (MipsBlock succ : new MipsBlock[]{block.getTrueSuccessor(), block.getFalseSuccessor()}) {
+                Integer index = succ == null ? null : indexMap.get(succ);
+                if (index != null && !succList.contains(index)) {
+                    succList.add(index);
+                    pres.get(index).add(b);
+                }
+            }
+            succs[b] = succList.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        // 逆向：之后还会读到旧内容的槽
+        long[][] liveIn = new long[blockNum][slotWords];
+        long[][] liveOut = new long[blockNum][slotWords];
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int b = blockNum - 1; b >= 0; b--) {
+                for (int succ : succs[b]) {
+                    for (int w = 0; w < slotWords; w++) {
+                        liveOut[b][w] |= liveIn[succ][w];
+                    }
+                }
+                for (int w = 0; w < slotWords; w++) {
+                    long in = use[b][w] | (liveOut[b][w] & ~kill[b][w]);
+                    if (in != liveIn[b][w]) {
+                        liveIn[b][w] = in;
+                        changed = true;
+                    }
+                }
+            }
+        }
+        // 正向：之前已经访问过的槽
+        long[][] availIn = new long[blockNum][slotWords];
+        long[][] availOut = new long[blockNum][slotWords];
+        changed = true;
+        while (changed) {
+            changed = false;
+            for (int b = 0; b < blockNum; b++) {
+                for (int pre : pres.get(b)) {
+                    for (int w = 0; w < slotWords; w++) {
+                        availIn[b][w] |= availOut[pre][w];
+                    }
+                }
+                for (int w = 0; w < slotWords; w++) {
+                    long out = availIn[b][w] | access[b][w];
+                    if (out != availOut[b][w]) {
+                        availOut[b][w] = out;
+                        changed = true;
+                    }
+                }
+            }
+        }
+
+        // 槽在块中存在：块内访问，或者在块入口/出口处既访问过又还会被读到
+        int blockWords = (blockNum + 63) >>> 6;
+        slotBlocks = new long[slots.size()][blockWords];
+        for (int b = 0; b < blockNum; b++) {
+            for (int w = 0; w < slotWords; w++) {
+                long present = access[b][w] | (liveIn[b][w] & availIn[b][w]) | (liveOut[b][w] & availOut[b][w]);
+                while (present != 0) {
+                    int s = (w << 6) + Long.numberOfTrailingZeros(present);
+                    present &= present - 1;
+                    BlockLiveVarInfo.add(slotBlocks[s], b);
+                }
+            }
+        }
+    }
+
+    private boolean interfere(int s, int t) {
+        if (escaped[s] || escaped[t]) {
+            return true;
+        }
+        long[] a = slotBlocks[s];
+        long[] b = slotBlocks[t];
+        for (int w = 0; w < a.length; w++) {
+            if ((a[w] & b[w]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // ============ 2. 分配偏移 ============
+    /**
+     * @return 重排后的栈槽总大小
+     */
+    private int assignOffsets(int[] newOffsets) {
+        int newSize = 0;
+        // 与当前槽冲突的已分配区间，高 32 位是起点，低 32 位是终点
+        long[] ranges = new long[slots.size()];
+        for (int i = 0; i < slots.size(); i++) {
+            int cnt = 0;
+            for (int j = 0; j < i; j++) {
+                if (interfere(i, j)) {
+                    ranges[cnt++] = ((long) newOffsets[j] << 32) | (newOffsets[j] + slots.get(j).getSize());
+                }
+            }
+            Arrays.sort(ranges, 0, cnt);
+            int size = slots.get(i).getSize();
+            int offset = 0;
+            for (int k = 0; k < cnt; k++) {
+                int start = (int) (ranges[k] >>> 32);
+                int end = (int) ranges[k];
+                if (start >= offset + size) {
+                    break;
+                }
+                // 保持 4 字节对齐
+                offset = Math.max(offset, (end + 3) & ~3);
+            }
+            newOffsets[i] = offset;
+            newSize = Math.max(newSize, offset + size);
+        }
+        return newSize;
+    }
+}
@@ -1,9 +1,9 @@
 package backend.units;
 
 import backend.instructions.MipsInstruction;
+import utils.CompilationSession;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
 
 /**
  * @author Gary
@@ -12,11 +12,10 @@ import java.util.LinkedList;
  */
 public class MipsBlock {
     // ============ 成员变量 ============
-    private static int nameCnt = 0;
     private String name;
 
     // 基本块中指令的列表
-    private LinkedList<MipsInstruction> instructions = new LinkedList<>();
+    private MipsInstructionList instructions = new MipsInstructionList();
 
     // 循环深度
     private int loopDepth = 0;
@@ -40,7 +39,7 @@ public class MipsBlock {
 
     // ============ getter/setter ============
     public int getNameCnt() {
-        return nameCnt++;
+        return CompilationSession.current().next(CompilationSession.Counter.MIPS_BLOCK);
     }
 
     public String getName() {
@@ -95,10 +94,14 @@ public class MipsBlock {
     }
 
     // ============ 其他 ============
-    public LinkedList<MipsInstruction> getInstructions() {
+    public MipsInstructionList getInstructions() {
         return instructions;
     }
 
+    public void setInstructions(MipsInstructionList instructions) {
+        this.instructions = instructions;
+    }
+
     // ============ 优化相关 ============
     public int getLoopDepth() {
         return loopDepth;
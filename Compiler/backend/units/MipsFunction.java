@@ -50,6 +50,11 @@ public class MipsFunction {
      */
     private HashSet<MipsImm> argOffsets = new HashSet<>();
 
+    /**
+     * 栈上分配出的所有槽（alloca 和溢出），按分配顺序排列
+     */
+    private ArrayList<MipsStackSlot> stackSlots = new ArrayList<>();
+
     // ============ 构造函数 ============
     public MipsFunction(String name, boolean isLibFunc) {
         // 去掉前缀"@"
@@ -90,6 +95,27 @@ public class MipsFunction {
         System.out.println("allocaSizeNow: "+allocaSize);
     }
 
+    /**
+     * 在函数栈上分配一个槽，访问它的指令都要使用槽的 offset
+     */
+    public MipsStackSlot addStackSlot(int size, boolean isSpill) {
+        MipsStackSlot slot = new MipsStackSlot(allocaSize, size, isSpill);
+        stackSlots.add(slot);
+        addAllocaSize(size);
+        return slot;
+    }
+
+    public ArrayList<MipsStackSlot> getStackSlots() {
+        return stackSlots;
+    }
+
+    /**
+     * 栈帧重排后，槽占用的空间可能变小
+     */
+    public void setAllocaSize(int allocaSize) {
+        this.allocaSize = allocaSize;
+    }
+
     /**
      * 向函数中添加一个虚拟寄存器
      */
@@ -2,6 +2,7 @@ package backend.units;
 
 import ir.types.IntType;
 import ir.values.constants.ConstInt;
+import utils.OptConfig;
 
 import java.util.ArrayList;
 
@@ -15,7 +16,7 @@ public class MipsGlobalVariable {
     public enum Type {
         String, // 字符串类型
         Zero,   // 未初始化的全局变量，可能是int/char
-        Int,    // int型变量or数组，FIXME: char类型要不要单列？
+        Int,    // int/char型变量or数组，char按字节存放时输出.byte
     }
     // ============ 成员变量 ============
     private String name;
@@ -63,11 +64,17 @@ public class MipsGlobalVariable {
             case Zero -> sb.append(".space\t").append(size).append("\n");
             case String -> sb.append(".asciiz\t\"").append(stringValue).append("\"\n");
             case Int -> {
-                // FIXME: 如果是char类型全局变量或数组，先也用.word吧！
+                // char 的初值截断到 0~255，和 trunc、lbu 的结果一致
                 if ( ((IntType)(ints.get(0).getType())).getBits() == 8 ) {
-                    sb.append(".word\t");
+                    sb.append(OptConfig.byteChars ? ".byte\t" : ".word\t");
                     for (ConstInt i : ints) {
-                        sb.append(i.getValue()).append(", ");
+                        sb.append(i.getValue() & 0xff).append(", ");
+                    }
+                    // 按字节存放时补0到4的倍数，后面的全局变量仍然字对齐（.space不会自动对齐）
+                    if (OptConfig.byteChars) {
+                        for (int k = ints.size(); k % 4 != 0; k++) {
+                            sb.append("0, ");
+                        }
                     }
                     sb.delete(sb.length() - 2, sb.length()).append("\n");
                 } else {
@@ -0,0 +1,235 @@
+package backend.units;
+
+import backend.instructions.MipsInstruction;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * @author Gary
+ * @Description: 基本块中的指令序列，用数组实现
+ * 1. 按下标访问是O(1)，倒序遍历直接用下标从后往前即可
+ * 2. 在遍历的同时插入指令（例如溢出时插入lw/sw）要使用Cursor，它边读边把指令写进新数组，整块改写是线性的
+ * @date 2026/10/18 17:30
+ */
+public class MipsInstructionList implements Iterable<MipsInstruction> {
+    private MipsInstruction[] items = new MipsInstruction[8];
+    private int size = 0;
+
+    // ============ 基本操作 ============
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public MipsInstruction get(int index) {
+        checkIndex(index);
+        return items[index];
+    }
+
+    public void set(int index, MipsInstruction instruction) {
+        checkIndex(index);
+        items[index] = instruction;
+    }
+
+    public MipsInstruction getLast() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return items[size - 1];
+    }
+
+    public void add(MipsInstruction instruction) {
+        ensureCapacity(size + 1);
+        items[size++] = instruction;
+    }
+
+    /**
+     * 在下标index处插入，后面的指令依次后移
+     */
+    public void add(int index, MipsInstruction instruction) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+        }
+        ensureCapacity(size + 1);
+        System.arraycopy(items, index, items, index + 1, size - index);
+        items[index] = instruction;
+        size++;
+    }
+
+    public void addFirst(MipsInstruction instruction) {
+        add(0, instruction);
+    }
+
+    /**
+     * 在下标index处依次插入一组指令，只移动一次
+     */
+    public void addAll(int index, Collection<? extends MipsInstruction> instructions) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+        }
+        int cnt = instructions.size();
+        ensureCapacity(size + cnt);
+        System.arraycopy(items, index, items, index + cnt, size - index);
+        for (MipsInstruction instruction : instructions) {
+            items[index++] = instruction;
+        }
+        size += cnt;
+    }
+
+    public MipsInstruction removeLast() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        MipsInstruction last = items[--size];
+        items[size] = null;
+        return last;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > items.length) {
+            items = Arrays.copyOf(items, Math.max(capacity, items.length * 2));
+        }
+    }
+
+    public Iterator<MipsInstruction> iterator() {
+        return new Iterator<>() {
+            private int index = 0;
+
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            public MipsInstruction next() {
+                if (index >= size) {
+                    throw new NoSuchElementException();
+                }
+                return items[index++];
+            }
+        };
+    }
+
+    // ============ 改写游标 ============
+    /**
+     * 获得一个改写游标，遍历期间只能通过游标修改指令序列，结束时必须调用finish
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * 改写游标：依次读出原序列中的指令，同时写入新序列
+     * 位置（position）指的都是新序列中的下标；在某个位置插入后，它之后的位置都会加一
+     * 删除的指令先留空位，finish时再统一去掉，所以删除不会改变其他指令的位置
+     */
+    public class Cursor {
+        private final MipsInstruction[] src = items;
+        private final int srcSize = size;
+        private int read = 0;
+        private MipsInstruction[] dst = new MipsInstruction[size + 8];
+        private int dstSize = 0;
+        /**
+         * 当前指令在新序列中的位置
+         */
+        private int current = -1;
+        private int removed = 0;
+
+        private Cursor() {
+        }
+
+        public boolean hasNext() {
+            return read < srcSize;
+        }
+
+        /**
+         * 读出下一条指令，它成为当前指令
+         */
+        public MipsInstruction next() {
+            if (read >= srcSize) {
+                throw new NoSuchElementException();
+            }
+            MipsInstruction instruction = src[read++];
+            append(instruction);
+            current = dstSize - 1;
+            return instruction;
+        }
+
+        /**
+         * 当前指令在新序列中的位置
+         */
+        public int position() {
+            return current;
+        }
+
+        /**
+         * 在新序列的position处插入指令，position不能超过当前指令之后的位置
+         * 只会移动position之后已经写入的指令，所以在当前指令附近插入是O(1)的
+         */
+        public void insert(int position, MipsInstruction instruction) {
+            if (position < 0 || position > dstSize) {
+                throw new IndexOutOfBoundsException("position: " + position + ", size: " + dstSize);
+            }
+            append(null);
+            System.arraycopy(dst, position, dst, position + 1, dstSize - 1 - position);
+            dst[position] = instruction;
+            if (position <= current) {
+                current++;
+            }
+        }
+
+        public void insertBefore(MipsInstruction instruction) {
+            insert(position(), instruction);
+        }
+
+        public void insertAfter(MipsInstruction instruction) {
+            append(instruction);
+        }
+
+        /**
+         * 删除当前指令，之后仍然可以在它原来的位置前后插入
+         */
+        public void remove() {
+            dst[current] = null;
+            removed++;
+        }
+
+        /**
+         * 把剩余的指令原样写入，并用新序列替换原序列
+         */
+        public void finish() {
+            while (hasNext()) {
+                next();
+            }
+            if (removed > 0) {
+                int cnt = 0;
+                for (int i = 0; i < dstSize; i++) {
+                    if (dst[i] != null) {
+                        dst[cnt++] = dst[i];
+                    }
+                }
+                Arrays.fill(dst, cnt, dstSize, null);
+                dstSize = cnt;
+            }
+            items = dst;
+            size = dstSize;
+        }
+
+        private void append(MipsInstruction instruction) {
+            if (dstSize == dst.length) {
+                dst = Arrays.copyOf(dst, dst.length * 2);
+            }
+            dst[dstSize++] = instruction;
+        }
+    }
+}
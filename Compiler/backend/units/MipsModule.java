@@ -1,5 +1,7 @@
 package backend.units;
 
+import utils.CompilationSession;
+
 import java.util.ArrayList;
 import java.util.Objects;
 
@@ -9,17 +11,15 @@ import java.util.Objects;
  * @date 2024/11/28 21:59
  */
 public class MipsModule {
-    // ============ 单例模式 ============
-    private static MipsModule instance = new MipsModule();
-    private MipsModule() {}
+    // ============ 每个编译会话一个，由 CompilationSession 创建 ============
     public static MipsModule getInstance() {
-        return instance;
+        return CompilationSession.current().getMipsModule();
     }
 
     // ============ 成员变量 ============
-    private static ArrayList<MipsGlobalVariable> globalVariables = new ArrayList<>();
-    private static ArrayList<MipsFunction> functions = new ArrayList<>();
-    private static MipsFunction mainFunction;   // 特别定义的主函数
+    private final ArrayList<MipsGlobalVariable> globalVariables = new ArrayList<>();
+    private final ArrayList<MipsFunction> functions = new ArrayList<>();
+    private MipsFunction mainFunction;   // 特别定义的主函数
 
     // ============ 常用方法 ============
 
@@ -27,21 +27,22 @@ public class MipsModule {
      * 向全局变量列表中添加全局变量
      */
     public static void addGlobalVariable(MipsGlobalVariable globalVariable) {
-        globalVariables.add(globalVariable);
+        getInstance().globalVariables.add(globalVariable);
     }
 
     /**
      * 向函数列表中添加函数
      */
     public static void addFunction(MipsFunction function) {
+        MipsModule module = getInstance();
         if (Objects.equals(function.getName(), "main")) {
-            mainFunction = function;
+            module.mainFunction = function;
         }
-        functions.add(function);
+        module.functions.add(function);
     }
 
     public static ArrayList<MipsFunction> getFunctions() {
-        return functions;
+        return getInstance().functions;
     }
 
     public String toString() {
@@ -0,0 +1,50 @@
+package backend.units;
+
+import backend.operands.MipsImm;
+
+import java.util.HashSet;
+
+/**
+ * @author Gary
+ * @Description: 函数栈帧中的一块空间，来自 alloca 或寄存器溢出
+ * 所有访问这块空间的指令共用同一个偏移量立即数 offset，栈帧重排时只需修改它的值
+ * @date 2026/10/18 19:40
+ */
+public class MipsStackSlot {
+    private final MipsImm offset;
+    private final int size;
+    /**
+     * 是否是寄存器溢出的槽：只会被 lw/sw offset($sp) 访问，活跃范围可以直接从 MIPS 指令中求出
+     */
+    private final boolean isSpill;
+    /**
+     * alloca 的槽中，有指令（经过 gep）访问它的基本块；为 null 表示地址逃逸，整个函数都要保留
+     */
+    private HashSet<MipsBlock> accessBlocks = null;
+
+    public MipsStackSlot(int offset, int size, boolean isSpill) {
+        this.offset = new MipsImm(offset);
+        this.size = size;
+        this.isSpill = isSpill;
+    }
+
+    public MipsImm getOffset() {
+        return offset;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public boolean isSpill() {
+        return isSpill;
+    }
+
+    public HashSet<MipsBlock> getAccessBlocks() {
+        return accessBlocks;
+    }
+
+    public void setAccessBlocks(HashSet<MipsBlock> accessBlocks) {
+        this.accessBlocks = accessBlocks;
+    }
+}
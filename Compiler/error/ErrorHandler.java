@@ -1,6 +1,7 @@
 package error;
 
 import symbol.SymbolTable;
+import utils.CompilationSession;
 import utils.IOUtils;
 
 import java.util.ArrayList;
@@ -8,14 +9,13 @@ import java.util.List;
 
 /**
  * @author Gary
- * @Description: 错误处理类，单例模式
+ * @Description: 错误处理类，每个编译会话（CompilationSession）一个
  * @date 2024/9/24 23:24
  */
 public class ErrorHandler {
-    private static final ErrorHandler errorHandler = new ErrorHandler();
-    // 单例模式
+    // 每个编译会话一个，由 CompilationSession 创建
     public static ErrorHandler getInstance() {
-        return errorHandler;
+        return CompilationSession.current().getErrorHandler();
     }
     // 错误表
     private List<MyError> myErrorTable = new ArrayList<>();
@@ -27,10 +27,17 @@ public class ErrorHandler {
         return !myErrorTable.isEmpty();
     }
     public void printErrorTable(String filePath) {
+        String errorText = getErrorText();
+        IOUtils.write(errorText, filePath);
+        System.out.print(errorText);
+    }
+    // 按行号排序后的错误表，每行一个错误
+    public String getErrorText() {
         myErrorTable.sort(MyError::compareTo);
+        StringBuilder sb = new StringBuilder();
         for (MyError myError : myErrorTable) {
-            IOUtils.write(myError.toString(), filePath);
-            System.out.print(myError);
+            sb.append(myError);
         }
+        return sb.toString();
     }
 }
@@ -3,249 +3,393 @@ package frontend;
 import error.ErrorHandler;
 import error.ErrorType;
 import error.MyError;
+import utils.CompilationSession;
 import utils.IOUtils;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
 
 /**
  * @author Gary
- * @Description: 词法分析器，单例模式
+ * @Description: 词法分析器，每个编译会话（CompilationSession）一个
+ * 按需分析：语法分析向 TokenBuffer 要下一个单词时，才从 Reader 分块读入源代码、扫描出一个单词
+ * 扫描时按字符类别表分派，单词用起点和长度表示，结果存入按列存储的 TokenBuffer
+ * 保留字按长度分组逐字比较，保留字和符号不保存字符串，标识符和整数在 TokenBuffer 中查重
  * @date 2024/9/23 19:52
  */
 public class Lexer {
-    // 单例模式，用final表示不可修改
-    private static final Lexer instance = new Lexer();
+    // 每个编译会话一个，由 CompilationSession 创建
     public static Lexer getInstance() {
-        return instance;
+        return CompilationSession.current().getLexer();
     }
-    // 标识符数组
-    private List<Token> tokens = new ArrayList<>();
+    // 词法单元流，语法分析从中按需取出单词
+    private final TokenBuffer tokens = new TokenBuffer(this);
     // 获取词法分析结果
-    public List<Token> getTokens() {
+    public TokenBuffer getTokens() {
         return tokens;
     }
-    // 保留字, 也叫关键字
-    private Map<String, TokenType> reservedWords = new HashMap<>();
-    private void initReservedWords() {
-        reservedWords.put("main", TokenType.MAINTK);
-        reservedWords.put("const", TokenType.CONSTTK);
-        reservedWords.put("int", TokenType.INTTK);
-        reservedWords.put("char", TokenType.CHARTK);
-        reservedWords.put("break", TokenType.BREAKTK);
-        reservedWords.put("continue", TokenType.CONTINUETK);
-        reservedWords.put("if", TokenType.IFTK);
-        reservedWords.put("else", TokenType.ELSETK);
-        reservedWords.put("for", TokenType.FORTK);
-        reservedWords.put("getint", TokenType.GETINTTK);
-        reservedWords.put("getchar", TokenType.GETCHARTK);
-        reservedWords.put("printf", TokenType.PRINTFTK);
-        reservedWords.put("return", TokenType.RETURNTK);
-        reservedWords.put("void", TokenType.VOIDTK);
-    }
-
-    // 词法分析函数，按照表格顺序: IDENFR -> INTCON -> STRCON ...
+    // 当前行号
+    private int lineNum;
+
+    // ============ 字符类别表 ============
+    private static final byte OTHER = 0;     // 空白和不认识的字符，直接跳过
+    private static final byte LETTER = 1;    // 字母和下划线
+    private static final byte DIGIT = 2;
+    private static final byte SINGLE = 3;    // 只有一个字符的符号：+ - * % ; , ( ) [ ] { }
+    private static final byte SPECIAL = 4;   // 需要再看后面字符的：" ' ! & | / < > = 和换行
+    private static final byte[] CHAR_CLASS = new byte[128];
+    // 单字符符号的类别码
+    private static final TokenType[] SINGLE_TYPE = new TokenType[128];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) CHAR_CLASS[c] = LETTER;
+        for (char c = 'A'; c <= 'Z'; c++) CHAR_CLASS[c] = LETTER;
+        CHAR_CLASS['_'] = LETTER;
+        for (char c = '0'; c <= '9'; c++) CHAR_CLASS[c] = DIGIT;
+        single('+', TokenType.PLUS);
+        single('-', TokenType.MINU);
+        single('*', TokenType.MULT);
+        single('%', TokenType.MOD);
+        single(';', TokenType.SEMICN);
+        single(',', TokenType.COMMA);
+        single('(', TokenType.LPARENT);
+        single(')', TokenType.RPARENT);
+        single('[', TokenType.LBRACK);
+        single(']', TokenType.RBRACK);
+        single('{', TokenType.LBRACE);
+        single('}', TokenType.RBRACE);
+        for (char c : "\"'!&|/<>=\n".toCharArray()) CHAR_CLASS[c] = SPECIAL;
+    }
+
+    private static void single(char c, TokenType type) {
+        CHAR_CLASS[c] = SINGLE;
+        SINGLE_TYPE[c] = type;
+    }
+
+    // 非 ASCII 字符按 Character 的分类处理，和字母、数字的判断保持一致
+    private static byte classOf(char c) {
+        if (c < 128) return CHAR_CLASS[c];
+        if (Character.isLetter(c)) return LETTER;
+        if (Character.isDigit(c)) return DIGIT;
+        return OTHER;
+    }
+
+    private static boolean isIdentPart(char c) {
+        if (c < 128) {
+            byte cls = CHAR_CLASS[c];
+            return cls == LETTER || cls == DIGIT;
+        }
+        return Character.isLetterOrDigit(c);
+    }
+
+    private static boolean isDigit(char c) {
+        return c < 128 ? CHAR_CLASS[c] == DIGIT : Character.isDigit(c);
+    }
+
+    // ============ 输入缓冲 ============
+    // 每次从 Reader 读入的字符数
+    private static final int CHUNK_SIZE = 8192;
+    private Reader reader;
+    // 缓冲区中是源代码 [base, base + limit) 这一段，位置都用在源代码中的绝对偏移表示
+    private char[] buf = new char[CHUNK_SIZE * 2];
+    private int base;
+    private int limit;
+    // 补充输入时只保留 keepFrom 之后的字符，即当前单词的起点
+    private int keepFrom;
+    private boolean eof;
+    // 换行符统一成 \n（\r\n、单独的 \r 都算一个换行），文件不以换行结尾时补一个，和 IOUtils.read 读入的结果相同
+    private boolean skipLineFeed;
+    private char lastChar = '\n';
+    private final char[] rawChunk = new char[CHUNK_SIZE];
+    // 当前扫描位置
+    private int curPos;
+
+    /**
+     * 开始对一个输入流做词法分析，单词由语法分析通过 TokenBuffer 按需取出
+     */
+    public void open(Reader reader) {
+        this.reader = reader;
+        base = limit = keepFrom = curPos = 0;
+        eof = skipLineFeed = false;
+        lastChar = '\n';
+        lineNum = 1;
+    }
+
+    // 词法分析函数：一次性分析全部内容，结果全部保留在 TokenBuffer 中
     public void analyze(String content) {
-        initReservedWords();
-//        Boolean result = true;  // 标记词法分析是否成功
-        int lineNum = 1;
-        int len = content.length();
-        // 从开头遍历
-        for (int curPos = 0; curPos < len; curPos++) {
-            char c = content.charAt(curPos);
-            if (c == '\n') lineNum++;
-            // 标识符 Ident
-            else if (c == '_' || Character.isLetter(c)) {
-                String ident = "";
-                while (curPos < len && (Character.isLetterOrDigit(content.charAt(curPos)) || content.charAt(curPos) == '_')) {
-                    char cc = content.charAt(curPos++);
-                    ident += cc;
+        open(new StringReader(content));
+        while (next()) {
+            // 全部单词都留在 tokens 中
+        }
+    }
+
+    private boolean has(int pos) {
+        return pos < base + limit || fill(pos);
+    }
+
+    private char charAt(int pos) {
+        return buf[pos - base];
+    }
+
+    /**
+     * 从 Reader 补充输入，直到包含位置 pos 或者输入结束
+     * @return pos 处是否有字符
+     */
+    private boolean fill(int pos) {
+        while (pos >= base + limit && !eof) {
+            // 丢掉当前单词之前的字符，单词本身比缓冲区还长时扩容
+            int shift = keepFrom - base;
+            if (shift > 0) {
+                System.arraycopy(buf, shift, buf, 0, limit - shift);
+                base += shift;
+                limit -= shift;
+            }
+            if (buf.length - limit < CHUNK_SIZE + 1) {
+                buf = Arrays.copyOf(buf, buf.length * 2);
+            }
+            int n;
+            try {
+                n = reader.read(rawChunk, 0, CHUNK_SIZE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (n < 0) {
+                eof = true;
+                if (lastChar != '\n') {
+                    buf[limit++] = '\n';
                 }
-                curPos--;    // 回退一个字符，因为for循环会自动加1
-                // 判断是否是保留字，要不是保留字就是标识符
-                TokenType type = reservedWords.get(ident);
-                if (type == null) type = TokenType.IDENFR;
-                tokens.add(new Token(type, ident, lineNum));
+                break;
             }
-            // 无符号整数 IntConst
-            else if (Character.isDigit(c)) {
-                String intConst = "";
-                while (curPos < len && Character.isDigit(content.charAt(curPos))) {
-                    char cc = content.charAt(curPos++);
-                    intConst += cc;
+            for (int i = 0; i < n; i++) {
+                char c = rawChunk[i];
+                if (c == '\r') {
+                    c = '\n';
+                    skipLineFeed = true;
+                } else if (c == '\n' && skipLineFeed) {
+                    skipLineFeed = false;
+                    continue;
+                } else {
+                    skipLineFeed = false;
                 }
-                curPos--;    // 回退一个字符，因为for循环会自动加1
-                TokenType type = TokenType.INTCON;
-                tokens.add(new Token(type, intConst, lineNum));
+                buf[limit++] = c;
+                lastChar = c;
             }
-            // 字符串常量 StringConst
-            else if (c == '\"') {
-                String strConst = "\"";
-                curPos++;
-                while (curPos < len && content.charAt(curPos) != '\"') {
-                    char cc = content.charAt(curPos++);
-                    strConst += cc;
-                    if (cc == '\\' && curPos < len && content.charAt(curPos) == '\"') {
-                        strConst += content.charAt(curPos);
-                        curPos++;    // 跳过转义字符"
+        }
+        return pos < base + limit;
+    }
+
+    /**
+     * 分析出下一个单词，放入 tokens
+     * @return 输入结束、没有单词时返回 false
+     */
+    boolean next() {
+        while (has(curPos)) {
+            char c = charAt(curPos);
+            int start = curPos;
+            keepFrom = start;
+            switch (classOf(c)) {
+                // 标识符 Ident，或者保留字
+                case LETTER -> {
+                    curPos++;
+                    while (has(curPos) && isIdentPart(charAt(curPos))) curPos++;
+                    addWord(start, curPos - start);
+                    return true;
+                }
+                // 无符号整数 IntConst
+                case DIGIT -> {
+                    curPos++;
+                    while (has(curPos) && isDigit(charAt(curPos))) curPos++;
+                    tokens.addSlice(TokenType.INTCON, buf, start - base, curPos - start, start, lineNum);
+                    return true;
+                }
+                case SINGLE -> {
+                    tokens.addFixed(SINGLE_TYPE[c], curPos, 1, lineNum);
+                    curPos++;
+                    return true;
+                }
+                case SPECIAL -> {
+                    if (special()) {
+                        return true;
                     }
                 }
-                strConst += "\"";    // 加上结尾的双引号
-                TokenType type = TokenType.STRCON;
-                tokens.add(new Token(type, strConst, lineNum));
+                default -> curPos++;
             }
-            // 字符常量 CharConst
-            else if (c == '\'') {
-                String charConst = "'";
+        }
+        return false;
+    }
+
+    /**
+     * 处理 SPECIAL 类的字符，换行和注释不产生单词
+     * @return 是否产生了单词
+     */
+    private boolean special() {
+        char c = charAt(curPos);
+        char next = has(curPos + 1) ? charAt(curPos + 1) : 0;
+        switch (c) {
+            case '\n':
+                lineNum++;
                 curPos++;
-                while (curPos < len) {
-                    char cc = content.charAt(curPos++);
-                    charConst += cc;
-                    if (content.charAt(curPos) == '\'') {
-                        if (content.charAt(curPos + 1) != '\'') {
-                            break;
-                        }
-                    }
+                return false;
+            // 字符串常量 StringConst：到下一个双引号为止，\" 不结束字符串；没有结尾的双引号时也补上
+            case '\"': {
+                int end = curPos + 1;
+                while (has(end) && charAt(end) != '\"') {
+                    if (charAt(end++) == '\\' && has(end) && charAt(end) == '\"') end++;
                 }
-                charConst += "'";    // 加上结尾的单引号
-                TokenType type = TokenType.CHRCON;
-                tokens.add(new Token(type, charConst, lineNum));
+                literal(TokenType.STRCON, end, "\"");
+                return true;
             }
-            // NOT 和 NEQ
-            else if (c == '!') {
-                if (curPos < len && content.charAt(curPos + 1) == '=') {
-                    curPos++;
-                    tokens.add(new Token(TokenType.NEQ, "!=", lineNum));
-                } else {
-                    tokens.add(new Token(TokenType.NOT, "!", lineNum));
+            // 字符常量 CharConst：至少包含一个字符，遇到后面不是 '' 的单引号结束（'\'' 中间的 ' 不结束）
+            case '\'': {
+                int end = curPos + 1;
+                while (has(end)) {
+                    end++;
+                    if (has(end) && charAt(end) == '\'' && (!has(end + 1) || charAt(end + 1) != '\'')) break;
                 }
+                literal(TokenType.CHRCON, end, "'");
+                return true;
             }
-            // AND &&
-            else if (c == '&') {
-                if (curPos < len && content.charAt(curPos + 1) == '&') {
-                    curPos++;
-                    tokens.add(new Token(TokenType.AND, "&&", lineNum));
-                } else {
+            // NOT 和 NEQ
+            case '!':
+                return twoChar(next == '=', TokenType.NEQ, TokenType.NOT);
+            // AND &&，单独的 & 报 a 类错误，仍按 && 处理
+            case '&':
+                if (next != '&') {
                     ErrorHandler.getInstance().addErrorTable(new MyError(lineNum, ErrorType.a));
-                    tokens.add(new Token(TokenType.AND, "&&", lineNum));
-//                    result = false;
                 }
-            }
-            // OR ||
-            else if (c == '|') {
-                if (curPos < len && content.charAt(curPos + 1) == '|') {
-                    curPos++;
-                    tokens.add(new Token(TokenType.OR, "||", lineNum));
-                } else {
+                return twoChar(next == '&', TokenType.AND, TokenType.AND);
+            // OR ||，单独的 | 报 a 类错误，按 && 处理
+            case '|':
+                if (next != '|') {
                     ErrorHandler.getInstance().addErrorTable(new MyError(lineNum, ErrorType.a));
-                    tokens.add(new Token(TokenType.AND, "&&", lineNum));
-//                    result = false;
                 }
-            }
-            // PLUS +
-            else if (c == '+') tokens.add(new Token(TokenType.PLUS, "+", lineNum));
-            // MINUS -
-            else if (c == '-') tokens.add(new Token(TokenType.MINU, "-", lineNum));
-            // MULTI *
-            else if (c == '*') tokens.add(new Token(TokenType.MULT, "*", lineNum));
+                return twoChar(next == '|', TokenType.OR, TokenType.AND);
             // DIV / 需要额外考虑注释的情况
-            else if (c == '/') {
-                String token = "/";
-                // 单行注释
-                if (curPos + 1 < len && content.charAt(curPos + 1) == '/') {
-                    curPos++;
-                    while (curPos < len && content.charAt(curPos) != '\n') {
-                        token += content.charAt(curPos++);
-                    }
-                    // 此时只可能是换行符或文件结尾！
-                    if (curPos < len) {
-                        token += content.charAt(curPos++);
+            case '/':
+                // 单行注释，包括结尾的换行符。注释不用保留，扫描时随时可以丢掉
+                if (next == '/') {
+                    curPos += 2;
+                    while (has(curPos) && charAt(curPos) != '\n') keepFrom = ++curPos;
+                    if (has(curPos)) {
                         lineNum++;
+                        curPos++;
                     }
-                    curPos--;
-//                    System.out.println("单行注释：" + token);
+                    return false;
                 }
-                // 多行注释
-                else if (curPos + 1 < len && content.charAt(curPos + 1) == '*') {
+                // 多行注释：从 * 开始找 */，所以 /*/ 也是完整的注释
+                if (next == '*') {
                     curPos++;
-                    while (curPos < len) {  // 状态转换循环
-                        while (curPos < len && content.charAt(curPos) != '*') {
-                            // 非*字符，继续循环
-                            char cc = content.charAt(curPos++);
-                            token += cc;
-                            if (cc == '\n') lineNum++;
-                        }
-                        while (curPos < len && content.charAt(curPos) == '*') {
-                            // 遇到*，继续循环。如果不是*，则继续走大循环，跳到上一个小循环
-                            token += content.charAt(curPos++);
+                    while (has(curPos)) {
+                        while (has(curPos) && charAt(curPos) != '*') {
+                            if (charAt(curPos++) == '\n') lineNum++;
+                            keepFrom = curPos;
                         }
-                        if (curPos < len && content.charAt(curPos) == '/') {
-                            // 找到*/，结束注释
-                            token += content.charAt(curPos);
-                            break;
+                        while (has(curPos) && charAt(curPos) == '*') keepFrom = ++curPos;
+                        if (has(curPos) && charAt(curPos) == '/') {
+                            curPos++;
+                            return false;
                         }
                     }
-//                    System.out.println("多行注释：" + token);
+                    return false;
                 }
                 // 除法运算符
-                else {
-                    tokens.add(new Token(TokenType.DIV, "/", lineNum));
-                }
-            }
-            else if (c == '%') tokens.add(new Token(TokenType.MOD, "%", lineNum));
-            // LSS > LEQ >=
-            else if (c == '<') {
-                if (curPos < len && content.charAt(curPos + 1) == '=') {
-                    curPos++;
-                    tokens.add(new Token(TokenType.LEQ, "<=", lineNum));
-                } else {
-                    tokens.add(new Token(TokenType.LSS, "<", lineNum));
-                }
-            }
+                tokens.addFixed(TokenType.DIV, curPos++, 1, lineNum);
+                return true;
+            // LSS < LEQ <=
+            case '<':
+                return twoChar(next == '=', TokenType.LEQ, TokenType.LSS);
             // GRE > GEQ >=
-            else if (c == '>') {
-                if (curPos < len && content.charAt(curPos + 1) == '=') {
-                    curPos++;
-                    tokens.add(new Token(TokenType.GEQ, ">=", lineNum));
-                } else {
-                    tokens.add(new Token(TokenType.GRE, ">", lineNum));
-                }
-            }
+            case '>':
+                return twoChar(next == '=', TokenType.GEQ, TokenType.GRE);
             // ASSIGN = EQL ==
-            else if (c == '=') {
-                if (curPos < len && content.charAt(curPos + 1) == '=') {
-                    curPos++;
-                    tokens.add(new Token(TokenType.EQL, "==", lineNum));
-                } else {
-                    tokens.add(new Token(TokenType.ASSIGN, "=", lineNum));
-                }
-            }
-            // SEMICN ;
-            else if (c == ';') tokens.add(new Token(TokenType.SEMICN, ";", lineNum));
-            // COMMA ,
-            else if (c == ',') tokens.add(new Token(TokenType.COMMA, ",", lineNum));
-            // LPARENT (
-            else if (c == '(') tokens.add(new Token(TokenType.LPARENT, "(", lineNum));
-            // RPARENT )
-            else if (c == ')') tokens.add(new Token(TokenType.RPARENT, ")", lineNum));
-            // LBRACK [
-            else if (c == '[') tokens.add(new Token(TokenType.LBRACK, "[", lineNum));
-            // RBRACK ]
-            else if (c == ']') tokens.add(new Token(TokenType.RBRACK, "]", lineNum));
-            // LBRACE {
-            else if (c == '{') tokens.add(new Token(TokenType.LBRACE, "{", lineNum));
-            // RBRACE }
-            else if (c == '}') tokens.add(new Token(TokenType.RBRACE, "}", lineNum));
+            default:
+                return twoChar(next == '=', TokenType.EQL, TokenType.ASSIGN);
+        }
+    }
+
+    private boolean twoChar(boolean isTwo, TokenType twoType, TokenType oneType) {
+        int length = isTwo ? 2 : 1;
+        tokens.addFixed(isTwo ? twoType : oneType, curPos, length, lineNum);
+        curPos += length;
+        return true;
+    }
+
+    /**
+     * 字符串、字符常量，end 是结尾引号的位置，没有结尾引号时补上
+     */
+    private void literal(TokenType type, int end, String quote) {
+        int start = curPos;
+        String value;
+        if (has(end)) {
+            value = new String(buf, start - base, end - start + 1);
+            curPos = end + 1;
+        } else {
+            value = new String(buf, start - base, end - start) + quote;
+            curPos = end;
+        }
+        tokens.addLiteral(type, value, start, curPos - start, lineNum);
+    }
+
+    /**
+     * 标识符或保留字
+     */
+    private void addWord(int start, int length) {
+        TokenType type = keyword(buf, start - base, length);
+        if (type != null) {
+            tokens.addFixed(type, start, length, lineNum);
+        } else {
+            tokens.addSlice(TokenType.IDENFR, buf, start - base, length, start, lineNum);
+        }
+    }
+
+    // 保留字, 也叫关键字：先按长度和首字母分组，再逐字比较
+    private static TokenType keyword(char[] buf, int start, int length) {
+        switch (length) {
+            case 2:
+                return matches(buf, start, TokenType.IFTK);
+            case 3:
+                return matches(buf, start, buf[start] == 'i' ? TokenType.INTTK : TokenType.FORTK);
+            case 4:
+                return switch (buf[start]) {
+                    case 'm' -> matches(buf, start, TokenType.MAINTK);
+                    case 'c' -> matches(buf, start, TokenType.CHARTK);
+                    case 'e' -> matches(buf, start, TokenType.ELSETK);
+                    case 'v' -> matches(buf, start, TokenType.VOIDTK);
+                    default -> null;
+                };
+            case 5:
+                return matches(buf, start, buf[start] == 'c' ? TokenType.CONSTTK : TokenType.BREAKTK);
+            case 6:
+                return switch (buf[start]) {
+                    case 'g' -> matches(buf, start, TokenType.GETINTTK);
+                    case 'p' -> matches(buf, start, TokenType.PRINTFTK);
+                    case 'r' -> matches(buf, start, TokenType.RETURNTK);
+                    default -> null;
+                };
+            case 7:
+                return matches(buf, start, TokenType.GETCHARTK);
+            case 8:
+                return matches(buf, start, TokenType.CONTINUETK);
+            default:
+                return null;
+        }
+    }
+
+    private static TokenType matches(char[] buf, int start, TokenType type) {
+        String word = type.getText();
+        for (int i = 0; i < word.length(); i++) {
+            if (buf[start + i] != word.charAt(i)) return null;
         }
-//        return result;
+        return type;
     }
 
     // 向指定输出文件输出结果
     public void printResult() {
-        for (Token token : tokens) {
+        for (int i = 0; i < tokens.size(); i++) {
+            Token token = tokens.get(i);
             IOUtils.write(token.toString());
             System.out.print(token);
         }
@@ -4,31 +4,46 @@ import error.ErrorHandler;
 import error.ErrorType;
 import error.MyError;
 import nodes.*;
+import utils.CompilationSession;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author Gary
- * @Description: 语法分析器，单例模式
+ * @Description: 语法分析器，每个编译会话（CompilationSession）一个
  * @date 2024/10/12 23:56
  */
 public class Parser {
-    private static Parser instance = new Parser();
-    public static Parser getInstance() { return instance; }
-    // 语法分析器的输入：词法单元流
-    private List<Token> inputTokens;
+    // 每个编译会话一个，由 CompilationSession 创建
+    public static Parser getInstance() { return CompilationSession.current().getParser(); }
+    // 语法分析器的输入：词法单元流，按下标读取，读到哪里词法分析就进行到哪里
+    // 语法树不保存 Token：保留字和符号由节点类型决定，标识符和常量只保存单词（curText）和行号（judge的返回值）
+    private TokenBuffer inputTokens;
     private int curPos = 0;     // 这个变量只有当遇到终结符时才会更新！！！
-    private Token curToken;    // 和curPos对应，只有当遇到非终结符时才会更新
-    public void setTokens(List<Token> inputTokens) {
+    private TokenType curType;  // 和curPos对应，当前单词的类别码
+    public void setTokens(TokenBuffer inputTokens) {
         this.inputTokens = inputTokens;
-        // 初始化，设置第一个Token
-        curToken = inputTokens.get(curPos);
+        // 初始化，设置第一个单词
+        curType = inputTokens.getType(curPos);
+    }
+    private TokenType curType() {
+        return curType;
+    }
+    // 当前单词的字符串，在judge之前取
+    private String curText() {
+        return inputTokens.getText(curPos);
     }
     private CompUnitNode entry;
+    // 整数常量的单词 -> 共用的 NumberNode
+    private final Map<String, NumberNode> numberNodes = new HashMap<>();
     // 语法分析，入口是CompUnit
     public void analyze() {
         this.entry = CompUnit();
+        // main 函数之后的内容不参与语法分析，但是其中的词法错误仍要报告
+        inputTokens.drain();
     }
     // 打印结果就是CompUnit的打印程序
     public void printResult() {
@@ -38,51 +53,51 @@ public class Parser {
     public CompUnitNode getEntry() {
         return entry;
     }
-    // 只有当遇到终结符时才会被调用，更新curPos和curToken，并且判断当前终结符是否符合预期
-    public Token judge(TokenType type) {
+    // 只有当遇到终结符时才会被调用，更新curPos，并且判断当前终结符是否符合预期
+    // 返回这个终结符的行号，不创建 Token
+    public int judge(TokenType type) {
         ErrorHandler errorHandler = ErrorHandler.getInstance();
-        int errorLineNum = curPos > 0? inputTokens.get(curPos-1).getLineNum() : 1;
-        if (curToken.getType() == type) {
-            // 当前token的类型符合预期，返回当前Token，并更新curPos和curToken
-            Token returnToken = curToken;
-            if (curPos < inputTokens.size()-1) {
-                curToken = inputTokens.get(++curPos);
+        int errorLineNum = curPos > 0? inputTokens.getLine(curPos-1) : 1;
+        if (curType() == type) {
+            // 当前token的类型符合预期，返回它的行号，并更新curPos
+            int lineNum = inputTokens.getLine(curPos);
+            if (inputTokens.has(curPos+1)) {
+                curType = inputTokens.getType(++curPos);
+                // 只保留前一个单词（报错用它的行号）
+                inputTokens.discardBefore(curPos - 1);
             }
-            return returnToken;
+            return lineNum;
         } else if (type == TokenType.SEMICN) {
             // 不符合预期，且预期符号是分号，报错i，行号为分号前一个非终结符所在行号。
-            if (recallFlag == 0)    // 只在没有回溯的时候才出现报错！！！
-                errorHandler.addErrorTable(new MyError(errorLineNum, ErrorType.i));
-            // 纠错，把这个符号改为分号，然后继续分析
-            return new Token(TokenType.SEMICN, ";", errorLineNum);
+            errorHandler.addErrorTable(new MyError(errorLineNum, ErrorType.i));
+            // 纠错，当作这里有分号，然后继续分析
+            return errorLineNum;
         } else if (type == TokenType.RPARENT) {  // 报错j
 //            System.out.println("jjjjj");
-            if (recallFlag == 0)
-                errorHandler.addErrorTable(new MyError(errorLineNum, ErrorType.j));
-            return new Token(TokenType.RPARENT, ")", errorLineNum);
+            errorHandler.addErrorTable(new MyError(errorLineNum, ErrorType.j));
+            return errorLineNum;
         } else if (type == TokenType.RBRACK) {  // 报错k
-            if (recallFlag == 0)
-                errorHandler.addErrorTable(new MyError(errorLineNum, ErrorType.k));
-            return new Token(TokenType.RBRACK, "]", errorLineNum);
+            errorHandler.addErrorTable(new MyError(errorLineNum, ErrorType.k));
+            return errorLineNum;
         } else {
-            throw new RuntimeException("Unexpected token at LINE " + curToken.getLineNum() + ", value: " + curToken.getValue() + " should be " + type);
+            throw new RuntimeException("Unexpected token at LINE " + inputTokens.getLine(curPos) + ", value: " + inputTokens.getText(curPos) + " should be " + type);
         }
     }
 
     /* 递归子程序法进行语法分析 */
-    // CompUnit -> {Decl} {FuncDef} MainFuncDef，需要预读、回溯
+    // CompUnit -> {Decl} {FuncDef} MainFuncDef，需要预读
     private CompUnitNode CompUnit() {
         // 务必先赋初值
         List<DeclNode> declNodes = new ArrayList<>();
         List<FuncDefNode> funcDefNodes = new ArrayList<>();
         MainFuncDefNode mainFuncDefNode = null;
         // 遍历。考虑decl的特性：第二项不会是main，第三项不会是左括号
-        while (inputTokens.get(curPos+1).getType() != TokenType.MAINTK && inputTokens.get(curPos+2).getType() != TokenType.LPARENT) {
+        while (inputTokens.getType(curPos+1) != TokenType.MAINTK && inputTokens.getType(curPos+2) != TokenType.LPARENT) {
             DeclNode declNode = Decl();
             declNodes.add(declNode);
         }
         // funcDef的特性：第二项不会是main，第三项一定是左括号
-        while (inputTokens.get(curPos+1).getType() != TokenType.MAINTK) {
+        while (inputTokens.getType(curPos+1) != TokenType.MAINTK) {
             FuncDefNode funcDefNode = FuncDef();
             funcDefNodes.add(funcDefNode);
         }
@@ -94,7 +109,7 @@ public class Parser {
     private DeclNode Decl() {
         ConstDeclNode constDeclNode = null;
         VarDeclNode varDeclNode = null;
-        if (curToken.getType() == TokenType.CONSTTK) {
+        if (curType() == TokenType.CONSTTK) {
             constDeclNode = ConstDecl();
         } else {
             varDeclNode = VarDecl();
@@ -104,195 +119,196 @@ public class Parser {
 
     // ConstDecl -> 'const' BType ConstDef { ',' ConstDef } ';'
     private ConstDeclNode ConstDecl() {
-        Token constToken = judge(TokenType.CONSTTK);
+        judge(TokenType.CONSTTK);
         BTypeNode bTypeNode = BType();
         List<ConstDefNode> constDefNodes = new ArrayList<>();
-        List<Token> commaTokens = new ArrayList<>();
-        Token semicnToken = null;
         constDefNodes.add(ConstDef());
-        while (curToken.getType() == TokenType.COMMA) {
-            commaTokens.add(judge(TokenType.COMMA));
+        while (curType() == TokenType.COMMA) {
+            judge(TokenType.COMMA);
             constDefNodes.add(ConstDef());
         }
-        semicnToken = judge(TokenType.SEMICN);
-        return new ConstDeclNode(constToken, bTypeNode, constDefNodes, commaTokens, semicnToken);
+        judge(TokenType.SEMICN);
+        return new ConstDeclNode(bTypeNode, constDefNodes);
     }
 
     // BType -> 'int' | 'char'
     private BTypeNode BType() {
-        Token token;
-        if (curToken.getType() == TokenType.INTTK) {
-            token = judge(TokenType.INTTK);
-        } else {
-            token = judge(TokenType.CHARTK);
-        }
-        return new BTypeNode(token);
+        TokenType type = curType() == TokenType.INTTK ? TokenType.INTTK : TokenType.CHARTK;
+        judge(type);
+        return new BTypeNode(type);
     }
 
     // ConstDef -> Ident [ '[' ConstExp ']' ] '=' ConstInitVal
     private ConstDefNode ConstDef() {
-        Token ident = judge(TokenType.IDENFR);
-        Token leftBracket = null, rightBracket = null, equalSign = null;
+        String ident = curText();
+        int identLine = judge(TokenType.IDENFR);
         ConstExpNode constExpNode = null;
-        if (curToken.getType() == TokenType.LBRACK) {
-            leftBracket = judge(TokenType.LBRACK);
+        if (curType() == TokenType.LBRACK) {
+            judge(TokenType.LBRACK);
             constExpNode = ConstExp();
-            rightBracket = judge(TokenType.RBRACK);
+            judge(TokenType.RBRACK);
         }
-        equalSign = judge(TokenType.ASSIGN);
+        judge(TokenType.ASSIGN);
         ConstInitValNode constInitValNode = ConstInitVal();
-        return new ConstDefNode(ident, leftBracket, constExpNode, rightBracket, equalSign, constInitValNode);
+        return new ConstDefNode(ident, identLine, constExpNode, constInitValNode);
     }
 
     // ConstInitVal -> ConstExp | '{' [ ConstExp { ',' ConstExp } ] '}' | StringConst
     private ConstInitValNode ConstInitVal() {
         List<ConstExpNode> constExpNodes = new ArrayList<>();
-        Token leftBrace = null, rightBrace = null, stringConst = null;
-        List<Token> commaTokens = new ArrayList<>();
-        if (curToken.getType() == TokenType.LBRACE) {
-            leftBrace = judge(TokenType.LBRACE);
-            if (curToken.getType() != TokenType.RBRACE) {
+        boolean hasBrace = false;
+        String stringConst = null;
+        if (curType() == TokenType.LBRACE) {
+            hasBrace = true;
+            judge(TokenType.LBRACE);
+            if (curType() != TokenType.RBRACE) {
                 constExpNodes.add(ConstExp());
-                while (curToken.getType() != TokenType.RBRACE) {
-                    commaTokens.add(judge(TokenType.COMMA));
+                while (curType() != TokenType.RBRACE) {
+                    judge(TokenType.COMMA);
                     constExpNodes.add(ConstExp());
                 }
             }
-            rightBrace = judge(TokenType.RBRACE);
-        } else if (curToken.getType() == TokenType.STRCON) {
-            stringConst = judge(TokenType.STRCON);
+            judge(TokenType.RBRACE);
+        } else if (curType() == TokenType.STRCON) {
+            stringConst = curText();
+            judge(TokenType.STRCON);
         } else {
             constExpNodes.add(ConstExp());
         }
-        return new ConstInitValNode(constExpNodes, leftBrace, rightBrace, commaTokens, stringConst);
+        return new ConstInitValNode(constExpNodes, hasBrace, stringConst);
     }
 
     // VarDecl -> BType VarDef { ',' VarDef } ';'
     private VarDeclNode VarDecl() {
         BTypeNode bTypeNode = BType();
         List<VarDefNode> varDefNodes = new ArrayList<>();
-        List<Token> commaTokens = new ArrayList<>();
-        Token semicnToken = null;
         varDefNodes.add(VarDef());
-        while (curToken.getType() == TokenType.COMMA) {
-            commaTokens.add(judge(TokenType.COMMA));
+        while (curType() == TokenType.COMMA) {
+            judge(TokenType.COMMA);
             varDefNodes.add(VarDef());
         }
-        semicnToken = judge(TokenType.SEMICN);
-        return new VarDeclNode(bTypeNode, varDefNodes, commaTokens, semicnToken);
+        judge(TokenType.SEMICN);
+        return new VarDeclNode(bTypeNode, varDefNodes);
     }
 
     // VarDef -> Ident [ '[' ConstExp ']' ] | Ident [ '[' ConstExp ']' ] '=' InitVal
     private VarDefNode VarDef() {
-        Token ident = judge(TokenType.IDENFR);
-        Token leftBracket = null, rightBracket = null, assign = null;
+        String ident = curText();
+        int identLine = judge(TokenType.IDENFR);
         ConstExpNode constExpNode = null;
         InitValNode initValNode = null;
-        if (curToken.getType() == TokenType.LBRACK) {
-            leftBracket = judge(TokenType.LBRACK);
+        if (curType() == TokenType.LBRACK) {
+            judge(TokenType.LBRACK);
             constExpNode = ConstExp();
-            rightBracket = judge(TokenType.RBRACK);
+            judge(TokenType.RBRACK);
         }
-        if (curToken.getType() == TokenType.ASSIGN) {
-            assign = judge(TokenType.ASSIGN);
+        if (curType() == TokenType.ASSIGN) {
+            judge(TokenType.ASSIGN);
             initValNode = InitVal();
         }
-        return new VarDefNode(ident, leftBracket, constExpNode, rightBracket, assign, initValNode);
+        return new VarDefNode(ident, identLine, constExpNode, initValNode);
     }
 
     // InitVal -> Exp | '{' [ Exp { ',' Exp } ] '}' | StringConst
     private InitValNode InitVal() {
         List<ExpNode> expNodes = new ArrayList<>();
-        Token leftBrace = null, rightBrace = null, stringConst = null;
-        List<Token> commaTokens = new ArrayList<>();
-        if (curToken.getType() == TokenType.LBRACE) {
-            leftBrace = judge(TokenType.LBRACE);
-            if (curToken.getType() != TokenType.RBRACE) {
+        boolean hasBrace = false;
+        String stringConst = null;
+        if (curType() == TokenType.LBRACE) {
+            hasBrace = true;
+            judge(TokenType.LBRACE);
+            if (curType() != TokenType.RBRACE) {
                 expNodes.add(Exp());
-                while (curToken.getType() != TokenType.RBRACE) {
-                    commaTokens.add(judge(TokenType.COMMA));
+                while (curType() != TokenType.RBRACE) {
+                    judge(TokenType.COMMA);
                     expNodes.add(Exp());
                 }
             }
-            rightBrace = judge(TokenType.RBRACE);
-        } else if (curToken.getType() == TokenType.STRCON) {
-            stringConst = judge(TokenType.STRCON);
+            judge(TokenType.RBRACE);
+        } else if (curType() == TokenType.STRCON) {
+            stringConst = curText();
+            judge(TokenType.STRCON);
         } else {
             expNodes.add(Exp());
         }
-        return new InitValNode(expNodes, leftBrace, rightBrace, commaTokens, stringConst);
+        return new InitValNode(expNodes, hasBrace, stringConst);
     }
 
     // FuncDef -> FuncType Ident '(' [FuncFParams] ')' Block
     private FuncDefNode FuncDef() {
         FuncTypeNode funcTypeNode = FuncType();
-        Token ident = judge(TokenType.IDENFR);
-        Token leftParent = judge(TokenType.LPARENT);
+        String ident = curText();
+        int identLine = judge(TokenType.IDENFR);
+        judge(TokenType.LPARENT);
         FuncFParamsNode funcFParamsNode = null;
-        if (curToken.getType() == TokenType.INTTK || curToken.getType() == TokenType.CHARTK) {
+        if (curType() == TokenType.INTTK || curType() == TokenType.CHARTK) {
             funcFParamsNode = FuncFParams();
         }
-        Token rightParent = judge(TokenType.RPARENT);
+        judge(TokenType.RPARENT);
         BlockNode blockNode = Block();
-        return new FuncDefNode(funcTypeNode, ident, leftParent, funcFParamsNode, rightParent, blockNode);
+        return new FuncDefNode(funcTypeNode, ident, identLine, funcFParamsNode, blockNode);
     }
 
     // MainFuncDef -> 'int' 'main' '(' ')' Block
     private MainFuncDefNode MainFuncDef() {
-        Token intToken = judge(TokenType.INTTK);
-        Token mainToken = judge(TokenType.MAINTK);
-        Token leftParent = judge(TokenType.LPARENT);
-        Token rightParent = judge(TokenType.RPARENT);
+        judge(TokenType.INTTK);
+        judge(TokenType.MAINTK);
+        judge(TokenType.LPARENT);
+        judge(TokenType.RPARENT);
         BlockNode blockNode = Block();
-        return new MainFuncDefNode(intToken, mainToken, leftParent, rightParent, blockNode);
+        return new MainFuncDefNode(blockNode);
     }
 
     // FuncType -> 'void' | 'int' | 'char'
     private FuncTypeNode FuncType() {
-        Token token;
-        if (curToken.getType() == TokenType.VOIDTK) {
-            token = judge(TokenType.VOIDTK);
-        } else if (curToken.getType() == TokenType.INTTK) {
-            token = judge(TokenType.INTTK);
+        TokenType type;
+        if (curType() == TokenType.VOIDTK) {
+            type = TokenType.VOIDTK;
+        } else if (curType() == TokenType.INTTK) {
+            type = TokenType.INTTK;
         } else {
-            token = judge(TokenType.CHARTK);
+            type = TokenType.CHARTK;
         }
-        return new FuncTypeNode(token);
+        judge(type);
+        return new FuncTypeNode(type);
     }
 
     // FuncFParams -> FuncFParam { ',' FuncFParam }
     private FuncFParamsNode FuncFParams() {
         List<FuncFParamNode> funcFParamNodes = new ArrayList<>();
-        List<Token> commaTokens = new ArrayList<>();
         funcFParamNodes.add(FuncFParam());
-        while (curToken.getType() == TokenType.COMMA) {
-            commaTokens.add(judge(TokenType.COMMA));
+        while (curType() == TokenType.COMMA) {
+            judge(TokenType.COMMA);
             funcFParamNodes.add(FuncFParam());
         }
-        return new FuncFParamsNode(funcFParamNodes, commaTokens);
+        return new FuncFParamsNode(funcFParamNodes);
     }
 
     // FuncFParam -> BType Ident ['[' ']']
     private FuncFParamNode FuncFParam() {
         BTypeNode bTypeNode = BType();
-        Token ident = judge(TokenType.IDENFR);
-        Token leftBracket = null, rightBracket = null;
-        if (curToken.getType() == TokenType.LBRACK) {
-            leftBracket = judge(TokenType.LBRACK);
-            rightBracket = judge(TokenType.RBRACK);
+        String ident = curText();
+        int identLine = judge(TokenType.IDENFR);
+        boolean isArray = false;
+        if (curType() == TokenType.LBRACK) {
+            isArray = true;
+            judge(TokenType.LBRACK);
+            judge(TokenType.RBRACK);
         }
-        return new FuncFParamNode(bTypeNode, ident, leftBracket, rightBracket);
+        return new FuncFParamNode(bTypeNode, ident, identLine, isArray);
     }
 
     // Block → '{' { BlockItem } '}'
     private BlockNode Block() {
-        Token leftBrace = judge(TokenType.LBRACE);
-        List<BlockItemNode> blockItemNodes = new ArrayList<>();
-        while (curToken.getType() != TokenType.RBRACE) {
+        judge(TokenType.LBRACE);
+        ArrayList<BlockItemNode> blockItemNodes = new ArrayList<>();
+        while (curType() != TokenType.RBRACE) {
             blockItemNodes.add(BlockItem());
         }
-        Token rightBrace = judge(TokenType.RBRACE);
-        return new BlockNode(leftBrace, blockItemNodes, rightBrace);
+        // 语法树一直保留到编译结束，去掉扩容留下的空位
+        blockItemNodes.trimToSize();
+        int rightBraceLine = judge(TokenType.RBRACE);
+        return new BlockNode(blockItemNodes, rightBraceLine);
     }
 
     // BlockItem -> Decl | Stmt
@@ -300,7 +316,7 @@ public class Parser {
         DeclNode declNode = null;
         StmtNode stmtNode = null;
         // 预读，通过下一个token的类型判断下一个token是Decl还是Stmt
-        if (curToken.getType() == TokenType.CONSTTK || curToken.getType() == TokenType.INTTK || curToken.getType() == TokenType.CHARTK) {
+        if (curType() == TokenType.CONSTTK || curType() == TokenType.INTTK || curType() == TokenType.CHARTK) {
             declNode = Decl();
         } else {
             stmtNode = Stmt();
@@ -321,134 +337,109 @@ public class Parser {
         -| 'printf''('StringConst {','Exp}')'';'
      */
     private StmtNode Stmt() {
-        if(curToken.getType() == TokenType.IFTK) {
+        if(curType() == TokenType.IFTK) {
             // 'if' '(' Cond ')' Stmt [ 'else' Stmt ]
-            Token ifToken = judge(TokenType.IFTK);
-            Token leftParent = judge(TokenType.LPARENT);
+            judge(TokenType.IFTK);
+            judge(TokenType.LPARENT);
             CondNode condNode = Cond();
-            Token rightParent = judge(TokenType.RPARENT);
-            List<StmtNode> stmtNodes = new ArrayList<>();
+            judge(TokenType.RPARENT);
+            List<StmtNode> stmtNodes = new ArrayList<>(2);
             stmtNodes.add(Stmt());
-            Token elseToken = null;
-            if (curToken.getType() == TokenType.ELSETK) {
-                elseToken = judge(TokenType.ELSETK);
+            if (curType() == TokenType.ELSETK) {
+                judge(TokenType.ELSETK);
                 stmtNodes.add(Stmt());
             }
-            return new StmtNode(StmtNode.StmtType.IF, ifToken, leftParent, condNode, rightParent, stmtNodes, elseToken);
-        } else if (curToken.getType() == TokenType.FORTK) {
+            return new StmtNode(StmtNode.StmtType.IF, condNode, stmtNodes);
+        } else if (curType() == TokenType.FORTK) {
             // 'for' '(' [ForStmt] ';' [Cond] ';' [ForStmt] ')' Stmt`
-            Token forToken = judge(TokenType.FORTK);
-            Token leftParent = judge(TokenType.LPARENT);
+            judge(TokenType.FORTK);
+            judge(TokenType.LPARENT);
             ForStmtNode forStmtNode1 = null;
-            if (curToken.getType() != TokenType.SEMICN) {
+            if (curType() != TokenType.SEMICN) {
                 forStmtNode1 = ForStmt();
             }
-            Token semicn1 = judge(TokenType.SEMICN);
+            judge(TokenType.SEMICN);
             CondNode condNode = null;
-            if (curToken.getType() != TokenType.SEMICN) {
+            if (curType() != TokenType.SEMICN) {
                 condNode = Cond();
             }
-            Token semicn2 = judge(TokenType.SEMICN);
+            judge(TokenType.SEMICN);
             ForStmtNode forStmtNode2 = null;
-            if (curToken.getType() != TokenType.RPARENT) {
+            if (curType() != TokenType.RPARENT) {
                 forStmtNode2 = ForStmt();
             }
-            Token rightParent = judge(TokenType.RPARENT);
-            List<StmtNode> stmtNodes = new ArrayList<>();
+            judge(TokenType.RPARENT);
+            List<StmtNode> stmtNodes = new ArrayList<>(1);
             stmtNodes.add(Stmt());
-            return new StmtNode(StmtNode.StmtType.FOR, forToken, leftParent, forStmtNode1, semicn1, condNode, semicn2, forStmtNode2, rightParent, stmtNodes);
-        } else if (curToken.getType() == TokenType.BREAKTK) {
+            return new StmtNode(StmtNode.StmtType.FOR, forStmtNode1, condNode, forStmtNode2, stmtNodes);
+        } else if (curType() == TokenType.BREAKTK) {
             // 'break' ';'
-            Token breakToken = judge(TokenType.BREAKTK);
-            Token semicn = judge(TokenType.SEMICN);
-            return new StmtNode(StmtNode.StmtType.BREAK, breakToken, semicn);
-        } else if (curToken.getType() == TokenType.CONTINUETK) {
+            int breakLine = judge(TokenType.BREAKTK);
+            judge(TokenType.SEMICN);
+            return new StmtNode(StmtNode.StmtType.BREAK, breakLine);
+        } else if (curType() == TokenType.CONTINUETK) {
             // 'continue' ';'
-            Token continueToken = judge(TokenType.CONTINUETK);
-            Token semicn = judge(TokenType.SEMICN);
-            return new StmtNode(StmtNode.StmtType.CONTINUE, continueToken, semicn);
-        } else if (curToken.getType() == TokenType.RETURNTK) {
+            int continueLine = judge(TokenType.CONTINUETK);
+            judge(TokenType.SEMICN);
+            return new StmtNode(StmtNode.StmtType.CONTINUE, continueLine);
+        } else if (curType() == TokenType.RETURNTK) {
             // 'return' [Exp] ';'
-            Token returnToken = judge(TokenType.RETURNTK);
+            int returnLine = judge(TokenType.RETURNTK);
             ExpNode expNode = null;
             // bugfix: 这里不能用SEMICN判断！因为有可能是return后忘跟分号了
             if (expJudge()) {
                 expNode = Exp();
             }
-            Token semicn = judge(TokenType.SEMICN);
-            return new StmtNode(StmtNode.StmtType.RETURN, returnToken, expNode, semicn);
-        } else if (curToken.getType() == TokenType.PRINTFTK) {
+            judge(TokenType.SEMICN);
+            return new StmtNode(StmtNode.StmtType.RETURN, returnLine, expNode);
+        } else if (curType() == TokenType.PRINTFTK) {
             // 'printf''('StringConst {','Exp}')'';'
-            Token printfToken = judge(TokenType.PRINTFTK);
-            Token leftParent = judge(TokenType.LPARENT);
-            Token stringConst = judge(TokenType.STRCON);
-            List<Token> commaTokens = new ArrayList<>();
+            int printfLine = judge(TokenType.PRINTFTK);
+            judge(TokenType.LPARENT);
+            String stringConst = curText();
+            judge(TokenType.STRCON);
             List<ExpNode> expNodes = new ArrayList<>();
-            while (curToken.getType() == TokenType.COMMA) {
-                commaTokens.add(judge(TokenType.COMMA));
+            while (curType() == TokenType.COMMA) {
+                judge(TokenType.COMMA);
                 expNodes.add(Exp());
             }
-            Token rightParent = judge(TokenType.RPARENT);
-            Token semicn = judge(TokenType.SEMICN);
-            return new StmtNode(StmtNode.StmtType.PRINTF, printfToken, leftParent, stringConst, commaTokens, expNodes, rightParent, semicn);
-        } else if (curToken.getType() == TokenType.LBRACE) {
+            judge(TokenType.RPARENT);
+            judge(TokenType.SEMICN);
+            return new StmtNode(StmtNode.StmtType.PRINTF, printfLine, stringConst, expNodes);
+        } else if (curType() == TokenType.LBRACE) {
             // Block
             BlockNode blockNode = Block();
             return new StmtNode(StmtNode.StmtType.BLOCK, blockNode);
         } else {
             // LVal '=' Exp ';' | LVal '=' 'getint''('')'';' | LVal '=' 'getchar''('')'';' | [Exp] ';'
             // 为分号，';'，无Exp，则无需进行任何操作
-            if (curToken.getType() == TokenType.SEMICN) {
-                Token semicn = judge(TokenType.SEMICN);
+            if (curType() == TokenType.SEMICN) {
+                judge(TokenType.SEMICN);
                 ExpNode expNode = null;
-                return new StmtNode(StmtNode.StmtType.EXP, expNode, semicn);
+                return new StmtNode(StmtNode.StmtType.EXP, expNode);
+            } else if (curType() == TokenType.IDENFR && inputTokens.getType(curPos + 1) == TokenType.ASSIGN) {
+                // 向前看两个单词：Ident '='，一定是不带下标的LVal赋值
+                return AssignStmt(LVal());
             } else {
-                // 先使用Exp消去LVal和Exp
-                savePos1();
-                recallFlag = 1;
-//                System.out.println("start " + curToken);
+                // 其余情况先按Exp分析，每个单词只读一次，不再回溯
+                // LVal本身就是一个Exp，如果Exp后面是'='，再从这个Exp中取出LVal
                 ExpNode expNode = Exp();
-                recallFlag = 0;
-//                System.out.println("end " + curToken);
-                // 为分号，Exp ';'，有Exp
-                if (curToken.getType() == TokenType.SEMICN) {
-                    restorePos1();  // 这里还是回到原来的位置吧，方便错误处理判断是否处于回溯状态
-                    expNode = Exp();
-                    Token semicn = judge(TokenType.SEMICN);
-                    return new StmtNode(StmtNode.StmtType.EXP, expNode, semicn);
-                } else {
-                    // 非分号，那么有两种情况：1、是LVal开头的语句
-                    if(curToken.getType() == TokenType.ASSIGN) {
-                        restorePos1();
-                        LValNode lValNode = LVal();
-                        Token assign = judge(TokenType.ASSIGN);
-                        if (curToken.getType() == TokenType.GETINTTK) {
-                            // LVal '=' 'getint''('')'';'
-                            Token getintToken = judge(TokenType.GETINTTK);
-                            Token leftParent = judge(TokenType.LPARENT);
-                            Token rightParent = judge(TokenType.RPARENT);
-                            Token semicn = judge(TokenType.SEMICN);
-                            return new StmtNode(StmtNode.StmtType.GETINT, lValNode, assign, getintToken, leftParent, rightParent, semicn);
-                        } else if (curToken.getType() == TokenType.GETCHARTK) {
-                            // LVal '=' 'getchar''('')'';'
-                            Token getcharToken = judge(TokenType.GETCHARTK);
-                            Token leftParent = judge(TokenType.LPARENT);
-                            Token rightParent = judge(TokenType.RPARENT);
-                            Token semicn = judge(TokenType.SEMICN);
-                            return new StmtNode(StmtNode.StmtType.GETCHAR, lValNode, assign, getcharToken, leftParent, rightParent, semicn);
-                        } else {
-                            // LVal '=' Exp ';'
-                            expNode = Exp();    // FIXME: 不知道有没有问题
-                            Token semicn = judge(TokenType.SEMICN);
-                            return new StmtNode(StmtNode.StmtType.ASSIGN, lValNode, assign, expNode, semicn);
-                        }
-                    } else {
-                        // 2、Exp后面忘跟分号了
-                        System.out.println("Exp后面忘跟分号了，此报错不在judge中 " + inputTokens.get(curPos-1) + "line: " + inputTokens.get(curPos-1).getLineNum());
-                        ErrorHandler.getInstance().addErrorTable(new MyError(inputTokens.get(curPos-1).getLineNum(), ErrorType.i));
-                        return new StmtNode(StmtNode.StmtType.EXP, expNode, new Token(TokenType.SEMICN, ";", inputTokens.get(curPos-1).getLineNum()));
+                if (curType() == TokenType.SEMICN) {
+                    // Exp ';'
+                    judge(TokenType.SEMICN);
+                    return new StmtNode(StmtNode.StmtType.EXP, expNode);
+                } else if (curType() == TokenType.ASSIGN) {
+                    // LVal '=' ...，此时Exp只能是一个LVal（例如带下标的 a[i] = ...）
+                    LValNode lValNode = toLVal(expNode);
+                    if (lValNode == null) {
+                        throw new RuntimeException("Unexpected token at LINE " + inputTokens.getLine(curPos) + ", value: " + inputTokens.getText(curPos) + " should be " + TokenType.SEMICN);
                     }
-
+                    return AssignStmt(lValNode);
+                } else {
+                    // Exp后面忘跟分号了
+                    System.out.println("Exp后面忘跟分号了，此报错不在judge中 " + inputTokens.get(curPos-1) + "line: " + inputTokens.getLine(curPos-1));
+                    ErrorHandler.getInstance().addErrorTable(new MyError(inputTokens.getLine(curPos-1), ErrorType.i));
+                    return new StmtNode(StmtNode.StmtType.EXP, expNode);
                 }
             }
 
@@ -494,35 +485,61 @@ public class Parser {
         }
     }
 
-    // 标志是否处于回溯状态
-    int recallFlag = 0;
-    // 保存回溯前的位置
-    int savedPos1 = 0;
-    private void savePos1() {
-        savedPos1 = curPos;
+    // LVal '=' 'getint''('')'';' | LVal '=' 'getchar''('')'';' | LVal '=' Exp ';'，LVal已经分析完，当前单词是'='
+    private StmtNode AssignStmt(LValNode lValNode) {
+        judge(TokenType.ASSIGN);
+        if (curType() == TokenType.GETINTTK) {
+            // LVal '=' 'getint''('')'';'
+            judge(TokenType.GETINTTK);
+            judge(TokenType.LPARENT);
+            judge(TokenType.RPARENT);
+            judge(TokenType.SEMICN);
+            return new StmtNode(StmtNode.StmtType.GETINT, lValNode);
+        } else if (curType() == TokenType.GETCHARTK) {
+            // LVal '=' 'getchar''('')'';'
+            judge(TokenType.GETCHARTK);
+            judge(TokenType.LPARENT);
+            judge(TokenType.RPARENT);
+            judge(TokenType.SEMICN);
+            return new StmtNode(StmtNode.StmtType.GETCHAR, lValNode);
+        } else {
+            // LVal '=' Exp ';'
+            ExpNode expNode = Exp();
+            judge(TokenType.SEMICN);
+            return new StmtNode(StmtNode.StmtType.ASSIGN, lValNode, expNode);
+        }
     }
-    // 回溯到保存的位置
-    private void restorePos1() {
-        curPos = savedPos1;
-        curToken = inputTokens.get(curPos);
+
+    // Exp只由一个LVal构成时（Exp -> AddExp -> MulExp -> UnaryExp -> PrimaryExp -> LVal，中间没有运算符），返回这个LVal，否则返回null
+    private LValNode toLVal(ExpNode expNode) {
+        AddExpNode addExpNode = expNode.getAddExpNode();
+        if (addExpNode.getAddExpNode() != null) {
+            return null;
+        }
+        MulExpNode mulExpNode = addExpNode.getMulExpNode();
+        if (mulExpNode.getMulExpNode() != null) {
+            return null;
+        }
+        PrimaryExpNode primaryExpNode = mulExpNode.getUnaryExpNode().getPrimaryExpNode();
+        return primaryExpNode == null ? null : primaryExpNode.getLVal();
     }
 
     private boolean expJudge() {
-        return curToken.getType() == TokenType.IDENFR ||
-                curToken.getType() == TokenType.INTCON ||
-                curToken.getType() == TokenType.CHRCON ||
-                curToken.getType() == TokenType.LPARENT ||
-                curToken.getType() == TokenType.PLUS ||
-                curToken.getType() == TokenType.MINU ||
-                curToken.getType() == TokenType.NOT;
+        return curType() == TokenType.IDENFR ||
+                curType() == TokenType.INTCON ||
+                curType() == TokenType.CHRCON ||
+                curType() == TokenType.LPARENT ||
+                curType() == TokenType.PLUS ||
+                curType() == TokenType.MINU ||
+                curType() == TokenType.NOT;
     }
 
     // ForStmt -> LVal '=' Exp
     private ForStmtNode ForStmt() {
         LValNode lValNode = LVal();
-        Token assign = judge(TokenType.ASSIGN);
+        judge(TokenType.ASSIGN);
         ExpNode expNode = Exp();
-        return new ForStmtNode(lValNode, assign, expNode);
+        return new ForStmtNode(lValNode, expNode);
     }
 
     // Exp -> AddExp
@@ -537,28 +554,28 @@ public class Parser {
 
     // LVal -> Ident ['[' Exp ']']
     private LValNode LVal() {
-        Token ident = judge(TokenType.IDENFR);
-        Token leftBracket = null, rightBracket = null;
+        String ident = curText();
+        int identLine = judge(TokenType.IDENFR);
         ExpNode expNode = null;
-        if (curToken.getType() == TokenType.LBRACK) {
-            leftBracket = judge(TokenType.LBRACK);
+        if (curType() == TokenType.LBRACK) {
+            judge(TokenType.LBRACK);
             expNode = Exp();
-            rightBracket = judge(TokenType.RBRACK);
+            judge(TokenType.RBRACK);
         }
-        return new LValNode(ident, leftBracket, expNode, rightBracket);
+        return new LValNode(ident, identLine, expNode);
     }
 
     // PrimaryExp -> '(' Exp ')' | LVal | Number | Character
     private PrimaryExpNode PrimaryExp() {
-        if (curToken.getType() == TokenType.LPARENT) {
-            Token leftParent = judge(TokenType.LPARENT);
+        if (curType() == TokenType.LPARENT) {
+            judge(TokenType.LPARENT);
             ExpNode expNode = Exp();
-            Token rightParent = judge(TokenType.RPARENT);
-            return new PrimaryExpNode(leftParent, expNode, rightParent);
-        } else if (curToken.getType() == TokenType.INTCON) {
+            judge(TokenType.RPARENT);
+            return new PrimaryExpNode(expNode);
+        } else if (curType() == TokenType.INTCON) {
             NumberNode numberNode = Number();
             return new PrimaryExpNode(numberNode);
-        } else if (curToken.getType() == TokenType.CHRCON) {
+        } else if (curType() == TokenType.CHRCON) {
             CharacterNode characterNode = Character();
             return new PrimaryExpNode(characterNode);
         } else {
@@ -568,32 +585,37 @@ public class Parser {
     }
 
     // Number -> IntConst
+    // NumberNode 只保存单词，没有别的状态，相同的整数常量共用一个节点
     private NumberNode Number() {
-        Token intConst = judge(TokenType.INTCON);
-        return new NumberNode(intConst);
+        String intConst = curText();
+        judge(TokenType.INTCON);
+        return numberNodes.computeIfAbsent(intConst, NumberNode::new);
     }
 
     // Character -> CharConst
     private CharacterNode Character() {
-        Token charConst = judge(TokenType.CHRCON);
+        String charConst = curText();
+        judge(TokenType.CHRCON);
         return new CharacterNode(charConst);
     }
 
     // UnaryExp -> PrimaryExp | Ident '(' [FuncRParams] ')' | UnaryOp UnaryExp
     private UnaryExpNode UnaryExp() {
-        if (curToken.getType() == TokenType.IDENFR && inputTokens.get(curPos + 1).getType() == TokenType.LPARENT) {
+        if (curType() == TokenType.IDENFR && inputTokens.getType(curPos + 1) == TokenType.LPARENT) {
             // Ident '(' [FuncRParams] ')'
-            Token ident = judge(TokenType.IDENFR);
-            Token leftParent = judge(TokenType.LPARENT);
+            // 函数名要保存为 Token（见 UnaryExpNode）
+            String name = curText();
+            Token ident = new Token(TokenType.IDENFR, name, judge(TokenType.IDENFR));
+            judge(TokenType.LPARENT);
             FuncRParamsNode funcRParamsNode = null;
             // bugfix: 这里不能用RPARENT判断！因为有可能是函数调用后忘跟右括号了
             // if (curToken.getType() != TokenType.RPARENT) {
             if (expJudge()) {
                 funcRParamsNode = FuncRParams();
             }
-            Token rightParent = judge(TokenType.RPARENT);
-            return new UnaryExpNode(ident, leftParent, funcRParamsNode, rightParent);
-        } else if (curToken.getType() == TokenType.PLUS || curToken.getType() == TokenType.MINU || curToken.getType() == TokenType.NOT) {
+            judge(TokenType.RPARENT);
+            return new UnaryExpNode(ident, funcRParamsNode);
+        } else if (curType() == TokenType.PLUS || curType() == TokenType.MINU || curType() == TokenType.NOT) {
             // UnaryOp UnaryExp
             UnaryOpNode unaryOpNode = UnaryOp();
             UnaryExpNode unaryExpNode = UnaryExp();
@@ -607,44 +629,46 @@ public class Parser {
 
     // UnaryOp -> '+' | '−' | '!'
     private UnaryOpNode UnaryOp() {
-        Token token;
-        if (curToken.getType() == TokenType.PLUS) {
-            token = judge(TokenType.PLUS);
-        } else if (curToken.getType() == TokenType.MINU) {
-            token = judge(TokenType.MINU);
+        TokenType op;
+        if (curType() == TokenType.PLUS) {
+            op = TokenType.PLUS;
+        } else if (curType() == TokenType.MINU) {
+            op = TokenType.MINU;
         } else {
-            token = judge(TokenType.NOT);
+            op = TokenType.NOT;
         }
-        return new UnaryOpNode(token);
+        judge(op);
+        return new UnaryOpNode(op);
     }
 
     // FuncRParams -> Exp { ',' Exp }
     private FuncRParamsNode FuncRParams() {
-        List<ExpNode> expNodes = new ArrayList<>();
-        List<Token> commaTokens = new ArrayList<>();
+        ArrayList<ExpNode> expNodes = new ArrayList<>();
         expNodes.add(Exp());
-        while (curToken.getType() == TokenType.COMMA) {
-            commaTokens.add(judge(TokenType.COMMA));
+        while (curType() == TokenType.COMMA) {
+            judge(TokenType.COMMA);
             expNodes.add(Exp());
         }
-        return new FuncRParamsNode(expNodes, commaTokens);
+        expNodes.trimToSize();
+        return new FuncRParamsNode(expNodes);
     }
 
     // MulExp -> UnaryExp | MulExp ('*' | '/' | '%') UnaryExp
     private MulExpNode MulExp() {
         // 11.22注：以前：按照右递归文法写，但Ir时出现问题，不得不重构！
         UnaryExpNode unaryExpNode = UnaryExp();
-        Token op = null;
+        TokenType op = null;
         MulExpNode mulExpNode = null;
 //        if(curToken.getType() == TokenType.MULT || curToken.getType() == TokenType.DIV || curToken.getType() == TokenType.MOD) {
 //            op = judge(curToken.getType());
 //            mulExpNode = MulExp();
 //        }
         // 存在('*' | '/' | '%') 那么捕获外层结构，然后组装回一层层的MulExp
-        while (curToken.getType() == TokenType.MULT || curToken.getType() == TokenType.DIV || curToken.getType() == TokenType.MOD) {
+        while (curType() == TokenType.MULT || curType() == TokenType.DIV || curType() == TokenType.MOD) {
             // 将上一轮捕获的单位进行组装
             mulExpNode = new MulExpNode(unaryExpNode, op, mulExpNode);
-            op = judge(curToken.getType());
+            op = curType();
+            judge(op);
             unaryExpNode = UnaryExp();
         }
         return new MulExpNode(unaryExpNode, op, mulExpNode);
@@ -653,17 +677,18 @@ public class Parser {
     // AddExp -> MulExp | AddExp ('+' | '−') MulExp
     private AddExpNode AddExp() {
         MulExpNode mulExpNode = MulExp();
-        Token op = null;
+        TokenType op = null;
         AddExpNode addExpNode = null;
 //        if(curToken.getType() == TokenType.PLUS || curToken.getType() == TokenType.MINU) {
 //            op = judge(curToken.getType());
 //            addExpNode = AddExp();
 //        }
         // 存在('+' | '−') 那么捕获外层结构，然后组装回一层层的AddExp
-        while (curToken.getType() == TokenType.PLUS || curToken.getType() == TokenType.MINU) {
+        while (curType() == TokenType.PLUS || curType() == TokenType.MINU) {
             // 将上一轮捕获的单位进行组装
             addExpNode = new AddExpNode(mulExpNode, op, addExpNode);
-            op = judge(curToken.getType());
+            op = curType();
+            judge(op);
             mulExpNode = MulExp();
         }
         return new AddExpNode(mulExpNode, op, addExpNode);
@@ -672,17 +697,18 @@ public class Parser {
     // RelExp -> AddExp | RelExp ('<' | '>' | '<=' | '>=') AddExp
     private RelExpNode RelExp() {
         AddExpNode addExpNode = AddExp();
-        Token op = null;
+        TokenType op = null;
         RelExpNode relExpNode = null;
 //        if(curToken.getType() == TokenType.LSS || curToken.getType() == TokenType.GRE || curToken.getType() == TokenType.LEQ || curToken.getType() == TokenType.GEQ) {
 //            op = judge(curToken.getType());
 //            relExpNode = RelExp();
 //        }
         // 存在('<' | '>' | '<=' | '>=') 那么捕获外层结构，然后组装回一层层的RelExp
-        while (curToken.getType() == TokenType.LSS || curToken.getType() == TokenType.GRE || curToken.getType() == TokenType.LEQ || curToken.getType() == TokenType.GEQ) {
+        while (curType() == TokenType.LSS || curType() == TokenType.GRE || curType() == TokenType.LEQ || curType() == TokenType.GEQ) {
             // 将上一轮捕获的单位进行组装
             relExpNode = new RelExpNode(addExpNode, op, relExpNode);
-            op = judge(curToken.getType());
+            op = curType();
+            judge(op);
             addExpNode = AddExp();
         }
         return new RelExpNode(addExpNode, op, relExpNode);
@@ -691,17 +717,18 @@ public class Parser {
     // EqExp -> RelExp | EqExp ('==' | '!=') RelExp
     private EqExpNode EqExp() {
         RelExpNode relExpNode = RelExp();
-        Token op = null;
+        TokenType op = null;
         EqExpNode eqExpNode = null;
 //        if(curToken.getType() == TokenType.EQL || curToken.getType() == TokenType.NEQ) {
 //            op = judge(curToken.getType());
 //            eqExpNode = EqExp();
 //        }
         // 存在('==' | '!=') 那么捕获外层结构，然后组装回一层层的EqExp
-        while (curToken.getType() == TokenType.EQL || curToken.getType() == TokenType.NEQ) {
+        while (curType() == TokenType.EQL || curType() == TokenType.NEQ) {
             // 将上一轮捕获的单位进行组装
             eqExpNode = new EqExpNode(relExpNode, op, eqExpNode);
-            op = judge(curToken.getType());
+            op = curType();
+            judge(op);
             relExpNode = RelExp();
         }
         return new EqExpNode(relExpNode, op, eqExpNode);
@@ -710,17 +737,18 @@ public class Parser {
     // LAndExp -> EqExp | LAndExp '&&' EqExp
     private LAndExpNode LAndExp() {
         EqExpNode eqExpNode = EqExp();
-        Token op = null;
+        TokenType op = null;
         LAndExpNode lAndExpNode = null;
 //        if(curToken.getType() == TokenType.AND) {
 //            op = judge(TokenType.AND);
 //            lAndExpNode = LAndExp();
 //        }
         // 存在('&&') 那么捕获外层结构，然后组装回一层层的LAndExp
-        while (curToken.getType() == TokenType.AND) {
+        while (curType() == TokenType.AND) {
             // 将上一轮捕获的单位进行组装
             lAndExpNode = new LAndExpNode(eqExpNode, op, lAndExpNode);
-            op = judge(TokenType.AND);
+            op = TokenType.AND;
+            judge(op);
             eqExpNode = EqExp();
         }
         return new LAndExpNode(eqExpNode, op, lAndExpNode);
@@ -729,17 +757,18 @@ public class Parser {
     // LOrExp -> LAndExp | LOrExp '||' LAndExp
     private LOrExpNode LOrExp() {
         LAndExpNode lAndExpNode = LAndExp();
-        Token op = null;
+        TokenType op = null;
         LOrExpNode lOrExpNode = null;
 //        if (curToken.getType() == TokenType.OR) {
 //            op = judge(TokenType.OR);
 //            lOrExpNode = LOrExp();
 //        }
         // 存在('||') 那么捕获外层结构，然后组装回一层层的LOrExp
-        while (curToken.getType() == TokenType.OR) {
+        while (curType() == TokenType.OR) {
             // 将上一轮捕获的单位进行组装
             lOrExpNode = new LOrExpNode(lAndExpNode, op, lOrExpNode);
-            op = judge(TokenType.OR);
+            op = TokenType.OR;
+            judge(op);
             lAndExpNode = LAndExp();
         }
         return new LOrExpNode(lAndExpNode, op, lOrExpNode);
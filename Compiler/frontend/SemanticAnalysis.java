@@ -5,19 +5,20 @@ import error.ErrorType;
 import error.MyError;
 import nodes.*;
 import symbol.*;
+import utils.CompilationSession;
 
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * @author Gary
- * @Description: 语义分析器，负责建立符号表和错误处理，单例模式
+ * @Description: 语义分析器，负责建立符号表和错误处理，每个编译会话（CompilationSession）一个
  * @date 2024/10/29 17:34
  */
 public class SemanticAnalysis {
-    private static SemanticAnalysis semanticAnalysis = new SemanticAnalysis();
+    // 每个编译会话一个，由 CompilationSession 创建
     public static SemanticAnalysis getInstance() {
-        return semanticAnalysis;
+        return CompilationSession.current().getSemanticAnalysis();
     }
     /** 下面进行语义分析的错误处理 **/
     // 各作用域符号表列表
@@ -137,7 +138,7 @@ public class SemanticAnalysis {
 
     // ConstInitVal → ConstExp | '{' [ ConstExp { ',' ConstExp } ] '}' | StringConst
     private void ConstInitVal(ConstInitValNode constInitValNode) {
-        if (constInitValNode.getLeftBrace() == null) {
+        if (!constInitValNode.hasBrace()) {
             // 情况1：只有一个常量表达式
             // FIXME: 此处不能写成constInitValNode.getConstExpNodes() != null，因为ConstExpNodes被初始化了，不会是null
             if (constInitValNode.getStringConst() == null) {
@@ -188,7 +189,7 @@ public class SemanticAnalysis {
 
     // InitVal → Exp | '{' [ Exp { ',' Exp } ] '}' | StringConst
     private void InitVal(InitValNode initValNode) {
-        if (initValNode.getLeftBrace() == null) {
+        if (!initValNode.hasBrace()) {
             // 情况1：只有一个表达式
             // FIXME: 此处不能写成initValNode.getExpNodes() != null，因为这个ExpNodes被初始化了，不会是null
             if (initValNode.getStringConst() == null) {
@@ -224,13 +225,13 @@ public class SemanticAnalysis {
             // 遍历参数列表，每个参数是一个funcFParamNode
             for (FuncFParamNode funcFParamNode : funcDefNode.getFuncFParamsNode().getFuncFParamNodes()) {
                 if (funcFParamNode.getBTypeNode().getType() == TokenType.INTTK) {
-                    if (funcFParamNode.getLeftBracket() != null)
+                    if (funcFParamNode.isArray())
                         params.add(new FuncParam(funcFParamNode.getIdent().getValue(), SymbolType.IntArray));
                     else
                         params.add(new FuncParam(funcFParamNode.getIdent().getValue(), SymbolType.Int));
                 }
                 else { // CHARTK
-                    if (funcFParamNode.getLeftBracket() != null)
+                    if (funcFParamNode.isArray())
                         params.add(new FuncParam(funcFParamNode.getIdent().getValue(), SymbolType.CharArray));
                     else
                         params.add(new FuncParam(funcFParamNode.getIdent().getValue(), SymbolType.Char));
@@ -271,7 +272,7 @@ public class SemanticAnalysis {
             return;
         }
         // 是个数组，则需要创建ArraySymbol
-        if (funcFParamNode.getLeftBracket() != null) {
+        if (funcFParamNode.isArray()) {
             if (funcFParamNode.getBTypeNode().getType() == TokenType.INTTK)
                 putSymbol(new ArraySymbol(curScope, funcFParamNode.getIdent().getValue(), SymbolType.IntArray));
             else  // CHARTK
@@ -363,7 +364,7 @@ public class SemanticAnalysis {
                 // 'if' '(' Cond ')' Stmt [ 'else' Stmt ]
                 Cond(stmtNode.getCondNode());
                 Stmt(stmtNode.getStmtNodes().get(0));
-                if (stmtNode.getElseToken() != null) {
+                if (stmtNode.hasElse()) {
                     Stmt(stmtNode.getStmtNodes().get(1));
                 }
                 break;
@@ -411,10 +412,10 @@ public class SemanticAnalysis {
                 // 'printf''('StringConst {','Exp}')'';' // l
                 int expCount = stmtNode.getExpNodes().size();
                 int formatCount = 0;
-                for (int i = 0; i < stmtNode.getStringConstToken().getValue().length(); i++) {
+                for (int i = 0; i < stmtNode.getStringConst().length(); i++) {
                     // 统计格式化字符串中的%d或%c的个数
-                    if (stmtNode.getStringConstToken().getValue().charAt(i) == '%') {
-                        if (stmtNode.getStringConstToken().getValue().charAt(i + 1) == 'd' || stmtNode.getStringConstToken().getValue().charAt(i + 1) == 'c') {
+                    if (stmtNode.getStringConst().charAt(i) == '%') {
+                        if (stmtNode.getStringConst().charAt(i + 1) == 'd' || stmtNode.getStringConst().charAt(i + 1) == 'c') {
                             formatCount++;
                         }
                     }
@@ -26,6 +26,14 @@ public class Token {
     }
     // 词法分析输出
     public String toString() {
+        return toString(type, value);
+    }
+    // 语法树不保存 Token，打印时由类别码和单词得到同样的输出
+    public static String toString(TokenType type, String value) {
         return type.toString() + " " + value + "\n";
     }
+    // 保留字和符号的单词由类别码决定
+    public static String toString(TokenType type) {
+        return toString(type, type.getText());
+    }
 }
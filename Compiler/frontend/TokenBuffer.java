@@ -0,0 +1,229 @@
+package frontend;
+
+import java.util.Arrays;
+
+/**
+ * @author Gary
+ * @Description: 词法单元流，按列存储（structure of arrays）
+ * 每个单词只占几个 int：类别码、在源代码中的起点和长度、行号、单词字符串的编号
+ * 1. 保留字和符号的单词是固定的（TokenType.getText），不存字符串
+ * 2. 标识符和整数按字符切片查重，相同的单词只保存一个字符串
+ * 3. 字符串、字符常量原样保存（没有结尾引号时词法分析会补上，所以不能直接取切片）
+ * 语法分析按下标读取类别码、单词和行号，语法树只保存需要的单词和行号，不保存 Token（get 只在报错输出时用到）
+ * 单词由词法分析按需产生，只保留语法分析还可能访问的一段（前一个单词和向前看的几个），其余的可以丢弃
+ * @date 2026/10/18 23:10
+ */
+public class TokenBuffer {
+    private static final TokenType[] TYPES = TokenType.values();
+    // 固定单词的字符串编号
+    private static final int NO_TEXT = -1;
+    // 语法分析只需要向前看几个单词，容量不够时再扩大
+    private static final int INITIAL_CAPACITY = 64;
+
+    // 单词的来源，需要更后面的单词时让它继续分析
+    private final Lexer lexer;
+    // 单词用在整个单词流中的下标访问，[first, size) 这一段保存在环形数组中，下标 i 在第 i & (容量-1) 个位置
+    private int first = 0;
+    private int size = 0;
+    private int[] types = new int[INITIAL_CAPACITY];
+    private int[] starts = new int[INITIAL_CAPACITY];
+    private int[] lengths = new int[INITIAL_CAPACITY];
+    private int[] lines = new int[INITIAL_CAPACITY];
+    private int[] textIds = new int[INITIAL_CAPACITY];
+
+    // 不同的单词字符串，按编号保存
+    private String[] texts = new String[256];
+    private int textCount = 0;
+    // 开放寻址的哈希表，存 编号+1，0 表示空位
+    private int[] textTable = new int[512];
+
+    public TokenBuffer(Lexer lexer) {
+        this.lexer = lexer;
+    }
+
+    /**
+     * 已经分析出的单词数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 第 index 个单词是否存在，必要时让词法分析继续
+     */
+    public boolean has(int index) {
+        while (index >= size && lexer.next()) {
+            // 每次分析出一个单词
+        }
+        return index < size;
+    }
+
+    /**
+     * 之前的单词不再需要，可以被覆盖
+     */
+    public void discardBefore(int index) {
+        first = Math.max(first, Math.min(index, size));
+    }
+
+    /**
+     * 分析完剩下的输入并丢弃，词法错误要全部报告
+     */
+    public void drain() {
+        while (lexer.next()) {
+            first = size;
+        }
+    }
+
+    private int slot(int index) {
+        if (!has(index) || index < first) {
+            throw new IndexOutOfBoundsException("GaryError: 单词下标越界 " + index + "，可用范围 [" + first + ", " + size + ")");
+        }
+        return index & (types.length - 1);
+    }
+
+    public TokenType getType(int index) {
+        return TYPES[types[slot(index)]];
+    }
+
+    public int getLine(int index) {
+        return lines[slot(index)];
+    }
+
+    public int getStart(int index) {
+        return starts[slot(index)];
+    }
+
+    public int getLength(int index) {
+        return lengths[slot(index)];
+    }
+
+    public String getText(int index) {
+        int id = textIds[slot(index)];
+        return id == NO_TEXT ? getType(index).getText() : texts[id];
+    }
+
+    /**
+     * 第 index 个单词的 Token 视图，每次调用都新建
+     */
+    public Token get(int index) {
+        return new Token(getType(index), getText(index), getLine(index));
+    }
+
+    // ============ 词法分析调用 ============
+    /**
+     * 保留字、符号
+     */
+    void addFixed(TokenType type, int start, int length, int line) {
+        add(type, start, length, line, NO_TEXT);
+    }
+
+    /**
+     * 标识符、整数：单词就是 buf[offset, offset + length)，在源代码中从 start 开始
+     */
+    void addSlice(TokenType type, char[] buf, int offset, int length, int start, int line) {
+        add(type, start, length, line, intern(buf, offset, length));
+    }
+
+    /**
+     * 字符串、字符常量：单词另外给出
+     */
+    void addLiteral(TokenType type, String text, int start, int length, int line) {
+        add(type, start, length, line, newText(text));
+    }
+
+    private void add(TokenType type, int start, int length, int line, int textId) {
+        if (size - first == types.length) {
+            grow();
+        }
+        int slot = size & (types.length - 1);
+        types[slot] = type.ordinal();
+        starts[slot] = start;
+        lengths[slot] = length;
+        lines[slot] = line;
+        textIds[slot] = textId;
+        size++;
+    }
+
+    // 容量翻倍，保存的单词按新的容量重新放置
+    private void grow() {
+        int capacity = types.length * 2;
+        int[] newTypes = new int[capacity], newStarts = new int[capacity], newLengths = new int[capacity];
+        int[] newLines = new int[capacity], newTextIds = new int[capacity];
+        int oldMask = types.length - 1, newMask = capacity - 1;
+        for (int i = first; i < size; i++) {
+            newTypes[i & newMask] = types[i & oldMask];
+            newStarts[i & newMask] = starts[i & oldMask];
+            newLengths[i & newMask] = lengths[i & oldMask];
+            newLines[i & newMask] = lines[i & oldMask];
+            newTextIds[i & newMask] = textIds[i & oldMask];
+        }
+        types = newTypes;
+        starts = newStarts;
+        lengths = newLengths;
+        lines = newLines;
+        textIds = newTextIds;
+    }
+
+    // ============ 单词查重 ============
+    private int intern(char[] buf, int start, int length) {
+        int hash = 0;
+        for (int i = start; i < start + length; i++) {
+            hash = 31 * hash + buf[i];
+        }
+        int mask = textTable.length - 1;
+        for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            int entry = textTable[slot];
+            if (entry == 0) {
+                int id = newText(new String(buf, start, length));
+                textTable[slot] = id + 1;
+                if (textCount * 2 > textTable.length) {
+                    rehash();
+                }
+                return id;
+            }
+            if (sameText(texts[entry - 1], buf, start, length)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    private int newText(String text) {
+        if (textCount == texts.length) {
+            texts = Arrays.copyOf(texts, Math.max(textCount * 2, 256));
+        }
+        texts[textCount] = text;
+        return textCount++;
+    }
+
+    private static boolean sameText(String text, char[] buf, int start, int length) {
+        if (text.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (text.charAt(i) != buf[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // String.hashCode 和上面的算法相同，扩容时不用再访问源代码
+    private void rehash() {
+        int[] oldTable = textTable;
+        textTable = new int[oldTable.length * 2];
+        int mask = textTable.length - 1;
+        for (int entry : oldTable) {
+            if (entry != 0) {
+                int slot = mix(texts[entry - 1].hashCode()) & mask;
+                while (textTable[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                textTable[slot] = entry;
+            }
+        }
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -6,45 +6,56 @@ package frontend;
  * @date 2024/9/24 9:07
  */
 public enum TokenType {
-    IDENFR,
-    INTCON,
-    STRCON,
-    CHRCON,
-    MAINTK,
-    CONSTTK,
-    INTTK,
-    CHARTK,
-    BREAKTK,
-    CONTINUETK,
-    IFTK,
-    ELSETK,
-    NOT,
-    AND,
-    OR,
-    FORTK,
-    GETINTTK,
-    GETCHARTK,
-    PRINTFTK,
-    RETURNTK,
-    PLUS,
-    MINU,
-    VOIDTK,
-    MULT,
-    DIV,
-    MOD,
-    LSS,
-    LEQ,
-    GRE,
-    GEQ,
-    EQL,
-    NEQ,
-    ASSIGN,
-    SEMICN,
-    COMMA,
-    LPARENT,
-    RPARENT,
-    LBRACK,
-    RBRACK,
-    LBRACE,
-    RBRACE,
+    IDENFR(null),
+    INTCON(null),
+    STRCON(null),
+    CHRCON(null),
+    MAINTK("main"),
+    CONSTTK("const"),
+    INTTK("int"),
+    CHARTK("char"),
+    BREAKTK("break"),
+    CONTINUETK("continue"),
+    IFTK("if"),
+    ELSETK("else"),
+    NOT("!"),
+    AND("&&"),
+    OR("||"),
+    FORTK("for"),
+    GETINTTK("getint"),
+    GETCHARTK("getchar"),
+    PRINTFTK("printf"),
+    RETURNTK("return"),
+    PLUS("+"),
+    MINU("-"),
+    VOIDTK("void"),
+    MULT("*"),
+    DIV("/"),
+    MOD("%"),
+    LSS("<"),
+    LEQ("<="),
+    GRE(">"),
+    GEQ(">="),
+    EQL("=="),
+    NEQ("!="),
+    ASSIGN("="),
+    SEMICN(";"),
+    COMMA(","),
+    LPARENT("("),
+    RPARENT(")"),
+    LBRACK("["),
+    RBRACK("]"),
+    LBRACE("{"),
+    RBRACE("}");
+
+    // 保留字和符号的单词是固定的，标识符和常量为 null
+    private final String text;
+
+    TokenType(String text) {
+        this.text = text;
+    }
+
+    public String getText() {
+        return text;
+    }
 }
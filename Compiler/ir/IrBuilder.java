@@ -10,9 +10,13 @@ import ir.values.constants.ConstInt;
 import ir.values.constants.ConstString;
 import ir.values.constants.Constant;
 import ir.values.instructions.*;
+import ir.analyze.LoopAnalysis;
+import ir.opt.Mem2Reg;
 import nodes.CompUnitNode;
+import utils.CompilationSession;
 import utils.IOUtils;
 import utils.IrUtils;
+import utils.OptConfig;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -34,6 +38,14 @@ public class IrBuilder {
     public void generate() {
         // ============= 生成中间代码 =============
         compUnitNode.buildIr();
+        // ============= 中间代码优化 =============
+        if (OptConfig.mem2reg) {
+            Mem2Reg.run(Module.getInstance());
+        }
+        // 循环分析，得到的循环深度会传给MipsBlock，用于寄存器分配时挑选溢出变量
+        if (OptConfig.loopAnalysis) {
+            LoopAnalysis.run(Module.getInstance());
+        }
     }
 
     public void printResult() {
@@ -48,22 +60,26 @@ public class IrBuilder {
     }
 
     // ============= 命名计数器 =============
-    private static int nameCnt = 0;
+    // 以下计数器都属于当前编译会话（CompilationSession）
     // 实际上，许多不需要新分配虚拟寄存器的指令也调用了这一函数，会导致有些nameCnt并没用上
     // 此外，block、局部变量都共用nameCnt，这一特性不好解决，不如不解决
     private static String getNameString() {
-        return "" + nameCnt++;
+        return "" + CompilationSession.current().next(CompilationSession.Counter.IR_NAME);
     }
     // 初始化命名计数器
     public static void initNameCnt() {
-        nameCnt = 0;
+        CompilationSession.current().reset(CompilationSession.Counter.IR_NAME);
     }
 
     // ============= 格式化字符串命名计数器 =============
-    private static int formatStrCnt = 0;
-
     private static String getFormatStrName() {
-        return "FORMAT_STRING_" + formatStrCnt++;
+        return "FORMAT_STRING_" + CompilationSession.current().next(CompilationSession.Counter.FORMAT_STRING);
+    }
+
+    // ============= phi命名计数器 =============
+    // phi在整个module生成完毕后才插入，不能再用nameCnt，否则会和已有的名字重复
+    private static String getPhiName() {
+        return "p" + CompilationSession.current().next(CompilationSession.Counter.PHI);
     }
 
     // ============= 各类builder函数定义 =============
@@ -79,6 +95,15 @@ public class IrBuilder {
         return func;
     }
 
+    /**
+     * 创建phi指令，插入到基本块的开头，mem2reg中使用
+     */
+    public static Phi buildPhiInstruction(ValueType type, BasicBlock parent) {
+        Phi phi = new Phi(getPhiName(), type, parent);
+        parent.addInstructionAtHead(phi);
+        return phi;
+    }
+
     /**
      * 创建函数的下属基本快, 除了由函数本身产生，基本就是if和for了
      * 会将其加入函数的基本块列表
@@ -100,14 +125,12 @@ public class IrBuilder {
         return globalVariable;
     }
 
-    // 存储已有的字符串。若printf时出现相同字符串，只存一个。键为字符串，值为全局变量。
-    private static HashMap<String, GlobalVariable> formatStrMap = new HashMap<>();
-
     /**
      * 在printf中用到，用来创建格式化字符串的全局变量
      * @param formatStr   格式化字符串
      */
     public static GlobalVariable buildGlobalConstString(String formatStr) {
+        HashMap<String, GlobalVariable> formatStrMap = IrContext.getInstance().formatStrMap;
         if (formatStrMap.containsKey(formatStr)) {
             // 若已有相同的字符串，直接返回即可
             return formatStrMap.get(formatStr);
@@ -124,7 +147,7 @@ public class IrBuilder {
         // int or char类型返回值
         // FIXME: 目前只支持int类型，char类型咋办？？？
         if (retVal != null) {
-            int funcBits = ((IntType)(IrContext.curFunction.getReturnType())).getBits();
+            int funcBits = ((IntType)(IrContext.getInstance().curFunction.getReturnType())).getBits();
             int retValBits = ((IntType)(retVal.getType())).getBits();
 //            System.out.println("funcBits: " + funcBits + " retValBits: " + retValBits);
             // 如果返回值类型和函数类型不一致，要让返回值类型向函数类型看齐！！
@@ -207,11 +230,11 @@ public class IrBuilder {
 //        System.out.println("before add: op2Bits = " + op2.getName() + " " + op2Bits);
         // op1不是i32的情况
         if (op1Bits < 32) {
-            op1 = buildZextInstruction(op1, IrContext.curBlock);
+            op1 = buildZextInstruction(op1, IrContext.getInstance().curBlock);
         }
         // op2不是i32的情况
         if (op2Bits < 32) {
-            op2 = buildZextInstruction(op2, IrContext.curBlock);
+            op2 = buildZextInstruction(op2, IrContext.getInstance().curBlock);
         }
         Add add = new Add(getNameString(), parent, op1, op2);
         parent.addInstruction(add);
@@ -232,11 +255,11 @@ public class IrBuilder {
 //        System.out.println("before sub: op2Bits = " + op2.getName() + " " + op2Bits);
         // op1不是i32的情况
         if (op1Bits < 32) {
-            op1 = buildZextInstruction(op1, IrContext.curBlock);
+            op1 = buildZextInstruction(op1, IrContext.getInstance().curBlock);
         }
         // op2不是i32的情况
         if (op2Bits < 32) {
-            op2 = buildZextInstruction(op2, IrContext.curBlock);
+            op2 = buildZextInstruction(op2, IrContext.getInstance().curBlock);
         }
         Sub sub = new Sub(getNameString(), parent, op1, op2);
         parent.addInstruction(sub);
@@ -253,11 +276,11 @@ public class IrBuilder {
 //        System.out.println("before mul: op2Bits = " + op2.getName() + " " + op2Bits);
         // op1不是i32的情况
         if (op1Bits < 32) {
-            op1 = buildZextInstruction(op1, IrContext.curBlock);
+            op1 = buildZextInstruction(op1, IrContext.getInstance().curBlock);
         }
         // op2不是i32的情况
         if (op2Bits < 32) {
-            op2 = buildZextInstruction(op2, IrContext.curBlock);
+            op2 = buildZextInstruction(op2, IrContext.getInstance().curBlock);
         }
         Mul mul = new Mul(getNameString(), parent, op1, op2);
         parent.addInstruction(mul);
@@ -274,11 +297,11 @@ public class IrBuilder {
 //        System.out.println("before sdiv: op2Bits = " + op2.getName() + " " + op2Bits);
         // op1不是i32的情况
         if (op1Bits < 32) {
-            op1 = buildZextInstruction(op1, IrContext.curBlock);
+            op1 = buildZextInstruction(op1, IrContext.getInstance().curBlock);
         }
         // op2不是i32的情况
         if (op2Bits < 32) {
-            op2 = buildZextInstruction(op2, IrContext.curBlock);
+            op2 = buildZextInstruction(op2, IrContext.getInstance().curBlock);
         }
         Sdiv sdiv = new Sdiv(getNameString(), parent, op1, op2);
         parent.addInstruction(sdiv);
@@ -293,11 +316,11 @@ public class IrBuilder {
 //        System.out.println("before srem: op2Bits = " + op2.getName() + " " + op2Bits);
         // op1不是i32的情况
         if (op1Bits < 32) {
-            op1 = buildZextInstruction(op1, IrContext.curBlock);
+            op1 = buildZextInstruction(op1, IrContext.getInstance().curBlock);
         }
         // op2不是i32的情况
         if (op2Bits < 32) {
-            op2 = buildZextInstruction(op2, IrContext.curBlock);
+            op2 = buildZextInstruction(op2, IrContext.getInstance().curBlock);
         }
         Srem srem = new Srem(getNameString(), parent, op1, op2);
         parent.addInstruction(srem);
@@ -356,11 +379,11 @@ public class IrBuilder {
             System.out.println("before store: pointerBits = " + pointerBits);
             // 这是i32 -> i8的情况
             if (valueBits > pointerBits) {
-                value = buildTruncInstruction(value, IrContext.curBlock);
+                value = buildTruncInstruction(value, IrContext.getInstance().curBlock);
             }
             // 这是i8 -> i32的情况
             if (pointerBits > valueBits) {
-                value = buildZextInstruction(value, IrContext.curBlock);
+                value = buildZextInstruction(value, IrContext.getInstance().curBlock);
             }
         }
         Store store = new Store(getNameString(), parent, value, pointer);
@@ -445,11 +468,11 @@ public class IrBuilder {
         int op2Bits = ( (IntType) (op2.getType()) ).getBits();
         // icmp也需要把i8增广为i32
         if (op1Bits < 32) {
-            op1 = buildZextInstruction(op1, IrContext.curBlock);
+            op1 = buildZextInstruction(op1, IrContext.getInstance().curBlock);
         }
         // op2不是i32的情况
         if (op2Bits < 32) {
-            op2 = buildZextInstruction(op2, IrContext.curBlock);
+            op2 = buildZextInstruction(op2, IrContext.getInstance().curBlock);
         }
         Icmp icmp = new Icmp(getNameString(), parent, condType, op1, op2);
         parent.addInstruction(icmp);
@@ -1,7 +1,9 @@
 package ir;
 
-import java.util.Stack;
 import ir.values.Value;
+import utils.CompilationSession;
+
+import java.util.Stack;
 
 /**
  * @author Gary
@@ -11,28 +13,33 @@ import ir.values.Value;
  * @date 2024/11/17 16:54
  */
 public class IrSymTableStack {
-    private static IrSymTableStack instance = new IrSymTableStack();
+    // 每个编译会话一个，由 CompilationSession 创建
+    private static IrSymTableStack getInstance() {
+        return CompilationSession.current().getIrSymTableStack();
+    }
     // ============ 变量定义 ============
     // 符号表栈，CAUTION：这是符号表IrSymTable组成的栈，谁都存！
     private final Stack<IrSymTable> stack = new Stack<>();
     // 全局符号表，只用来存储全局变量、函数，是一个IrSymTable
-    public static IrSymTable globalSymTable;
+    private IrSymTable globalSymTable;
 
     // ============ 全局符号表操作 ============
     public static void addGlobalSymTable(String name, Value value) {
-        globalSymTable.addSymbol(name, value);
+        getInstance().globalSymTable.addSymbol(name, value);
     }
 
     // ========== 以下为栈操作 ==========
     // 初始化符号表栈：清空栈，并将全局符号表压入栈顶
     public static void init() {
+        IrSymTableStack instance = getInstance();
         instance.stack.clear();
-        globalSymTable = new IrSymTable();
-        instance.stack.push(globalSymTable);
+        instance.globalSymTable = new IrSymTable();
+        instance.stack.push(instance.globalSymTable);
     }
 
     // 访问栈顶的符号表
     public static IrSymTable peek() {
+        IrSymTableStack instance = getInstance();
         if (instance.stack.isEmpty()) {
             return null;
         }
@@ -49,12 +56,12 @@ public class IrSymTableStack {
 
     // 判断是否正在构建全局符号表
     public static boolean isBuildingGlobalSymTable() {
-        return instance.stack.size() == 1;
+        return getInstance().stack.size() == 1;
     }
 
     // 压栈一个给定的符号表
     public static void push(IrSymTable symTable) {
-        instance.stack.push(symTable);
+        getInstance().stack.push(symTable);
     }
 
     // 创建一个新的符号表并压栈
@@ -66,6 +73,7 @@ public class IrSymTableStack {
 
     // 栈顶符号表出栈，但全局符号表并不会出栈！
     public static void pop() {
+        IrSymTableStack instance = getInstance();
         if(instance.stack.size() > 1) {
             instance.stack.pop();
         }
@@ -74,6 +82,7 @@ public class IrSymTableStack {
     // 寻找栈中指定name的符号，返回它的value
     public static Value getSymbol(String name) {
         // 从栈顶开始查找
+        IrSymTableStack instance = getInstance();
         for (int i=instance.stack.size()-1; i>=0; i--) {
             Value value = instance.stack.get(i).getSymbol(name);
             if(value != null) {
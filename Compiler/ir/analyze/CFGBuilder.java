@@ -0,0 +1,123 @@
+package ir.analyze;
+
+import ir.values.BasicBlock;
+import ir.values.Function;
+import ir.values.Value;
+import ir.values.instructions.Br;
+import ir.values.instructions.Instruction;
+import ir.values.instructions.Phi;
+import ir.values.instructions.Ret;
+import utils.CompilationSession;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+
+/**
+ * @author Gary
+ * @Description: 控制流图构建：根据每个基本块末尾的跳转指令，计算前驱块和后继块
+ * 同时会删掉跳转/返回指令之后的死代码，以及从入口块不可达的基本块
+ * @date 2026/10/18 10:30
+ */
+public class CFGBuilder {
+    public static void build(Function function) {
+        ArrayList<BasicBlock> blocks = function.getBasicBlocks();
+        // 1. 基本块中第一条br/ret之后的指令永远不会执行，删掉（例如return语句之后补上的br）
+        for (BasicBlock block : blocks) {
+            LinkedList<Instruction> instructions = block.getInstructions();
+            Iterator<Instruction> iterator = instructions.iterator();
+            boolean terminated = false;
+            while (iterator.hasNext()) {
+                Instruction inst = iterator.next();
+                if (terminated) {
+                    inst.dropOperands();
+                    iterator.remove();
+                } else if (inst instanceof Br || inst instanceof Ret) {
+                    terminated = true;
+                }
+            }
+        }
+        // 2. 重新计算前驱后继
+        for (BasicBlock block : blocks) {
+            block.getPreBlocks().clear();
+            block.getSuccBlocks().clear();
+        }
+        for (BasicBlock block : blocks) {
+            if (block.getInstructions().isEmpty()) {
+                continue;
+            }
+            Instruction last = block.getInstructions().getLast();
+            if (last instanceof Br) {
+                for (Value op : last.getOperands()) {
+                    if (op instanceof BasicBlock) {
+                        block.addSuccBlock((BasicBlock) op);
+                        ((BasicBlock) op).addPreBlock(block);
+                    }
+                }
+            }
+        }
+        // 3. 删除从入口不可达的基本块
+        HashSet<BasicBlock> reachable = new HashSet<>();
+        LinkedList<BasicBlock> worklist = new LinkedList<>();
+        reachable.add(function.getHeadBlock());
+        worklist.add(function.getHeadBlock());
+        while (!worklist.isEmpty()) {
+            BasicBlock block = worklist.poll();
+            for (BasicBlock succ : block.getSuccBlocks()) {
+                if (reachable.add(succ)) {
+                    worklist.add(succ);
+                }
+            }
+        }
+        Iterator<BasicBlock> iterator = blocks.iterator();
+        while (iterator.hasNext()) {
+            BasicBlock block = iterator.next();
+            if (reachable.contains(block)) {
+                continue;
+            }
+            for (BasicBlock succ : block.getSuccBlocks()) {
+                succ.getPreBlocks().remove(block);
+                for (Phi phi : succ.getPhis()) {
+                    phi.removeIncoming(block);
+                }
+            }
+            for (Instruction inst : block.getInstructions()) {
+                inst.dropOperands();
+            }
+            iterator.remove();
+        }
+        function.invalidateCFG();
+    }
+
+    /**
+     * 前驱有多个后继、后继有phi（必然有多个前驱）时，这条边是关键边
+     * 在中间插入一个只有跳转的新块，phi的move就放在新块里
+     */
+    public static void splitCriticalEdges(Function function) {
+        for (BasicBlock block : new ArrayList<>(function.getBasicBlocks())) {
+            if (block.getPhis().isEmpty()) {
+                continue;
+            }
+            for (BasicBlock pre : new ArrayList<>(block.getPreBlocks())) {
+                if (pre.getSuccBlocks().size() < 2) {
+                    continue;
+                }
+                BasicBlock mid = new BasicBlock("s" + CompilationSession.current().next(CompilationSession.Counter.CFG_SPLIT), function);
+                function.addBlock(mid);
+                mid.addInstruction(new Br(mid, block));
+                pre.getInstructions().getLast().replaceOperand(block, mid);
+                for (Phi phi : block.getPhis()) {
+                    phi.replaceIncomingBlock(pre, mid);
+                }
+                pre.getSuccBlocks().remove(block);
+                pre.addSuccBlock(mid);
+                block.getPreBlocks().remove(pre);
+                block.addPreBlock(mid);
+                mid.addPreBlock(pre);
+                mid.addSuccBlock(block);
+            }
+        }
+        function.invalidateCFG();
+    }
+}
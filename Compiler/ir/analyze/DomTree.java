@@ -0,0 +1,305 @@
+package ir.analyze;
+
+import ir.values.BasicBlock;
+import ir.values.Function;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+
+/**
+ * @author Gary
+ * @Description: 支配树与支配边界，支持正向（支配）和反向（后支配）两种
+ * 使用Cooper-Harvey-Kennedy迭代算法，基本块全部映射为逆后序下的稠密下标，迭代中只做数组访问
+ * 后支配树在反向CFG上计算，所有没有后继的块（ret块）连到一个虚拟出口上；
+ * 无法到达出口的块（死循环）不在后支配树中
+ * 结果缓存在Function上，CFG变化后需调用Function.invalidateCFG
+ * @date 2026/10/18 14:05
+ */
+public class DomTree {
+    private final boolean isPost;
+    // 逆后序排列的基本块；后支配树中下标0是虚拟出口，对应null
+    private final ArrayList<BasicBlock> blocks = new ArrayList<>();
+    private final HashMap<BasicBlock, Integer> indexMap = new HashMap<>();
+    // 直接支配者的下标，根节点为自己，不可达为-1
+    private int[] idom;
+    // 支配树上的孩子
+    private int[][] children;
+    // 支配边界
+    private int[][] frontier;
+    // 支配树先序/后序编号，用于O(1)判断支配关系
+    private int[] preOrder;
+    private int[] postOrder;
+
+    public DomTree(Function function, boolean isPost) {
+        this.isPost = isPost;
+        computeOrder(function);
+        int[][] preds = buildPreds();
+        computeIdom(preds);
+        computeChildren();
+        computeFrontier(preds);
+        computeTreeOrder();
+    }
+
+    // ============ 构建 ============
+    // 在（反向）CFG上非递归DFS，得到逆后序
+    private void computeOrder(Function function) {
+        ArrayList<BasicBlock> postList = new ArrayList<>();
+        HashSet<BasicBlock> visited = new HashSet<>();
+        ArrayList<BasicBlock> stack = new ArrayList<>();
+        ArrayList<Iterator<BasicBlock>> iterStack = new ArrayList<>();
+        if (isPost) {
+            // 虚拟出口的后继就是所有ret块
+            ArrayList<BasicBlock> exits = new ArrayList<>();
+            for (BasicBlock block : function.getBasicBlocks()) {
+                if (block.getSuccBlocks().isEmpty()) {
+                    exits.add(block);
+                }
+            }
+            stack.add(null);
+            iterStack.add(exits.iterator());
+        } else {
+            BasicBlock entry = function.getHeadBlock();
+            visited.add(entry);
+            stack.add(entry);
+            iterStack.add(entry.getSuccBlocks().iterator());
+        }
+        while (!stack.isEmpty()) {
+            Iterator<BasicBlock> iterator = iterStack.get(iterStack.size() - 1);
+            if (iterator.hasNext()) {
+                BasicBlock next = iterator.next();
+                if (visited.add(next)) {
+                    stack.add(next);
+                    iterStack.add(succsOf(next).iterator());
+                }
+            } else {
+                postList.add(stack.remove(stack.size() - 1));
+                iterStack.remove(iterStack.size() - 1);
+            }
+        }
+        for (int i = postList.size() - 1; i >= 0; i--) {
+            indexMap.put(postList.get(i), blocks.size());
+            blocks.add(postList.get(i));
+        }
+    }
+
+    // 正向图的后继/前驱；反向图中二者互换
+    private HashSet<BasicBlock> succsOf(BasicBlock block) {
+        return isPost ? block.getPreBlocks() : block.getSuccBlocks();
+    }
+
+    private HashSet<BasicBlock> predsOf(BasicBlock block) {
+        return isPost ? block.getSuccBlocks() : block.getPreBlocks();
+    }
+
+    // 把前驱关系转成下标数组，虚拟出口是所有ret块的前驱
+    private int[][] buildPreds() {
+        int n = blocks.size();
+        int[][] preds = new int[n][];
+        for (int b = 0; b < n; b++) {
+            BasicBlock block = blocks.get(b);
+            if (block == null) {
+                preds[b] = new int[0];
+                continue;
+            }
+            ArrayList<Integer> list = new ArrayList<>();
+            for (BasicBlock pre : predsOf(block)) {
+                Integer index = indexMap.get(pre);
+                if (index != null) {
+                    list.add(index);
+                }
+            }
+            if (isPost && block.getSuccBlocks().isEmpty()) {
+                list.add(0);
+            }
+            preds[b] = list.stream().mapToInt(Integer::intValue).toArray();
+        }
+        return preds;
+    }
+
+    private void computeIdom(int[][] preds) {
+        int n = blocks.size();
+        idom = new int[n];
+        Arrays.fill(idom, -1);
+        idom[0] = 0;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int b = 1; b < n; b++) {
+                int newIdom = -1;
+                for (int p : preds[b]) {
+                    if (idom[p] == -1) {
+                        continue;
+                    }
+                    newIdom = newIdom == -1 ? p : intersect(p, newIdom);
+                }
+                if (idom[b] != newIdom) {
+                    idom[b] = newIdom;
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    // 沿idom向上找最近公共支配者，逆后序下标越小越靠近根
+    private int intersect(int b1, int b2) {
+        while (b1 != b2) {
+            while (b1 > b2) {
+                b1 = idom[b1];
+            }
+            while (b2 > b1) {
+                b2 = idom[b2];
+            }
+        }
+        return b1;
+    }
+
+    private void computeChildren() {
+        int n = blocks.size();
+        int[] count = new int[n];
+        for (int b = 1; b < n; b++) {
+            count[idom[b]]++;
+        }
+        children = new int[n][];
+        for (int b = 0; b < n; b++) {
+            children[b] = new int[count[b]];
+            count[b] = 0;
+        }
+        for (int b = 1; b < n; b++) {
+            children[idom[b]][count[idom[b]]++] = b;
+        }
+    }
+
+    // 对每个汇合点，从各前驱沿idom向上走到汇合点的idom为止，途经的块的支配边界都包含它
+    private void computeFrontier(int[][] preds) {
+        int n = blocks.size();
+        ArrayList<ArrayList<Integer>> lists = new ArrayList<>();
+        for (int b = 0; b < n; b++) {
+            lists.add(new ArrayList<>());
+        }
+        // 同一个汇合点只加一次
+        int[] lastAdded = new int[n];
+        Arrays.fill(lastAdded, -1);
+        for (int b = 0; b < n; b++) {
+            if (preds[b].length < 2) {
+                continue;
+            }
+            for (int p : preds[b]) {
+                int runner = p;
+                while (runner != idom[b] && lastAdded[runner] != b) {
+                    lists.get(runner).add(b);
+                    lastAdded[runner] = b;
+                    runner = idom[runner];
+                }
+            }
+        }
+        frontier = new int[n][];
+        for (int b = 0; b < n; b++) {
+            frontier[b] = lists.get(b).stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    // 支配树上的先序/后序编号
+    private void computeTreeOrder() {
+        int n = blocks.size();
+        preOrder = new int[n];
+        postOrder = new int[n];
+        int[] stack = new int[n];
+        int[] next = new int[n];
+        int top = 0, preCnt = 0, postCnt = 0;
+        stack[top++] = 0;
+        preOrder[0] = preCnt++;
+        while (top > 0) {
+            int b = stack[top - 1];
+            if (next[b] < children[b].length) {
+                int child = children[b][next[b]++];
+                preOrder[child] = preCnt++;
+                stack[top++] = child;
+            } else {
+                postOrder[b] = postCnt++;
+                top--;
+            }
+        }
+    }
+
+    // ============ 查询（下标形式） ============
+    public int size() {
+        return blocks.size();
+    }
+
+    public BasicBlock getBlock(int index) {
+        return blocks.get(index);
+    }
+
+    // 不在树中（不可达）返回-1
+    public int getIndex(BasicBlock block) {
+        Integer index = indexMap.get(block);
+        return index == null ? -1 : index;
+    }
+
+    public int getIdomIndex(int index) {
+        return idom[index];
+    }
+
+    public int[] getChildrenIndexes(int index) {
+        return children[index];
+    }
+
+    public int[] getFrontierIndexes(int index) {
+        return frontier[index];
+    }
+
+    // ============ 查询（基本块形式） ============
+    /**
+     * 逆后序排列的基本块。后支配树的第一个元素是虚拟出口null
+     */
+    public ArrayList<BasicBlock> getBlocks() {
+        return blocks;
+    }
+
+    /**
+     * 直接支配者；根节点及不在树中的块返回null
+     */
+    public BasicBlock getIdom(BasicBlock block) {
+        int index = getIndex(block);
+        if (index <= 0) {
+            return null;
+        }
+        return blocks.get(idom[index]);
+    }
+
+    public ArrayList<BasicBlock> getChildren(BasicBlock block) {
+        ArrayList<BasicBlock> result = new ArrayList<>();
+        int index = getIndex(block);
+        if (index != -1) {
+            for (int child : children[index]) {
+                result.add(blocks.get(child));
+            }
+        }
+        return result;
+    }
+
+    public ArrayList<BasicBlock> getFrontier(BasicBlock block) {
+        ArrayList<BasicBlock> result = new ArrayList<>();
+        int index = getIndex(block);
+        if (index != -1) {
+            for (int df : frontier[index]) {
+                result.add(blocks.get(df));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * a是否（后）支配b，自己支配自己
+     */
+    public boolean dominates(BasicBlock a, BasicBlock b) {
+        int ia = getIndex(a), ib = getIndex(b);
+        if (ia == -1 || ib == -1) {
+            return false;
+        }
+        return preOrder[ia] <= preOrder[ib] && postOrder[ib] <= postOrder[ia];
+    }
+}
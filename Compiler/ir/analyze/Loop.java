@@ -1,16 +1,83 @@
 package ir.analyze;
 
+import ir.values.BasicBlock;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+
 /**
  * @author Gary
- * @Description: 基本块所处的循环的信息
+ * @Description: 基本块所处的循环的信息，由LoopAnalysis根据回边构建
  * @date 2024/11/29 0:55
  */
 public class Loop {
     // ============ 成员变量 ============
     private int loopDepth;   // 循环深度，最外层为1
 
+    private final BasicBlock header;                            // 循环头，支配循环中所有块
+    private final ArrayList<BasicBlock> latches = new ArrayList<>();    // 回边的起点
+    private final HashSet<BasicBlock> blocks = new HashSet<>();         // 循环体中的所有块（含子循环）
+    private final ArrayList<BasicBlock> exits = new ArrayList<>();      // 循环外、有前驱在循环内的块
+    private BasicBlock preHeader = null;                        // 循环外唯一跳到header的块
+
+    private Loop parentLoop = null;                             // 外层循环，最外层为null
+    private final ArrayList<Loop> subLoops = new ArrayList<>(); // 直接内层循环
+
+    public Loop(BasicBlock header) {
+        this.header = header;
+        this.blocks.add(header);
+    }
+
     // ============ 相关方法 ============
     public int getLoopDepth() {
         return loopDepth;
     }
+
+    public void setLoopDepth(int loopDepth) {
+        this.loopDepth = loopDepth;
+    }
+
+    public BasicBlock getHeader() {
+        return header;
+    }
+
+    public ArrayList<BasicBlock> getLatches() {
+        return latches;
+    }
+
+    public HashSet<BasicBlock> getBlocks() {
+        return blocks;
+    }
+
+    public boolean contains(BasicBlock block) {
+        return blocks.contains(block);
+    }
+
+    public ArrayList<BasicBlock> getExits() {
+        return exits;
+    }
+
+    public BasicBlock getPreHeader() {
+        return preHeader;
+    }
+
+    public void setPreHeader(BasicBlock preHeader) {
+        this.preHeader = preHeader;
+    }
+
+    public Loop getParentLoop() {
+        return parentLoop;
+    }
+
+    public void setParentLoop(Loop parentLoop) {
+        this.parentLoop = parentLoop;
+    }
+
+    public ArrayList<Loop> getSubLoops() {
+        return subLoops;
+    }
+
+    public String toString() {
+        return "loop(header=" + header.getName() + ", depth=" + loopDepth + ", blocks=" + blocks.size() + ")";
+    }
 }
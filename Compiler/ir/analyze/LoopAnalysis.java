@@ -0,0 +1,185 @@
+package ir.analyze;
+
+import ir.IrBuilder;
+import ir.values.BasicBlock;
+import ir.values.Function;
+import ir.values.Module;
+import ir.values.instructions.Br;
+import ir.values.instructions.Phi;
+import utils.CompilationSession;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedList;
+
+/**
+ * @author Gary
+ * @Description: 自然循环分析
+ * 1. 回边：latch -> header，且header支配latch；同一个header的回边合并为一个循环
+ * 2. 循环体：从各个latch沿前驱反向搜索，直到header为止
+ * 3. 若header在循环外的前驱不唯一，或者唯一的前驱还有别的后继，就新建一个preheader
+ * 4. 按循环体大小建立嵌套森林，计算出口块和循环深度，并记录到每个基本块的loop上（最内层循环）
+ * @date 2026/10/18 15:10
+ */
+public class LoopAnalysis {
+    public static void run(Module module) {
+        for (Function function : module.functions) {
+            if (!function.isLibFunc()) {
+                runOnFunction(function);
+            }
+        }
+    }
+
+    public static void runOnFunction(Function function) {
+        CFGBuilder.build(function);
+        // 第一遍只负责补全preheader，补完后CFG变了，需要重新分析一遍
+        boolean changed = false;
+        for (Loop loop : findLoops(function)) {
+            changed |= createPreHeader(function, loop);
+        }
+        if (changed) {
+            // preheader中可能新建了phi，通向它的边又可能成为关键边
+            CFGBuilder.splitCriticalEdges(function);
+        }
+        ArrayList<Loop> loops = findLoops(function);
+        buildLoopForest(function, loops);
+    }
+
+    // ============ 1. 找出所有自然循环 ============
+    private static ArrayList<Loop> findLoops(Function function) {
+        DomTree domTree = function.getDomTree();
+        HashMap<BasicBlock, Loop> headerMap = new HashMap<>();
+        ArrayList<Loop> loops = new ArrayList<>();
+        // 按逆后序遍历，外层循环的header先被发现
+        for (BasicBlock header : domTree.getBlocks()) {
+            for (BasicBlock pre : header.getPreBlocks()) {
+                if (!domTree.dominates(header, pre)) {
+                    continue;
+                }
+                Loop loop = headerMap.get(header);
+                if (loop == null) {
+                    loop = new Loop(header);
+                    headerMap.put(header, loop);
+                    loops.add(loop);
+                }
+                loop.getLatches().add(pre);
+                // 从latch出发反向搜索循环体
+                LinkedList<BasicBlock> worklist = new LinkedList<>();
+                if (loop.getBlocks().add(pre)) {
+                    worklist.add(pre);
+                }
+                while (!worklist.isEmpty()) {
+                    BasicBlock block = worklist.poll();
+                    for (BasicBlock blockPre : block.getPreBlocks()) {
+                        // 不可达的前驱不在支配树中，不属于循环
+                        if (domTree.getIndex(blockPre) != -1 && loop.getBlocks().add(blockPre)) {
+                            worklist.add(blockPre);
+                        }
+                    }
+                }
+            }
+        }
+        return loops;
+    }
+
+    // ============ 2. 创建preheader ============
+    /**
+     * 把header在循环外的所有前驱都改为跳到新建的preheader，preheader再无条件跳到header
+     * header中的phi：外部来源只有一个时直接改来源块；有多个时先在preheader中用新phi汇合
+     * @return 是否新建了preheader
+     */
+    private static boolean createPreHeader(Function function, Loop loop) {
+        BasicBlock header = loop.getHeader();
+        ArrayList<BasicBlock> outsidePres = new ArrayList<>();
+        for (BasicBlock pre : header.getPreBlocks()) {
+            if (!loop.contains(pre)) {
+                outsidePres.add(pre);
+            }
+        }
+        // 入口块没有外部前驱；已有合格的preheader也不需要新建
+        if (outsidePres.isEmpty()
+                || (outsidePres.size() == 1 && outsidePres.get(0).getSuccBlocks().size() == 1)) {
+            return false;
+        }
+        BasicBlock preHeader = new BasicBlock("l" + CompilationSession.current().next(CompilationSession.Counter.PRE_HEADER), function);
+        function.addBlock(preHeader);
+        // 1. header中的phi，把外部来源转移到preheader
+        for (Phi phi : header.getPhis()) {
+            if (outsidePres.size() == 1) {
+                phi.replaceIncomingBlock(outsidePres.get(0), preHeader);
+                continue;
+            }
+            Phi prePhi = IrBuilder.buildPhiInstruction(phi.getType(), preHeader);
+            for (BasicBlock pre : outsidePres) {
+                prePhi.addIncoming(phi.getIncomingValue(pre), pre);
+                phi.removeIncoming(pre);
+            }
+            phi.addIncoming(prePhi, preHeader);
+        }
+        // 2. 修改外部前驱的跳转目标
+        preHeader.addInstruction(new Br(preHeader, header));
+        for (BasicBlock pre : outsidePres) {
+            pre.getInstructions().getLast().replaceOperand(header, preHeader);
+            pre.getSuccBlocks().remove(header);
+            pre.addSuccBlock(preHeader);
+            header.getPreBlocks().remove(pre);
+            preHeader.addPreBlock(pre);
+        }
+        preHeader.addSuccBlock(header);
+        header.addPreBlock(preHeader);
+        function.invalidateCFG();
+        return true;
+    }
+
+    // ============ 3. 嵌套森林、出口、深度 ============
+    private static void buildLoopForest(Function function, ArrayList<Loop> loops) {
+        // 从小到大排序，第一个包含自己header的更大循环就是直接外层循环
+        loops.sort(Comparator.comparingInt(loop -> loop.getBlocks().size()));
+        ArrayList<Loop> topLoops = new ArrayList<>();
+        for (int i = 0; i < loops.size(); i++) {
+            Loop loop = loops.get(i);
+            for (int j = i + 1; j < loops.size(); j++) {
+                if (loops.get(j).contains(loop.getHeader())) {
+                    loop.setParentLoop(loops.get(j));
+                    loops.get(j).getSubLoops().add(loop);
+                    break;
+                }
+            }
+            if (loop.getParentLoop() == null) {
+                topLoops.add(loop);
+            }
+        }
+        // 外层先算深度
+        for (int i = loops.size() - 1; i >= 0; i--) {
+            Loop loop = loops.get(i);
+            Loop parent = loop.getParentLoop();
+            loop.setLoopDepth(parent == null ? 1 : parent.getLoopDepth() + 1);
+        }
+        // 块的loop是包含它的最内层循环：先清空，再从大到小覆盖
+        for (BasicBlock block : function.getBasicBlocks()) {
+            block.setLoop(null);
+        }
+        for (int i = loops.size() - 1; i >= 0; i--) {
+            for (BasicBlock block : loops.get(i).getBlocks()) {
+                block.setLoop(loops.get(i));
+            }
+        }
+        for (Loop loop : loops) {
+            for (BasicBlock block : loop.getBlocks()) {
+                for (BasicBlock succ : block.getSuccBlocks()) {
+                    if (!loop.contains(succ) && !loop.getExits().contains(succ)) {
+                        loop.getExits().add(succ);
+                    }
+                }
+            }
+            // 此时header的外部前驱一定只有一个，且只跳到header
+            for (BasicBlock pre : loop.getHeader().getPreBlocks()) {
+                if (!loop.contains(pre) && pre.getSuccBlocks().size() == 1) {
+                    loop.setPreHeader(pre);
+                }
+            }
+        }
+        function.setTopLoops(topLoops);
+    }
+}
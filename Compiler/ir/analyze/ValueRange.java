@@ -0,0 +1,154 @@
+package ir.analyze;
+
+import ir.types.IntType;
+import ir.values.User;
+import ir.values.Value;
+import ir.values.constants.ConstInt;
+import ir.values.instructions.Add;
+import ir.values.instructions.Icmp;
+import ir.values.instructions.Mul;
+import ir.values.instructions.Phi;
+import ir.values.instructions.Sdiv;
+import ir.values.instructions.Srem;
+import ir.values.instructions.Sub;
+import ir.values.instructions.Trunc;
+import ir.values.instructions.Zext;
+import utils.CompilationSession;
+import utils.IrUtils;
+
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * @author Gary
+ * @Description: 整数值的取值范围分析，用于消除多余的 zext/trunc
+ * 寄存器模型：i8 的值在寄存器里总是 0~255（trunc 会 andi 255，char 的全局初值也会截断），i1 的值是 0 或 1
+ * 所以 i8 -> i32 的 zext 不用生成任何指令，已知在 0~255 之内的值 trunc 也不用生成 andi
+ * 1. 常数：就是它本身
+ * 2. 非常数的 i1、i8：0~1、0~255
+ * 3. zext、加减乘、除以常数、取模：按区间运算，超出 int 范围时是整个 int
+ * 4. phi：各个来源的并集，遇到环时取整个 int
+ * 结果按需计算，缓存在当前编译会话的对象中
+ * @date 2026/10/18 21:50
+ */
+public class ValueRange {
+    private static final long[] FULL = {Integer.MIN_VALUE, Integer.MAX_VALUE};
+    // 递归深度上限，超过时直接取整个 int，避免很长的表达式链爆栈
+    private static final int MAX_DEPTH = 64;
+
+    private final HashMap<Value, long[]> rangeMap = new HashMap<>();
+    // 正在计算的值，用来发现 phi 构成的环
+    private final HashSet<Value> visiting = new HashSet<>();
+
+    // 每个编译会话一个，由 CompilationSession 创建
+    private static ValueRange getInstance() {
+        return CompilationSession.current().getValueRange();
+    }
+
+    /**
+     * 值是否一定在 0~255 之内
+     */
+    public static boolean fitsInByte(Value value) {
+        long[] range = getInstance().rangeOf(value, 0);
+        return range[0] >= 0 && range[1] <= 255;
+    }
+
+    /**
+     * @return {最小值, 最大值}
+     */
+    public static long[] rangeOf(Value value) {
+        return getInstance().rangeOf(value, 0);
+    }
+
+    private long[] rangeOf(Value value, int depth) {
+        if (value instanceof ConstInt) {
+            int c = IrUtils.getConstIntValue(value);
+            return new long[]{c, c};
+        }
+        long[] range = rangeMap.get(value);
+        if (range != null) {
+            return range;
+        }
+        if (depth > MAX_DEPTH || visiting.contains(value)) {
+            return FULL;
+        }
+        visiting.add(value);
+        range = compute(value, depth + 1);
+        visiting.remove(value);
+        rangeMap.put(value, range);
+        return range;
+    }
+
+    private long[] compute(Value value, int depth) {
+        if (value instanceof Zext) {
+            return rangeOf(((Zext) value).getOp(1), depth);
+        }
+        if (value instanceof Trunc) {
+            long[] src = rangeOf(((Trunc) value).getOp(1), depth);
+            return src[0] >= 0 && src[1] <= 255 ? src : new long[]{0, 255};
+        }
+        if (value instanceof Icmp) {
+            return new long[]{0, 1};
+        }
+        if (value instanceof Add || value instanceof Sub || value instanceof Mul) {
+            User user = (User) value;
+            long[] a = rangeOf(user.getOp(1), depth);
+            long[] b = rangeOf(user.getOp(2), depth);
+            if (value instanceof Add) {
+                return clamp(a[0] + b[0], a[1] + b[1]);
+            } else if (value instanceof Sub) {
+                return clamp(a[0] - b[1], a[1] - b[0]);
+            }
+            long p1 = a[0] * b[0], p2 = a[0] * b[1], p3 = a[1] * b[0], p4 = a[1] * b[1];
+            return clamp(Math.min(Math.min(p1, p2), Math.min(p3, p4)), Math.max(Math.max(p1, p2), Math.max(p3, p4)));
+        }
+        if (value instanceof Sdiv sdiv && sdiv.getOp(2) instanceof ConstInt) {
+            long d = IrUtils.getConstIntValue(sdiv.getOp(2));
+            long[] a = rangeOf(sdiv.getOp(1), depth);
+            if (d > 0) {
+                return new long[]{a[0] / d, a[1] / d};
+            } else if (d < 0 && d != Integer.MIN_VALUE && a[0] > Integer.MIN_VALUE) {
+                return new long[]{a[1] / d, a[0] / d};
+            }
+            return FULL;
+        }
+        if (value instanceof Srem srem) {
+            long[] a = rangeOf(srem.getOp(1), depth);
+            // 余数的绝对值不超过被除数，符号与被除数相同
+            long lo = Math.min(a[0], 0), hi = Math.max(a[1], 0);
+            if (srem.getOp(2) instanceof ConstInt && IrUtils.getConstIntValue(srem.getOp(2)) != 0) {
+                long m = Math.abs((long) IrUtils.getConstIntValue(srem.getOp(2))) - 1;
+                lo = Math.max(lo, -m);
+                hi = Math.min(hi, m);
+            }
+            return new long[]{lo, hi};
+        }
+        if (value instanceof Phi phi) {
+            long lo = Long.MAX_VALUE, hi = Long.MIN_VALUE;
+            for (Value incoming : phi.getOperands()) {
+                long[] r = rangeOf(incoming, depth);
+                lo = Math.min(lo, r[0]);
+                hi = Math.max(hi, r[1]);
+            }
+            if (lo <= hi) {
+                return new long[]{lo, hi};
+            }
+        }
+        // 其他的值（load、call、参数等）只知道类型的宽度
+        if (value.getType() instanceof IntType intType) {
+            if (intType.getBits() == 1) {
+                return new long[]{0, 1};
+            } else if (intType.getBits() == 8) {
+                return new long[]{0, 255};
+            }
+        }
+        return FULL;
+    }
+
+    private static long[] clamp(long lo, long hi) {
+        if (lo < Integer.MIN_VALUE || hi > Integer.MAX_VALUE) {
+            return FULL;
+        }
+        return new long[]{lo, hi};
+    }
+}
@@ -0,0 +1,230 @@
+package ir.opt;
+
+import ir.IrBuilder;
+import ir.analyze.CFGBuilder;
+import ir.analyze.DomTree;
+import ir.types.ArrayType;
+import ir.types.IntType;
+import ir.types.ValueType;
+import ir.values.BasicBlock;
+import ir.values.Function;
+import ir.values.Module;
+import ir.values.User;
+import ir.values.Value;
+import ir.values.constants.ConstInt;
+import ir.values.instructions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+
+/**
+ * @author Gary
+ * @Description: mem2reg优化：把只被load/store使用的非数组alloca提升为SSA虚拟寄存器
+ * 1. 利用函数的支配树与支配边界，在变量定义块的迭代支配边界处插入phi
+ * 2. 沿支配树DFS进行变量重命名，load替换为当前的到达定义，删除load/store/alloca
+ * 3. 删除没有实际用途的phi，并拆分通向phi所在块的关键边（CFGBuilder.splitCriticalEdges），方便后端在前驱块末尾插入move
+ * @date 2026/10/18 10:40
+ */
+public class Mem2Reg {
+    public static void run(Module module) {
+        for (Function function : module.functions) {
+            if (!function.isLibFunc()) {
+                new Mem2Reg().runOnFunction(function);
+            }
+        }
+    }
+
+    // ============ 每个函数的分析状态，每个函数新建一个对象，不同的编译会话可以同时运行 ============
+    // 支配树，基本块都用其中的稠密下标表示
+    private DomTree domTree;
+
+    // 可提升的alloca及其编号
+    private ArrayList<Alloca> allocas;
+    private HashMap<Alloca, Integer> allocaIndex;
+    // phi对应的是哪个alloca
+    private HashMap<Phi, Integer> phiAlloca;
+
+    private void runOnFunction(Function function) {
+        CFGBuilder.build(function);
+        domTree = function.getDomTree();
+        collectPromotableAllocas(function);
+        if (allocas.isEmpty()) {
+            return;
+        }
+        insertPhis();
+        rename();
+        removeDeadPhis(function);
+        CFGBuilder.splitCriticalEdges(function);
+    }
+
+    // ============ 1. 收集可提升的alloca ============
+    /**
+     * 非数组类型，且所有使用者都是以它为地址的load/store，才能提升
+     */
+    private void collectPromotableAllocas(Function function) {
+        allocas = new ArrayList<>();
+        allocaIndex = new HashMap<>();
+        for (Instruction inst : function.getHeadBlock().getInstructions()) {
+            if (!(inst instanceof Alloca) || ((Alloca) inst).getAllocatedType() instanceof ArrayType) {
+                continue;
+            }
+            Alloca alloca = (Alloca) inst;
+            boolean promotable = true;
+            for (User user : alloca.getUsers()) {
+                if (user instanceof Load) {
+                    continue;
+                }
+                // store的第二个操作数是地址，若alloca作为被存储的值则已经逃逸
+                if (user instanceof Store && user.getOp(2) == alloca && user.getOp(1) != alloca) {
+                    continue;
+                }
+                promotable = false;
+                break;
+            }
+            if (promotable) {
+                allocaIndex.put(alloca, allocas.size());
+                allocas.add(alloca);
+            }
+        }
+    }
+
+    // ============ 2. 在迭代支配边界处插入phi ============
+    private void insertPhis() {
+        phiAlloca = new HashMap<>();
+        for (int a = 0; a < allocas.size(); a++) {
+            Alloca alloca = allocas.get(a);
+            // 有store的块就是定义块
+            LinkedList<Integer> worklist = new LinkedList<>();
+            HashSet<Integer> defBlocks = new HashSet<>();
+            for (User user : alloca.getUsers()) {
+                int index = domTree.getIndex(((Instruction) user).getParent());
+                // 不在支配树中的是死代码（如break之后的语句），忽略
+                if (user instanceof Store && index != -1 && defBlocks.add(index)) {
+                    worklist.add(index);
+                }
+            }
+            HashSet<Integer> hasPhi = new HashSet<>();
+            while (!worklist.isEmpty()) {
+                int b = worklist.poll();
+                for (int df : domTree.getFrontierIndexes(b)) {
+                    if (hasPhi.add(df)) {
+                        Phi phi = IrBuilder.buildPhiInstruction(alloca.getAllocatedType(), domTree.getBlock(df));
+                        phiAlloca.put(phi, a);
+                        if (defBlocks.add(df)) {
+                            worklist.add(df);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // ============ 3. 沿支配树重命名 ============
+    private void rename() {
+        // 每个alloca当前的到达定义栈
+        ArrayList<LinkedList<Value>> defStacks = new ArrayList<>();
+        for (Alloca alloca : allocas) {
+            LinkedList<Value> defStack = new LinkedList<>();
+            defStack.push(undefValue(alloca.getAllocatedType()));
+            defStacks.add(defStack);
+        }
+        // 非递归DFS，栈中元素为{块下标, 是否已处理完子树}；退栈时弹出该块压入的定义
+        LinkedList<int[]> stack = new LinkedList<>();
+        HashMap<Integer, ArrayList<Integer>> pushedAllocas = new HashMap<>();
+        stack.push(new int[]{0, 0});
+        while (!stack.isEmpty()) {
+            int[] top = stack.pop();
+            int b = top[0];
+            if (top[1] == 1) {
+                for (int a : pushedAllocas.remove(b)) {
+                    defStacks.get(a).pop();
+                }
+                continue;
+            }
+            BasicBlock block = domTree.getBlock(b);
+            ArrayList<Integer> pushed = new ArrayList<>();
+            Iterator<Instruction> iterator = block.getInstructions().iterator();
+            while (iterator.hasNext()) {
+                Instruction inst = iterator.next();
+                if (inst instanceof Phi && phiAlloca.containsKey(inst)) {
+                    int a = phiAlloca.get(inst);
+                    defStacks.get(a).push(inst);
+                    pushed.add(a);
+                } else if (inst instanceof Load && allocaIndex.containsKey(inst.getOp(1))) {
+                    int a = allocaIndex.get(inst.getOp(1));
+                    inst.replaceAllUsesWith(defStacks.get(a).peek());
+                    inst.dropOperands();
+                    iterator.remove();
+                } else if (inst instanceof Store && allocaIndex.containsKey(inst.getOp(2))) {
+                    int a = allocaIndex.get(inst.getOp(2));
+                    defStacks.get(a).push(inst.getOp(1));
+                    pushed.add(a);
+                    inst.dropOperands();
+                    iterator.remove();
+                } else if (inst instanceof Alloca && allocaIndex.containsKey(inst)) {
+                    iterator.remove();
+                }
+            }
+            // 给后继块的phi填上从当前块过来的值
+            for (BasicBlock succ : block.getSuccBlocks()) {
+                for (Phi phi : succ.getPhis()) {
+                    if (phiAlloca.containsKey(phi)) {
+                        phi.addIncoming(defStacks.get(phiAlloca.get(phi)).peek(), block);
+                    }
+                }
+            }
+            pushedAllocas.put(b, pushed);
+            stack.push(new int[]{b, 1});
+            for (int child : domTree.getChildrenIndexes(b)) {
+                stack.push(new int[]{child, 0});
+            }
+        }
+    }
+
+    // 未初始化就读取的局部变量，按0处理
+    private Value undefValue(ValueType type) {
+        if (type instanceof IntType) {
+            return ConstInt.ZERO(((IntType) type).getBits());
+        }
+        return ConstInt.ZERO(32);
+    }
+
+    // ============ 4. 删除无用的phi ============
+    /**
+     * 被非phi指令使用的phi是有用的，有用phi的phi操作数也是有用的，其余的都删掉
+     */
+    private void removeDeadPhis(Function function) {
+        HashSet<Phi> live = new HashSet<>();
+        LinkedList<Phi> worklist = new LinkedList<>();
+        for (Phi phi : phiAlloca.keySet()) {
+            for (User user : phi.getUsers()) {
+                if (!(user instanceof Phi)) {
+                    live.add(phi);
+                    worklist.add(phi);
+                    break;
+                }
+            }
+        }
+        while (!worklist.isEmpty()) {
+            Phi phi = worklist.poll();
+            for (Value op : phi.getOperands()) {
+                if (op instanceof Phi && live.add((Phi) op)) {
+                    worklist.add((Phi) op);
+                }
+            }
+        }
+        for (BasicBlock block : function.getBasicBlocks()) {
+            Iterator<Instruction> iterator = block.getInstructions().iterator();
+            while (iterator.hasNext()) {
+                Instruction inst = iterator.next();
+                if (inst instanceof Phi && !live.contains(inst)) {
+                    inst.dropOperands();
+                    iterator.remove();
+                }
+            }
+        }
+    }
+}
@@ -25,11 +25,9 @@ public class ArrayType extends ValueType {
         if (!isMips) {
             return size;
         }
-        // 如果是char类型，需要乘以4
-        if (elementType.getSize() == 1) {
-            return size * 4;
-        }
-        return size;
+        // 按元素在MIPS中的大小计算：char数组按字节存放时就是元素个数，否则乘以4
+        // 不一定是4的倍数，分配栈空间和全局变量时再对齐
+        return length * elementType.getSize(true);
     }
 
     public ValueType getElementType() {
@@ -1,5 +1,7 @@
 package ir.types;
 
+import utils.OptConfig;
+
 /**
  * @author Gary
  * @Description: 整数类型，位数可为1、8、32，char先合到int里面吧，后面再看
@@ -24,8 +26,8 @@ public class IntType extends ValueType {
         if (!isMips) {
             return bits / 8;
         }
-        // 如果是char类型，需要在原有size上乘4
-        if (bits == 8) return bits / 2;
+        // char类型：按字节存放时占1字节，否则和int一样占4字节
+        if (bits == 8) return OptConfig.byteChars ? 1 : 4;
         return bits / 8;
     }
 
@@ -11,7 +11,7 @@ public class ValueType {
         return 0;
     }
 
-    // 如果是mips调用：要注意，char类型统一成了按4字节存储
+    // 如果是mips调用：要注意，char类型可能按1字节或者4字节存储（OptConfig.byteChars）
     public int getSize(boolean isMips) {
         return 0;
     }
@@ -1,9 +1,23 @@
 package ir.values;
 
+import backend.MipsBuilder;
+import backend.MipsContext;
+import backend.instructions.MipsBranch;
+import backend.isel.TreeSelector;
+import backend.instructions.MipsInstruction;
+import backend.instructions.MipsMove;
+import backend.operands.MipsImm;
+import backend.operands.MipsOperand;
+import backend.operands.MipsRReg;
+import backend.units.MipsInstructionList;
 import ir.analyze.Loop;
 import ir.types.LabelType;
+import ir.values.constants.ConstInt;
 import ir.values.instructions.Instruction;
+import ir.values.instructions.Phi;
+import utils.OptConfig;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.LinkedList;
 
@@ -29,6 +43,22 @@ public class BasicBlock extends Value {
         return (Function) super.getParent();
     }
 
+    public LinkedList<Instruction> getInstructions() {
+        return instructions;
+    }
+
+    // 返回基本块开头的所有phi指令
+    public ArrayList<Phi> getPhis() {
+        ArrayList<Phi> phis = new ArrayList<>();
+        for (Instruction inst : instructions) {
+            if (!(inst instanceof Phi)) {
+                break;
+            }
+            phis.add((Phi) inst);
+        }
+        return phis;
+    }
+
     // ============== 常用方法 ==============
     /**
      * 在指令序列的末尾添加一条指令
@@ -75,6 +105,14 @@ public class BasicBlock extends Value {
     // 当前基本块所在的循环
     private Loop loop = null;
 
+    public Loop getLoop() {
+        return loop;
+    }
+
+    public void setLoop(Loop loop) {
+        this.loop = loop;
+    }
+
     public int getLoopDepth() {
         if (loop == null) {
             return 0;
@@ -84,9 +122,79 @@ public class BasicBlock extends Value {
 
     // =========== MIPS相关 ===========
     public void buildMips() {
+        if (OptConfig.treeIsel) {
+            TreeSelector.labelBlock(this);
+        }
         for (Instruction inst : instructions) {
             // 基本块中每条llvm指令都要转化成mips指令，在这里进行！
             inst.buildMips();
         }
     }
+
+    /**
+     * 消解phi：在每个前驱块末尾的跳转指令之前插入move
+     * mem2reg已经拆分了关键边，所以前驱块一定以无条件跳转j结尾，move只会在这条边上执行
+     * 同一前驱块中的所有move语义上是并行的，若某个源操作数恰好是另一个phi的目的寄存器，先统一拷贝到临时寄存器
+     */
+    public void buildPhiMoves() {
+        ArrayList<Phi> phis = getPhis();
+        if (phis.isEmpty()) {
+            return;
+        }
+        Function irFunction = getParentFunction();
+        for (BasicBlock preBlock : preBlocks) {
+            ArrayList<MipsOperand> dsts = new ArrayList<>();
+            ArrayList<MipsOperand> srcs = new ArrayList<>();
+            for (Phi phi : phis) {
+                MipsOperand dst = MipsContext.getOperand(phi);
+                MipsOperand src = buildPhiSrcOperand(phi.getIncomingValue(preBlock), irFunction);
+                // 自己给自己赋值，不需要move
+                if (!dst.equals(src)) {
+                    dsts.add(dst);
+                    srcs.add(src);
+                }
+            }
+            boolean needTemp = false;
+            for (MipsOperand src : srcs) {
+                if (dsts.contains(src)) {
+                    needTemp = true;
+                    break;
+                }
+            }
+            ArrayList<MipsInstruction> moves = new ArrayList<>();
+            if (needTemp) {
+                ArrayList<MipsOperand> temps = new ArrayList<>();
+                for (MipsOperand src : srcs) {
+                    MipsOperand temp = MipsBuilder.allocateVReg(irFunction);
+                    temps.add(temp);
+                    moves.add(new MipsMove(temp, src));
+                }
+                for (int i = 0; i < dsts.size(); i++) {
+                    moves.add(new MipsMove(dsts.get(i), temps.get(i)));
+                }
+            } else {
+                for (int i = 0; i < dsts.size(); i++) {
+                    moves.add(new MipsMove(dsts.get(i), srcs.get(i)));
+                }
+            }
+            // 插入到前驱块的跳转指令之前
+            MipsInstructionList preInstructions = MipsContext.getBasicBlock(preBlock).getInstructions();
+            int index = preInstructions.size();
+            if (index > 0 && preInstructions.getLast() instanceof MipsBranch) {
+                index--;
+            }
+            preInstructions.addAll(index, moves);
+        }
+    }
+
+    // phi的来源值：常数直接用li，不能调用buildOperand，否则li会被加到前驱块跳转指令之后
+    // 0也用li而不是$zero，否则move v, $zero会被寄存器分配合并，导致phi被分到$zero
+    // 其他来源值映射到 $zero 时（比如值为0的常数运算结果）同样改成li
+    private MipsOperand buildPhiSrcOperand(Value value, Function irFunction) {
+        if (value instanceof ConstInt) {
+            return new MipsImm(((ConstInt) value).getValue());
+        }
+        MipsOperand src = MipsBuilder.buildOperand(value, false, irFunction, this);
+        return src == MipsRReg.ZERO ? new MipsImm(0) : src;
+    }
 }
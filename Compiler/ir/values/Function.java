@@ -4,6 +4,8 @@ import backend.MipsContext;
 import backend.units.MipsBlock;
 import backend.units.MipsFunction;
 import ir.IrSymTable;
+import ir.analyze.DomTree;
+import ir.analyze.Loop;
 import ir.types.ValueType;
 import utils.IrUtils;
 
@@ -15,13 +17,6 @@ import java.util.ArrayList;
  * @date 2024/11/17 19:04
  */
 public class Function extends Value {
-    // 以下5个属性用在LLVM IR开头的define指令中
-    public static Function getint = null;   // declare i32 @getint()
-    public static Function getchar = null;   // declare i32 @getchar()
-    public static Function putint = null;   // declare void @putint(i32)
-    public static Function putch = null;   // declare void @putch(i32)
-    public static Function putstr = null;   // declare void @putstr(i8*)
-
     // ============ 基本属性 ============
     // 函数返回类型
     private ValueType returnType;
@@ -77,6 +72,42 @@ public class Function extends Value {
         basicBlocks.add(block);
     }
 
+    // ============ 支配树缓存 ============
+    // 按需计算，CFG改变（增删块、改跳转目标）后必须调用invalidateCFG
+    private DomTree domTree = null;
+    private DomTree postDomTree = null;
+
+    public DomTree getDomTree() {
+        if (domTree == null) {
+            domTree = new DomTree(this, false);
+        }
+        return domTree;
+    }
+
+    public DomTree getPostDomTree() {
+        if (postDomTree == null) {
+            postDomTree = new DomTree(this, true);
+        }
+        return postDomTree;
+    }
+
+    public void invalidateCFG() {
+        domTree = null;
+        postDomTree = null;
+    }
+
+    // ============ 循环信息 ============
+    // 最外层循环列表（循环嵌套森林的根），由LoopAnalysis设置
+    private ArrayList<Loop> topLoops = new ArrayList<>();
+
+    public ArrayList<Loop> getTopLoops() {
+        return topLoops;
+    }
+
+    public void setTopLoops(ArrayList<Loop> topLoops) {
+        this.topLoops = topLoops;
+    }
+
     // ============ 构造函数 ============
     // IrBuilder.buildFunction中使用
     /**
@@ -144,10 +175,14 @@ public class Function extends Value {
     public void buildMips() {
         // 只有非库函数才需要解析
         if (!isLibFunc) {
-            MipsContext.curIrFunction = this;
+            MipsContext.setCurIrFunction(this);
             for (BasicBlock block : basicBlocks) {
                 block.buildMips();
             }
+            // 所有块都生成完毕后，再把phi转换成前驱块中的move
+            for (BasicBlock block : basicBlocks) {
+                block.buildPhiMoves();
+            }
             MipsFunction mipsFunction = MipsContext.getFunction(this);
             // 函数头部的第一个基本块
             MipsBlock firstMipsBlock = MipsContext.getBasicBlock(getHeadBlock());
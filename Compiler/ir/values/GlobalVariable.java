@@ -4,6 +4,7 @@ import backend.units.MipsGlobalVariable;
 import backend.units.MipsModule;
 import ir.types.PointerType;
 import ir.values.constants.*;
+import utils.MathUtils;
 
 import java.util.ArrayList;
 
@@ -60,7 +61,7 @@ public class GlobalVariable extends User {
         }
         // 未初始化的int/char数组
         else if (initValue instanceof ZeroInitializer) {
-            mipsGlobalVariable = new MipsGlobalVariable(getName(), initValue.getType().getSize(true));
+            mipsGlobalVariable = new MipsGlobalVariable(getName(), MathUtils.alignToWord(initValue.getType().getSize(true)));
         }
         // 常量字符串
         else if (initValue instanceof ConstString) {
@@ -5,6 +5,7 @@ import backend.units.MipsBlock;
 import backend.units.MipsFunction;
 import backend.units.MipsModule;
 import ir.types.VoidType;
+import utils.CompilationSession;
 
 import java.util.ArrayList;
 
@@ -14,12 +15,11 @@ import java.util.ArrayList;
  * @date 2024/11/17 19:33
  */
 public class Module extends Value {
-    // 单例模式
-    private static final Module module = new Module();
+    // 每个编译会话一个，由 CompilationSession 创建
     public static Module getInstance() {
-        return module;
+        return CompilationSession.current().getModule();
     }
-    private Module() {
+    public Module() {
         super("Module", new VoidType(), null);
     }
 
@@ -28,15 +28,21 @@ public class Module extends Value {
     public ArrayList<Function> functions = new ArrayList<>();
     // 全部全局变量表
     public ArrayList<GlobalVariable> globalVariables = new ArrayList<>();
+    // 以下5个库函数用在LLVM IR开头的declare指令中
+    public Function getint = null;   // declare i32 @getint()
+    public Function getchar = null;   // declare i32 @getchar()
+    public Function putint = null;   // declare void @putint(i32)
+    public Function putch = null;   // declare void @putch(i32)
+    public Function putstr = null;   // declare void @putstr(i8*)
 
     // =========== 常用方法 ===========
     // 向全部函数表添加函数
     public static void addFunction(Function function) {
-        module.functions.add(function);
+        getInstance().functions.add(function);
     }
 
     public static void addGlobalVariable (GlobalVariable globalVariable) {
-        module.globalVariables.add(globalVariable);
+        getInstance().globalVariables.add(globalVariable);
     }
 
     // 生成中间代码的字符串
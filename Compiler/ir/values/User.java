@@ -55,4 +55,30 @@ public class User extends Value {
             }
         }
     }
+
+    // ============ 操作数修改 ============
+    /**
+     * 把操作数中所有的oldValue替换为newValue，同时维护双方的users表
+     */
+    public void replaceOperand(Value oldValue, Value newValue) {
+        for (int i = 0; i < operands.size(); i++) {
+            if (operands.get(i) == oldValue) {
+                operands.set(i, newValue);
+                oldValue.removeUser(this);
+                newValue.addUser(this);
+            }
+        }
+    }
+
+    /**
+     * 删除指令前调用，解除与所有操作数的使用关系
+     */
+    public void dropOperands() {
+        for (Value value : operands) {
+            if (value != null) {
+                value.removeUser(this);
+            }
+        }
+        operands.clear();
+    }
 }
@@ -1,6 +1,7 @@
 package ir.values;
 
 import ir.types.ValueType;
+import utils.CompilationSession;
 
 import java.util.ArrayList;
 import java.util.Objects;
@@ -20,10 +21,9 @@ public class Value {
     private int argId = 0;     // 第几个参数，从0开始
     private ArrayList<User> users = new ArrayList<>();  // 使用当前value的User列表
 
-    private static int idCnt = 0;   // 用于生成唯一标识符
-    // 唯一标识符按顺序增加
+    // 唯一标识符按顺序增加，计数器属于当前编译会话
     private static int applyNewId() {
-        return idCnt++;
+        return CompilationSession.current().next(CompilationSession.Counter.VALUE);
     }
 
     // ============== getter/setter ==============
@@ -79,6 +79,26 @@ public class Value {
         this.users.add(user);
     }
 
+    public ArrayList<User> getUsers() {
+        return users;
+    }
+
+    // 从users表中移除一次user（同一user可能多次使用当前value）
+    public void removeUser(User user) {
+        this.users.remove(user);
+    }
+
+    /**
+     * 把所有使用当前value的地方都替换成newValue，mem2reg中用于消除load
+     * @param newValue  替换后的value
+     */
+    public void replaceAllUsesWith(Value newValue) {
+        for (User user : new ArrayList<>(users)) {
+            user.replaceOperand(this, newValue);
+        }
+        users.clear();
+    }
+
     public String toString() {
         return type + " " + name;
     }
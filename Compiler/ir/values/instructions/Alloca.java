@@ -5,11 +5,19 @@ import backend.MipsContext;
 import backend.instructions.MipsBinary;
 import backend.operands.MipsOperand;
 import backend.operands.MipsRReg;
+import backend.units.MipsBlock;
 import backend.units.MipsFunction;
+import backend.units.MipsStackSlot;
 import ir.types.PointerType;
 import ir.types.ValueType;
 import ir.values.BasicBlock;
+import ir.values.User;
+import ir.values.Value;
 import ir.values.constants.ConstArray;
+import utils.MathUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
 
 /**
  * @author Gary
@@ -26,6 +34,10 @@ public class Alloca extends Instruction {
         return initArray;
     }
 
+    public ValueType getAllocatedType() {
+        return allocatedType;
+    }
+
     // ============ 构造函数 ============
     /**
      * 专门用来处理 没有操作数的指令
@@ -56,20 +68,51 @@ public class Alloca extends Instruction {
     }
 
     public void buildMips() {
-        MipsFunction curFunction = MipsContext.getFunction(MipsContext.curIrFunction);
-        // 1. 获取$sp指针目前位置（栈上已经分配的空间），转换成imm操作数（后面addu的rt操作数）
-        int spOffset = curFunction.getAllocaSize();
-        MipsOperand immSpOffset = MipsBuilder.buildImmOperand(spOffset, true, MipsContext.curIrFunction, getParent());
-
-        // 2. 在MIPS中分配栈空间
-        int allocaSize = allocatedType.getSize(true);
+        MipsFunction curFunction = MipsContext.getFunction(MipsContext.getCurIrFunction());
+        // 1. 在MIPS中分配栈空间，得到一个栈槽
+        // 按字节存放的char数组不一定是4的倍数，对齐后栈上其他槽的lw/sw才不会出错
+        int allocaSize = MathUtils.alignToWord(allocatedType.getSize(true));
         // 这个很重要！看看给sp分配多少空间！
 //        System.out.println("allocaSize "+curFunction+" "+allocaSize);
-        curFunction.addAllocaSize(allocaSize);
+        MipsStackSlot slot = curFunction.addStackSlot(allocaSize, false);
+        slot.setAccessBlocks(findAccessBlocks());
+
+        // 2. 槽的偏移量作为后面addu的rt操作数，栈帧重排时会修改它的值，所以不能复制
+        MipsOperand immSpOffset = slot.getOffset();
+        if (!MathUtils.is16BitImm(slot.getOffset().getValue(), true)) {
+            immSpOffset = MipsBuilder.allocateVReg(MipsContext.getCurIrFunction());
+            MipsBuilder.buildMove(immSpOffset, slot.getOffset(), getParent());
+        }
 
         // 3. 先构造rd,然后 addiu $s1, $sp, 4，令栈向上生长
         // 这里的rd是指令，在buildOperand中需要生成新的dst寄存器 FIXME: 这里的isImm没用吧
-        MipsOperand rd = MipsBuilder.buildOperand(this, true, MipsContext.curIrFunction, getParent());
+        MipsOperand rd = MipsBuilder.buildOperand(this, true, MipsContext.getCurIrFunction(), getParent());
         MipsBuilder.buildBinary(MipsBinary.Type.ADDU, rd, MipsRReg.SP, immSpOffset, getParent());
     }
+
+    /**
+     * 找出访问这块空间的指令所在的基本块，用于栈帧重排
+     * 地址只被 load/store 的指针操作数和 gep 的基址使用时才不算逃逸，否则（传给函数、被存到内存等）返回 null
+     */
+    private HashSet<MipsBlock> findAccessBlocks() {
+        HashSet<MipsBlock> accessBlocks = new HashSet<>();
+        ArrayList<Value> worklist = new ArrayList<>();
+        worklist.add(this);
+        while (!worklist.isEmpty()) {
+            Value pointer = worklist.remove(worklist.size() - 1);
+            for (User user : pointer.getUsers()) {
+                if (user instanceof Load) {
+                    accessBlocks.add(MipsContext.getBasicBlock(((Load) user).getParent()));
+                } else if (user instanceof Store && user.getOp(2) == pointer && user.getOp(1) != pointer) {
+                    accessBlocks.add(MipsContext.getBasicBlock(((Store) user).getParent()));
+                } else if (user instanceof GetElementPtr && user.getOp(1) == pointer) {
+                    accessBlocks.add(MipsContext.getBasicBlock(((GetElementPtr) user).getParent()));
+                    worklist.add(user);
+                } else {
+                    return null;
+                }
+            }
+        }
+        return accessBlocks;
+    }
 }
@@ -3,12 +3,14 @@ package ir.values.instructions;
 import backend.MipsBuilder;
 import backend.MipsContext;
 import backend.instructions.MipsCondType;
+import backend.isel.BoolLowering;
 import backend.operands.MipsOperand;
 import backend.units.MipsBlock;
 import ir.types.VoidType;
 import ir.values.BasicBlock;
 import ir.values.Value;
 import utils.IrUtils;
+import utils.OptConfig;
 
 /**
  * @author Gary
@@ -67,9 +69,23 @@ public class Br extends Instruction{
             // 1.2 得到MIPS跳转条件类
             Icmp cond = (Icmp) getOp(1);
             MipsCondType type = MipsCondType.ir2MipsCondType(cond.getCondType());
+            Value irOp1 = cond.getOp(1), irOp2 = cond.getOp(2);
+            // 化简 !x、zext 后再比较这样的链，直接按原始的比较跳转；条件是常数时只跳到一边
+            if (OptConfig.boolLowering) {
+                BoolLowering.Cond resolved = BoolLowering.resolve(cond);
+                if (resolved.isConstant()) {
+                    MipsBlock destBlock = resolved.getConstant() ? trueBlock : falseBlock;
+                    MipsBuilder.buildBranch(destBlock, curBlock);
+                    curBlock.setTrueSuccessor(destBlock);
+                    return;
+                }
+                type = resolved.getMipsCondType();
+                irOp1 = resolved.getOp1();
+                irOp2 = resolved.getOp2();
+            }
             // 1.3 提取出icmp指令中的两个比较数：icmp slt i32 %i4, %i5
-            MipsOperand op1 = MipsBuilder.buildOperand(cond.getOp(1), false, MipsContext.curIrFunction, getParent());
-            MipsOperand op2 = MipsBuilder.buildOperand(cond.getOp(2), true, MipsContext.curIrFunction, getParent());
+            MipsOperand op1 = MipsBuilder.buildOperand(irOp1, false, MipsContext.getCurIrFunction(), getParent());
+            MipsOperand op2 = MipsBuilder.buildOperand(irOp2, true, MipsContext.getCurIrFunction(), getParent());
             // 1.4 把trueBranch设为跳转地址：blt v0, v2, b1_1；登记后继块
             MipsBuilder.buildBranch(type, op1, op2, trueBlock, curBlock);
             curBlock.setTrueSuccessor(trueBlock);
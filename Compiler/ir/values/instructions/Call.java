@@ -97,7 +97,7 @@ public class Call extends Instruction {
             Value irArg = getArgs().get(i);
             // 3.1 前四个参数：直接从src中move到$a0~$a3中: 立即数li，全局变量la，寄存器move
             if (i < 4) {
-                MipsOperand src = MipsBuilder.buildOperand(irArg, true, MipsContext.curIrFunction, getParent());
+                MipsOperand src = MipsBuilder.buildOperand(irArg, true, MipsContext.getCurIrFunction(), getParent());
                 MipsMove move = MipsBuilder.buildMove(new MipsRReg("a" + i), src, getParent());
                 // 向useRegs中添加$a0~$a3, 这里的寄存器要从move指令中获取
                 call.addUseReg(move.getDst());
@@ -105,7 +105,7 @@ public class Call extends Instruction {
             // 3.2 后面的参数，先存进寄存器，后store到内存：若是立即数会先li到新寄存器中
             else {
                 // 3.2.1 先存进寄存器
-                MipsOperand src = MipsBuilder.buildOperand(irArg, false, MipsContext.curIrFunction, getParent());
+                MipsOperand src = MipsBuilder.buildOperand(irArg, false, MipsContext.getCurIrFunction(), getParent());
                 // 3.2.2 存到 sp - 4 * offset 的位置: sw v14, -4($sp)
                 MipsImm opOffset = new MipsImm(-4 * (argCnt - i));
                 MipsBuilder.buildStore(src, MipsRReg.SP, opOffset, getParent());
@@ -114,7 +114,7 @@ public class Call extends Instruction {
         // 4. 栈的生长: subiu $sp, $sp, 4
         if (argCnt > 4) {
             // 栈的生长量为参数个数 - 4, 要执行减法指令
-            MipsOperand offsetImm = MipsBuilder.buildImmOperand(4 * (argCnt - 4), true, MipsContext.curIrFunction, getParent());
+            MipsOperand offsetImm = MipsBuilder.buildImmOperand(4 * (argCnt - 4), true, MipsContext.getCurIrFunction(), getParent());
             MipsBuilder.buildBinary(MipsBinary.Type.SUBU, MipsRReg.SP, MipsRReg.SP, offsetImm, getParent());
         }
         // 5. 参数传递完毕，调用jal指令
@@ -122,7 +122,7 @@ public class Call extends Instruction {
         // 6. 栈的恢复: addiu $sp, $sp, 4
         if (argCnt > 4) {
             // 栈的恢复量为参数个数 - 4, 要执行加法指令
-            MipsOperand offsetImm = MipsBuilder.buildImmOperand(4 * (argCnt - 4), true, MipsContext.curIrFunction, getParent());
+            MipsOperand offsetImm = MipsBuilder.buildImmOperand(4 * (argCnt - 4), true, MipsContext.getCurIrFunction(), getParent());
             MipsBuilder.buildBinary(MipsBinary.Type.ADDU, MipsRReg.SP, MipsRReg.SP, offsetImm, getParent());
         }
         // 7. 将$a0~$a3、非库函数的ra返回地址加入到defRegs中
@@ -138,7 +138,7 @@ public class Call extends Instruction {
         call.addDefReg(MipsRReg.V0);
         // 若有返回值，则需要move v0 到 dst 中
         if (!(returnType instanceof VoidType)) {
-            MipsOperand dst = MipsBuilder.buildOperand(this, false, MipsContext.curIrFunction, getParent());
+            MipsOperand dst = MipsBuilder.buildOperand(this, false, MipsContext.getCurIrFunction(), getParent());
             // move v8, $v0 其中v8是dst寄存器, 是新分配的寄存器
             MipsBuilder.buildMove(dst, MipsRReg.V0, getParent());
         }
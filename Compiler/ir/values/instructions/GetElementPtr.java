@@ -1,8 +1,10 @@
 package ir.values.instructions;
 
+import backend.MipsAddress;
 import backend.MipsBuilder;
 import backend.MipsContext;
 import backend.instructions.MipsBinary;
+import backend.operands.MipsImm;
 import backend.operands.MipsOperand;
 import backend.operands.MipsRReg;
 import ir.IrBuilder;
@@ -10,9 +12,12 @@ import ir.types.ArrayType;
 import ir.types.PointerType;
 import ir.types.ValueType;
 import ir.values.BasicBlock;
+import ir.values.User;
 import ir.values.Value;
 import ir.values.constants.ConstInt;
 import utils.IrUtils;
+import utils.MathUtils;
+import utils.OptConfig;
 
 /**
  * @author Gary
@@ -92,7 +97,7 @@ public class GetElementPtr extends Instruction {
             if (offset == 0 && is1Dim) {
                 MipsContext.addOperandMap(this, base);
             } else {
-                MipsOperand offsetOp = MipsBuilder.buildImmOperand(offset, true, MipsContext.curIrFunction, getParent());
+                MipsOperand offsetOp = MipsBuilder.buildImmOperand(offset, true, MipsContext.getCurIrFunction(), getParent());
                 // dst = base + 本维偏移offset
                 MipsBuilder.buildBinary(MipsBinary.Type.ADDU, dst, base, offsetOp, getParent());
             }
@@ -100,22 +105,139 @@ public class GetElementPtr extends Instruction {
         // 2. 偏移量是寄存器
         else {
             // 使用temp寄存器：temp = offset = irOffset * pointerSize
-            MipsOperand irOffsetOp = MipsBuilder.buildOperand(irOffset, false, MipsContext.curIrFunction, getParent());
-            MipsOperand pointerSizeOp = MipsBuilder.buildOperand(new ConstInt(32, pointerSize), false, MipsContext.curIrFunction, getParent());
+            MipsOperand irOffsetOp = MipsBuilder.buildOperand(irOffset, false, MipsContext.getCurIrFunction(), getParent());
+            MipsOperand pointerSizeOp = MipsBuilder.buildOperand(new ConstInt(32, pointerSize), false, MipsContext.getCurIrFunction(), getParent());
             MipsBuilder.buildBinary(MipsBinary.Type.MUL, temp, irOffsetOp, pointerSizeOp, getParent());
             // dst = base + temp
             MipsBuilder.buildBinary(MipsBinary.Type.ADDU, dst, base, temp, getParent());
         }
     }
 
-    // 两维偏移就addiu两次
     public void buildMips() {
+        if (!OptConfig.addressFold) {
+            buildMipsUnfolded();
+            return;
+        }
+        MipsAddress address = buildAddress();
+        // 1. 只被 load/store 用作地址、或者作为其他 gep 的基址：不生成指令，使用者直接用 offset(base)
+        if (canFold() && MathUtils.is16BitImm(address.getOffset(), true)) {
+            MipsContext.addAddressMap(this, address);
+        }
+        // 2. 地址还有别的用处（传参等），需要算到寄存器里
+        else if (address.getOffset() == 0) {
+            MipsContext.addOperandMap(this, address.getBase());
+        } else {
+            MipsOperand dst = MipsBuilder.buildOperand(this, false, MipsContext.getCurIrFunction(), getParent());
+            MipsOperand offsetOp = MipsBuilder.buildImmOperand(address.getOffset(), true, MipsContext.getCurIrFunction(), getParent());
+            MipsBuilder.buildBinary(MipsBinary.Type.ADDU, dst, address.getBase(), offsetOp, getParent());
+        }
+    }
+
+    /**
+     * 把地址拆成 基址寄存器 + 常数偏移
+     * 1. 基址是被折叠的gep时，在它的地址上继续累加
+     * 2. 常数下标直接累加到偏移中；下标是 x + c 或 x - c 时，c 的部分也累加到偏移中
+     * 3. 变量下标：基址 + (x << log2(元素大小))，同一块内相同的 基址、x、元素大小 只算一次
+     */
+    private MipsAddress buildAddress() {
+        Value irBase = getOp(1);
+        MipsAddress baseAddress = MipsContext.getAddress(irBase);
+        MipsOperand base;
+        // 缓存 基址+下标 时用来区分基址：折叠的gep用算好的寄存器，否则用ir基地址（全局数组每次 la 的寄存器都不同）
+        Object baseKey;
+        int offset = 0;
+        if (baseAddress != null) {
+            base = baseAddress.getBase();
+            baseKey = base;
+            offset = baseAddress.getOffset();
+        } else {
+            base = null;
+            baseKey = irBase;
+        }
+        // 第一个下标以基址指向的类型为单位，第二个下标以数组元素为单位
+        ValueType[] unitTypes = getOperands().size() == 2 ? new ValueType[]{ptrPointingType}
+                : new ValueType[]{ptrPointingType, ((ArrayType) ptrPointingType).getElementType()};
+        for (int i = 0; i < unitTypes.length; i++) {
+            Value index = getOp(i + 2);
+            int unitSize = unitTypes[i].getSize(true);
+            if (index instanceof ConstInt) {
+                offset += IrUtils.getConstIntValue(index) * unitSize;
+                continue;
+            }
+            if (index instanceof Add || index instanceof Sub) {
+                Value op1 = ((User) index).getOp(1), op2 = ((User) index).getOp(2);
+                if (op2 instanceof ConstInt && !(op1 instanceof ConstInt)) {
+                    int c = IrUtils.getConstIntValue(op2);
+                    offset += (index instanceof Add ? c : -c) * unitSize;
+                    index = op1;
+                } else if (index instanceof Add && op1 instanceof ConstInt && !(op2 instanceof ConstInt)) {
+                    offset += IrUtils.getConstIntValue(op1) * unitSize;
+                    index = op2;
+                }
+            }
+            base = buildScaledAdd(base, baseKey, irBase, index, unitSize);
+            baseKey = base;
+        }
+        if (base == null) {
+            base = MipsBuilder.buildOperand(irBase, false, MipsContext.getCurIrFunction(), getParent());
+        }
+        return new MipsAddress(base, offset);
+    }
+
+    /**
+     * dst = base + index * unitSize，元素大小是2的幂时用 sll 代替 mul
+     * base 为 null 时还没有求出基址寄存器，需要时才由 irBase 生成
+     */
+    private MipsOperand buildScaledAdd(MipsOperand base, Object baseKey, Value irBase, Value index, int unitSize) {
+        MipsContext.AddressKey key = new MipsContext.AddressKey(getParent(), baseKey, index, unitSize);
+        MipsOperand dst = MipsContext.getAddressReg(key);
+        if (dst != null) {
+            return dst;
+        }
+        if (base == null) {
+            base = MipsBuilder.buildOperand(irBase, false, MipsContext.getCurIrFunction(), getParent());
+        }
+        MipsOperand indexOp = MipsBuilder.buildOperand(index, false, MipsContext.getCurIrFunction(), getParent());
+        MipsOperand scaled = indexOp;
+        if (unitSize != 1) {
+            scaled = MipsBuilder.allocateVReg(MipsContext.getCurIrFunction());
+            if (MathUtils.isPowerOf2(unitSize)) {
+                MipsBuilder.buildBinary(MipsBinary.Type.SLL, scaled, indexOp, new MipsImm(MathUtils.log2(unitSize)), getParent());
+            } else {
+                MipsOperand unitSizeOp = MipsBuilder.buildImmOperand(unitSize, false, MipsContext.getCurIrFunction(), getParent());
+                MipsBuilder.buildBinary(MipsBinary.Type.MUL, scaled, indexOp, unitSizeOp, getParent());
+            }
+        }
+        dst = MipsBuilder.allocateVReg(MipsContext.getCurIrFunction());
+        MipsBuilder.buildBinary(MipsBinary.Type.ADDU, dst, base, scaled, getParent());
+        MipsContext.addAddressReg(key, dst);
+        return dst;
+    }
+
+    /**
+     * 所有使用者都是 load/store 的地址操作数，或者其他 gep 的基址时，地址可以折叠
+     */
+    private boolean canFold() {
+        for (User user : getUsers()) {
+            boolean isAddress = user instanceof Load
+                    || (user instanceof Store && user.getOp(2) == this && user.getOp(1) != this)
+                    || (user instanceof GetElementPtr && user.getOp(1) == this
+                        && user.getOp(2) != this && (user.getOperands().size() == 2 || user.getOp(3) != this));
+            if (!isAddress) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 不折叠时的做法（-fno-address-fold），两维偏移就addiu两次
+    private void buildMipsUnfolded() {
         // 1. 获取基地址(eg 数组基地址%i1)和本维偏移
         Value irBase = getOp(1);
         Value irOffset = getOp(2);
         // 2. 获得数组基地址的MipsOp，获取当前value指令的MipsOp作为目的寄存器
-        MipsOperand base = MipsBuilder.buildOperand(irBase, false, MipsContext.curIrFunction, getParent());
-        MipsOperand dst = MipsBuilder.buildOperand(this, false, MipsContext.curIrFunction, getParent());
+        MipsOperand base = MipsBuilder.buildOperand(irBase, false, MipsContext.getCurIrFunction(), getParent());
+        MipsOperand dst = MipsBuilder.buildOperand(this, false, MipsContext.getCurIrFunction(), getParent());
         // 3. 分类讨论：操作数的个数
         int opNum = getOperands().size();
         // 3.1 两个参数：基地址+本维偏移
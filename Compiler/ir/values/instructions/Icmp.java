@@ -3,6 +3,7 @@ package ir.values.instructions;
 import backend.MipsBuilder;
 import backend.MipsContext;
 import backend.instructions.MipsCondType;
+import backend.isel.BoolLowering;
 import backend.operands.MipsImm;
 import backend.operands.MipsOperand;
 import ir.types.IntType;
@@ -10,6 +11,7 @@ import ir.values.BasicBlock;
 import ir.values.Value;
 import ir.values.constants.ConstInt;
 import utils.IrUtils;
+import utils.OptConfig;
 
 /**
  * @author Gary
@@ -60,6 +62,19 @@ public class Icmp extends Instruction {
      * icmp指令得到的值都是i1类型，若需要zext，这里提供buildMips方法
      */
     public void buildMipsZext() {
+        if (OptConfig.boolLowering) {
+            // 按化简后的条件比较，这样内层的 zext 就不需要生成了
+            BoolLowering.Cond cond = BoolLowering.resolve(this);
+            if (cond.isConstant()) {
+                MipsContext.addOperandMap(this, new MipsImm(cond.getConstant() ? 1 : 0));
+            } else {
+                MipsOperand dst = MipsBuilder.buildOperand(this, false, MipsContext.getCurIrFunction(), getParent());
+                MipsOperand src1 = MipsBuilder.buildOperand(cond.getOp1(), false, MipsContext.getCurIrFunction(), getParent());
+                MipsOperand src2 = MipsBuilder.buildOperand(cond.getOp2(), false, MipsContext.getCurIrFunction(), getParent());
+                MipsBuilder.buildCompare(cond.getMipsCondType(), dst, src1, src2, getParent());
+            }
+            return;
+        }
         MipsCondType mipsCondType = MipsCondType.ir2MipsCondType(condType);
         Value op1 = getOp(1), op2 = getOp(2);
         // 1. op1和op2都是常数，直接进行比较，得到0或1的MipsImm结果，不用生成指令了
@@ -71,9 +86,9 @@ public class Icmp extends Instruction {
         }
         // 2. 二者之一不是常数，要生成b类指令
         else {
-            MipsOperand dst = MipsBuilder.buildOperand(this, false, MipsContext.curIrFunction, getParent());
-            MipsOperand src1 = MipsBuilder.buildOperand(op1, false, MipsContext.curIrFunction, getParent());
-            MipsOperand src2 = MipsBuilder.buildOperand(op2, false, MipsContext.curIrFunction, getParent());
+            MipsOperand dst = MipsBuilder.buildOperand(this, false, MipsContext.getCurIrFunction(), getParent());
+            MipsOperand src1 = MipsBuilder.buildOperand(op1, false, MipsContext.getCurIrFunction(), getParent());
+            MipsOperand src2 = MipsBuilder.buildOperand(op2, false, MipsContext.getCurIrFunction(), getParent());
             MipsBuilder.buildCompare(mipsCondType, dst, src1, src2, getParent());
         }
     }
@@ -1,7 +1,9 @@
 package ir.values.instructions;
 
+import backend.MipsAddress;
 import backend.MipsBuilder;
 import backend.MipsContext;
+import backend.instructions.MipsLoad;
 import backend.operands.MipsOperand;
 import ir.values.BasicBlock;
 import ir.values.Value;
@@ -27,9 +29,19 @@ public class Load extends Instruction {
     }
 
     public void buildMips() {
-        MipsOperand dst = MipsBuilder.buildOperand(this, false, MipsContext.curIrFunction, getParent());
-        MipsOperand base = MipsBuilder.buildOperand(getOp(1), false, MipsContext.curIrFunction, getParent());
-        MipsOperand offset = MipsBuilder.buildImmOperand(0, true, MipsContext.curIrFunction, getParent());
-        MipsBuilder.buildLoad(dst, base, offset, getParent());
+        MipsOperand dst = MipsBuilder.buildOperand(this, false, MipsContext.getCurIrFunction(), getParent());
+        // 地址是被折叠的gep时直接用 offset(base)
+        MipsAddress address = MipsContext.getAddress(getOp(1));
+        MipsOperand base, offset;
+        if (address != null) {
+            base = address.getBase();
+            offset = MipsBuilder.buildImmOperand(address.getOffset(), true, MipsContext.getCurIrFunction(), getParent());
+        } else {
+            base = MipsBuilder.buildOperand(getOp(1), false, MipsContext.getCurIrFunction(), getParent());
+            offset = MipsBuilder.buildImmOperand(0, true, MipsContext.getCurIrFunction(), getParent());
+        }
+        // char按字节存放时用 lbu，取出的值在 0~255 之内
+        MipsLoad.Type type = getType().getSize(true) == 1 ? MipsLoad.Type.LBU : MipsLoad.Type.LW;
+        MipsBuilder.buildLoad(type, dst, base, offset, getParent());
     }
 }
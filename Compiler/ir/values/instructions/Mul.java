@@ -3,12 +3,14 @@ package ir.values.instructions;
 import backend.MipsBuilder;
 import backend.MipsContext;
 import backend.instructions.MipsBinary;
+import backend.isel.TreeSelector;
 import backend.operands.MipsImm;
 import backend.operands.MipsOperand;
 import ir.values.BasicBlock;
 import ir.values.Value;
 import ir.values.constants.ConstInt;
 import utils.IrUtils;
+import utils.OptConfig;
 
 /**
  * @author Gary
@@ -27,8 +29,11 @@ public class Mul extends MathInstruction {
 
     // FIXME: 先不考虑优化问题, 先按照add的思路写
     public void buildMips() {
+        if (OptConfig.treeIsel && TreeSelector.select(this)) {
+            return;
+        }
         MipsOperand rs, rt;
-        MipsOperand rd = MipsBuilder.buildOperand(this, false, MipsContext.curIrFunction, getParent());
+        MipsOperand rd = MipsBuilder.buildOperand(this, false, MipsContext.getCurIrFunction(), getParent());
         Value op1 = getOp(1), op2 = getOp(2);
 
         // 1. op1和op2都是常数，直接move dst op1*op2
@@ -39,14 +44,22 @@ public class Mul extends MathInstruction {
         }
         // 2. op1是常数，op2不是，则需要把op1做为右操作数
         else if (op1 instanceof ConstInt) {
-            rs = MipsBuilder.buildOperand(op2, false, MipsContext.curIrFunction, getParent());
-            rt = MipsBuilder.buildOperand(op1, true, MipsContext.curIrFunction, getParent());
+            rs = MipsBuilder.buildOperand(op2, false, MipsContext.getCurIrFunction(), getParent());
+            if (OptConfig.strengthReduce
+                    && MipsBuilder.buildMulByConst(rd, rs, IrUtils.getConstIntValue(op1), getParent())) {
+                return;
+            }
+            rt = MipsBuilder.buildOperand(op1, true, MipsContext.getCurIrFunction(), getParent());
             MipsBuilder.buildBinary(MipsBinary.Type.MUL, rd, rs, rt, getParent());
         }
         // 3. op1不是常数
         else {
-            rs = MipsBuilder.buildOperand(op1, false, MipsContext.curIrFunction, getParent());
-            rt = MipsBuilder.buildOperand(op2, true, MipsContext.curIrFunction, getParent());
+            rs = MipsBuilder.buildOperand(op1, false, MipsContext.getCurIrFunction(), getParent());
+            if (op2 instanceof ConstInt && OptConfig.strengthReduce
+                    && MipsBuilder.buildMulByConst(rd, rs, IrUtils.getConstIntValue(op2), getParent())) {
+                return;
+            }
+            rt = MipsBuilder.buildOperand(op2, true, MipsContext.getCurIrFunction(), getParent());
             MipsBuilder.buildBinary(MipsBinary.Type.MUL, rd, rs, rt, getParent());
         }
     }
@@ -0,0 +1,86 @@
+package ir.values.instructions;
+
+import backend.MipsBuilder;
+import backend.MipsContext;
+import ir.types.ValueType;
+import ir.values.BasicBlock;
+import ir.values.Value;
+
+import java.util.ArrayList;
+
+/**
+ * @author Gary
+ * @Description: phi指令，由mem2reg插入，位于基本块开头
+ * <result> = phi <ty> [ <val0>, <label0> ], [ <val1>, <label1> ] ...
+ * @date 2026/10/18 10:12
+ */
+public class Phi extends Instruction {
+    // 与operands一一对应：第i个操作数来自第i个前驱块
+    private final ArrayList<BasicBlock> incomingBlocks = new ArrayList<>();
+
+    public Phi(String name, ValueType type, BasicBlock parent) {
+        super(name, type, parent);
+    }
+
+    public ArrayList<BasicBlock> getIncomingBlocks() {
+        return incomingBlocks;
+    }
+
+    /**
+     * 添加一对来源：从block跳转过来时，phi的值为value
+     */
+    public void addIncoming(Value value, BasicBlock block) {
+        operands.add(value);
+        incomingBlocks.add(block);
+        value.addUser(this);
+    }
+
+    /**
+     * 获取从某个前驱块过来时的值，没有则返回null
+     */
+    public Value getIncomingValue(BasicBlock block) {
+        int index = incomingBlocks.indexOf(block);
+        return index == -1 ? null : operands.get(index);
+    }
+
+    /**
+     * 关键边拆分后，前驱块从oldBlock变成newBlock
+     */
+    public void replaceIncomingBlock(BasicBlock oldBlock, BasicBlock newBlock) {
+        int index = incomingBlocks.indexOf(oldBlock);
+        if (index != -1) {
+            incomingBlocks.set(index, newBlock);
+        }
+    }
+
+    /**
+     * 前驱块被删除（不可达）时，同步删除对应的来源
+     */
+    public void removeIncoming(BasicBlock block) {
+        int index = incomingBlocks.indexOf(block);
+        if (index != -1) {
+            operands.remove(index).removeUser(this);
+            incomingBlocks.remove(index);
+        }
+    }
+
+    // %i3 = phi i32 [ %i1, %b0 ], [ %i7, %b5 ]
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(getName()).append(" = phi ").append(getType()).append(" ");
+        for (int i = 0; i < operands.size(); i++) {
+            sb.append("[ ").append(operands.get(i).getName()).append(", ")
+                    .append(incomingBlocks.get(i).getName()).append(" ], ");
+        }
+        sb.delete(sb.length() - 2, sb.length());
+        return sb.toString();
+    }
+
+    /**
+     * phi本身不生成指令，只需要先分配好目的虚拟寄存器
+     * 真正的赋值由BasicBlock.buildPhiMoves在各前驱块末尾以并行move的形式完成
+     */
+    public void buildMips() {
+        MipsBuilder.buildOperand(this, false, MipsContext.getCurIrFunction(), getParent());
+    }
+}
@@ -45,11 +45,11 @@ public class Ret extends Instruction {
         Value retVal = getOp(1);
         // 若有返回值，则move到$v0寄存器
         if (retVal != null) {
-            MipsOperand retValOp = MipsBuilder.buildOperand(retVal, true, MipsContext.curIrFunction, getParent());
+            MipsOperand retValOp = MipsBuilder.buildOperand(retVal, true, MipsContext.getCurIrFunction(), getParent());
             // move $v0, $s0
             MipsBuilder.buildMove(MipsRReg.V0, retValOp, getParent());
         }
         // 执行弹栈与返回操作，普通函数jr $ra，主函数要syscall
-        MipsBuilder.buildRet(MipsContext.curIrFunction, getParent());
+        MipsBuilder.buildRet(MipsContext.getCurIrFunction(), getParent());
     }
 }
@@ -3,9 +3,13 @@ package ir.values.instructions;
 import backend.MipsBuilder;
 import backend.MipsContext;
 import backend.instructions.MipsBinary;
+import backend.operands.MipsImm;
 import backend.operands.MipsOperand;
 import ir.values.BasicBlock;
 import ir.values.Value;
+import ir.values.constants.ConstInt;
+import utils.IrUtils;
+import utils.OptConfig;
 
 /**
  * @author Gary
@@ -22,11 +26,20 @@ public class Sdiv extends MathInstruction{
         return toMathInstructionString("sdiv");
     }
 
-    // FIXME: 先不考虑优化问题
     public void buildMips() {
-        MipsOperand dst = MipsBuilder.buildOperand(this, false, MipsContext.curIrFunction, getParent());
-        MipsOperand src1 = MipsBuilder.buildOperand(getOp(1), false, MipsContext.curIrFunction, getParent());
-        MipsOperand src2 = MipsBuilder.buildOperand(getOp(2), false, MipsContext.curIrFunction, getParent());
+        MipsOperand dst = MipsBuilder.buildOperand(this, false, MipsContext.getCurIrFunction(), getParent());
+        boolean constDivisor = OptConfig.strengthReduce && getOp(2) instanceof ConstInt;
+        if (constDivisor && getOp(1) instanceof ConstInt && IrUtils.getConstIntValue(getOp(2)) != 0) {
+            int value = IrUtils.getConstIntValue(getOp(1)) / IrUtils.getConstIntValue(getOp(2));
+            MipsBuilder.buildMove(dst, new MipsImm(value), getParent());
+            return;
+        }
+        MipsOperand src1 = MipsBuilder.buildOperand(getOp(1), false, MipsContext.getCurIrFunction(), getParent());
+        // 除数是常数时进行强度削减，避免昂贵的div
+        if (constDivisor && MipsBuilder.buildDivByConst(dst, src1, IrUtils.getConstIntValue(getOp(2)), getParent())) {
+            return;
+        }
+        MipsOperand src2 = MipsBuilder.buildOperand(getOp(2), false, MipsContext.getCurIrFunction(), getParent());
         MipsBuilder.buildBinary(MipsBinary.Type.DIV, dst, src1, src2, getParent());
     }
 }
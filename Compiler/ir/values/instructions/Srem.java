@@ -2,11 +2,14 @@ package ir.values.instructions;
 
 import backend.MipsBuilder;
 import backend.MipsContext;
+import backend.instructions.MipsBinary;
+import backend.operands.MipsImm;
 import backend.operands.MipsOperand;
-import backend.operands.MipsRReg;
 import ir.values.BasicBlock;
 import ir.values.Value;
+import ir.values.constants.ConstInt;
 import utils.IrUtils;
+import utils.OptConfig;
 
 /**
  * @author Gary
@@ -24,14 +27,21 @@ public class Srem extends MathInstruction {
     }
 
     /**
-     * 在MulExpNode.java中，已经规定：只有op2是常量且为1才srem
-     * 此时，结果一定为0，只需要进行move即可！！
+     * 除数是常数时进行强度削减，否则 div + mfhi
      */
     public void buildMips() {
-        if (IrUtils.getConstIntValue(getOp(2)) != 1) {
-            System.out.println("GaryError: Srem.buildMips()取余的右操作数不是1！错误");
+        MipsOperand dst = MipsBuilder.buildOperand(this, false, MipsContext.getCurIrFunction(), getParent());
+        boolean constDivisor = OptConfig.strengthReduce && getOp(2) instanceof ConstInt;
+        if (constDivisor && getOp(1) instanceof ConstInt && IrUtils.getConstIntValue(getOp(2)) != 0) {
+            int value = IrUtils.getConstIntValue(getOp(1)) % IrUtils.getConstIntValue(getOp(2));
+            MipsBuilder.buildMove(dst, new MipsImm(value), getParent());
+            return;
         }
-        MipsOperand dst = MipsBuilder.buildOperand(this, false, MipsContext.curIrFunction, getParent());
-        MipsBuilder.buildMove(dst, MipsRReg.ZERO, getParent());
+        MipsOperand src1 = MipsBuilder.buildOperand(getOp(1), false, MipsContext.getCurIrFunction(), getParent());
+        if (constDivisor && MipsBuilder.buildRemByConst(dst, src1, IrUtils.getConstIntValue(getOp(2)), getParent())) {
+            return;
+        }
+        MipsOperand src2 = MipsBuilder.buildOperand(getOp(2), false, MipsContext.getCurIrFunction(), getParent());
+        MipsBuilder.buildBinary(MipsBinary.Type.REM, dst, src1, src2, getParent());
     }
 }
@@ -1,11 +1,14 @@
 package ir.values.instructions;
 
+import backend.MipsAddress;
 import backend.MipsBuilder;
 import backend.MipsContext;
+import backend.instructions.MipsStore;
 import backend.operands.MipsOperand;
 import ir.types.VoidType;
 import ir.values.BasicBlock;
 import ir.values.Value;
+import ir.values.constants.ConstInt;
 import utils.IrUtils;
 
 /**
@@ -30,9 +33,25 @@ public class Store extends Instruction {
     }
 
     public void buildMips() {
-        MipsOperand src = MipsBuilder.buildOperand(getOp(1), false, MipsContext.curIrFunction, getParent());
-        MipsOperand dstBase = MipsBuilder.buildOperand(getOp(2), false, MipsContext.curIrFunction, getParent());
-        MipsOperand offset = MipsBuilder.buildImmOperand(0, true, MipsContext.curIrFunction, getParent());
-        MipsBuilder.buildStore(src, dstBase, offset, getParent());
+        // char按字节存放时（见 IntType.getSize）只写一个字节
+        MipsStore.Type type = getOp(1).getType().getSize(true) == 1 ? MipsStore.Type.SB : MipsStore.Type.SW;
+        MipsOperand src;
+        // char常数截断到 0~255，和 lbu 取回的值一致
+        if (type == MipsStore.Type.SB && getOp(1) instanceof ConstInt) {
+            src = MipsBuilder.buildImmOperand(IrUtils.getConstIntValue(getOp(1)) & 0xff, false, MipsContext.getCurIrFunction(), getParent());
+        } else {
+            src = MipsBuilder.buildOperand(getOp(1), false, MipsContext.getCurIrFunction(), getParent());
+        }
+        // 地址是被折叠的gep时直接用 offset(base)
+        MipsAddress address = MipsContext.getAddress(getOp(2));
+        MipsOperand dstBase, offset;
+        if (address != null) {
+            dstBase = address.getBase();
+            offset = MipsBuilder.buildImmOperand(address.getOffset(), true, MipsContext.getCurIrFunction(), getParent());
+        } else {
+            dstBase = MipsBuilder.buildOperand(getOp(2), false, MipsContext.getCurIrFunction(), getParent());
+            offset = MipsBuilder.buildImmOperand(0, true, MipsContext.getCurIrFunction(), getParent());
+        }
+        MipsBuilder.buildStore(type, src, dstBase, offset, getParent());
     }
 }
@@ -3,12 +3,14 @@ package ir.values.instructions;
 import backend.MipsBuilder;
 import backend.MipsContext;
 import backend.instructions.MipsBinary;
+import backend.isel.TreeSelector;
 import backend.operands.MipsImm;
 import backend.operands.MipsOperand;
 import ir.values.BasicBlock;
 import ir.values.Value;
 import ir.values.constants.ConstInt;
 import utils.IrUtils;
+import utils.OptConfig;
 
 /**
  * @author Gary
@@ -30,9 +32,12 @@ public class Sub extends MathInstruction {
      * 即：%i8 = sub i32 1, %i7 是不能用subiu的，只有op2是立即数时，才可以用subiu(我用的是addiu)
      */
     public void buildMips() {
+        if (OptConfig.treeIsel && TreeSelector.select(this)) {
+            return;
+        }
         Value op1 = getOp(1), op2 = getOp(2);
         MipsOperand rs, rt;
-        MipsOperand rd = MipsBuilder.buildOperand(this, false, MipsContext.curIrFunction, getParent());
+        MipsOperand rd = MipsBuilder.buildOperand(this, false, MipsContext.getCurIrFunction(), getParent());
 
         // 1. op1和op2都是立即数，直接move dst op1-op2（直接没有addiu了）
         if (op1 instanceof ConstInt && op2 instanceof ConstInt) {
@@ -43,14 +48,14 @@ public class Sub extends MathInstruction {
         // 2. op2是立即数，则op1不是立即数，此时可以用addiu op1 + (-op2)
         else if (op2 instanceof ConstInt) {
             int imm2 = IrUtils.getConstIntValue(op2);
-            rs = MipsBuilder.buildOperand(op1, false, MipsContext.curIrFunction, getParent());
-            rt = MipsBuilder.buildImmOperand(-imm2, true, MipsContext.curIrFunction, getParent());
+            rs = MipsBuilder.buildOperand(op1, false, MipsContext.getCurIrFunction(), getParent());
+            rt = MipsBuilder.buildImmOperand(-imm2, true, MipsContext.getCurIrFunction(), getParent());
             MipsBuilder.buildBinary(MipsBinary.Type.ADDU, rd, rs, rt, getParent());
         }
         // 3. op2不是立即数，用subu
         else {
-            rs = MipsBuilder.buildOperand(op1, false, MipsContext.curIrFunction, getParent());
-            rt = MipsBuilder.buildOperand(op2, true, MipsContext.curIrFunction, getParent());
+            rs = MipsBuilder.buildOperand(op1, false, MipsContext.getCurIrFunction(), getParent());
+            rt = MipsBuilder.buildOperand(op2, true, MipsContext.getCurIrFunction(), getParent());
             MipsBuilder.buildBinary(MipsBinary.Type.SUBU, rd, rs, rt, getParent());
         }
     }
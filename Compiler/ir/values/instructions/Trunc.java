@@ -3,12 +3,16 @@ package ir.values.instructions;
 import backend.MipsBuilder;
 import backend.MipsContext;
 import backend.instructions.MipsBinary;
+import backend.operands.MipsImm;
 import backend.operands.MipsOperand;
 import backend.operands.MipsRReg;
+import ir.analyze.ValueRange;
 import ir.types.IntType;
 import ir.values.BasicBlock;
 import ir.values.Value;
+import ir.values.constants.ConstInt;
 import utils.IrUtils;
+import utils.OptConfig;
 
 /**
  * @author Gary
@@ -34,11 +38,26 @@ public class Trunc extends Instruction {
     public void buildMips() {
         Value value2Trunc = getOp(1);
         System.out.println("遇到trunc指令了！！value是：" + value2Trunc + " " + value2Trunc.getType());
+        if (OptConfig.castElim) {
+            // 常数直接截断，li 到自己的虚拟寄存器
+            // 不能用 buildImmOperand：截断结果为0时它返回 $zero，作为 phi 的来源会被合并进 $zero，之后对 phi 的赋值就丢了
+            if (value2Trunc instanceof ConstInt) {
+                int truncated = IrUtils.getConstIntValue(value2Trunc) & 0xff;
+                MipsOperand rd = MipsBuilder.buildOperand(this, true, MipsContext.getCurIrFunction(), getParent());
+                MipsBuilder.buildMove(rd, new MipsImm(truncated), getParent());
+                return;
+            }
+            // 已知在 0~255 之内（比如 trunc (zext x)），截断不改变值，共用同一个寄存器
+            if (ValueRange.fitsInByte(value2Trunc)) {
+                MipsContext.addOperandMap(this, MipsBuilder.buildOperand(value2Trunc, false, MipsContext.getCurIrFunction(), getParent()));
+                return;
+            }
+        }
         // 处理方法：将value2Trunc的低8位赋值给rd，即rd = value2Trunc & 0xff
         // andi $rd, $rs, 255
-        MipsOperand rs = MipsBuilder.buildOperand(value2Trunc, false, MipsContext.curIrFunction, getParent());
-        MipsOperand i255 = MipsBuilder.buildImmOperand(255, true, MipsContext.curIrFunction, getParent());
-        MipsOperand rd = MipsBuilder.buildOperand(this, true, MipsContext.curIrFunction, getParent());
+        MipsOperand rs = MipsBuilder.buildOperand(value2Trunc, false, MipsContext.getCurIrFunction(), getParent());
+        MipsOperand i255 = MipsBuilder.buildImmOperand(255, true, MipsContext.getCurIrFunction(), getParent());
+        MipsOperand rd = MipsBuilder.buildOperand(this, true, MipsContext.getCurIrFunction(), getParent());
         MipsBuilder.buildBinary(MipsBinary.Type.AND, rd, rs, i255, getParent());
     }
 }
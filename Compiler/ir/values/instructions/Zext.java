@@ -2,11 +2,14 @@ package ir.values.instructions;
 
 import backend.MipsBuilder;
 import backend.MipsContext;
+import backend.isel.BoolLowering;
+import backend.operands.MipsImm;
 import backend.operands.MipsOperand;
 import ir.types.IntType;
 import ir.values.BasicBlock;
 import ir.values.Value;
 import utils.IrUtils;
+import utils.OptConfig;
 
 /**
  * @author Gary
@@ -33,11 +36,20 @@ public class Zext extends Instruction {
         Value value2Zext = getOp(1);
         System.out.println("遇到zext指令了！！value是：" + value2Zext + " 类型：" + value2Zext.getType());
         if (value2Zext instanceof Icmp) {
+            // 只被和常数的比较使用时，那些比较会直接用内层的条件，这里什么也不用生成
+            if (OptConfig.boolLowering && BoolLowering.isAbsorbed(this)) {
+                return;
+            }
             ((Icmp) value2Zext).buildMipsZext();
         }
         // 无论value2Zext是i1还是i8，都需要map一下！
-        MipsOperand src = MipsBuilder.buildOperand(value2Zext, true, MipsContext.curIrFunction, getParent());
-        MipsOperand dst = MipsBuilder.buildOperand(this, true, MipsContext.curIrFunction, getParent());
+        MipsOperand src = MipsBuilder.buildOperand(value2Zext, true, MipsContext.getCurIrFunction(), getParent());
+        // i1、i8 在寄存器里已经是零扩展的值了，直接共用同一个寄存器，不用move
+        if (OptConfig.castElim && !(src instanceof MipsImm)) {
+            MipsContext.addOperandMap(this, src);
+            return;
+        }
+        MipsOperand dst = MipsBuilder.buildOperand(this, true, MipsContext.getCurIrFunction(), getParent());
 //        MipsContext.addOperandMap(this, MipsContext.getOperand(value2Zext));
         MipsBuilder.buildMove(dst, src, getParent());
     }
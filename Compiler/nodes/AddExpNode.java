@@ -16,7 +16,7 @@ import utils.IOUtils;
  */
 public class AddExpNode {
     private MulExpNode mulExpNode;
-    private Token op;
+    private TokenType op;
     private AddExpNode addExpNode;
 
     public MulExpNode getMulExpNode() {
@@ -27,7 +27,7 @@ public class AddExpNode {
         return addExpNode;
     }
 
-    public AddExpNode(MulExpNode mulExpNode, Token op, AddExpNode addExpNode) {
+    public AddExpNode(MulExpNode mulExpNode, TokenType op, AddExpNode addExpNode) {
         this.mulExpNode = mulExpNode;
         this.op = op;
         this.addExpNode = addExpNode;
@@ -46,7 +46,7 @@ public class AddExpNode {
             mulExpNode.print();
         } else {
             addExpNode.print();
-            IOUtils.write(op.toString());
+            IOUtils.write(Token.toString(op));
             mulExpNode.print();
         }
         IOUtils.write("<AddExp>\n");
@@ -61,20 +61,20 @@ public class AddExpNode {
     // AddExp -> MulExp | AddExp ('+' | '−') MulExp
     public void buildIr() {
         // 1. 常量
-        if (IrContext.isBuildingConstExp) {
+        if (IrContext.getInstance().isBuildingConstExp) {
             if(op == null) {
                 mulExpNode.buildIr();
             } else {
                 // addExp和mulExp的buildIr都会对synInt进行赋值，因此每步后的synInt都不一样
                 addExpNode.buildIr();
-                int ans = IrContext.synInt;
+                int ans = IrContext.getInstance().synInt;
                 mulExpNode.buildIr();
-                if (op.getType() == TokenType.PLUS) {
-                    ans += IrContext.synInt;
+                if (op == TokenType.PLUS) {
+                    ans += IrContext.getInstance().synInt;
                 } else {
-                    ans -= IrContext.synInt;
+                    ans -= IrContext.getInstance().synInt;
                 }
-                IrContext.synInt = ans;
+                IrContext.getInstance().synInt = ans;
             }
         }
         // 2. 变量
@@ -83,13 +83,13 @@ public class AddExpNode {
                 mulExpNode.buildIr();
             } else {
                 addExpNode.buildIr();
-                Value opLeft = IrContext.synValue;
+                Value opLeft = IrContext.getInstance().synValue;
                 mulExpNode.buildIr();
-                Value opRight = IrContext.synValue;
-                if (op.getType() == TokenType.PLUS) {
-                    IrContext.synValue = IrBuilder.buildAddInstruction(opLeft, opRight, IrContext.curBlock);
+                Value opRight = IrContext.getInstance().synValue;
+                if (op == TokenType.PLUS) {
+                    IrContext.getInstance().synValue = IrBuilder.buildAddInstruction(opLeft, opRight, IrContext.getInstance().curBlock);
                 } else {
-                    IrContext.synValue = IrBuilder.buildSubInstruction(opLeft, opRight, IrContext.curBlock);
+                    IrContext.getInstance().synValue = IrBuilder.buildSubInstruction(opLeft, opRight, IrContext.getInstance().curBlock);
                 }
             }
         }
@@ -11,16 +11,16 @@ import utils.IOUtils;
  * BType -> 'int' | 'char'
  */
 public class BTypeNode {
-    private Token token;
+    private TokenType type;
 
     // 语义分析中，用来获取变量类型
     public TokenType getType() {
-        return token.getType();
+        return type;
     }
-    public BTypeNode(Token token) {
-        this.token = token;
+    public BTypeNode(TokenType type) {
+        this.type = type;
     }
     public void print() {
-        IOUtils.write(token.toString());
+        IOUtils.write(Token.toString(type));
     }
 }
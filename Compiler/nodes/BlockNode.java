@@ -1,6 +1,7 @@
 package nodes;
 
 import frontend.Token;
+import frontend.TokenType;
 import utils.IOUtils;
 
 import java.util.ArrayList;
@@ -13,30 +14,29 @@ import java.util.List;
  * Block → '{' { BlockItem } '}'
  */
 public class BlockNode {
-    private Token leftBrace;
     private List<BlockItemNode> blockItemNodes;
-    private Token rightBrace;
+    // '}' 的行号，语义分析报g类错误时用到
+    private int rightBraceLine;
 
     public List<BlockItemNode> getBlockItemNodes() {
         return blockItemNodes;
     }
 
     public Token getRightBrace() {
-        return rightBrace;
+        return new Token(TokenType.RBRACE, TokenType.RBRACE.getText(), rightBraceLine);
     }
 
-    public BlockNode(Token leftBrace, List<BlockItemNode> blockItemNodes, Token rightBrace) {
-        this.leftBrace = leftBrace;
+    public BlockNode(List<BlockItemNode> blockItemNodes, int rightBraceLine) {
         this.blockItemNodes = blockItemNodes;
-        this.rightBrace = rightBrace;
+        this.rightBraceLine = rightBraceLine;
     }
     
     public void print() {
-        IOUtils.write(leftBrace.toString());
+        IOUtils.write(Token.toString(TokenType.LBRACE));
         for (BlockItemNode blockItemNode : blockItemNodes) {
             blockItemNode.print();
         }
-        IOUtils.write(rightBrace.toString());
+        IOUtils.write(Token.toString(TokenType.RBRACE));
         IOUtils.write("<Block>\n");
     }
 
@@ -1,6 +1,7 @@
 package nodes;
 
 import frontend.Token;
+import frontend.TokenType;
 import ir.IrContext;
 import ir.values.constants.ConstInt;
 import utils.IOUtils;
@@ -11,20 +12,21 @@ import utils.IOUtils;
  * Character -> CharConst
  */
 public class CharacterNode {
-    private Token charConst;
-    public CharacterNode(Token charConst) {
+    // 字符常量的单词（带引号）
+    private String charConst;
+    public CharacterNode(String charConst) {
         this.charConst = charConst;
     }
 
     public void print() {
-        IOUtils.write(charConst.toString());
+        IOUtils.write(Token.toString(TokenType.CHRCON, charConst));
         IOUtils.write("<Character>\n");
     }
 
     // 计算常数数值只传递synInt
     // 计算变量数值只传递synValue
     public void buildIr() {
-        String tmpStr = charConst.getValue();
+        String tmpStr = charConst;
         String content = tmpStr.substring(1, tmpStr.length() - 1);
         int num = switch (content) {
             case "\\a" -> 7;     // 警告 (bell)
@@ -39,10 +41,10 @@ public class CharacterNode {
             case "\\\\" -> 92;   // 反斜杠
             default -> content.charAt(0); // 普通 ASCII 字符
         };
-        if (IrContext.isBuildingConstExp) {
-            IrContext.synInt = num;
+        if (IrContext.getInstance().isBuildingConstExp) {
+            IrContext.getInstance().synInt = num;
         } else {
-            IrContext.synValue = new ConstInt(8, num);
+            IrContext.getInstance().synValue = new ConstInt(8, num);
         }
     }
 }
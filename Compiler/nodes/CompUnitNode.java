@@ -5,7 +5,7 @@ import ir.IrSymTableStack;
 import ir.types.IntType;
 import ir.types.PointerType;
 import ir.types.VoidType;
-import ir.values.Function;
+import ir.values.Module;
 import utils.IOUtils;
 
 import java.util.ArrayList;
@@ -58,17 +58,18 @@ public class CompUnitNode {
         // 先初始化全局符号表
         IrSymTableStack.init();
         // 在 LLVM IR 头部显式声明IO函数
-        Function.getint = IrBuilder.buildFunction("getint", new IntType(32), new ArrayList<>(), true);
+        Module module = Module.getInstance();
+        module.getint = IrBuilder.buildFunction("getint", new IntType(32), new ArrayList<>(), true);
         // 特别注意！！getchar和putchar的类型都是i8！！！
-        Function.getchar = IrBuilder.buildFunction("getchar", new IntType(32), new ArrayList<>(), true);
-        Function.putint = IrBuilder.buildFunction("putint", new VoidType(), new ArrayList<>(){{
+        module.getchar = IrBuilder.buildFunction("getchar", new IntType(32), new ArrayList<>(), true);
+        module.putint = IrBuilder.buildFunction("putint", new VoidType(), new ArrayList<>(){{
             add(new IntType(32));
         }}, true);
-        Function.putch = IrBuilder.buildFunction("putch", new VoidType(), new ArrayList<>(){{
+        module.putch = IrBuilder.buildFunction("putch", new VoidType(), new ArrayList<>(){{
             add(new IntType(32));
         }}, true);
         // declare void @putstr(i8*)
-        Function.putstr = IrBuilder.buildFunction("putstr", new VoidType(), new ArrayList<>(){{
+        module.putstr = IrBuilder.buildFunction("putstr", new VoidType(), new ArrayList<>(){{
             add(new PointerType(new IntType(8)));
         }}, true);
 
@@ -14,11 +14,8 @@ import java.util.List;
  * ConstDecl -> 'const' BType ConstDef { ',' ConstDef } ';'
  */
 public class ConstDeclNode {
-    private Token constToken;
     private BTypeNode bTypeNode;
     private List<ConstDefNode> constDefNodes;
-    private List<Token> commaTokens; // 用来存逗号
-    private Token semicnToken;
 
     public BTypeNode getBTypeNode() {
         return bTypeNode;
@@ -28,23 +25,20 @@ public class ConstDeclNode {
         return constDefNodes;
     }
 
-    public ConstDeclNode(Token constToken, BTypeNode bTypeNode, List<ConstDefNode> constDefNodes, List<Token> commaTokens, Token semicnToken) {
-        this.constToken = constToken;
+    public ConstDeclNode(BTypeNode bTypeNode, List<ConstDefNode> constDefNodes) {
         this.bTypeNode = bTypeNode;
         this.constDefNodes = constDefNodes;
-        this.commaTokens = commaTokens;
-        this.semicnToken = semicnToken;
     }
 
     public void print() {
-        IOUtils.write(constToken.toString());
+        IOUtils.write(Token.toString(TokenType.CONSTTK));
         bTypeNode.print();
         constDefNodes.get(0).print();
         for (int i = 1; i < constDefNodes.size(); i++) {
-            IOUtils.write(commaTokens.get(i - 1).toString());
+            IOUtils.write(Token.toString(TokenType.COMMA));
             constDefNodes.get(i).print();
         }
-        IOUtils.write(semicnToken.toString());
+        IOUtils.write(Token.toString(TokenType.SEMICN));
         IOUtils.write("<ConstDecl>\n");
     }
 
@@ -53,7 +47,7 @@ public class ConstDeclNode {
         for (ConstDefNode constDefNode : constDefNodes) {
             // 先处理类型信息, Gary自创的，需要接收BTypeNode作为参数以判断是int还是char
             TokenType bTypeNodeType = bTypeNode.getType();
-            IrContext.intBits = (bTypeNodeType == TokenType.INTTK) ? 32 : 8;
+            IrContext.getInstance().intBits = (bTypeNodeType == TokenType.INTTK) ? 32 : 8;
             constDefNode.buildIr();
         }
     }
@@ -18,15 +18,14 @@ import utils.IOUtils;
  * ConstDef -> Ident [ '[' ConstExp ']' ] '=' ConstInitVal
  */
 public class ConstDefNode {
-    private Token ident;
-    private Token leftBracket;
+    // 标识符只保存单词和行号，需要时再创建 Token
+    private String ident;
+    private int identLine;
     private ConstExpNode constExp;
-    private Token rightBracket;
-    private Token equalSign;
     private ConstInitValNode constInitValNode;
 
     public Token getIdent() {
-        return ident;
+        return new Token(TokenType.IDENFR, ident, identLine);
     }
 
     public ConstExpNode getConstExp() {
@@ -37,23 +36,21 @@ public class ConstDefNode {
         return constInitValNode;
     }
 
-    public ConstDefNode(Token ident, Token leftBracket, ConstExpNode constExp, Token rightBracket, Token equalSign, ConstInitValNode constInitValNode) {
+    public ConstDefNode(String ident, int identLine, ConstExpNode constExp, ConstInitValNode constInitValNode) {
         this.ident = ident;
-        this.leftBracket = leftBracket;
+        this.identLine = identLine;
         this.constExp = constExp;
-        this.rightBracket = rightBracket;
-        this.equalSign = equalSign;
         this.constInitValNode = constInitValNode;
     }
 
     public void print() {
-        IOUtils.write(ident.toString());
-        if (leftBracket != null) {
-            IOUtils.write(leftBracket.toString());
+        IOUtils.write(Token.toString(TokenType.IDENFR, ident));
+        if (constExp != null) {
+            IOUtils.write(Token.toString(TokenType.LBRACK));
             constExp.print();
-            IOUtils.write(rightBracket.toString());
+            IOUtils.write(Token.toString(TokenType.RBRACK));
         }
-        IOUtils.write(equalSign.toString());
+        IOUtils.write(Token.toString(TokenType.ASSIGN));
         constInitValNode.print();
         IOUtils.write("<ConstDef>\n");
     }
@@ -71,14 +68,14 @@ public class ConstDefNode {
         // Ident '=' ConstInitVal
         if (constExp == null) {
             constInitValNode.buildIr();
-            IrSymTableStack.addSymToPeek(ident.getValue(), IrContext.synValue);
+            IrSymTableStack.addSymToPeek(ident, IrContext.getInstance().synValue);
         }
         // 2. 数组常量
         // Ident '[' ConstExp ']' '=' ConstInitVal
         else {
             // 解析数组长度信息
             constExp.buildIr();
-            int length = IrContext.synInt;
+            int length = IrContext.getInstance().synInt;
             // 向下传递数组长度信息
             constInitValNode.setLength(length);
             // 获取常量初始化值
@@ -91,20 +88,20 @@ public class ConstDefNode {
             // 2.1 全局数组，**初值**仅需存在GlobalVariable对象中即可
             if (IrSymTableStack.isBuildingGlobalSymTable()) {
                 // true 代表是 const 数组
-                IrBuilder.buildGlobalVariable(ident.getValue(), true, (ConstArray) IrContext.synValue);
+                IrBuilder.buildGlobalVariable(ident, true, (ConstArray) IrContext.getInstance().synValue);
             }
             // 2.2 局部数组，需要在函数中用alloca存储
             // 操作：手动给数组alloca，然后对元素getelementptr和store
             // 下部会传入构造好的常量数组synValue，以及展平后的synArray
             else {
                 // 分配数组空间，注意区分int和char
-                ArrayType arrayType = new ArrayType(new IntType(IrContext.intBits), length);
+                ArrayType arrayType = new ArrayType(new IntType(IrContext.getInstance().intBits), length);
                 // 分配空间，同时传入初值，即综合属性 IrContext.synValue
-                Alloca arrayPointer = IrBuilder.buildAllocaInstruction(arrayType, IrContext.curBlock, (ConstArray) IrContext.synValue);
+                Alloca arrayPointer = IrBuilder.buildAllocaInstruction(arrayType, IrContext.getInstance().curBlock, (ConstArray) IrContext.getInstance().synValue);
                 // 将该符号及对应指针存入符号表
-                IrSymTableStack.addSymToPeek(ident.getValue(), arrayPointer);
+                IrSymTableStack.addSymToPeek(ident, arrayPointer);
                 // 用store和getelementptr指令把内容存入数组
-                IrBuilder.buildStoreArrayValues(IrContext.intBits, arrayPointer, length, IrContext.synValueArray, IrContext.curBlock);
+                IrBuilder.buildStoreArrayValues(IrContext.getInstance().intBits, arrayPointer, length, IrContext.getInstance().synValueArray, IrContext.getInstance().curBlock);
             }
         }
     }
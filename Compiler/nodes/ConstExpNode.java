@@ -29,10 +29,10 @@ public class ConstExpNode {
     // ConstExp -> AddExp
     // 向上传递综合属性synInt和synValue
     public void buildIr() {
-        IrContext.isBuildingConstExp = true;
+        IrContext.getInstance().isBuildingConstExp = true;
         addExp.buildIr();
-        IrContext.isBuildingConstExp = false;
+        IrContext.getInstance().isBuildingConstExp = false;
         // 构建synValue，因为addExp中并没有考虑常量构建synValue
-        IrContext.synValue = new ConstInt(IrContext.intBits, IrContext.synInt);
+        IrContext.getInstance().synValue = new ConstInt(IrContext.getInstance().intBits, IrContext.getInstance().synInt);
     }
 }
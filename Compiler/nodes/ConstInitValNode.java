@@ -1,6 +1,7 @@
 package nodes;
 
 import frontend.Token;
+import frontend.TokenType;
 import ir.IrContext;
 import ir.values.Value;
 import ir.values.constants.ConstArray;
@@ -19,52 +20,50 @@ import java.util.List;
  */
 public class ConstInitValNode {
     private List<ConstExpNode> constExpNodes;
-    private Token leftBrace;
-    private Token rightBrace;
-    private List<Token> commas;
-    private Token stringConst;
+    // 有没有大括号（数组的初值）
+    private boolean hasBrace;
+    // 字符串常量的单词（带引号）
+    private String stringConst;
 
     public List<ConstExpNode> getConstExpNodes() {
         return constExpNodes;
     }
 
-    public Token getLeftBrace() {
-        return leftBrace;
+    public boolean hasBrace() {
+        return hasBrace;
     }
 
-    public Token getStringConst() {
+    public String getStringConst() {
         return stringConst;
     }
 
-    public ConstInitValNode(List<ConstExpNode> constExpNodes, Token leftBrace, Token rightBrace, List<Token> commas, Token stringConst) {
+    public ConstInitValNode(List<ConstExpNode> constExpNodes, boolean hasBrace, String stringConst) {
         this.constExpNodes = constExpNodes;
-        this.leftBrace = leftBrace;
-        this.rightBrace = rightBrace;
-        this.commas = commas;
+        this.hasBrace = hasBrace;
         this.stringConst = stringConst;
     }
 
     public void print() {
-        if (leftBrace == null) {
+        if (!hasBrace) {
             if (stringConst == null) {
                 // 情况1：只有一个常量表达式
                 constExpNodes.get(0).print();
             } else {
                 // 情况3：是字符串常量
-                IOUtils.write(stringConst.toString());
+                IOUtils.write(Token.toString(TokenType.STRCON, stringConst));
             }
         } else {
             // 情况2：是数组常量，可能为空，可能一个，可能多个
-            IOUtils.write(leftBrace.toString());
+            IOUtils.write(Token.toString(TokenType.LBRACE));
             // 大括号内为空就不用输出了
             if (constExpNodes.size() > 0) {
                 constExpNodes.get(0).print();
                 for (int i = 1; i < constExpNodes.size(); i++) {
-                    IOUtils.write(commas.get(i - 1).toString());
+                    IOUtils.write(Token.toString(TokenType.COMMA));
                     constExpNodes.get(i).print();
                 }
             }
-            IOUtils.write(rightBrace.toString());
+            IOUtils.write(Token.toString(TokenType.RBRACE));
         }
         IOUtils.write("<ConstInitVal>\n");
     }
@@ -77,7 +76,7 @@ public class ConstInitValNode {
 
     // ConstInitVal -> ConstExp | '{' [ ConstExp { ',' ConstExp } ] '}' | StringConst
     public void buildIr() {
-        if (leftBrace == null) {
+        if (!hasBrace) {
             if (stringConst == null) {
                 // 情况1：只有一个常量表达式 ConstExp,直接向上传递结果
                 constExpNodes.get(0).buildIr();
@@ -88,17 +87,17 @@ public class ConstInitValNode {
                 ArrayList<Value> values = new ArrayList<>();
                 for (int i = 0; i < length; i++) {
                     // 要去掉前后的引号！！
-                    String s = stringConst.getValue().substring(1, stringConst.getValue().length() - 1);
+                    String s = stringConst.substring(1, stringConst.length() - 1);
                     if (i < s.length()) {
-                        constants.add(new ConstInt(IrContext.intBits, s.charAt(i)));
-                        values.add(new ConstInt(IrContext.intBits, s.charAt(i)));
+                        constants.add(new ConstInt(IrContext.getInstance().intBits, s.charAt(i)));
+                        values.add(new ConstInt(IrContext.getInstance().intBits, s.charAt(i)));
                     } else {
-                        constants.add(new ConstInt(IrContext.intBits, 0));
-                        values.add(new ConstInt(IrContext.intBits, 0));
+                        constants.add(new ConstInt(IrContext.getInstance().intBits, 0));
+                        values.add(new ConstInt(IrContext.getInstance().intBits, 0));
                     }
                 }
-                IrContext.synValue = new ConstArray(constants);
-                IrContext.synValueArray = values;
+                IrContext.getInstance().synValue = new ConstArray(constants);
+                IrContext.getInstance().synValueArray = values;
             }
         } else {
             // 情况2：是数组常量，可能为空，可能一个，可能多个
@@ -108,20 +107,20 @@ public class ConstInitValNode {
             for (int i = 0; i < length; i++) {
                 if (i < constExpNodes.size()) {
                     constExpNodes.get(i).buildIr();
-                    constantExps.add((ConstInt) IrContext.synValue);    // 这个synValue存的就是constExpNode得到的东西
-                    values.add(IrContext.synValue);
+                    constantExps.add((ConstInt) IrContext.getInstance().synValue);    // 这个synValue存的就是constExpNode得到的东西
+                    values.add(IrContext.getInstance().synValue);
                 } else {
-                    constantExps.add(new ConstInt(IrContext.intBits, 0));
-                    values.add(new ConstInt(IrContext.intBits, 0));
+                    constantExps.add(new ConstInt(IrContext.getInstance().intBits, 0));
+                    values.add(new ConstInt(IrContext.getInstance().intBits, 0));
                 }
             }
 //            for (ConstExpNode constExpNode : constExpNodes) {
 //                constExpNode.buildIr();
-//                constantExps.add((ConstInt) IrContext.synValue);    // 这个synValue存的就是constExpNode得到的东西
-//                values.add(IrContext.synValue);
+//                constantExps.add((ConstInt) IrContext.getInstance().synValue);    // 这个synValue存的就是constExpNode得到的东西
+//                values.add(IrContext.getInstance().synValue);
 //            }
-            IrContext.synValue = new ConstArray(constantExps);
-            IrContext.synValueArray = values;
+            IrContext.getInstance().synValue = new ConstArray(constantExps);
+            IrContext.getInstance().synValueArray = values;
         }
     }
 }
@@ -16,7 +16,7 @@ import utils.IOUtils;
  */
 public class EqExpNode {
     private RelExpNode relExpNode;
-    private Token op;
+    private TokenType op;
     private EqExpNode eqExpNode;
 
     public RelExpNode getRelExpNode() {
@@ -27,7 +27,7 @@ public class EqExpNode {
         return eqExpNode;
     }
 
-    public EqExpNode(RelExpNode relExpNode, Token op, EqExpNode eqExpNode) {
+    public EqExpNode(RelExpNode relExpNode, TokenType op, EqExpNode eqExpNode) {
         this.relExpNode = relExpNode;
         this.op = op;
         this.eqExpNode = eqExpNode;
@@ -47,7 +47,7 @@ public class EqExpNode {
             relExpNode.print();
         } else {
             eqExpNode.print();
-            IOUtils.write(op.toString());
+            IOUtils.write(Token.toString(op));
             relExpNode.print();
         }
         IOUtils.write("<EqExp>\n");
@@ -60,20 +60,20 @@ public class EqExpNode {
             relExpNode.buildIr();
         } else {
             eqExpNode.buildIr();
-            Value opLeft = IrContext.synValue;
+            Value opLeft = IrContext.getInstance().synValue;
             relExpNode.buildIr();
-            Value opRight = IrContext.synValue;
+            Value opRight = IrContext.getInstance().synValue;
             // 如果是i1类型，要扩展到i32类型的
             if (opLeft.getType().isI1()) {
-                opLeft = IrBuilder.buildZextInstruction(opLeft, IrContext.curBlock);
+                opLeft = IrBuilder.buildZextInstruction(opLeft, IrContext.getInstance().curBlock);
             }
             if (opRight.getType().isI1()) {
-                opRight = IrBuilder.buildZextInstruction(opRight, IrContext.curBlock);
+                opRight = IrBuilder.buildZextInstruction(opRight, IrContext.getInstance().curBlock);
             }
             // 比较类型
-            Icmp.CondType condType = (op.getType() == TokenType.EQL) ? Icmp.CondType.EQL : Icmp.CondType.NEQ;
+            Icmp.CondType condType = (op == TokenType.EQL) ? Icmp.CondType.EQL : Icmp.CondType.NEQ;
             // 返回值为该次比较的结果
-            IrContext.synValue = IrBuilder.buildICmpInstruction(opLeft, opRight, condType, IrContext.curBlock);
+            IrContext.getInstance().synValue = IrBuilder.buildICmpInstruction(opLeft, opRight, condType, IrContext.getInstance().curBlock);
         }
     }
 }
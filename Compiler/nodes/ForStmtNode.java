@@ -1,6 +1,7 @@
 package nodes;
 
 import frontend.Token;
+import frontend.TokenType;
 import ir.IrBuilder;
 import ir.IrContext;
 import ir.values.Value;
@@ -14,7 +15,6 @@ import utils.IOUtils;
  */
 public class ForStmtNode {
     private LValNode lValNode;
-    private Token assign;
     private ExpNode expNode;
 
     public LValNode getLValNode() {
@@ -25,15 +25,14 @@ public class ForStmtNode {
         return expNode;
     }
 
-    public ForStmtNode(LValNode lValNode, Token assign, ExpNode expNode) {
+    public ForStmtNode(LValNode lValNode, ExpNode expNode) {
         this.lValNode = lValNode;
-        this.assign = assign;
         this.expNode = expNode;
     }
 
     public void print() {
         lValNode.print();
-        IOUtils.write(assign.toString());
+        IOUtils.write(Token.toString(TokenType.ASSIGN));
         expNode.print();
         IOUtils.write("<ForStmt>\n");
     }
@@ -41,9 +40,9 @@ public class ForStmtNode {
     // ForStmt -> LVal '=' Exp
     public void buildIr() {
         lValNode.buildIr();
-        Value lVal = IrContext.synValue;
+        Value lVal = IrContext.getInstance().synValue;
         expNode.buildIr();
-        Value exp = IrContext.synValue;
-        IrBuilder.buildStoreInstruction(exp, lVal, IrContext.curBlock);
+        Value exp = IrContext.getInstance().synValue;
+        IrBuilder.buildStoreInstruction(exp, lVal, IrContext.getInstance().curBlock);
     }
 }
@@ -20,10 +20,10 @@ import java.util.ArrayList;
  */
 public class FuncDefNode {
     private FuncTypeNode funcTypeNode;
-    private Token ident;
-    private Token leftParent;
+    // 标识符只保存单词和行号，需要时再创建 Token
+    private String ident;
+    private int identLine;
     private FuncFParamsNode funcFParamsNode;
-    private Token rightParent;
     private BlockNode blockNode;
 
     public FuncTypeNode getFuncTypeNode() {
@@ -39,26 +39,25 @@ public class FuncDefNode {
     }
 
     public Token getIdent() {
-        return ident;
+        return new Token(TokenType.IDENFR, ident, identLine);
     }
 
-    public FuncDefNode(FuncTypeNode funcTypeNode, Token ident, Token leftParent, FuncFParamsNode funcFParamsNode, Token rightParent, BlockNode blockNode) {
+    public FuncDefNode(FuncTypeNode funcTypeNode, String ident, int identLine, FuncFParamsNode funcFParamsNode, BlockNode blockNode) {
         this.funcTypeNode = funcTypeNode;
         this.ident = ident;
-        this.leftParent = leftParent;
+        this.identLine = identLine;
         this.funcFParamsNode = funcFParamsNode;
-        this.rightParent = rightParent;
         this.blockNode = blockNode;
     }
 
     public void print() {
         funcTypeNode.print();
-        IOUtils.write(ident.toString());
-        IOUtils.write(leftParent.toString());
+        IOUtils.write(Token.toString(TokenType.IDENFR, ident));
+        IOUtils.write(Token.toString(TokenType.LPARENT));
         if (funcFParamsNode != null) {
             funcFParamsNode.print();
         }
-        IOUtils.write(rightParent.toString());
+        IOUtils.write(Token.toString(TokenType.RPARENT));
         blockNode.print();
         IOUtils.write("<FuncDef>\n");
     }
@@ -71,15 +70,15 @@ public class FuncDefNode {
         // 0. 先处理类型信息, Gary自创的，需要接收BTypeNode作为参数以判断是int还是char
         TokenType funcTypeNodeType = funcTypeNode.getType();
         // TODO: 虽然funcType有void，但void那里应该调用不到intBits，要检查一下
-        IrContext.intBits = (funcTypeNodeType == TokenType.INTTK) ? 32 : 8;
+        IrContext.getInstance().intBits = (funcTypeNodeType == TokenType.INTTK) ? 32 : 8;
         // 1. 函数返回值类型
         ValueType returnType = funcTypeNode.getIrReturnType();
         // 2. 创建函数定义
-        IrContext.curFunction = IrBuilder.buildFunction(ident.getValue(), returnType, new ArrayList<>(), false);
+        IrContext.getInstance().curFunction = IrBuilder.buildFunction(ident, returnType, new ArrayList<>(), false);
         // 3. 新建一个符号表并入栈，作为函数符号表
-        IrContext.curFunction.setSymbolTable(IrSymTableStack.push());
+        IrContext.getInstance().curFunction.setSymbolTable(IrSymTableStack.push());
         // 4. 构建下属的第一个基本块
-        IrContext.curBlock = IrBuilder.buildBasicBlock(IrContext.curFunction);
+        IrContext.getInstance().curBlock = IrBuilder.buildBasicBlock(IrContext.getInstance().curFunction);
 
         // 若函数有参数，构建函数参数Ir
         if (funcFParamsNode != null) {
@@ -91,10 +90,10 @@ public class FuncDefNode {
         if (!BlockNode.isReturnEnd(blockNode)) {
             if(returnType instanceof VoidType) {
                 // 如果这是个void函数，则需要添加ret void
-                IrBuilder.buildRetInstruction(IrContext.curBlock, null);
+                IrBuilder.buildRetInstruction(IrContext.getInstance().curBlock, null);
             } else {
                 // 否则，需要添加ret 0
-                IrBuilder.buildRetInstruction(IrContext.curBlock, ConstInt.ZERO(IrContext.intBits));
+                IrBuilder.buildRetInstruction(IrContext.getInstance().curBlock, ConstInt.ZERO(IrContext.getInstance().intBits));
             }
         }
         // 符号表出栈！
@@ -16,15 +16,17 @@ import utils.IOUtils;
  */
 public class FuncFParamNode {
     private BTypeNode bTypeNode;
-    private Token ident;
-    private Token leftBracket;
-    private Token rightBracket;
+    // 标识符只保存单词和行号，需要时再创建 Token
+    private String ident;
+    private int identLine;
+    // 有没有 '[' ']'
+    private boolean isArray;
 
-    public FuncFParamNode(BTypeNode bTypeNode, Token ident, Token leftBracket, Token rightBracket) {
+    public FuncFParamNode(BTypeNode bTypeNode, String ident, int identLine, boolean isArray) {
         this.bTypeNode = bTypeNode;
         this.ident = ident;
-        this.leftBracket = leftBracket;
-        this.rightBracket = rightBracket;
+        this.identLine = identLine;
+        this.isArray = isArray;
     }
 
     public BTypeNode getBTypeNode() {
@@ -32,19 +34,19 @@ public class FuncFParamNode {
     }
 
     public Token getIdent() {
-        return ident;
+        return new Token(TokenType.IDENFR, ident, identLine);
     }
 
-    public Token getLeftBracket() {
-        return leftBracket;
+    public boolean isArray() {
+        return isArray;
     }
 
     public void print() {
         bTypeNode.print();
-        IOUtils.write(ident.toString());
-        if (leftBracket != null) {
-            IOUtils.write(leftBracket.toString());
-            IOUtils.write(rightBracket.toString());
+        IOUtils.write(Token.toString(TokenType.IDENFR, ident));
+        if (isArray) {
+            IOUtils.write(Token.toString(TokenType.LBRACK));
+            IOUtils.write(Token.toString(TokenType.RBRACK));
         }
         IOUtils.write("<FuncFParam>\n");
     }
@@ -54,16 +56,16 @@ public class FuncFParamNode {
     public void buildIr() {
         // 0. 先处理类型信息, Gary自创的，需要接收BTypeNode作为参数以判断是int还是char
         TokenType bTypeNodeType = bTypeNode.getType();
-        IrContext.intBits = (bTypeNodeType == TokenType.INTTK) ? 32 : 8;
+        IrContext.getInstance().intBits = (bTypeNodeType == TokenType.INTTK) ? 32 : 8;
         // 1. 定义参数类型
-        ValueType paramType = new IntType(IrContext.intBits);
+        ValueType paramType = new IntType(IrContext.getInstance().intBits);
         // 2. 分类讨论
-        if (leftBracket != null) {
+        if (isArray) {
             // 传参是数组，则得到指针。
             // 需注意，得到的并非“指向数组整体”的指针，而是“指向数组下一级元素”的指针，这是为了store方便考虑
             paramType = new PointerType(paramType);
         }
         // 3. 把解析完成的参数类型传给curFunction, 在curFunction内部构建参数value
-        IrContext.curFunction.addArgsByValueType(paramType, IrContext.inheritInt);
+        IrContext.getInstance().curFunction.addArgsByValueType(paramType, IrContext.getInstance().inheritInt);
     }
 }
@@ -1,6 +1,7 @@
 package nodes;
 
 import frontend.Token;
+import frontend.TokenType;
 import ir.IrBuilder;
 import ir.IrContext;
 import ir.IrSymTableStack;
@@ -19,10 +20,8 @@ import java.util.List;
  */
 public class FuncFParamsNode {
     private List<FuncFParamNode> funcFParamNodes;
-    private List<Token> commas;
-    public FuncFParamsNode(List<FuncFParamNode> funcFParamNodes, List<Token> commas) {
+    public FuncFParamsNode(List<FuncFParamNode> funcFParamNodes) {
         this.funcFParamNodes = funcFParamNodes;
-        this.commas = commas;
     }
 
     public List<FuncFParamNode> getFuncFParamNodes() {
@@ -32,7 +31,7 @@ public class FuncFParamsNode {
     public void print() {
         (funcFParamNodes.get(0)).print();
         for (int i = 1; i < funcFParamNodes.size(); i++) {
-            IOUtils.write(commas.get(i-1).toString());
+            IOUtils.write(Token.toString(TokenType.COMMA));
             (funcFParamNodes.get(i)).print();
         }
         IOUtils.write("<FuncFParams>\n");
@@ -42,7 +41,7 @@ public class FuncFParamsNode {
     public void buildIr() {
         // 通过调用FuncFParamNode的buildIr方法，把参数加入function对象
         for (int i = 0; i < funcFParamNodes.size(); i++) {
-            IrContext.inheritInt = i;
+            IrContext.getInstance().inheritInt = i;
             funcFParamNodes.get(i).buildIr();
         }
         // 下面用刚解析好的函数参数构建SSA形式的函数参数加载指令
@@ -56,13 +55,13 @@ public class FuncFParamsNode {
          * }
          */
         // FuncFParamNode中已经把解析完成的参数类型传给curFunction，这里直接取出来
-        ArrayList<Value> args = IrContext.curFunction.getArgValues();
+        ArrayList<Value> args = IrContext.getInstance().curFunction.getArgValues();
         for (int i = 0; i < funcFParamNodes.size(); i++) {
             Value arg = args.get(i);
             // 先alloca指令
-            Alloca alloca = IrBuilder.buildAllocaInstruction(arg.getType(), IrContext.curBlock);
+            Alloca alloca = IrBuilder.buildAllocaInstruction(arg.getType(), IrContext.getInstance().curBlock);
             // 再store指令
-            IrBuilder.buildStoreInstruction(arg, alloca, IrContext.curBlock);
+            IrBuilder.buildStoreInstruction(arg, alloca, IrContext.getInstance().curBlock);
             // 在符号表中记录形参，对应的value就是alloca的结果，以后再调用需要load！
             IrSymTableStack.addSymToPeek(funcFParamNodes.get(i).getIdent().getValue(), alloca);
         }
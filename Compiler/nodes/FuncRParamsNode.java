@@ -1,6 +1,7 @@
 package nodes;
 
 import frontend.Token;
+import frontend.TokenType;
 import utils.IOUtils;
 
 import java.util.List;
@@ -13,21 +14,19 @@ import java.util.List;
  */
 public class FuncRParamsNode {
     private List<ExpNode> expNodes;
-    private List<Token> commas;
 
     public List<ExpNode> getExpNodes() {
         return expNodes;
     }
 
-    public FuncRParamsNode(List<ExpNode> expNodes, List<Token> commas) {
+    public FuncRParamsNode(List<ExpNode> expNodes) {
         this.expNodes = expNodes;
-        this.commas = commas;
     }
 
     public void print() {
         expNodes.get(0).print();
         for (int i = 1; i < expNodes.size(); i++) {
-            IOUtils.write(commas.get(i-1).toString());
+            IOUtils.write(Token.toString(TokenType.COMMA));
             expNodes.get(i).print();
         }
         IOUtils.write("<FuncRParams>\n");
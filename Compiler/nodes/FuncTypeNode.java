@@ -14,28 +14,28 @@ import utils.IOUtils;
  * FuncType -> 'void' | 'int' | 'char'
  */
 public class FuncTypeNode {
-    private Token type;
+    private TokenType type;
 
     // 语义分析中，用来获取变量类型
     public TokenType getType() {
-        return type.getType();
+        return type;
     }
 
-    public FuncTypeNode(Token type) {
+    public FuncTypeNode(TokenType type) {
         this.type = type;
     }
 
     public void print() {
-        IOUtils.write(type.toString());
+        IOUtils.write(Token.toString(type));
         IOUtils.write("<FuncType>\n");
     }
 
     // 中间代码生成，获取ValueType类型的返回值类型
     public ValueType getIrReturnType() {
         ValueType vt;
-        if (type.getType() == TokenType.VOIDTK) {
+        if (type == TokenType.VOIDTK) {
             vt = new VoidType();    // void类型
-        } else if (type.getType() == TokenType.INTTK) {
+        } else if (type == TokenType.INTTK) {
             vt = new IntType(32);   // int类型
         } else {
             vt = new IntType(8);    // char类型
@@ -1,6 +1,7 @@
 package nodes;
 
 import frontend.Token;
+import frontend.TokenType;
 import ir.IrBuilder;
 import ir.IrContext;
 import ir.IrSymTableStack;
@@ -21,52 +22,50 @@ import java.util.List;
  */
 public class InitValNode {
     private List<ExpNode> expNodes;
-    private Token leftBrace;
-    private Token rightBrace;
-    private List<Token> commas;
-    private Token stringConst;
+    // 有没有大括号（数组的初值）
+    private boolean hasBrace;
+    // 字符串常量的单词（带引号）
+    private String stringConst;
 
     public List<ExpNode> getExpNodes() {
         return expNodes;
     }
 
-    public Token getStringConst() {
+    public String getStringConst() {
         return stringConst;
     }
 
-    public Token getLeftBrace() {
-        return leftBrace;
+    public boolean hasBrace() {
+        return hasBrace;
     }
 
-    public InitValNode(List<ExpNode> expNodes, Token leftBrace, Token rightBrace, List<Token> commas, Token stringConst) {
+    public InitValNode(List<ExpNode> expNodes, boolean hasBrace, String stringConst) {
         this.expNodes = expNodes;
-        this.leftBrace = leftBrace;
-        this.rightBrace = rightBrace;
-        this.commas = commas;
+        this.hasBrace = hasBrace;
         this.stringConst = stringConst;
     }
 
     public void print() {
-        if (leftBrace == null) {
+        if (!hasBrace) {
             if (stringConst == null) {
                 // 情况1：只有一个常量表达式
                 expNodes.get(0).print();
             } else {
                 // 情况3：是字符串常量
-                IOUtils.write(stringConst.toString());
+                IOUtils.write(Token.toString(TokenType.STRCON, stringConst));
             }
         } else {
             // 情况2：是数组常量，可能为空，可能一个，可能多个
-            IOUtils.write(leftBrace.toString());
+            IOUtils.write(Token.toString(TokenType.LBRACE));
             // 大括号内为空就不用输出了
             if (expNodes.size() > 0) {
                 expNodes.get(0).print();
                 for (int i = 1; i < expNodes.size(); i++) {
-                    IOUtils.write(commas.get(i - 1).toString());
+                    IOUtils.write(Token.toString(TokenType.COMMA));
                     expNodes.get(i).print();
                 }
             }
-            IOUtils.write(rightBrace.toString());
+            IOUtils.write(Token.toString(TokenType.RBRACE));
         }
         IOUtils.write("<InitVal>\n");
     }
@@ -80,12 +79,12 @@ public class InitValNode {
     // InitVal -> Exp | '{' [ Exp { ',' Exp } ] '}' | StringConst
     // 在此处将synInt封装为synValue
     public void buildIr() {
-        if (leftBrace == null) {
+        if (!hasBrace) {
             if (stringConst == null) {
                 // 情况1：只有一个常量表达式 Exp,直接向上传递结果
                 expNodes.get(0).buildIr();
-                if (IrContext.isBuildingConstExp) {
-                    IrContext.synValue = new ConstInt(IrContext.intBits, IrContext.synInt);
+                if (IrContext.getInstance().isBuildingConstExp) {
+                    IrContext.getInstance().synValue = new ConstInt(IrContext.getInstance().intBits, IrContext.getInstance().synInt);
                 }
             } else {
                 // 情况3：是字符串常量StringConst，其实这里的intBits就是8
@@ -93,17 +92,17 @@ public class InitValNode {
                 ArrayList<Value> values = new ArrayList<>();
                 // 要跳过前后的引号！！
                 for (int i = 0; i < length; i++) {
-                    String s = stringConst.getValue().substring(1, stringConst.getValue().length() - 1);
+                    String s = stringConst.substring(1, stringConst.length() - 1);
                     if (i < s.length()) {
-                        constants.add(new ConstInt(IrContext.intBits, s.charAt(i)));
-                        values.add(new ConstInt(IrContext.intBits, s.charAt(i)));
+                        constants.add(new ConstInt(IrContext.getInstance().intBits, s.charAt(i)));
+                        values.add(new ConstInt(IrContext.getInstance().intBits, s.charAt(i)));
                     } else {
-                        constants.add(new ConstInt(IrContext.intBits, 0));
-                        values.add(new ConstInt(IrContext.intBits, 0));
+                        constants.add(new ConstInt(IrContext.getInstance().intBits, 0));
+                        values.add(new ConstInt(IrContext.getInstance().intBits, 0));
                     }
                 }
-                IrContext.synValue = new ConstArray(constants);
-                IrContext.synValueArray = values;
+                IrContext.getInstance().synValue = new ConstArray(constants);
+                IrContext.getInstance().synValueArray = values;
             }
         } else {
             // 情况2：是数组初始化，可能为空，可能一个，可能多个
@@ -114,37 +113,37 @@ public class InitValNode {
                 for (int i = 0; i < length; i++) {
                     if (i < expNodes.size()) {
                         expNodes.get(i).buildIr();
-                        exps.add(new ConstInt(IrContext.intBits, IrContext.synInt));
-                        values.add(new ConstInt(IrContext.intBits, IrContext.synInt));
+                        exps.add(new ConstInt(IrContext.getInstance().intBits, IrContext.getInstance().synInt));
+                        values.add(new ConstInt(IrContext.getInstance().intBits, IrContext.getInstance().synInt));
                     } else {
-                        exps.add(new ConstInt(IrContext.intBits, 0));
-                        values.add(new ConstInt(IrContext.intBits, 0));
+                        exps.add(new ConstInt(IrContext.getInstance().intBits, 0));
+                        values.add(new ConstInt(IrContext.getInstance().intBits, 0));
                     }
                 }
 //                for (ExpNode expNode : expNodes) {
 //                    expNode.buildIr();
-//                    exps.add(new ConstInt(IrContext.intBits, IrContext.synInt));
-//                    values.add(new ConstInt(IrContext.intBits, IrContext.synInt));
+//                    exps.add(new ConstInt(IrContext.getInstance().intBits, IrContext.getInstance().synInt));
+//                    values.add(new ConstInt(IrContext.getInstance().intBits, IrContext.getInstance().synInt));
 //                }
-                IrContext.synValue = new ConstArray(exps);
-                IrContext.synValueArray = values;
+                IrContext.getInstance().synValue = new ConstArray(exps);
+                IrContext.getInstance().synValueArray = values;
             } else {
                 // 局部变量数组初始化
                 for (int i = 0; i < length; i++) {
                     if (i < expNodes.size()) {
                         expNodes.get(i).buildIr();
-                        values.add(IrContext.synValue);
-                    } else if (IrContext.intBits == 8) {
+                        values.add(IrContext.getInstance().synValue);
+                    } else if (IrContext.getInstance().intBits == 8) {
                         // 字符数组末尾要特别地补0
-                        values.add(new ConstInt(IrContext.intBits, 0));
+                        values.add(new ConstInt(IrContext.getInstance().intBits, 0));
                     }
                 }
 //                for (ExpNode expNode : expNodes) {
 //                    expNode.buildIr();
-//                    System.out.println("synInt - 局部数组初始化: " + IrContext.synValue);
-//                    values.add(IrContext.synValue);
+//                    System.out.println("synInt - 局部数组初始化: " + IrContext.getInstance().synValue);
+//                    values.add(IrContext.getInstance().synValue);
 //                }
-                IrContext.synValueArray = values;
+                IrContext.getInstance().synValueArray = values;
             }
         }
     }
@@ -1,6 +1,7 @@
 package nodes;
 
 import frontend.Token;
+import frontend.TokenType;
 import ir.IrBuilder;
 import ir.IrContext;
 import ir.types.IntType;
@@ -18,7 +19,7 @@ import utils.IOUtils;
  */
 public class LAndExpNode {
     private EqExpNode eqExpNode;
-    private Token op;
+    private TokenType op;
     private LAndExpNode lAndExpNode;
 
     public EqExpNode getEqExpNode() {
@@ -29,7 +30,7 @@ public class LAndExpNode {
         return lAndExpNode;
     }
 
-    public LAndExpNode(EqExpNode eqExpNode, Token op, LAndExpNode lAndExpNode) {
+    public LAndExpNode(EqExpNode eqExpNode, TokenType op, LAndExpNode lAndExpNode) {
         this.eqExpNode = eqExpNode;
         this.op = op;
         this.lAndExpNode = lAndExpNode;
@@ -49,7 +50,7 @@ public class LAndExpNode {
             eqExpNode.print();
         } else {
             lAndExpNode.print();
-            IOUtils.write(op.toString());
+            IOUtils.write(Token.toString(op));
             eqExpNode.print();
         }
         IOUtils.write("<LAndExp>\n");
@@ -86,13 +87,13 @@ public class LAndExpNode {
         else {
             // 短路求值：short-circuit evaluation
             // 这个scBranch就代替trueBranch，在里面处理EqExp。在LandExp为真时，体现为不处理后面的EqExp
-            BasicBlock scBranch = IrBuilder.buildBasicBlock(IrContext.curFunction);
+            BasicBlock scBranch = IrBuilder.buildBasicBlock(IrContext.getInstance().curFunction);
             lAndExpNode.setTrueBranch(scBranch);
             lAndExpNode.setFalseBranch(falseBranch);
             lAndExpNode.buildIr();
 
             // 切换到新建的scBranch，在其中构建EqExp
-            IrContext.curBlock = scBranch;
+            IrContext.getInstance().curBlock = scBranch;
             handleOnlyEqExp();
         }
     }
@@ -101,15 +102,15 @@ public class LAndExpNode {
     private void handleOnlyEqExp() {
         eqExpNode.buildIr();
         // 此处是有条件跳转语句，并且br要求的condition类型为i1，但synValue可能为i32/i8
-        Value condition = IrContext.synValue;
+        Value condition = IrContext.getInstance().synValue;
         IntType valueType = (IntType) condition.getType();
         if (!valueType.isI1()) {
             // 如果synValue的类型不是i1，这里巧妙：则通过icmp转换一下，用trunc也不好
             // 判断：若i32/i8的值非0(也是i32/i8类型的)，则为true，否则为false
-            condition = IrBuilder.buildICmpInstruction(condition, ConstInt.ZERO(valueType.getBits()), Icmp.CondType.NEQ, IrContext.curBlock);
+            condition = IrBuilder.buildICmpInstruction(condition, ConstInt.ZERO(valueType.getBits()), Icmp.CondType.NEQ, IrContext.getInstance().curBlock);
         }
         // 进行有条件跳转
-        IrBuilder.buildBrInstruction(condition, trueBranch, falseBranch, IrContext.curBlock);
+        IrBuilder.buildBrInstruction(condition, trueBranch, falseBranch, IrContext.getInstance().curBlock);
         // 一切ConstInt在这里都转化成了icmp
         // icmp会返回IntType(i1)类型的指令，因此带条件br语句的condition永远是icmp类型
     }
@@ -1,6 +1,7 @@
 package nodes;
 
 import frontend.Token;
+import frontend.TokenType;
 import ir.IrBuilder;
 import ir.IrContext;
 import ir.values.BasicBlock;
@@ -14,7 +15,7 @@ import utils.IOUtils;
  */
 public class LOrExpNode {
     private LAndExpNode lAndExpNode;
-    private Token op;
+    private TokenType op;
     private LOrExpNode lOrExpNode;
 
     public LAndExpNode getLAndExpNode() {
@@ -25,7 +26,7 @@ public class LOrExpNode {
         return lOrExpNode;
     }
 
-    public LOrExpNode(LAndExpNode lAndExpNode, Token op, LOrExpNode lOrExpNode) {
+    public LOrExpNode(LAndExpNode lAndExpNode, TokenType op, LOrExpNode lOrExpNode) {
         this.lAndExpNode = lAndExpNode;
         this.op = op;
         this.lOrExpNode = lOrExpNode;
@@ -45,7 +46,7 @@ public class LOrExpNode {
             lAndExpNode.print();
         } else {
             lOrExpNode.print();
-            IOUtils.write(op.toString());
+            IOUtils.write(Token.toString(op));
             lAndExpNode.print();
         }
         IOUtils.write("<LOrExp>\n");
@@ -79,13 +80,13 @@ public class LOrExpNode {
         }
         // LOrExp -> LOrExp '||' LAndExp
         else {
-            BasicBlock scBranch = IrBuilder.buildBasicBlock(IrContext.curFunction);
+            BasicBlock scBranch = IrBuilder.buildBasicBlock(IrContext.getInstance().curFunction);
             lOrExpNode.setTrueBranch(trueBranch);
             lOrExpNode.setFalseBranch(scBranch);
             lOrExpNode.buildIr();
 
             // 切换到新建的scBranch，在其中构建LAndExp
-            IrContext.curBlock = scBranch;
+            IrContext.getInstance().curBlock = scBranch;
             handleOnlyLAndExp();
         }
     }
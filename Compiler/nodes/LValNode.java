@@ -1,6 +1,7 @@
 package nodes;
 
 import frontend.Token;
+import frontend.TokenType;
 import ir.IrBuilder;
 import ir.IrContext;
 import ir.IrSymTableStack;
@@ -24,32 +25,31 @@ import utils.IrUtils;
  * LVal -> Ident ['[' Exp ']']
  */
 public class LValNode {
-    private Token ident;
-    private Token leftBracket;
+    // 标识符只保存单词和行号，需要时再创建 Token
+    private String ident;
+    private int identLine;
     private ExpNode expNode;
-    private Token rightBracket;
 
     public Token getIdent() {
-        return ident;
+        return new Token(TokenType.IDENFR, ident, identLine);
     }
 
     public ExpNode getExpNode() {
         return expNode;
     }
 
-    public LValNode(Token ident, Token leftBracket, ExpNode expNode, Token rightBracket) {
+    public LValNode(String ident, int identLine, ExpNode expNode) {
         this.ident = ident;
-        this.leftBracket = leftBracket;
+        this.identLine = identLine;
         this.expNode = expNode;
-        this.rightBracket = rightBracket;
     }
 
     public void print() {
-        IOUtils.write(ident.toString());
-        if (leftBracket != null) {
-            IOUtils.write(leftBracket.toString());
+        IOUtils.write(Token.toString(TokenType.IDENFR, ident));
+        if (expNode != null) {
+            IOUtils.write(Token.toString(TokenType.LBRACK));
             expNode.print();
-            IOUtils.write(rightBracket.toString());
+            IOUtils.write(Token.toString(TokenType.RBRACK));
         }
         IOUtils.write("<LVal>\n");
     }
@@ -62,7 +62,7 @@ public class LValNode {
      */
     public void buildIr() {
         // 查符号表，获得左值对应的value
-        Value lValValue = IrSymTableStack.getSymbol(ident.getValue());
+        Value lValValue = IrSymTableStack.getSymbol(ident);
 
         // I. 左值为IntType，不需要进行取值
         if (lValValue.getType() instanceof IntType) {
@@ -71,10 +71,10 @@ public class LValNode {
              * 因为常量只需计算值，不会出现ident。
              * 否则，给synValue存上value
              */
-            if (IrContext.isBuildingConstExp) {
-                IrContext.synInt = ((ConstInt) lValValue).getValue();
+            if (IrContext.getInstance().isBuildingConstExp) {
+                IrContext.getInstance().synInt = ((ConstInt) lValValue).getValue();
             } else {
-                IrContext.synValue = lValValue;
+                IrContext.getInstance().synValue = lValValue;
             }
         }
         // II. 左值为Pointer类型，需要进行取值
@@ -83,13 +83,13 @@ public class LValNode {
             // 依据指针所指向的类型分类讨论
             // 1. 指向int/char类型
             if (valueType instanceof IntType) {
-                if (IrContext.isBuildingConstExp && lValValue instanceof GlobalVariable) {
+                if (IrContext.getInstance().isBuildingConstExp && lValValue instanceof GlobalVariable) {
                     // 全局常量的值一定是常数表达式，用synInt传递
                     // FIXME: 为什么是全局常量？为何不是全局变量或局部常量？
                     ConstInt initValue = (ConstInt) (((GlobalVariable) lValValue).getInitValue());
-                    IrContext.synInt = initValue.getValue();
+                    IrContext.getInstance().synInt = initValue.getValue();
                 } else {
-                    IrContext.synValue = lValValue;
+                    IrContext.getInstance().synValue = lValValue;
                 }
             }
             /*
@@ -101,18 +101,18 @@ public class LValNode {
             // FIXME: 这里的处理方式是否正确？
             else if(valueType instanceof PointerType) {
                 // 复原指针所指向的形参
-                Value fParamValue = IrBuilder.buildLoadInstruction(lValValue, IrContext.curBlock);
+                Value fParamValue = IrBuilder.buildLoadInstruction(lValValue, IrContext.getInstance().curBlock);
                 if (expNode == null) {
                     // 1. 不是数组
-                    IrContext.synValue = fParamValue;
+                    IrContext.getInstance().synValue = fParamValue;
                 } else {
                     // 2. 数组
                     expNode.buildIr();
                     // 得到了数组下标
-                    Value indexValue = IrContext.synValue;
+                    Value indexValue = IrContext.getInstance().synValue;
                     // 根据index值通过gep指令取数组的值
-                    Value ptrValue = IrBuilder.buildGetElementPtrInstruction(fParamValue, indexValue, IrContext.curBlock);
-                    IrContext.synValue = ptrValue;
+                    Value ptrValue = IrBuilder.buildGetElementPtrInstruction(fParamValue, indexValue, IrContext.getInstance().curBlock);
+                    IrContext.getInstance().synValue = ptrValue;
                 }
             }
             // 3. 指向数组，是正常的局部或全局数组
@@ -120,7 +120,7 @@ public class LValNode {
                 // 3.1 常量数组，最后的结果一定是ConstInt
                 // 全局和局部都已存储在相应对象内，直接读取即可
                 // 返回synInt
-                if (IrContext.isBuildingConstExp) {
+                if (IrContext.getInstance().isBuildingConstExp) {
                     Constant initVal;
                     // 3.1.1 全局常量数组，应为GlobalVariable形式
                     if (lValValue instanceof GlobalVariable) {
@@ -132,8 +132,8 @@ public class LValNode {
                     }
                     expNode.buildIr();
                     // 得到了数组下标
-                    initVal = ((ConstArray) initVal).getElements().get(IrContext.synInt);
-                    IrContext.synInt = ((ConstInt) initVal).getValue();
+                    initVal = ((ConstArray) initVal).getElements().get(IrContext.getInstance().synInt);
+                    IrContext.getInstance().synInt = ((ConstInt) initVal).getValue();
                 }
                 // 3.2 非常量数组，不再有存储好的初值调用，因此需要使用GEP指令来取值
                 // 返回指针synValue
@@ -141,13 +141,13 @@ public class LValNode {
                     // 根据[]使用gep向下取值，这是调用f(a[1])的情况
                     if (expNode != null) {
                         expNode.buildIr();
-                        lValValue = IrBuilder.buildGetElementPtrInstruction(lValValue, ConstInt.ZERO(IrContext.intBits), IrContext.synValue, IrContext.curBlock);
+                        lValValue = IrBuilder.buildGetElementPtrInstruction(lValValue, ConstInt.ZERO(IrContext.getInstance().intBits), IrContext.getInstance().synValue, IrContext.getInstance().curBlock);
                     }
                     // 特别要注意！这里是调用f(a)的情况，其中a是数组，需要进行降维传参
                     if (IrUtils.getPointingTypeOfPointer(lValValue) instanceof ArrayType) {
-                        lValValue = IrBuilder.buildRankDownInstruction(IrContext.intBits, lValValue, IrContext.curBlock);
+                        lValValue = IrBuilder.buildRankDownInstruction(IrContext.getInstance().intBits, lValValue, IrContext.getInstance().curBlock);
                     }
-                    IrContext.synValue = lValValue;
+                    IrContext.getInstance().synValue = lValValue;
                 }
             }
         }
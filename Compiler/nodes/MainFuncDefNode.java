@@ -1,6 +1,7 @@
 package nodes;
 
 import frontend.Token;
+import frontend.TokenType;
 import ir.IrBuilder;
 import ir.IrContext;
 import ir.IrSymTableStack;
@@ -17,26 +18,21 @@ import java.util.ArrayList;
  * MainFuncDef -> 'int' 'main' '(' ')' Block
  */
 public class MainFuncDefNode {
-    private Token intToken, mainToken, lParenToken, rParenToken;
     private BlockNode blockNode;
 
     public BlockNode getBlockNode() {
         return blockNode;
     }
 
-    public MainFuncDefNode(Token intToken, Token mainToken, Token lParenToken, Token rParenToken, BlockNode blockNode) {
-        this.intToken = intToken;
-        this.mainToken = mainToken;
-        this.lParenToken = lParenToken;
-        this.rParenToken = rParenToken;
+    public MainFuncDefNode(BlockNode blockNode) {
         this.blockNode = blockNode;
     }
 
     public void print() {
-        IOUtils.write(intToken.toString());
-        IOUtils.write(mainToken.toString());
-        IOUtils.write(lParenToken.toString());
-        IOUtils.write(rParenToken.toString());
+        IOUtils.write(Token.toString(TokenType.INTTK));
+        IOUtils.write(Token.toString(TokenType.MAINTK));
+        IOUtils.write(Token.toString(TokenType.LPARENT));
+        IOUtils.write(Token.toString(TokenType.RPARENT));
         blockNode.print();
         IOUtils.write("<MainFuncDef>\n");
     }
@@ -44,19 +40,19 @@ public class MainFuncDefNode {
     // MainFuncDef -> 'int' 'main' '(' ')' Block
     // 开头一套连招和FuncDefNode一样，只是不用考虑函数返回值类型了
     public void buildIr() {
-        IrContext.intBits = 32;
+        IrContext.getInstance().intBits = 32;
         // 1. 创建函数定义
-        IrContext.curFunction = IrBuilder.buildFunction(mainToken.getValue(), new IntType(32), new ArrayList<>(), false);
+        IrContext.getInstance().curFunction = IrBuilder.buildFunction(TokenType.MAINTK.getText(), new IntType(32), new ArrayList<>(), false);
         // 2. 新建一个符号表并入栈，作为函数符号表
-        IrContext.curFunction.setSymbolTable(IrSymTableStack.push());
+        IrContext.getInstance().curFunction.setSymbolTable(IrSymTableStack.push());
         // 3. 构建下属的第一个基本块
-        IrContext.curBlock = IrBuilder.buildBasicBlock(IrContext.curFunction);
+        IrContext.getInstance().curBlock = IrBuilder.buildBasicBlock(IrContext.getInstance().curFunction);
         // 解析函数体
         blockNode.buildIr();
 
         // 若最后不是return语句（但是好像不会发生？），添加return 0
         if(!BlockNode.isReturnEnd(blockNode)) {
-            IrBuilder.buildRetInstruction(IrContext.curBlock, ConstInt.ZERO(32));
+            IrBuilder.buildRetInstruction(IrContext.getInstance().curBlock, ConstInt.ZERO(32));
         }
 
         // 符号表出栈！
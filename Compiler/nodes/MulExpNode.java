@@ -5,9 +5,6 @@ import frontend.TokenType;
 import ir.IrBuilder;
 import ir.IrContext;
 import ir.values.Value;
-import ir.values.constants.ConstInt;
-import ir.values.instructions.Mul;
-import ir.values.instructions.Sdiv;
 import utils.IOUtils;
 
 /**
@@ -18,7 +15,7 @@ import utils.IOUtils;
  */
 public class MulExpNode {
     private UnaryExpNode unaryExpNode;
-    private Token op;
+    private TokenType op;
     private MulExpNode mulExpNode;
 
     public UnaryExpNode getUnaryExpNode() {
@@ -29,7 +26,7 @@ public class MulExpNode {
         return mulExpNode;
     }
 
-    public MulExpNode(UnaryExpNode unaryExpNode, Token op, MulExpNode mulExpNode) {
+    public MulExpNode(UnaryExpNode unaryExpNode, TokenType op, MulExpNode mulExpNode) {
         this.unaryExpNode = unaryExpNode;
         this.op = op;
         this.mulExpNode = mulExpNode;
@@ -53,7 +50,7 @@ public class MulExpNode {
             unaryExpNode.print();
         } else {
             mulExpNode.print();
-            IOUtils.write(op.toString());
+            IOUtils.write(Token.toString(op));
             unaryExpNode.print();
         }
         IOUtils.write("<MulExp>\n");
@@ -62,23 +59,23 @@ public class MulExpNode {
     // MulExp -> UnaryExp | MulExp ('*' | '/' | '%') UnaryExp
     public void buildIr() {
         // 1. 常量，直接在现有的常数值上进行计算
-        if (IrContext.isBuildingConstExp) {
+        if (IrContext.getInstance().isBuildingConstExp) {
             if (op == null) {
                 unaryExpNode.buildIr();
             } else {
                 // mulExp和unaryExp的buildIr都会对synInt进行赋值，因此每步后的synInt都不一样
                 mulExpNode.buildIr();
-                int ans = IrContext.synInt;
+                int ans = IrContext.getInstance().synInt;
                 unaryExpNode.buildIr();
-                if (op.getType() == TokenType.MULT) {
-                    ans *= IrContext.synInt;
-                } else if (op.getType() == TokenType.DIV) {
-                    ans /= IrContext.synInt;
-                } else if (op.getType() == TokenType.MOD) {
-                    ans %= IrContext.synInt;
+                if (op == TokenType.MULT) {
+                    ans *= IrContext.getInstance().synInt;
+                } else if (op == TokenType.DIV) {
+                    ans /= IrContext.getInstance().synInt;
+                } else if (op == TokenType.MOD) {
+                    ans %= IrContext.getInstance().synInt;
                 }
                 // 最后的结果保存在synInt中，供更高层使用
-                IrContext.synInt = ans;
+                IrContext.getInstance().synInt = ans;
             }
         }
         // 2. 变量，生成临时变量，并进行计算
@@ -87,26 +84,16 @@ public class MulExpNode {
                 unaryExpNode.buildIr();
             } else {
                 mulExpNode.buildIr();
-                Value opLeft = IrContext.synValue;
+                Value opLeft = IrContext.getInstance().synValue;
                 unaryExpNode.buildIr();
-                Value opRight = IrContext.synValue;
-                if (op.getType() == TokenType.MULT) {
-                    IrContext.synValue = IrBuilder.buildMulInstruction(opLeft, opRight, IrContext.curBlock);
-                } else if (op.getType() == TokenType.DIV) {
-                    IrContext.synValue = IrBuilder.buildSdivInstruction(opLeft, opRight, IrContext.curBlock);
-                } else if (op.getType() == TokenType.MOD) {
-                    // 取模可以替换为公式：x % y = x - ( x / y ) * y
-                    // FIXME: 只有右操作数是常量且为1才srem，是为了后端优化：不需要div+mfhi指令，只需要move $zero即可
-                    if (opRight instanceof ConstInt && ((ConstInt) opRight).getValue() == 1) {
-                        IrContext.synValue = IrBuilder.buildSremInstruction(opLeft, opRight, IrContext.curBlock);
-                    } else {
-                        // div = x / y
-                        Sdiv div = IrBuilder.buildSdivInstruction(opLeft, opRight, IrContext.curBlock);
-                        // mul = div * y = ( x / y ) * y
-                        Mul mul = IrBuilder.buildMulInstruction(div, opRight, IrContext.curBlock);
-                        // 最后结果 = x - mul
-                        IrContext.synValue = IrBuilder.buildSubInstruction(opLeft, mul, IrContext.curBlock);
-                    }
+                Value opRight = IrContext.getInstance().synValue;
+                if (op == TokenType.MULT) {
+                    IrContext.getInstance().synValue = IrBuilder.buildMulInstruction(opLeft, opRight, IrContext.getInstance().curBlock);
+                } else if (op == TokenType.DIV) {
+                    IrContext.getInstance().synValue = IrBuilder.buildSdivInstruction(opLeft, opRight, IrContext.getInstance().curBlock);
+                } else if (op == TokenType.MOD) {
+                    // 取模直接生成srem，由后端选择 div + mfhi 或常数的快速路径
+                    IrContext.getInstance().synValue = IrBuilder.buildSremInstruction(opLeft, opRight, IrContext.getInstance().curBlock);
                 }
             }
         }
@@ -1,6 +1,7 @@
 package nodes;
 
 import frontend.Token;
+import frontend.TokenType;
 import ir.IrContext;
 import ir.values.constants.ConstInt;
 import utils.IOUtils;
@@ -12,13 +13,14 @@ import utils.IOUtils;
  * Number -> IntConst
  */
 public class NumberNode {
-    Token intConst;
-    public NumberNode(Token intConst) {
+    // 整数常量的单词，行号用不到，不保存
+    private String intConst;
+    public NumberNode(String intConst) {
         this.intConst = intConst;
     }
 
     public void print() {
-        IOUtils.write(intConst.toString());
+        IOUtils.write(Token.toString(TokenType.INTCON, intConst));
         IOUtils.write("<Number>\n");
     }
 
@@ -26,12 +28,12 @@ public class NumberNode {
     // 计算变量数值只传递synValue
     public void buildIr() {
         // 把数字字符串转换成数字
-        int num = Integer.parseInt(intConst.getValue());
-        if (IrContext.isBuildingConstExp) {
-            IrContext.synInt = num;
+        int num = Integer.parseInt(intConst);
+        if (IrContext.getInstance().isBuildingConstExp) {
+            IrContext.getInstance().synInt = num;
         } else {
             // FIXME: 这里直接32可不可以？
-            IrContext.synValue = new ConstInt(32, num);
+            IrContext.getInstance().synValue = new ConstInt(32, num);
         }
     }
 }
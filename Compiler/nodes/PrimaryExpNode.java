@@ -1,6 +1,7 @@
 package nodes;
 
 import frontend.Token;
+import frontend.TokenType;
 import ir.IrBuilder;
 import ir.IrContext;
 import ir.types.PointerType;
@@ -14,9 +15,7 @@ import utils.IOUtils;
  */
 public class PrimaryExpNode {
     // 这里就给出三种构造函数了，具体怎么预读，交给parser去做吧
-    private Token leftParent = null;
     private ExpNode expNode = null;
-    private Token rightParent = null;
     private LValNode lVal = null;
     private NumberNode numberNode = null;
     private CharacterNode characterNode = null;
@@ -37,10 +36,8 @@ public class PrimaryExpNode {
         return characterNode;
     }
 
-    public PrimaryExpNode(Token leftParent, ExpNode expNode, Token rightParent) {
-        this.leftParent = leftParent;
+    public PrimaryExpNode(ExpNode expNode) {
         this.expNode = expNode;
-        this.rightParent = rightParent;
     }
     public PrimaryExpNode(LValNode lVal) {
         this.lVal = lVal;
@@ -54,9 +51,9 @@ public class PrimaryExpNode {
     
     public void print() {
         if (expNode != null) {
-            IOUtils.write(leftParent.toString());
+            IOUtils.write(Token.toString(TokenType.LPARENT));
             expNode.print();
-            IOUtils.write(rightParent.toString());
+            IOUtils.write(Token.toString(TokenType.RPARENT));
         } else if (lVal != null) {
             lVal.print();
         } else if (numberNode != null) {
@@ -70,7 +67,7 @@ public class PrimaryExpNode {
     // PrimaryExp -> '(' Exp ')' | LVal | Number | Character
     public void buildIr() {
         // 1. 常量
-        if (IrContext.isBuildingConstExp) {
+        if (IrContext.getInstance().isBuildingConstExp) {
             if (expNode != null) {
                 expNode.buildIr();
             } else if (lVal != null) {
@@ -87,16 +84,16 @@ public class PrimaryExpNode {
             if (lVal != null) {
                 // 如果正在加载函数参数，并且要求指针类型的value，就不load了
                 // 需要消除isBuildingPointerRParam的标记，因为后续可能还进入primaryExp
-                if (IrContext.isBuildingPointerRParam) {
-                    IrContext.isBuildingPointerRParam = false;
+                if (IrContext.getInstance().isBuildingPointerRParam) {
+                    IrContext.getInstance().isBuildingPointerRParam = false;
                     lVal.buildIr();
                 }
                 // 如果是指针类型，那么进行加载。
                 // 指针类型在通常状态下的加载，即在此实现（这是所有代码唯二两次load的地方）
                 else {
                     lVal.buildIr();
-                    if (IrContext.synValue.getType() instanceof PointerType) {
-                        IrContext.synValue = IrBuilder.buildLoadInstruction(IrContext.synValue, IrContext.curBlock);
+                    if (IrContext.getInstance().synValue.getType() instanceof PointerType) {
+                        IrContext.getInstance().synValue = IrBuilder.buildLoadInstruction(IrContext.getInstance().synValue, IrContext.getInstance().curBlock);
                     }
                 }
             } else if (expNode != null) {
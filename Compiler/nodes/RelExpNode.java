@@ -1,6 +1,7 @@
 package nodes;
 
 import frontend.Token;
+import frontend.TokenType;
 import ir.IrBuilder;
 import ir.IrContext;
 import ir.values.Value;
@@ -15,7 +16,7 @@ import utils.IOUtils;
  */
 public class RelExpNode {
     private AddExpNode addExpNode;
-    private Token op;
+    private TokenType op;
     private RelExpNode relExpNode;
 
     public AddExpNode getAddExpNode() {
@@ -26,7 +27,7 @@ public class RelExpNode {
         return relExpNode;
     }
 
-    public RelExpNode(AddExpNode addExpNode, Token op, RelExpNode relExpNode) {
+    public RelExpNode(AddExpNode addExpNode, TokenType op, RelExpNode relExpNode) {
         this.addExpNode = addExpNode;
         this.op = op;
         this.relExpNode = relExpNode;
@@ -46,7 +47,7 @@ public class RelExpNode {
             addExpNode.print();
         } else {
             relExpNode.print();
-            IOUtils.write(op.toString());
+            IOUtils.write(Token.toString(op));
             addExpNode.print();
         }
         IOUtils.write("<RelExp>\n");
@@ -59,26 +60,26 @@ public class RelExpNode {
             addExpNode.buildIr();
         } else {
             relExpNode.buildIr();
-            Value opLeft = IrContext.synValue;
+            Value opLeft = IrContext.getInstance().synValue;
             addExpNode.buildIr();
-            Value opRight = IrContext.synValue;
+            Value opRight = IrContext.getInstance().synValue;
             // 如果是i1类型，要扩展到i32类型的
             if (opLeft.getType().isI1()) {
-                opLeft = IrBuilder.buildZextInstruction(opLeft, IrContext.curBlock);
+                opLeft = IrBuilder.buildZextInstruction(opLeft, IrContext.getInstance().curBlock);
             }
             if (opRight.getType().isI1()) {
-                opRight = IrBuilder.buildZextInstruction(opRight, IrContext.curBlock);
+                opRight = IrBuilder.buildZextInstruction(opRight, IrContext.getInstance().curBlock);
             }
             // 比较类型
             Icmp.CondType condType;
-            condType = switch (op.getType()) {
+            condType = switch (op) {
                 case LSS -> Icmp.CondType.LSS;  // <
                 case LEQ -> Icmp.CondType.LEQ;  // <=
                 case GRE -> Icmp.CondType.GRE;  // >
                 default -> Icmp.CondType.GEQ;   // >=
             };
             // 返回值为该次比较的结果
-            IrContext.synValue = IrBuilder.buildICmpInstruction(opLeft, opRight, condType, IrContext.curBlock);
+            IrContext.getInstance().synValue = IrBuilder.buildICmpInstruction(opLeft, opRight, condType, IrContext.getInstance().curBlock);
         }
     }
 }
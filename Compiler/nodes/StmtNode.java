@@ -1,12 +1,14 @@
 package nodes;
 
 import frontend.Token;
+import frontend.TokenType;
 import ir.IrBuilder;
 import ir.IrContext;
 import ir.IrSymTableStack;
 import ir.types.VoidType;
 import ir.values.BasicBlock;
 import ir.values.Function;
+import ir.values.Module;
 import ir.values.Value;
 import utils.IOUtils;
 import utils.IrUtils;
@@ -35,31 +37,22 @@ public class StmtNode {
     }
     private StmtType type;
     private LValNode lValNode;
-    private Token assignToken;
     private ExpNode expNode;
-    private Token semicolonToken;
     private BlockNode blockNode;
-    private Token ifToken;
-    private Token leftParenToken;
     private CondNode condNode;
-    private Token rightParenToken;
     private List<StmtNode> stmtNodes;
-    private Token elseToken;
-    private Token forToken;
     private ForStmtNode forStmtNode1;
-    private Token semicolonToken2;
     private ForStmtNode forStmtNode2;
-    private Token breakContinueToken;
-    private Token returnToken;
-    private Token getintGetCharToken;
-    private Token printfToken;
-    private Token StringConstToken;
-    private List<Token> commas;
     private List<ExpNode> expNodes;
+    // 格式字符串的单词（带引号）
+    private String stringConst;
+    // 保留字的行号（break、continue、return、printf），语义分析报错时用到
+    // 其余的保留字和符号由语句类型决定，不保存
+    private int keywordLine;
 
     // 语义分析用到，处理g类错误
     public Token getReturnToken() {
-        return returnToken;
+        return type == StmtType.RETURN ? new Token(TokenType.RETURNTK, TokenType.RETURNTK.getText(), keywordLine) : null;
     }
 
     public LValNode getLValNode() {
@@ -87,8 +80,8 @@ public class StmtNode {
         return stmtNodes;
     }
 
-    public Token getElseToken() {
-        return elseToken;
+    public boolean hasElse() {
+        return type == StmtType.IF && stmtNodes.size() > 1;
     }
 
     public ForStmtNode getForStmtNode1() {
@@ -100,7 +93,8 @@ public class StmtNode {
     }
 
     public Token getBreakContinueToken() {
-        return breakContinueToken;
+        TokenType keyword = type == StmtType.BREAK ? TokenType.BREAKTK : TokenType.CONTINUETK;
+        return new Token(keyword, keyword.getText(), keywordLine);
     }
 
     public List<ExpNode> getExpNodes() {
@@ -108,28 +102,25 @@ public class StmtNode {
     }
 
     public Token getPrintfToken() {
-        return printfToken;
+        return new Token(TokenType.PRINTFTK, TokenType.PRINTFTK.getText(), keywordLine);
     }
 
-    public Token getStringConstToken() {
-        return StringConstToken;
+    public String getStringConst() {
+        return stringConst;
     }
 
     // 每种stmt分别对应一种构造函数，break和continue合二为一，getint和getchar合二为一
-    public StmtNode(StmtType type, LValNode lValNode, Token assignToken, ExpNode expNode, Token semicolonToken) {
+    public StmtNode(StmtType type, LValNode lValNode, ExpNode expNode) {
         // LVal '=' Exp ';'
         this.type = type;
         this.lValNode = lValNode;
-        this.assignToken = assignToken;
         this.expNode = expNode;
-        this.semicolonToken = semicolonToken;
     }
 
-    public StmtNode(StmtType type, ExpNode expNode, Token semicolonToken) {
+    public StmtNode(StmtType type, ExpNode expNode) {
         // [Exp] ';'
         this.type = type;
         this.expNode = expNode;
-        this.semicolonToken = semicolonToken;
     }
 
     public StmtNode(StmtType type, BlockNode blockNode) {
@@ -138,68 +129,47 @@ public class StmtNode {
         this.blockNode = blockNode;
     }
 
-    public StmtNode(StmtType type, Token ifToken, Token leftParenToken, CondNode condNode, Token rightParenToken, List<StmtNode> stmtNodes, Token elseToken) {
+    public StmtNode(StmtType type, CondNode condNode, List<StmtNode> stmtNodes) {
         // 'if' '(' Cond ')' Stmt [ 'else' Stmt ]
         this.type = type;
-        this.ifToken = ifToken;
-        this.leftParenToken = leftParenToken;
         this.condNode = condNode;
-        this.rightParenToken = rightParenToken;
         this.stmtNodes = stmtNodes;
-        this.elseToken = elseToken;
     }
 
-    public StmtNode(StmtType type, Token forToken, Token leftParenToken, ForStmtNode forStmtNode1, Token semicolonToken,
-                    CondNode condNode, Token semicolonToken2, ForStmtNode forStmtNode2, Token rightParenToken, List<StmtNode> stmtNodes) {
+    public StmtNode(StmtType type, ForStmtNode forStmtNode1, CondNode condNode, ForStmtNode forStmtNode2, List<StmtNode> stmtNodes) {
         // 'for' '(' [ForStmt] ';' [Cond] ';' [ForStmt] ')' Stmt
         this.type = type;
-        this.forToken = forToken;
-        this.leftParenToken = leftParenToken;
         this.forStmtNode1 = forStmtNode1;
-        this.semicolonToken = semicolonToken;
         this.condNode = condNode;
-        this.semicolonToken2 = semicolonToken2;
         this.forStmtNode2 = forStmtNode2;
-        this.rightParenToken = rightParenToken;
         this.stmtNodes = stmtNodes;
     }
 
-    public StmtNode(StmtType type, Token breakContinueToken, Token semicolonToken) {
+    public StmtNode(StmtType type, int keywordLine) {
         // 'break' ';' | 'continue' ';'
         this.type = type;
-        this.breakContinueToken = breakContinueToken;
-        this.semicolonToken = semicolonToken;
+        this.keywordLine = keywordLine;
     }
 
-    public StmtNode(StmtType type, Token returnToken, ExpNode expNode, Token semicolonToken) {
+    public StmtNode(StmtType type, int keywordLine, ExpNode expNode) {
         // 'return' [Exp] ';'
         this.type = type;
-        this.returnToken = returnToken;
+        this.keywordLine = keywordLine;
         this.expNode = expNode;
-        this.semicolonToken = semicolonToken;
     }
 
-    public StmtNode(StmtType type, LValNode lValNode, Token assign, Token getintGetCharToken, Token leftParenToken, Token rightParenToken, Token semicolonToken) {
+    public StmtNode(StmtType type, LValNode lValNode) {
         // LVal '=' 'getint''('')'';' | LVal '=' 'getchar''('')'';'
         this.type = type;
         this.lValNode = lValNode;
-        this.assignToken = assign;
-        this.getintGetCharToken = getintGetCharToken;
-        this.leftParenToken = leftParenToken;
-        this.rightParenToken = rightParenToken;
-        this.semicolonToken = semicolonToken;
     }
 
-    public StmtNode(StmtType type, Token printfToken, Token leftParenToken, Token StringConstToken, List<Token> commas, List<ExpNode> expNodes, Token rightParenToken, Token semicolonToken) {
+    public StmtNode(StmtType type, int keywordLine, String stringConst, List<ExpNode> expNodes) {
         // 'printf''('StringConst {','Exp}')'';'
         this.type = type;
-        this.printfToken = printfToken;
-        this.leftParenToken = leftParenToken;
-        this.StringConstToken = StringConstToken;
-        this.commas = commas;
+        this.keywordLine = keywordLine;
+        this.stringConst = stringConst;
         this.expNodes = expNodes;
-        this.rightParenToken = rightParenToken;
-        this.semicolonToken = semicolonToken;
     }
 
     public void print() {
@@ -207,15 +177,15 @@ public class StmtNode {
             case ASSIGN:
                 // LVal '=' Exp ';'
                 lValNode.print();
-                IOUtils.write(assignToken.toString());
+                IOUtils.write(Token.toString(TokenType.ASSIGN));
                 expNode.print();
-                IOUtils.write(semicolonToken.toString());
+                IOUtils.write(Token.toString(TokenType.SEMICN));
                 break;
             case EXP:
                 // [Exp] ';'
                 if (expNode != null)
                     expNode.print();
-                IOUtils.write(semicolonToken.toString());
+                IOUtils.write(Token.toString(TokenType.SEMICN));
                 break;
             case BLOCK:
                 // Block
@@ -223,66 +193,66 @@ public class StmtNode {
                 break;
             case IF:
                 // 'if' '(' Cond ')' Stmt [ 'else' Stmt ]
-                IOUtils.write(ifToken.toString());
-                IOUtils.write(leftParenToken.toString());
+                IOUtils.write(Token.toString(TokenType.IFTK));
+                IOUtils.write(Token.toString(TokenType.LPARENT));
                 condNode.print();
-                IOUtils.write(rightParenToken.toString());
+                IOUtils.write(Token.toString(TokenType.RPARENT));
                 stmtNodes.get(0).print();
-                if (elseToken != null) {
-                    IOUtils.write(elseToken.toString());
+                if (hasElse()) {
+                    IOUtils.write(Token.toString(TokenType.ELSETK));
                     stmtNodes.get(1).print();
                 }
                 break;
             case FOR:
                 // 'for' '(' [ForStmt] ';' [Cond] ';' [ForStmt] ')' Stmt
-                IOUtils.write(forToken.toString());
-                IOUtils.write(leftParenToken.toString());
+                IOUtils.write(Token.toString(TokenType.FORTK));
+                IOUtils.write(Token.toString(TokenType.LPARENT));
                 if (forStmtNode1 != null)
                     forStmtNode1.print();
-                IOUtils.write(semicolonToken.toString());
+                IOUtils.write(Token.toString(TokenType.SEMICN));
                 if (condNode != null)
                     condNode.print();
-                IOUtils.write(semicolonToken2.toString());
+                IOUtils.write(Token.toString(TokenType.SEMICN));
                 if (forStmtNode2 != null) {
                     forStmtNode2.print();
                 }
-                IOUtils.write(rightParenToken.toString());
+                IOUtils.write(Token.toString(TokenType.RPARENT));
                 stmtNodes.get(0).print();
                 break;
             case BREAK:
             case CONTINUE:
                 // 'break' ';' | 'continue' ';'
-                IOUtils.write(breakContinueToken.toString());
-                IOUtils.write(semicolonToken.toString());
+                IOUtils.write(Token.toString(type == StmtType.BREAK ? TokenType.BREAKTK : TokenType.CONTINUETK));
+                IOUtils.write(Token.toString(TokenType.SEMICN));
                 break;
             case RETURN:
                 // 'return' [Exp] ';'
-                IOUtils.write(returnToken.toString());
+                IOUtils.write(Token.toString(TokenType.RETURNTK));
                 if (expNode != null)
                     expNode.print();
-                IOUtils.write(semicolonToken.toString());
+                IOUtils.write(Token.toString(TokenType.SEMICN));
                 break;
             case GETINT:
             case GETCHAR:
                 // LVal '=' 'getint''('')'';' | LVal '=' 'getchar''('')'';'
                 lValNode.print();
-                IOUtils.write(assignToken.toString());
-                IOUtils.write(getintGetCharToken.toString());
-                IOUtils.write(leftParenToken.toString());
-                IOUtils.write(rightParenToken.toString());
-                IOUtils.write(semicolonToken.toString());
+                IOUtils.write(Token.toString(TokenType.ASSIGN));
+                IOUtils.write(Token.toString(type == StmtType.GETINT ? TokenType.GETINTTK : TokenType.GETCHARTK));
+                IOUtils.write(Token.toString(TokenType.LPARENT));
+                IOUtils.write(Token.toString(TokenType.RPARENT));
+                IOUtils.write(Token.toString(TokenType.SEMICN));
                 break;
             case PRINTF:
                 // 'printf''('StringConst {','Exp}')'';'
-                IOUtils.write(printfToken.toString());
-                IOUtils.write(leftParenToken.toString());
-                IOUtils.write(StringConstToken.toString());
-                for (int i = 0; i < commas.size(); i++) {
-                    IOUtils.write(commas.get(i).toString());
-                    expNodes.get(i).print();
+                IOUtils.write(Token.toString(TokenType.PRINTFTK));
+                IOUtils.write(Token.toString(TokenType.LPARENT));
+                IOUtils.write(Token.toString(TokenType.STRCON, stringConst));
+                for (ExpNode node : expNodes) {
+                    IOUtils.write(Token.toString(TokenType.COMMA));
+                    node.print();
                 }
-                IOUtils.write(rightParenToken.toString());
-                IOUtils.write(semicolonToken.toString());
+                IOUtils.write(Token.toString(TokenType.RPARENT));
+                IOUtils.write(Token.toString(TokenType.SEMICN));
                 break;
         }
         IOUtils.write("<Stmt>\n");
@@ -329,11 +299,11 @@ public class StmtNode {
     // LVal '=' Exp ';'
     private void buildAssignIr() {
         lValNode.buildIr();
-        Value lVal = IrContext.synValue;
+        Value lVal = IrContext.getInstance().synValue;
         expNode.buildIr();
-        Value exp = IrContext.synValue;
+        Value exp = IrContext.getInstance().synValue;
         // 向lVal所处地址存储exp的内容
-        IrBuilder.buildStoreInstruction(exp, lVal, IrContext.curBlock);
+        IrBuilder.buildStoreInstruction(exp, lVal, IrContext.getInstance().curBlock);
     }
 
     // [Exp] ';'
@@ -355,14 +325,14 @@ public class StmtNode {
     private void buildIfIr() {
         // ====== 1. 为解析Cond准备基本块 ======
         // trueBranch: cond为true时进入的块
-        BasicBlock trueBranch = IrBuilder.buildBasicBlock(IrContext.curFunction);
+        BasicBlock trueBranch = IrBuilder.buildBasicBlock(IrContext.getInstance().curFunction);
         // nextBlock: if结束后跳转到的新块
-        BasicBlock nextBlock = IrBuilder.buildBasicBlock(IrContext.curFunction);
+        BasicBlock nextBlock = IrBuilder.buildBasicBlock(IrContext.getInstance().curFunction);
         // falseBranch: cond为false时进入的块，若没有else就是nextBlock
         BasicBlock falseBranch = nextBlock;
         // 如果有else，那么nextBranch就要新建啦
-        if (elseToken != null) {
-            falseBranch = IrBuilder.buildBasicBlock(IrContext.curFunction);
+        if (hasElse()) {
+            falseBranch = IrBuilder.buildBasicBlock(IrContext.getInstance().curFunction);
         }
 
         // ====== 2. 丝滑连招，解析Cond ======
@@ -371,20 +341,20 @@ public class StmtNode {
         condNode.buildIr();
 
         // ====== 3. 在trueBranch中解析Stmt1，顺带跳转到nextBlock ======
-        IrContext.curBlock = trueBranch;
+        IrContext.getInstance().curBlock = trueBranch;
         stmtNodes.get(0).buildIr();
         // 跳转语句，到if外面去
-        IrBuilder.buildBrInstruction(nextBlock, IrContext.curBlock);
+        IrBuilder.buildBrInstruction(nextBlock, IrContext.getInstance().curBlock);
 
         // ====== 4. 若有else，则在falseBranch中解析Stmt2，顺带跳转到nextBlock ======
-        if (elseToken != null) {
-            IrContext.curBlock = falseBranch;
+        if (hasElse()) {
+            IrContext.getInstance().curBlock = falseBranch;
             stmtNodes.get(1).buildIr();
-            IrBuilder.buildBrInstruction(nextBlock, IrContext.curBlock);
+            IrBuilder.buildBrInstruction(nextBlock, IrContext.getInstance().curBlock);
         }
 
         // ====== 5. 回到nextBlock，完成解析 ======
-        IrContext.curBlock = nextBlock;
+        IrContext.getInstance().curBlock = nextBlock;
     }
 
     // 'for' '(' [ForStmt] ';' [Cond] ';' [ForStmt] ')' Stmt
@@ -392,23 +362,23 @@ public class StmtNode {
     private void buildForIr(){
         // ====== 0. 预备四个块：cond, loop, loopEnd, end ======
         // cond: 条件判断
-        BasicBlock condBlock = IrBuilder.buildBasicBlock(IrContext.curFunction);
+        BasicBlock condBlock = IrBuilder.buildBasicBlock(IrContext.getInstance().curFunction);
         // loop: 循环体
-        BasicBlock loopBlock = IrBuilder.buildBasicBlock(IrContext.curFunction);
+        BasicBlock loopBlock = IrBuilder.buildBasicBlock(IrContext.getInstance().curFunction);
         // loopEnd: 自增块，需要跳转到cond
-        BasicBlock loopEndBlock = IrBuilder.buildBasicBlock(IrContext.curFunction);
+        BasicBlock loopEndBlock = IrBuilder.buildBasicBlock(IrContext.getInstance().curFunction);
         // end: 整个for结束，跳转到下一个基本块
-        BasicBlock endBlock = IrBuilder.buildBasicBlock(IrContext.curFunction);
+        BasicBlock endBlock = IrBuilder.buildBasicBlock(IrContext.getInstance().curFunction);
 
         // ====== 1. headBlock 解析forStmt1 ======
         if (forStmtNode1 != null) {
             forStmtNode1.buildIr();
         }
         // 跳转到condBlock
-        IrBuilder.buildBrInstruction(condBlock, IrContext.curBlock);
+        IrBuilder.buildBrInstruction(condBlock, IrContext.getInstance().curBlock);
 
         // ====== 2. condBlock 解析cond ======
-        IrContext.curBlock = condBlock;
+        IrContext.getInstance().curBlock = condBlock;
         if (condNode != null) {
             // 继续循环进入loopBlock，否则结束整个for进入endBlock
             condNode.setTrueBranch(loopBlock);
@@ -416,49 +386,49 @@ public class StmtNode {
             condNode.buildIr();
         } else {
             // 没有条件，直接进入loopBlock
-            IrBuilder.buildBrInstruction(loopBlock, IrContext.curBlock);
+            IrBuilder.buildBrInstruction(loopBlock, IrContext.getInstance().curBlock);
         }
 
         // ====== 3. loopEndBlock 解析forStmt2 但是它会放在loopBlock的后面 ======
-        IrContext.curBlock = loopEndBlock;
+        IrContext.getInstance().curBlock = loopEndBlock;
         if (forStmtNode2 != null) {
             forStmtNode2.buildIr();
         }
         // 跳转到condBlock
-        IrBuilder.buildBrInstruction(condBlock, IrContext.curBlock);
+        IrBuilder.buildBrInstruction(condBlock, IrContext.getInstance().curBlock);
 
         // ====== 4. loopBlock 解析stmt ======
-        IrContext.curBlock = loopBlock;
+        IrContext.getInstance().curBlock = loopBlock;
         // 额外设置好loopEndBlock栈和endBlock栈，分别用于continue和break跳转
-        IrContext.loopEndBlockStack.push(loopEndBlock);
+        IrContext.getInstance().loopEndBlockStack.push(loopEndBlock);
         // break是进入外层的基本块，continue是从
-        IrContext.endBlockStack.push(endBlock);
+        IrContext.getInstance().endBlockStack.push(endBlock);
         // 解析stmt
         stmtNodes.get(0).buildIr();
         // 完成当前解析，弹栈
-        IrContext.loopEndBlockStack.pop();
-        IrContext.endBlockStack.pop();
+        IrContext.getInstance().loopEndBlockStack.pop();
+        IrContext.getInstance().endBlockStack.pop();
         // loopBlock结束后跳转到自增块loopEndBlock
-        IrBuilder.buildBrInstruction(loopEndBlock, IrContext.curBlock);
+        IrBuilder.buildBrInstruction(loopEndBlock, IrContext.getInstance().curBlock);
 
         // ====== 5. 解析完毕 ======
-        IrContext.curBlock = endBlock;
+        IrContext.getInstance().curBlock = endBlock;
     }
 
     // 'break' ';'
     private void buildBreakIr() {
         // 强制跳转到endBlock
-        IrBuilder.buildBrInstruction(IrContext.endBlockStack.peek(), IrContext.curBlock);
+        IrBuilder.buildBrInstruction(IrContext.getInstance().endBlockStack.peek(), IrContext.getInstance().curBlock);
         // break后的代码失效，因此应该新建一个块，将其附着在新的Function上面，但function不加入module，实现丢弃代码的效果
-        IrContext.curBlock = new BasicBlock("dead_block_break", new Function("dead_function_break", new VoidType(), new ArrayList<>(), false));
+        IrContext.getInstance().curBlock = new BasicBlock("dead_block_break", new Function("dead_function_break", new VoidType(), new ArrayList<>(), false));
     }
 
     // 'continue' ';'
     private void buildContinueIr() {
         // 强制跳转到loopEndBlock
-        IrBuilder.buildBrInstruction(IrContext.loopEndBlockStack.peek(), IrContext.curBlock);
+        IrBuilder.buildBrInstruction(IrContext.getInstance().loopEndBlockStack.peek(), IrContext.getInstance().curBlock);
         // continue后的代码失效，因此应该新建一个块，将其附着在新的Function上面，但function不加入module，实现丢弃代码的效果
-        IrContext.curBlock = new BasicBlock("dead_block_continue", new Function("dead_function_continue", new VoidType(), new ArrayList<>(), false));
+        IrContext.getInstance().curBlock = new BasicBlock("dead_block_continue", new Function("dead_function_continue", new VoidType(), new ArrayList<>(), false));
     }
 
     // 'return' [Exp] ';'
@@ -467,31 +437,31 @@ public class StmtNode {
         if(expNode != null) {
             expNode.buildIr();
             // 执行完buildIr，把buildIr存入synValue的值取出来
-            retExp = IrContext.synValue;
+            retExp = IrContext.getInstance().synValue;
         }
-        IrBuilder.buildRetInstruction(IrContext.curBlock, retExp);
+        IrBuilder.buildRetInstruction(IrContext.getInstance().curBlock, retExp);
     }
 
     // LVal '=' 'getint''('')'';'
     private void buildGetintIr() {
         lValNode.buildIr();
-        Value lVal = IrContext.synValue;
+        Value lVal = IrContext.getInstance().synValue;
         // 调用getint
         // 没有参数，实参列表就是空list
-        Value getIntResult = IrBuilder.buildCallInstruction(Function.getint, new ArrayList<>(), IrContext.curBlock);
+        Value getIntResult = IrBuilder.buildCallInstruction(Module.getInstance().getint, new ArrayList<>(), IrContext.getInstance().curBlock);
         // 把读到的值存入lVal
-        IrBuilder.buildStoreInstruction(getIntResult, lVal, IrContext.curBlock);
+        IrBuilder.buildStoreInstruction(getIntResult, lVal, IrContext.getInstance().curBlock);
     }
 
     // LVal '=' 'getchar''('')'';'
     private void buildGetcharIr() {
         lValNode.buildIr();
-        Value lVal = IrContext.synValue;
+        Value lVal = IrContext.getInstance().synValue;
         // 调用getchar
         // 没有参数，实参列表就是空list
-        Value getCharResult = IrBuilder.buildCallInstruction(Function.getchar, new ArrayList<>(), IrContext.curBlock);
+        Value getCharResult = IrBuilder.buildCallInstruction(Module.getInstance().getchar, new ArrayList<>(), IrContext.getInstance().curBlock);
         // 把读到的值存入lVal
-        IrBuilder.buildStoreInstruction(getCharResult, lVal, IrContext.curBlock);
+        IrBuilder.buildStoreInstruction(getCharResult, lVal, IrContext.getInstance().curBlock);
     }
 
     // 'printf''('StringConst {','Exp}')'';'
@@ -500,9 +470,9 @@ public class StmtNode {
         // 解析Exp，将解析出来的格式化变量存入params中
         for (ExpNode expNode1: expNodes) {
             expNode1.buildIr();
-            params.add(IrContext.synValue);
+            params.add(IrContext.getInstance().synValue);
         }
-        String formatStr = StringConstToken.getValue();
+        String formatStr = stringConst;
         // 把stringConst分割成多个字符串便于输出
         ArrayList<String> splitStrings = IrUtils.splitFormatString(formatStr);
 
@@ -511,15 +481,15 @@ public class StmtNode {
             // %d或%c, 改为输出对应的exp
             if(splitStr.equals("%d")) {
                 Value param = params.get(expIndex);
-                IrBuilder.buildCallInstruction(Function.putint, new ArrayList<>() {{
+                IrBuilder.buildCallInstruction(Module.getInstance().putint, new ArrayList<>() {{
                     add(param);
-                }}, IrContext.curBlock);
+                }}, IrContext.getInstance().curBlock);
                 expIndex++;
             } else if(splitStr.equals("%c")) {
                 Value param = params.get(expIndex);
-                IrBuilder.buildCallInstruction(Function.putch, new ArrayList<>() {{
+                IrBuilder.buildCallInstruction(Module.getInstance().putch, new ArrayList<>() {{
                     add(param);
-                }}, IrContext.curBlock);
+                }}, IrContext.getInstance().curBlock);
                 expIndex++;
             } else {
                 // 常量字符串，构造全局变量，输出
@@ -531,10 +501,10 @@ public class StmtNode {
 	             * call void @putstr(i8* %i2)
                  */
                 // 作为函数参数，类型应当是i8*，需要降维gep
-                Value strParam = IrBuilder.buildRankDownInstruction(IrContext.intBits, strGlobalVar, IrContext.curBlock);
-                IrBuilder.buildCallInstruction(Function.putstr, new ArrayList<>(){{
+                Value strParam = IrBuilder.buildRankDownInstruction(IrContext.getInstance().intBits, strGlobalVar, IrContext.getInstance().curBlock);
+                IrBuilder.buildCallInstruction(Module.getInstance().putstr, new ArrayList<>(){{
                     add(strParam);
-                }}, IrContext.curBlock);
+                }}, IrContext.getInstance().curBlock);
             }
         }
     }
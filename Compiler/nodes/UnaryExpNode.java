@@ -25,10 +25,9 @@ import java.util.List;
 public class UnaryExpNode {
     // 这里就给出两种构造函数了，具体怎么预读，交给parser去做吧
     private PrimaryExpNode primaryExpNode = null;
+    // 函数调用比较少，函数名直接保存 Token（节点比保存单词和行号少一个字段）
     private Token ident = null;
-    private Token leftParent = null;
     private FuncRParamsNode funcRParamsNode = null;
-    private Token rightParent = null;
     private UnaryOpNode unaryOpNode = null;
     private UnaryExpNode unaryExpNode = null;
 
@@ -52,11 +51,9 @@ public class UnaryExpNode {
         this.primaryExpNode = primaryExpNode;
     }
 
-    public UnaryExpNode(Token ident, Token leftParent, FuncRParamsNode funcRParamsNode, Token rightParent) {
+    public UnaryExpNode(Token ident, FuncRParamsNode funcRParamsNode) {
         this.ident = ident;
-        this.leftParent = leftParent;
         this.funcRParamsNode = funcRParamsNode;
-        this.rightParent = rightParent;
     }
 
     public UnaryExpNode(UnaryOpNode unaryOpNode, UnaryExpNode unaryExpNode) {
@@ -69,11 +66,11 @@ public class UnaryExpNode {
             primaryExpNode.print();
         } else if (ident != null) {
             IOUtils.write(ident.toString());
-            IOUtils.write(leftParent.toString());
+            IOUtils.write(Token.toString(TokenType.LPARENT));
             if (funcRParamsNode != null) {
                 funcRParamsNode.print();
             }
-            IOUtils.write(rightParent.toString());
+            IOUtils.write(Token.toString(TokenType.RPARENT));
         } else {
             unaryOpNode.print();
             unaryExpNode.print();
@@ -84,7 +81,7 @@ public class UnaryExpNode {
     // UnaryExp -> PrimaryExp | Ident '(' [FuncRParams] ')' | UnaryOp UnaryExp
     public void buildIr() {
         // 1. 常量，只可能是PrimaryExp | UnaryOp UnaryExp
-        if (IrContext.isBuildingConstExp) {
+        if (IrContext.getInstance().isBuildingConstExp) {
             // 1.1 PrimaryExp
             if (primaryExpNode != null) {
                 primaryExpNode.buildIr();
@@ -94,10 +91,10 @@ public class UnaryExpNode {
             else if (unaryExpNode != null) {
                 // 此处就不用构建指令了，直接改值即可！
                 unaryExpNode.buildIr();
-                if (unaryOpNode.getOp().getType() == TokenType.MINU) {
-                    IrContext.synInt = -IrContext.synInt;
-                } else if (unaryOpNode.getOp().getType() == TokenType.NOT) {
-                    IrContext.synInt = IrContext.synInt == 0 ? 1 : 0;
+                if (unaryOpNode.getOp() == TokenType.MINU) {
+                    IrContext.getInstance().synInt = -IrContext.getInstance().synInt;
+                } else if (unaryOpNode.getOp() == TokenType.NOT) {
+                    IrContext.getInstance().synInt = IrContext.getInstance().synInt == 0 ? 1 : 0;
                 }   // PLUS不处理
             }
         }
@@ -111,14 +108,14 @@ public class UnaryExpNode {
                 unaryExpNode.buildIr();
                 // 此处就必须构建指令了，因为变量经过一元表达式后的取值是由指令决定的！
                 // FIXME: 这里有问题！所有涉及32的地方都应具体判断是int还是char！11.21解决，使用IrContext.intBits
-                if (unaryOpNode.getOp().getType() == TokenType.MINU) {
-                    IrContext.synValue = IrBuilder.buildSubInstruction(ConstInt.ZERO(32), IrContext.synValue, IrContext.curBlock);
-                } else if (unaryOpNode.getOp().getType() == TokenType.NOT) {
+                if (unaryOpNode.getOp() == TokenType.MINU) {
+                    IrContext.getInstance().synValue = IrBuilder.buildSubInstruction(ConstInt.ZERO(32), IrContext.getInstance().synValue, IrContext.getInstance().curBlock);
+                } else if (unaryOpNode.getOp() == TokenType.NOT) {
                     // icmp指令得到的是i1类型的值，需要转换成i32
-                    IrContext.synValue = IrBuilder.buildICmpInstruction(
-                        ConstInt.ZERO(32), IrContext.synValue, Icmp.CondType.EQL, IrContext.curBlock
+                    IrContext.getInstance().synValue = IrBuilder.buildICmpInstruction(
+                        ConstInt.ZERO(32), IrContext.getInstance().synValue, Icmp.CondType.EQL, IrContext.getInstance().curBlock
                     );
-                    IrContext.synValue = IrBuilder.buildZextInstruction(IrContext.synValue, IrContext.curBlock);
+                    IrContext.getInstance().synValue = IrBuilder.buildZextInstruction(IrContext.getInstance().synValue, IrContext.getInstance().curBlock);
                 }
             } else if (ident != null) {
                 // 3. Ident '(' [FuncRParams] ')'
@@ -137,17 +134,17 @@ public class UnaryExpNode {
                         ValueType fType = argFValues.get(i).getType();
                         // 如果形参要求指针类型，那么后续遇到synValue第一次是指针类型时，不进行store操作
                         if (fType instanceof PointerType) {
-                            IrContext.isBuildingPointerRParam = true;
+                            IrContext.getInstance().isBuildingPointerRParam = true;
                         }
                         // 在这里解析各个实参，FuncRParams就不干事儿了，没有buildIr()方法
                         expNodes.get(i).buildIr();
                         // 把解析好的实参放入argRValues
-                        argRValues.add(IrContext.synValue);
-                        IrContext.isBuildingPointerRParam = false;
+                        argRValues.add(IrContext.getInstance().synValue);
+                        IrContext.getInstance().isBuildingPointerRParam = false;
                     }
                 }   // 3.2 如果没有实参，不处理
                 // 参数解析均完成，构建指令
-                IrContext.synValue = IrBuilder.buildCallInstruction(function, argRValues, IrContext.curBlock);
+                IrContext.getInstance().synValue = IrBuilder.buildCallInstruction(function, argRValues, IrContext.getInstance().curBlock);
             }
         }
     }
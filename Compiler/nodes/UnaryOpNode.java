@@ -1,6 +1,7 @@
 package nodes;
 
 import frontend.Token;
+import frontend.TokenType;
 import utils.IOUtils;
 
 /**
@@ -10,17 +11,17 @@ import utils.IOUtils;
  * UnaryOp -> '+' | '−' | '!'
  */
 public class UnaryOpNode {
-    private Token op;
-    public UnaryOpNode(Token op) {
+    private TokenType op;
+    public UnaryOpNode(TokenType op) {
         this.op = op;
     }
 
     public void print() {
-        IOUtils.write(op.toString());
+        IOUtils.write(Token.toString(op));
         IOUtils.write("<UnaryOp>\n");
     }
 
-    public Token getOp() {
+    public TokenType getOp() {
         return op;
     }
 }
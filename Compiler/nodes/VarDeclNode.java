@@ -16,8 +16,6 @@ import java.util.List;
 public class VarDeclNode {
     private BTypeNode bTypeNode;
     private List<VarDefNode> varDefNodes;
-    private List<Token> commas;
-    private Token semicolon;
 
     public BTypeNode getBTypeNode() {
         return bTypeNode;
@@ -27,21 +25,19 @@ public class VarDeclNode {
         return varDefNodes;
     }
 
-    public VarDeclNode(BTypeNode bTypeNode, List<VarDefNode> varDefNodes, List<Token> commas, Token semicolon) {
+    public VarDeclNode(BTypeNode bTypeNode, List<VarDefNode> varDefNodes) {
         this.bTypeNode = bTypeNode;
         this.varDefNodes = varDefNodes;
-        this.commas = commas;
-        this.semicolon = semicolon;
     }
 
     public void print() {
         bTypeNode.print();
         varDefNodes.get(0).print();
         for (int i = 1; i < varDefNodes.size(); i++) {
-            IOUtils.write(commas.get(i-1).toString());
+            IOUtils.write(Token.toString(TokenType.COMMA));
             varDefNodes.get(i).print();
         }
-        IOUtils.write(semicolon.toString());
+        IOUtils.write(Token.toString(TokenType.SEMICN));
         IOUtils.write("<VarDecl>\n");
     }
 
@@ -49,7 +45,7 @@ public class VarDeclNode {
         for (VarDefNode varDefNode : varDefNodes) {
             // 先处理类型信息, Gary自创的，需要接收BTypeNode作为参数以判断是int还是char
             TokenType bTypeNodeType = bTypeNode.getType();
-            IrContext.intBits = (bTypeNodeType == TokenType.INTTK) ? 32 : 8;
+            IrContext.getInstance().intBits = (bTypeNodeType == TokenType.INTTK) ? 32 : 8;
             varDefNode.buildIr();
         }
     }
@@ -20,15 +20,14 @@ import utils.IOUtils;
  * VarDef -> Ident [ '[' ConstExp ']' ] | Ident [ '[' ConstExp ']' ] '=' InitVal
  */
 public class VarDefNode {
-    private Token ident;
-    private Token leftBracket;
+    // 标识符只保存单词和行号，需要时再创建 Token
+    private String ident;
+    private int identLine;
     private ConstExpNode constExpNode;
-    private Token rightBracket;
-    private Token assign;
     private InitValNode initValNode;
 
     public Token getIdent() {
-        return ident;
+        return new Token(TokenType.IDENFR, ident, identLine);
     }
 
     public ConstExpNode getConstExpNode() {
@@ -39,26 +38,24 @@ public class VarDefNode {
         return initValNode;
     }
 
-    public VarDefNode(Token ident, Token leftBracket, ConstExpNode constExpNode, Token rightBracket, Token assign, InitValNode initValNode) {
+    public VarDefNode(String ident, int identLine, ConstExpNode constExpNode, InitValNode initValNode) {
         this.ident = ident;
-        this.leftBracket = leftBracket;
+        this.identLine = identLine;
         this.constExpNode = constExpNode;
-        this.rightBracket = rightBracket;
-        this.assign = assign;
         this.initValNode = initValNode;
     }
 
     public void print() {
-        IOUtils.write(ident.toString());
+        IOUtils.write(Token.toString(TokenType.IDENFR, ident));
         // 如果是数组，则打印两个中括号和下标
-        if (leftBracket != null) {
-            IOUtils.write(leftBracket.toString());
+        if (constExpNode != null) {
+            IOUtils.write(Token.toString(TokenType.LBRACK));
             constExpNode.print();
-            IOUtils.write(rightBracket.toString());
+            IOUtils.write(Token.toString(TokenType.RBRACK));
         }
         // 如果有初始化值，则打印等号和初始化值
         if (initValNode != null) {
-            IOUtils.write(assign.toString());
+            IOUtils.write(Token.toString(TokenType.ASSIGN));
             initValNode.print();
         }
         IOUtils.write("<VarDef>\n");
@@ -74,27 +71,27 @@ public class VarDefNode {
                 ConstInt initVal;
                 if (initValNode == null) {
                     // 未初始化，默认初始化为0
-                    initVal = new ConstInt(IrContext.intBits, 0);
+                    initVal = new ConstInt(IrContext.getInstance().intBits, 0);
                 } else {
                     // 初始化,特别注意指导书中强调了：
                     // 在本次的实验中，全局变/常量声明中指定的初值表达式必须是常量表达式(constExp)
-                    IrContext.isBuildingConstExp = true;
+                    IrContext.getInstance().isBuildingConstExp = true;
                     initValNode.buildIr();
-                    IrContext.isBuildingConstExp = false;
-                    initVal = (ConstInt) IrContext.synValue;
+                    IrContext.getInstance().isBuildingConstExp = false;
+                    initVal = (ConstInt) IrContext.getInstance().synValue;
                 }
-                IrBuilder.buildGlobalVariable(ident.getValue(), false, initVal);
+                IrBuilder.buildGlobalVariable(ident, false, initVal);
             }
             // 1.2 局部非数组变量
             else {
                 // 先分配空间
-                Alloca alloca = IrBuilder.buildAllocaInstruction(new IntType(IrContext.intBits), IrContext.curBlock);
+                Alloca alloca = IrBuilder.buildAllocaInstruction(new IntType(IrContext.getInstance().intBits), IrContext.getInstance().curBlock);
                 // 将<name, pointer>加入符号表
-                IrSymTableStack.addSymToPeek(ident.getValue(), alloca);
+                IrSymTableStack.addSymToPeek(ident, alloca);
                 // 若有初值，进行store
                 if (initValNode != null) {
                     initValNode.buildIr();
-                    IrBuilder.buildStoreInstruction(IrContext.synValue, alloca, IrContext.curBlock);
+                    IrBuilder.buildStoreInstruction(IrContext.getInstance().synValue, alloca, IrContext.getInstance().curBlock);
                 }
                 // 无初值，则不用管，值未知！！
             }
@@ -104,37 +101,37 @@ public class VarDefNode {
         else {
             // 解析数组长度信息
             constExpNode.buildIr();
-            int length = IrContext.synInt;
-            ArrayType arrayType = new ArrayType(new IntType(IrContext.intBits), length);
+            int length = IrContext.getInstance().synInt;
+            ArrayType arrayType = new ArrayType(new IntType(IrContext.getInstance().intBits), length);
             // 2.1 全局数组变量
             if (IrSymTableStack.isBuildingGlobalSymTable()) {
                 // 有初始值
                 if (initValNode != null) {
                     initValNode.setLength(length);
                     // 全局变量初始化一定为constExp
-                    IrContext.isBuildingConstExp = true;
+                    IrContext.getInstance().isBuildingConstExp = true;
                     initValNode.buildIr();
-                    IrContext.isBuildingConstExp = false;
+                    IrContext.getInstance().isBuildingConstExp = false;
                     // 全局数组变量初始化
-                    IrBuilder.buildGlobalVariable(ident.getValue(), false, (ConstArray) IrContext.synValue);
+                    IrBuilder.buildGlobalVariable(ident, false, (ConstArray) IrContext.getInstance().synValue);
                 }
                 // 无初始值，默认初始化为0，用zeroInitializer
                 else {
                     ZeroInitializer zeroInitializer = new ZeroInitializer(arrayType);
-                    IrBuilder.buildGlobalVariable(ident.getValue(), false, zeroInitializer);
+                    IrBuilder.buildGlobalVariable(ident, false, zeroInitializer);
                 }
             }
             // 2.2 局部数组变量
             else {
                 // 先分配空间
-                Alloca arrayPointer = IrBuilder.buildAllocaInstruction(arrayType, IrContext.curBlock);
+                Alloca arrayPointer = IrBuilder.buildAllocaInstruction(arrayType, IrContext.getInstance().curBlock);
                 // 将<name, pointer>加入符号表
-                IrSymTableStack.addSymToPeek(ident.getValue(), arrayPointer);
+                IrSymTableStack.addSymToPeek(ident, arrayPointer);
                 // 若有初值，进行store；无初值，注意！只有**局部变量int数组**部分初始化。
                 if (initValNode != null) {
                     initValNode.setLength(length);
                     initValNode.buildIr();
-                    IrBuilder.buildStoreArrayValues(IrContext.intBits, arrayPointer, length, IrContext.synValueArray, IrContext.curBlock);
+                    IrBuilder.buildStoreArrayValues(IrContext.getInstance().intBits, arrayPointer, length, IrContext.getInstance().synValueArray, IrContext.getInstance().curBlock);
                 }
                 // 局部数组(无论int还是char)无初值，则不用管！！
             }
@@ -0,0 +1,201 @@
+package utils;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * @author Gary
+ * @Description: 批量编译：把一个目录（或清单文件列出的）全部源文件放到固定大小的线程池中编译，每个文件一个独立的 CompilationSession
+ * 用法：java Compiler -batch=<目录或清单文件> [-jobs=<线程数>] [-f...优化选项]
+ * 1. 目录：递归查找 .sy 文件和 testfile.txt
+ * 2. 清单：每行一个源文件路径，相对路径相对于清单所在的目录，空行和 # 开头的行忽略
+ * 结果写在源文件旁边：testfile.txt 对应 llvm_ir.txt、mips.txt、error.txt，和单文件模式相同；
+ * 其他文件 x.sy 对应 x.llvm_ir.txt、x.mips.txt、x.error.txt。没有错误时 error 为空，有错误时另外两个为空
+ * 编译过程中的调试输出会被丢弃，最后输出总的吞吐量
+ * @date 2026/10/18 22:40
+ */
+public class BatchCompiler {
+    // 源文件列表，按目录遍历或者清单中的顺序
+    private final ArrayList<File> sources = new ArrayList<>();
+    // 线程池大小
+    private final int jobs;
+
+    // 单个文件的编译结果
+    private enum Status {
+        OK,         // 编译成功
+        ERROR,      // 源程序有错误，写出了错误表
+        FAILED,     // 编译器抛出了异常
+    }
+
+    private record Result(File source, long bytes, Status status, String message) {
+    }
+
+    private BatchCompiler(int jobs) {
+        this.jobs = jobs;
+    }
+
+    /**
+     * 从命令行参数中解析批量模式，没有 -batch= 时返回 null
+     */
+    public static BatchCompiler fromArgs(String[] args) {
+        String path = null;
+        int jobs = Runtime.getRuntime().availableProcessors();
+        for (String arg : args) {
+            if (arg.startsWith("-batch=")) {
+                path = arg.substring("-batch=".length());
+            } else if (arg.startsWith("-jobs=")) {
+                try {
+                    jobs = Math.max(1, Integer.parseInt(arg.substring("-jobs=".length())));
+                } catch (NumberFormatException e) {
+                    System.out.println("GaryError: 选项需要整数取值 " + arg);
+                }
+            }
+        }
+        if (path == null) {
+            return null;
+        }
+        BatchCompiler batch = new BatchCompiler(jobs);
+        File root = new File(path);
+        if (root.isDirectory()) {
+            batch.collectDirectory(root);
+        } else {
+            batch.collectManifest(root);
+        }
+        return batch;
+    }
+
+    private void collectDirectory(File dir) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files);
+        for (File file : files) {
+            if (file.isDirectory()) {
+                collectDirectory(file);
+            } else if (file.getName().endsWith(".sy") || file.getName().equals(IOUtils.inputFile)) {
+                sources.add(file);
+            }
+        }
+    }
+
+    private void collectManifest(File manifest) {
+        String content;
+        try {
+            content = IOUtils.read(manifest.getPath());
+        } catch (IOException e) {
+            System.out.println("GaryError: 无法读取批量编译清单 " + manifest);
+            return;
+        }
+        for (String line : content.split("\n")) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            File file = new File(line);
+            sources.add(file.isAbsolute() ? file : new File(manifest.getAbsoluteFile().getParentFile(), line));
+        }
+    }
+
+    /**
+     * 编译全部文件并输出统计
+     */
+    public void run() {
+        PrintStream out = System.out;
+        // 编译器各处的调试输出对批量编译没有意义，多线程争用同一个输出流还会拖慢速度
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        ArrayList<Result> results = new ArrayList<>();
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(jobs);
+        try {
+            ArrayList<Future<Result>> futures = new ArrayList<>();
+            for (File source : sources) {
+                futures.add(pool.submit(() -> compile(source)));
+            }
+            for (Future<Result> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            out.println("GaryError: 批量编译被中断 " + e);
+        } finally {
+            pool.shutdown();
+            System.setOut(out);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        printSummary(out, results, seconds);
+    }
+
+    /**
+     * 编译一个文件，使用独立的会话，结果写到源文件旁边
+     */
+    private Result compile(File source) {
+        long bytes = source.length();
+        String llvmIr = "", mips = "", errors = "";
+        Status status;
+        String message = null;
+        try (CompilationSession session = CompilationSession.open();
+             Reader srcReader = new FileReader(source)) {
+            if (session.compile(srcReader)) {
+                llvmIr = session.getModule().toString();
+                mips = session.getMipsModule().toString();
+                status = Status.OK;
+            } else {
+                errors = session.getErrorHandler().getErrorText();
+                status = Status.ERROR;
+            }
+        } catch (Exception | StackOverflowError e) {
+            status = Status.FAILED;
+            message = e.toString();
+        }
+        try {
+            writeOutput(source, IOUtils.llvmFile, llvmIr);
+            writeOutput(source, IOUtils.outputFile, mips);
+            writeOutput(source, IOUtils.errorFile, errors);
+        } catch (IOException e) {
+            status = Status.FAILED;
+            message = e.toString();
+        }
+        return new Result(source, bytes, status, message);
+    }
+
+    private static void writeOutput(File source, String outputName, String content) throws IOException {
+        String name = source.getName();
+        if (!name.equals(IOUtils.inputFile)) {
+            int dot = name.lastIndexOf('.');
+            outputName = (dot > 0 ? name.substring(0, dot) : name) + "." + outputName;
+        }
+        String path = new File(source.getAbsoluteFile().getParentFile(), outputName).getPath();
+        IOUtils.clean(path);
+        IOUtils.write(content, path);
+    }
+
+    private void printSummary(PrintStream out, ArrayList<Result> results, double seconds) {
+        int ok = 0, error = 0, failed = 0;
+        long bytes = 0;
+        for (Result result : results) {
+            bytes += result.bytes();
+            switch (result.status()) {
+                case OK -> ok++;
+                case ERROR -> error++;
+                case FAILED -> {
+                    failed++;
+                    out.println("GaryError: 编译失败 " + result.source() + ": " + result.message());
+                }
+            }
+        }
+        out.printf("batch: %d files (%d ok, %d with errors, %d failed), %.2f MB, %d threads%n",
+                results.size(), ok, error, failed, bytes / 1048576.0, jobs);
+        out.printf("time: %.3f s, %.1f files/s, %.3f MB/s%n",
+                seconds, results.size() / seconds, bytes / 1048576.0 / seconds);
+    }
+}
@@ -0,0 +1,213 @@
+package utils;
+
+import backend.MipsBuilder;
+import backend.MipsContext;
+import backend.isel.TreeSelector;
+import backend.units.MipsModule;
+import error.ErrorHandler;
+import frontend.Lexer;
+import frontend.Parser;
+import frontend.SemanticAnalysis;
+import ir.IrBuilder;
+import ir.IrContext;
+import ir.IrSymTableStack;
+import ir.analyze.ValueRange;
+import ir.values.Module;
+
+import java.io.Reader;
+import java.io.StringReader;
+
+/**
+ * @author Gary
+ * @Description: 编译会话，持有一次编译的全部可变状态
+ * 原来进程内唯一的单例（Lexer、Parser、SemanticAnalysis、ErrorHandler、Module、MipsModule、IrSymTableStack）、
+ * 上下文（IrContext、MipsContext）、以及 Value、MipsVReg、MipsBlock、IrBuilder 等处的命名计数器，都由会话持有
+ * 各个类的 getInstance() 返回当前线程所在会话中的对象，所以原来的调用方式不变
+ * 1. 同一个进程中可以先后进行多次编译，每次都从干净的状态开始
+ * 2. 不同线程各自打开会话，可以同时编译，互不干扰
+ * 编译选项 OptConfig 仍然是进程内共享的，要在开始编译之前设置好
+ * 用法：try (CompilationSession session = CompilationSession.open()) { session.compile(srcCode); }
+ * @date 2026/10/18 22:10
+ */
+public class CompilationSession implements AutoCloseable {
+    // ============ 命名计数器 ============
+    public enum Counter {
+        VALUE,          // Value 的唯一标识符
+        IR_NAME,        // 函数内的虚拟寄存器、基本块名字，每个函数从0开始
+        FORMAT_STRING,  // 格式化字符串全局变量
+        PHI,            // mem2reg 插入的 phi
+        CFG_SPLIT,      // 拆分关键边插入的基本块
+        PRE_HEADER,     // 循环前置块
+        MIPS_BLOCK,     // mips基本块名字的后缀
+        VREG,           // mips虚拟寄存器
+    }
+
+    // 每个线程当前打开的会话
+    private static final ThreadLocal<CompilationSession> currentSession = new ThreadLocal<>();
+
+    // ============ 会话持有的状态 ============
+    // 前端
+    private final ErrorHandler errorHandler;
+    private final Lexer lexer;
+    private final Parser parser;
+    private final SemanticAnalysis semanticAnalysis;
+    // 中间代码
+    private final IrContext irContext;
+    private final IrSymTableStack irSymTableStack;
+    private final ValueRange valueRange;
+    private final Module module;
+    // 后端
+    private final MipsContext mipsContext;
+    private final MipsModule mipsModule;
+    private final TreeSelector treeSelector;
+
+    private final int[] counters = new int[Counter.values().length];
+
+    // 编译的中间结果，compile 之后才有
+    private IrBuilder irBuilder;
+    private MipsBuilder mipsBuilder;
+
+    /**
+     * 先绑定到当前线程再创建各个对象：它们的构造过程会用到会话（Module 要取 Value 编号，SemanticAnalysis 要取 ErrorHandler）
+     * ErrorHandler 要在使用它的分析器之前创建
+     */
+    private CompilationSession() {
+        currentSession.set(this);
+        errorHandler = new ErrorHandler();
+        lexer = new Lexer();
+        parser = new Parser();
+        semanticAnalysis = new SemanticAnalysis();
+        irContext = new IrContext();
+        irSymTableStack = new IrSymTableStack();
+        valueRange = new ValueRange();
+        module = new Module();
+        mipsContext = new MipsContext();
+        mipsModule = new MipsModule();
+        treeSelector = new TreeSelector();
+    }
+
+    /**
+     * 为当前线程打开一个新的会话，用完后要 close（可以用 try-with-resources）
+     */
+    public static CompilationSession open() {
+        if (currentSession.get() != null) {
+            throw new IllegalStateException("GaryError: 当前线程已经打开了编译会话");
+        }
+        return new CompilationSession();
+    }
+
+    /**
+     * 当前线程所在的会话
+     */
+    public static CompilationSession current() {
+        CompilationSession session = currentSession.get();
+        if (session == null) {
+            throw new IllegalStateException("GaryError: 当前线程没有打开编译会话");
+        }
+        return session;
+    }
+
+    @Override
+    public void close() {
+        if (currentSession.get() == this) {
+            currentSession.remove();
+        }
+    }
+
+    // ============ 编译流程 ============
+    /**
+     * 对一份源代码进行完整的编译
+     * @return 没有编译错误时返回true，中间代码和MIPS代码可以通过 irBuilder、mipsBuilder 输出；否则错误在 errorHandler 中
+     */
+    public boolean compile(String srcCode) {
+        return compile(new StringReader(srcCode));
+    }
+
+    /**
+     * 从输入流编译：词法分析随语法分析按需进行，不需要先读入整个文件
+     */
+    public boolean compile(Reader reader) {
+        // 词法分析器
+        lexer.open(reader);
+        // 语法分析器，需要单词时才让词法分析器继续
+        parser.setTokens(lexer.getTokens());    // 设置语法分析器的词法单元流
+        parser.analyze();
+        // 语义分析器
+        semanticAnalysis.CompUnit(parser.getEntry());
+        if (errorHandler.hasError()) {
+            return false;
+        }
+        // 中间代码生成器
+        irBuilder = new IrBuilder(parser.getEntry());
+        irBuilder.generate();
+        // MIPS代码生成器，使用llvm生成的module作为输入
+        mipsBuilder = new MipsBuilder(irBuilder.getIrModule());
+        mipsBuilder.generate();
+        return true;
+    }
+
+    // ============ 计数器 ============
+    /**
+     * 取出计数器的当前值，然后加一
+     */
+    public int next(Counter counter) {
+        return counters[counter.ordinal()]++;
+    }
+
+    public void reset(Counter counter) {
+        counters[counter.ordinal()] = 0;
+    }
+
+    // ============ getter ============
+    public Lexer getLexer() {
+        return lexer;
+    }
+
+    public Parser getParser() {
+        return parser;
+    }
+
+    public SemanticAnalysis getSemanticAnalysis() {
+        return semanticAnalysis;
+    }
+
+    public ErrorHandler getErrorHandler() {
+        return errorHandler;
+    }
+
+    public IrContext getIrContext() {
+        return irContext;
+    }
+
+    public IrSymTableStack getIrSymTableStack() {
+        return irSymTableStack;
+    }
+
+    public ValueRange getValueRange() {
+        return valueRange;
+    }
+
+    public Module getModule() {
+        return module;
+    }
+
+    public MipsContext getMipsContext() {
+        return mipsContext;
+    }
+
+    public MipsModule getMipsModule() {
+        return mipsModule;
+    }
+
+    public TreeSelector getTreeSelector() {
+        return treeSelector;
+    }
+
+    public IrBuilder getIrBuilder() {
+        return irBuilder;
+    }
+
+    public MipsBuilder getMipsBuilder() {
+        return mipsBuilder;
+    }
+}
@@ -0,0 +1,253 @@
+package utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * @author Gary
+ * @Description: 常驻编译服务：JVM 和 JIT 编译过的代码一直保留，每个请求在新的 CompilationSession 中编译
+ * 用法：
+ * 1. java Compiler -daemon                  通过标准输入输出通信
+ * 2. java Compiler -daemon=<socket文件路径>   监听 Unix 域套接字，每个连接一个线程
+ * 协议以行开头、按字节数分帧，长度都是 UTF-8 编码后的字节数：
+ *   请求  COMPILE <n>\n<n 字节源代码>
+ *   响应  OK <ir字节数> <mips字节数> <error字节数> <耗时微秒>\n<llvm ir><mips><错误表>
+ *        编译错误时 ir、mips 为空，error 同 error.txt；编译器抛出异常时 error 中是异常信息，状态为 FAIL
+ *   请求  STATS\n   响应  STATS <请求数> <p50> <p90> <p99> <max>\n（微秒）
+ *        分位数由最多 4096 个请求的均匀抽样（蓄水池抽样）算出，请求数和最大值是精确的
+ *   请求  QUIT\n    关闭当前连接（标准输入模式下退出）
+ *   格式不对的请求（未知命令、COMPILE 后面没有合法的长度）响应 FAIL 0 0 0 0\n，连接继续
+ * 编译过程中的调试输出会被丢弃，进程结束时在标准错误输出延迟统计
+ * @date 2026/10/18 22:55
+ */
+public class CompileDaemon {
+    // 蓄水池大小，常驻进程的请求数没有上限，只保留这么多个耗时样本
+    private static final int RESERVOIR_SIZE = 4096;
+    private static final byte[] FAIL_RESPONSE = "FAIL 0 0 0 0\n".getBytes(StandardCharsets.UTF_8);
+    // 请求耗时（纳秒）的均匀样本，多个连接共享，访问时对 this 加锁
+    private final long[] latencies = new long[RESERVOIR_SIZE];
+    private long requestCount = 0;
+    private long maxLatency = 0;
+    // 原来的标准输出，标准输入模式下响应写到这里
+    private final PrintStream stdout;
+
+    private CompileDaemon(PrintStream stdout) {
+        this.stdout = stdout;
+    }
+
+    /**
+     * 命令行中有 -daemon 时进入服务模式，直到输入结束才返回
+     * @return 是否是服务模式
+     */
+    public static boolean runFromArgs(String[] args) throws IOException {
+        String socketPath = null;
+        boolean daemon = false;
+        for (String arg : args) {
+            if (arg.equals("-daemon")) {
+                daemon = true;
+            } else if (arg.startsWith("-daemon=")) {
+                daemon = true;
+                socketPath = arg.substring("-daemon=".length());
+            }
+        }
+        if (!daemon) {
+            return false;
+        }
+        CompileDaemon compileDaemon = new CompileDaemon(System.out);
+        Path socket = socketPath == null ? null : Path.of(socketPath);
+        // 套接字模式一般是被信号结束的，统计输出和清理都放在关闭钩子里
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            System.err.println("daemon: " + compileDaemon.statsText());
+            if (socket != null) {
+                try {
+                    Files.deleteIfExists(socket);
+                } catch (IOException ignored) {
+                }
+            }
+        }));
+        // 调试输出不能混进响应里
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            if (socket == null) {
+                compileDaemon.serve(System.in, compileDaemon.stdout);
+            } else {
+                compileDaemon.listen(socket);
+            }
+        } finally {
+            System.setOut(compileDaemon.stdout);
+        }
+        return true;
+    }
+
+    private void listen(Path socketPath) throws IOException {
+        Files.deleteIfExists(socketPath);
+        try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            server.bind(UnixDomainSocketAddress.of(socketPath));
+            System.err.println("daemon: listening on " + socketPath);
+            while (true) {
+                SocketChannel channel = server.accept();
+                Thread thread = new Thread(() -> {
+                    try (channel) {
+                        serve(Channels.newInputStream(channel), Channels.newOutputStream(channel));
+                    } catch (IOException | RuntimeException e) {
+                        System.err.println("GaryError: 连接异常 " + e);
+                    }
+                });
+                thread.setDaemon(true);
+                thread.start();
+            }
+        }
+    }
+
+    /**
+     * 处理一个连接上的全部请求，输入结束或者收到 QUIT 时返回
+     */
+    private void serve(InputStream rawIn, OutputStream rawOut) throws IOException {
+        InputStream in = new BufferedInputStream(rawIn);
+        OutputStream out = new BufferedOutputStream(rawOut);
+        String line;
+        while ((line = readLine(in)) != null) {
+            String[] parts = line.trim().split("\\s+");
+            switch (parts[0]) {
+                case "COMPILE" -> {
+                    int length = parseLength(parts);
+                    if (length < 0) {
+                        out.write(FAIL_RESPONSE);
+                    } else {
+                        byte[] srcBytes = in.readNBytes(length);
+                        if (srcBytes.length < length) {
+                            throw new EOFException("GaryError: 源代码不完整");
+                        }
+                        compile(new String(srcBytes, StandardCharsets.UTF_8), out);
+                    }
+                }
+                case "STATS" -> out.write(("STATS " + statsText() + "\n").getBytes(StandardCharsets.UTF_8));
+                case "QUIT" -> {
+                    out.flush();
+                    return;
+                }
+                case "" -> {
+                    // 空行忽略
+                }
+                default -> out.write(FAIL_RESPONSE);
+            }
+            out.flush();
+        }
+    }
+
+    /**
+     * 编译一个请求并写出响应
+     */
+    private void compile(String srcCode, OutputStream out) throws IOException {
+        String status = "OK";
+        String llvmIr = "", mips = "", errors = "";
+        long start = System.nanoTime();
+        try (CompilationSession session = CompilationSession.open()) {
+            if (session.compile(srcCode)) {
+                llvmIr = session.getModule().toString();
+                mips = session.getMipsModule().toString();
+            } else {
+                errors = session.getErrorHandler().getErrorText();
+            }
+        } catch (Exception | StackOverflowError e) {
+            status = "FAIL";
+            errors = e + "\n";
+        }
+        long elapsed = System.nanoTime() - start;
+        record(elapsed);
+        byte[] irBytes = llvmIr.getBytes(StandardCharsets.UTF_8);
+        byte[] mipsBytes = mips.getBytes(StandardCharsets.UTF_8);
+        byte[] errorBytes = errors.getBytes(StandardCharsets.UTF_8);
+        String header = status + " " + irBytes.length + " " + mipsBytes.length + " " + errorBytes.length
+                + " " + elapsed / 1000 + "\n";
+        out.write(header.getBytes(StandardCharsets.UTF_8));
+        out.write(irBytes);
+        out.write(mipsBytes);
+        out.write(errorBytes);
+    }
+
+    /**
+     * COMPILE 后面的源代码字节数，缺少、不是整数或者为负时返回 -1
+     */
+    private static int parseLength(String[] parts) {
+        if (parts.length != 2) {
+            return -1;
+        }
+        try {
+            return Math.max(Integer.parseInt(parts[1]), -1);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 记录一个请求的耗时：前 RESERVOIR_SIZE 个直接保存，之后第 n 个以 RESERVOIR_SIZE/n 的概率替换一个已有样本
+     */
+    private synchronized void record(long elapsed) {
+        if (requestCount < RESERVOIR_SIZE) {
+            latencies[(int) requestCount] = elapsed;
+        } else {
+            long slot = ThreadLocalRandom.current().nextLong(requestCount + 1);
+            if (slot < RESERVOIR_SIZE) {
+                latencies[(int) slot] = elapsed;
+            }
+        }
+        requestCount++;
+        maxLatency = Math.max(maxLatency, elapsed);
+    }
+
+    /**
+     * 读一行请求头，输入结束时返回 null
+     */
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int c;
+        while ((c = in.read()) != -1 && c != '\n') {
+            line.write(c);
+        }
+        if (c == -1 && line.size() == 0) {
+            return null;
+        }
+        return line.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 请求数和耗时的 p50、p90、p99、最大值（微秒）
+     */
+    private String statsText() {
+        long[] sorted;
+        long count, max;
+        synchronized (this) {
+            sorted = Arrays.copyOf(latencies, (int) Math.min(requestCount, RESERVOIR_SIZE));
+            count = requestCount;
+            max = maxLatency;
+        }
+        if (count == 0) {
+            return "0 0 0 0 0";
+        }
+        Arrays.sort(sorted);
+        return count + " " + percentile(sorted, 50) + " " + percentile(sorted, 90) + " "
+                + percentile(sorted, 99) + " " + max / 1000;
+    }
+
+    private static long percentile(long[] sorted, int p) {
+        int index = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1000;
+    }
+}
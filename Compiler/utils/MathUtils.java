@@ -17,4 +17,66 @@ public class MathUtils {
             return imm >= 0 && imm <= 65535;
         }
     }
+
+    /**
+     * 是否是2的幂（只考虑正数）
+     */
+    public static boolean isPowerOf2(long x) {
+        return x > 0 && (x & (x - 1)) == 0;
+    }
+
+    /**
+     * 2的幂x的指数
+     */
+    public static int log2(long x) {
+        return 63 - Long.numberOfLeadingZeros(x);
+    }
+
+    /**
+     * 向上对齐到4字节（字）的整数倍，按字节存放的char数组后面的空间要保持字对齐
+     */
+    public static int alignToWord(int size) {
+        return (size + 3) & ~3;
+    }
+
+    /**
+     * 有符号除法的魔数（Hacker's Delight 10-1），n / d = (mulhs(n, magic) [+-n]) >> shift，再对负数结果加一
+     * 要求d不是-1、0、1
+     * @return {magic, shift}
+     */
+    public static int[] divMagic(int d) {
+        final long two31 = 0x80000000L;
+        final long mask = 0xffffffffL;
+        long ad = Math.abs((long) d);
+        long t = two31 + ((d & mask) >>> 31);
+        // |nc|的上界
+        long anc = t - 1 - t % ad;
+        int p = 31;
+        long q1 = two31 / anc;
+        long r1 = two31 - q1 * anc;
+        long q2 = two31 / ad;
+        long r2 = two31 - q2 * ad;
+        long delta;
+        do {
+            p++;
+            q1 = (2 * q1) & mask;
+            r1 = (2 * r1) & mask;
+            if (r1 >= anc) {
+                q1 = (q1 + 1) & mask;
+                r1 -= anc;
+            }
+            q2 = (2 * q2) & mask;
+            r2 = (2 * r2) & mask;
+            if (r2 >= ad) {
+                q2 = (q2 + 1) & mask;
+                r2 -= ad;
+            }
+            delta = ad - r2;
+        } while (q1 < delta || (q1 == delta && r1 == 0));
+        int magic = (int) (q2 + 1);
+        if (d < 0) {
+            magic = -magic;
+        }
+        return new int[]{magic, p - 32};
+    }
 }
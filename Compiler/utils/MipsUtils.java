@@ -1,14 +1,10 @@
 package utils;
 
-import backend.instructions.MipsInstruction;
 import backend.operands.MipsOperand;
 import backend.operands.MipsRReg;
 import backend.operands.MipsVReg;
 import ir.values.instructions.MathInstruction;
 
-import java.util.LinkedList;
-import java.util.ListIterator;
-
 /**
  * @author Gary
  * @Description: MIPS相关工具类
@@ -23,33 +19,4 @@ public class MipsUtils {
     public static boolean isReg(MipsOperand op) {
         return op instanceof MipsRReg || op instanceof MipsVReg;
     }
-
-    /**
-     * 在指定元素后面插入一个元素
-     */
-    public static void insertAfter(LinkedList<MipsInstruction> list, MipsInstruction target, MipsInstruction newInst) {
-        ListIterator<MipsInstruction> iterator = list.listIterator();
-        while (iterator.hasNext()) {
-            if (iterator.next().equals(target)) {
-                iterator.add(newInst);
-//                System.out.println("[insertAfter] " + target + ", " + newElement);
-                break;
-            }
-        }
-    }
-
-    /**
-     * 在指定元素前面插入一个元素
-     */
-    public static void insertBefore(LinkedList<MipsInstruction> list, MipsInstruction target, MipsInstruction newInst) {
-        ListIterator<MipsInstruction> iterator = list.listIterator();
-        while (iterator.hasNext()) {
-            if (iterator.next().equals(target)) {
-                iterator.previous();
-                iterator.add(newInst);
-//                System.out.println("[insertBefore] " + target + ", " + newElement);
-                break;
-            }
-        }
-    }
 }
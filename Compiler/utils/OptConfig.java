@@ -0,0 +1,104 @@
+package utils;
+
+import java.util.HashSet;
+
+/**
+ * @author Gary
+ * @Description: 优化开关，默认全部打开。可以通过命令行参数关闭，便于和未优化的输出对比
+ * 用法：java Compiler -fno-mem2reg -fregalloc=linear -fno-peephole=jump-next
+ * -fstats 把各项优化的统计输出到标准错误，默认不输出
+ * @date 2026/10/18 11:20
+ */
+public class OptConfig {
+    // 把非数组局部变量提升为SSA虚拟寄存器
+    public static boolean mem2reg = true;
+    // 自然循环分析，为寄存器分配提供真实的循环深度
+    public static boolean loopAnalysis = true;
+    // 寄存器分配方式：graph 图着色，linear 线性扫描，auto 函数过大时自动改用线性扫描
+    public static String regAlloc = "auto";
+    // auto 模式下改用线性扫描的阈值：虚拟寄存器数或指令数超过其一即可
+    public static int linearScanVRegs = 5000;
+    public static int linearScanInstructions = 20000;
+    // 栈槽着色：活跃范围不重叠的 alloca 和溢出槽共用栈空间
+    public static boolean stackSlotColoring = true;
+    // 加减乘法的合并选择（见 backend.isel.TreeSelector），关闭时每条指令各自生成
+    public static boolean treeIsel = true;
+    // 布尔值降级：化简 i1 -> i32 -> i1 的往返，分支直接按原始比较跳转
+    public static boolean boolLowering = true;
+    // 根据取值范围消除多余的 zext/trunc
+    public static boolean castElim = true;
+    // 常数乘除法的强度削减：移位、加减和魔数乘法
+    public static boolean strengthReduce = true;
+    // gep 的常数偏移折叠进 lw/sw 的立即数，下标乘元素大小改用移位，同一块内相同的 基址+下标 只算一次
+    public static boolean addressFold = true;
+    // char数组按字节存放，用 lbu/sb 访问；关闭时每个char占一个字
+    public static boolean byteChars = true;
+    // 寄存器分配之后的窥孔优化，以及被单独关闭的规则名
+    public static boolean peephole = true;
+    public static HashSet<String> peepholeDisabled = new HashSet<>();
+    // 输出优化统计（栈槽着色节省的字节数、窥孔各规则的命中次数），默认关闭
+    public static boolean stats = false;
+
+    /**
+     * 解析命令行参数：-f<name>打开，-fno-<name>关闭，-f<name>=<value>设置取值
+     */
+    public static void parseArgs(String[] args) {
+        for (String arg : args) {
+            if (!arg.startsWith("-f")) {
+                continue;
+            }
+            boolean enable = !arg.startsWith("-fno-");
+            String name = enable ? arg.substring(2) : arg.substring(5);
+            String value = null;
+            if (name.contains("=")) {
+                value = name.substring(name.indexOf('=') + 1);
+                name = name.substring(0, name.indexOf('='));
+            }
+            switch (name) {
+                case "mem2reg" -> mem2reg = enable;
+                case "loop" -> loopAnalysis = enable;
+                case "stack-coloring" -> stackSlotColoring = enable;
+                case "strength-reduce" -> strengthReduce = enable;
+                case "tree-isel" -> treeIsel = enable;
+                case "bool-lowering" -> boolLowering = enable;
+                case "cast-elim" -> castElim = enable;
+                case "address-fold" -> addressFold = enable;
+                case "byte-chars" -> byteChars = enable;
+                case "stats" -> stats = enable;
+                case "peephole" -> {
+                    // -fno-peephole=规则1,规则2 只关闭这些规则
+                    if (value == null) {
+                        peephole = enable;
+                    } else {
+                        for (String rule : value.split(",")) {
+                            if (enable) {
+                                peepholeDisabled.remove(rule);
+                            } else {
+                                peepholeDisabled.add(rule);
+                            }
+                        }
+                    }
+                }
+                case "regalloc" -> {
+                    if ("graph".equals(value) || "linear".equals(value) || "auto".equals(value)) {
+                        regAlloc = value;
+                    } else {
+                        System.out.println("GaryError: 未知的寄存器分配方式 " + arg);
+                    }
+                }
+                case "linear-scan-vregs" -> linearScanVRegs = parseInt(arg, value, linearScanVRegs);
+                case "linear-scan-insts" -> linearScanInstructions = parseInt(arg, value, linearScanInstructions);
+                default -> System.out.println("GaryError: 未知的优化选项 " + arg);
+            }
+        }
+    }
+
+    private static int parseInt(String arg, String value, int defaultValue) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            System.out.println("GaryError: 选项需要整数取值 " + arg);
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * @author Gary
+ * @Description: 生成前端（词法、语法分析）基准用的大源文件，程序合法，可以完整通过语法分析
+ * 按函数生成，直到达到目标大小，最后是 main。三种语句组成：
+ * 1. assign：标量和数组元素的赋值为主，夹杂 if/else 和 for（赋值语句密集）
+ * 2. call：带下标表达式的数组赋值、函数调用语句、标量赋值各占三分之一
+ * 3. mixed：在 assign 的基础上加入注释、字符串、字符常量和逻辑运算，覆盖词法分析的各个分支
+ * 用法：java tests/bench/GenFrontInput.java <大小，如 8m、500k> [assign|call|mixed] > input.sy
+ * @date 2026/10/18 23:45
+ */
+public class GenFrontInput {
+    public static void main(String[] args) {
+        long target = parseSize(args[0]);
+        String mode = args.length > 1 ? args[1] : "mixed";
+        StringBuilder sb = new StringBuilder();
+        sb.append("int g[1000];\n");
+        sb.append("int f(int a, int b) { return a + b; }\n");
+        int k = 0;
+        while (sb.length() < target) {
+            switch (mode) {
+                case "assign" -> assignFunction(sb, k, false);
+                case "call" -> callFunction(sb, k);
+                case "mixed" -> assignFunction(sb, k, true);
+                default -> throw new IllegalArgumentException("GaryError: 未知的模式 " + mode);
+            }
+            k++;
+        }
+        sb.append("int main() {\n");
+        sb.append("    printf(\"%d\\n\", f0(1, 2));\n");
+        sb.append("    return 0;\n");
+        sb.append("}\n");
+        System.out.print(sb);
+    }
+
+    private static long parseSize(String size) {
+        char unit = Character.toLowerCase(size.charAt(size.length() - 1));
+        return switch (unit) {
+            case 'k' -> Long.parseLong(size.substring(0, size.length() - 1)) * 1024;
+            case 'm' -> Long.parseLong(size.substring(0, size.length() - 1)) * 1024 * 1024;
+            default -> Long.parseLong(size);
+        };
+    }
+
+    private static void assignFunction(StringBuilder sb, int k, boolean mixed) {
+        sb.append("int f").append(k).append("(int a, int b) {\n");
+        sb.append("    int c = 1;\n");
+        sb.append("    int i;\n");
+        sb.append("    int arr[10];\n");
+        if (mixed) {
+            sb.append("    char ch = 'a';\n");
+            sb.append("    /* 第 ").append(k).append(" 个函数：块注释\n       跨越两行 */\n");
+        }
+        for (int t = 0; t < 40; t++) {
+            if (t % 7 == 3) {
+                sb.append("    for (i = 0; i < ").append(t % 8 + 1).append("; i = i + 1) { c = c + arr[i % 10]; }\n");
+            } else if (t % 7 == 6) {
+                if (mixed) {
+                    sb.append("    if (a > ").append(t).append(" && b != c || !a || a <= b) { b = b - 1; } else { ch = '\\n'; }\n");
+                } else {
+                    sb.append("    if (a > ").append(t).append(") { b = b - 1; } else { c = c + 2; }\n");
+                }
+            } else {
+                sb.append("    a = a + b * ").append(t).append(" - c;\n");
+                sb.append("    arr[").append(t % 10).append("] = arr[").append((t + 1) % 10).append("] + a;\n");
+            }
+            if (mixed && t % 10 == 0) {
+                sb.append("    // 行注释 a = b + c;\n");
+                sb.append("    printf(\"f").append(k).append(": %d, %d\\n\", a, c);\n");
+            }
+        }
+        sb.append("    return a + c;\n");
+        sb.append("}\n");
+    }
+
+    private static void callFunction(StringBuilder sb, int k) {
+        sb.append("int f").append(k).append("(int a, int b) {\n");
+        sb.append("    int i = 1; int j = 2;\n");
+        for (int t = 0; t < 60; t++) {
+            switch (t % 3) {
+                case 0 -> sb.append("    g[(i * ").append(t).append(" + j) % 1000] = g[(j + ").append(t)
+                        .append(") % 1000] + a * b - i;\n");
+                case 1 -> sb.append("    f(a + ").append(t).append(" * i, g[(b + j) % 1000] - ").append(t).append(");\n");
+                default -> sb.append("    i = (i + g[").append(t).append("] * ").append(t).append(") % 997;\n");
+            }
+        }
+        sb.append("    return i;\n");
+        sb.append("}\n");
+    }
+}
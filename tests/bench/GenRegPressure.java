@@ -0,0 +1,48 @@
+import java.util.Random;
+
+/**
+ * @author Gary
+ * @Description: 生成寄存器压力很大的单函数程序，用于寄存器分配的基准
+ * main 中有 40 个一直活跃的局部变量，之后是若干条语句：大多数是三个变量之间的算术赋值，每 12 条有一条 if/else 和全局数组访问
+ * 最后输出所有变量之和，保证它们活到函数末尾。虚拟寄存器数大约是语句数的 7 倍（1500 条约 1 万个）
+ * 用法：java tests/bench/GenRegPressure.java <语句数> [随机种子] > testfile.txt
+ * @date 2026/10/18 23:40
+ */
+public class GenRegPressure {
+    private static final int VARS = 40;
+    private static final String[] OPS = {"+", "-", "*"};
+
+    public static void main(String[] args) {
+        int statements = Integer.parseInt(args[0]);
+        Random random = new Random(args.length > 1 ? Long.parseLong(args[1]) : 2024);
+        StringBuilder sb = new StringBuilder();
+        sb.append("int g[64];\n");
+        sb.append("int main() {\n");
+        sb.append("    int ");
+        for (int i = 0; i < VARS; i++) {
+            sb.append(i == 0 ? "" : ", ").append("x").append(i).append(" = ").append(i + 1);
+        }
+        sb.append(";\n");
+        sb.append("    int i, s = 0;\n");
+        for (int k = 0; k < statements; k++) {
+            int a = random.nextInt(VARS), b = random.nextInt(VARS), c = random.nextInt(VARS);
+            if (k % 12 == 0) {
+                sb.append("    if (x").append(b).append(" > x").append(c).append(") { x").append(a)
+                        .append(" = x").append(b).append(" + 1; } else { g[").append(k % 64)
+                        .append("] = x").append(c).append("; }\n");
+            } else {
+                sb.append("    x").append(a).append(" = (x").append(b).append(" ").append(OPS[random.nextInt(OPS.length)])
+                        .append(" x").append(c).append(" + ").append(k % 100).append(") % 10007;\n");
+            }
+        }
+        sb.append("    for (i = 0; i < 64; i = i + 1) s = (s + g[i]) % 10007;\n");
+        sb.append("    printf(\"%d\\n\", s");
+        for (int i = 0; i < VARS; i++) {
+            sb.append(" + x").append(i);
+        }
+        sb.append(");\n");
+        sb.append("    return 0;\n");
+        sb.append("}\n");
+        System.out.print(sb);
+    }
+}
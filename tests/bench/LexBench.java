@@ -0,0 +1,50 @@
+import utils.CompilationSession;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * @author Gary
+ * @Description: 词法分析基准：对整个源文件调用 Lexer.analyze(String)，输出吞吐量（源文件字节数 / 耗时）
+ * 每轮在新的 CompilationSession 中分析，前一半轮次作为预热，输出其余各轮的中位数和范围
+ * 只用到 CompilationSession.getLexer().analyze(String)，重写词法分析器之前的版本也能编译运行，可以直接对比
+ * 用法：java -cp <编译器classes>:<本目录classes> LexBench [-runs=N] <源文件>...
+ * @date 2026/10/18 23:45
+ */
+public class LexBench {
+    public static void main(String[] args) throws Exception {
+        int runs = 20;
+        for (String arg : args) {
+            if (arg.startsWith("-runs=")) {
+                runs = Integer.parseInt(arg.substring("-runs=".length()));
+            }
+        }
+        PrintStream out = System.out;
+        for (String arg : args) {
+            if (arg.startsWith("-")) {
+                continue;
+            }
+            String src = Files.readString(Path.of(arg));
+            double mb = Files.size(Path.of(arg)) / 1048576.0;
+            double[] speeds = new double[runs];
+            // 词法错误等调试输出不计入
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            for (int r = 0; r < runs; r++) {
+                System.gc();
+                try (CompilationSession session = CompilationSession.open()) {
+                    long start = System.nanoTime();
+                    session.getLexer().analyze(src);
+                    speeds[r] = mb / ((System.nanoTime() - start) / 1e9);
+                }
+            }
+            System.setOut(out);
+            double[] measured = Arrays.copyOfRange(speeds, runs / 2, runs);
+            Arrays.sort(measured);
+            out.printf("%s: %.1f MB, lex median %.1f MB/s (%.1f-%.1f, %d runs)%n", arg, mb,
+                    measured[measured.length / 2], measured[0], measured[measured.length - 1], measured.length);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+import frontend.Parser;
+import utils.CompilationSession;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * @author Gary
+ * @Description: 语法分析基准：词法分析 + 语法分析建出整棵语法树，和 CompilationSession.compile 的前端相同
+ * 源文件先读入内存，每轮在新的 CompilationSession 中从 StringReader 边读边分析，前一半轮次作为预热，输出其余各轮的中位数和范围
+ * 另外输出最后一轮分配的内存，以及语法分析结束、语法树还在时堆中保留的内存（两次 GC 之后的已用堆之差）
+ * -array：先用 Lexer.analyze(String) 分析出全部单词再做语法分析，和边读边分析比较
+ * 用法：java -cp <编译器classes>:<本目录classes> ParseBench [-runs=N] [-array] <源文件>...
+ * @date 2026/10/18 23:50
+ */
+public class ParseBench {
+    public static void main(String[] args) throws Exception {
+        int runs = 20;
+        boolean array = false;
+        for (String arg : args) {
+            if (arg.startsWith("-runs=")) {
+                runs = Integer.parseInt(arg.substring("-runs=".length()));
+            } else if (arg.equals("-array")) {
+                array = true;
+            }
+        }
+        PrintStream out = System.out;
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (String arg : args) {
+            if (arg.startsWith("-")) {
+                continue;
+            }
+            String src = Files.readString(Path.of(arg));
+            double mb = Files.size(Path.of(arg)) / 1048576.0;
+            long[] times = new long[runs];
+            long allocated = 0;
+            long retained = 0;
+            // 词法、语法错误等调试输出不计入
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            for (int r = 0; r < runs; r++) {
+                long before = usedHeap();
+                try (CompilationSession session = CompilationSession.open()) {
+                    long allocStart = threadBean.getCurrentThreadAllocatedBytes();
+                    long start = System.nanoTime();
+                    if (array) {
+                        session.getLexer().analyze(src);
+                    } else {
+                        session.getLexer().open(new StringReader(src));
+                    }
+                    Parser parser = session.getParser();
+                    parser.setTokens(session.getLexer().getTokens());
+                    parser.analyze();
+                    times[r] = System.nanoTime() - start;
+                    allocated = threadBean.getCurrentThreadAllocatedBytes() - allocStart;
+                    // 会话和语法树都还在
+                    retained = usedHeap() - before;
+                }
+            }
+            System.setOut(out);
+            long[] measured = Arrays.copyOfRange(times, runs / 2, runs);
+            Arrays.sort(measured);
+            out.printf("%s: %.1f MB, %s lex+parse median %.1f ms (%.1f-%.1f, %d runs), allocated %.1f MB, retained %.1f MB%n",
+                    arg, mb, array ? "array" : "streaming", measured[measured.length / 2] / 1e6, measured[0] / 1e6, measured[measured.length - 1] / 1e6,
+                    measured.length, allocated / 1048576.0, retained / 1048576.0);
+        }
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
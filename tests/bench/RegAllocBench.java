@@ -0,0 +1,66 @@
+import backend.reg.RegBuilder;
+import backend.units.MipsFunction;
+import backend.units.MipsModule;
+import ir.IrBuilder;
+import utils.CompilationSession;
+import utils.OptConfig;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * @author Gary
+ * @Description: 寄存器分配基准：对每个源文件做完前端、中间代码和指令选择，只计时 RegBuilder.buildRegs
+ * 每轮都在新的 CompilationSession 中从头编译，前几轮作为预热，输出其余各轮的中位数和最小值
+ * 用法：java -cp <编译器classes>:<本目录classes> RegAllocBench [-runs=N] [-f...优化选项] <源文件>...
+ * 默认 auto 模式下虚拟寄存器超过阈值的函数会改用线性扫描，测图着色要加 -fregalloc=graph
+ * @date 2026/10/18 23:40
+ */
+public class RegAllocBench {
+    public static void main(String[] args) throws Exception {
+        int runs = 5;
+        OptConfig.parseArgs(args);
+        PrintStream out = System.out;
+        for (String arg : args) {
+            if (arg.startsWith("-runs=")) {
+                runs = Integer.parseInt(arg.substring("-runs=".length()));
+            }
+        }
+        for (String arg : args) {
+            if (arg.startsWith("-")) {
+                continue;
+            }
+            String src = Files.readString(Path.of(arg));
+            // 编译器各处的调试输出不计入
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            long[] times = new long[runs];
+            int maxVRegs = 0;
+            for (int r = 0; r < runs; r++) {
+                try (CompilationSession session = CompilationSession.open()) {
+                    session.getLexer().analyze(src);
+                    session.getParser().setTokens(session.getLexer().getTokens());
+                    session.getParser().analyze();
+                    session.getSemanticAnalysis().CompUnit(session.getParser().getEntry());
+                    IrBuilder irBuilder = new IrBuilder(session.getParser().getEntry());
+                    irBuilder.generate();
+                    irBuilder.getIrModule().buildMips();
+                    for (MipsFunction function : MipsModule.getFunctions()) {
+                        maxVRegs = Math.max(maxVRegs, function.getUsedVRegs().size());
+                    }
+                    long start = System.nanoTime();
+                    new RegBuilder().buildRegs();
+                    times[r] = System.nanoTime() - start;
+                }
+            }
+            System.setOut(out);
+            // 前一半作为预热
+            long[] measured = Arrays.copyOfRange(times, runs / 2, runs);
+            Arrays.sort(measured);
+            out.printf("%s: %d vregs, regalloc median %.1f ms, min %.1f ms (%d runs)%n", arg, maxVRegs,
+                    measured[measured.length / 2] / 1e6, measured[0] / 1e6, measured.length);
+        }
+    }
+}
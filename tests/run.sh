@@ -0,0 +1,45 @@
+#!/bin/bash
+# 运行 tests/regression 下的全部回归程序
+# 用法：tests/run.sh [编译选项...]      例如 tests/run.sh -fno-mem2reg
+# 环境变量：
+#   MARS  Mars.jar 的路径，默认是当前目录下的 Mars.jar
+#   SIM   运行 mips.txt 的命令，默认 "java -jar $MARS nc"，程序输入从标准输入给出
+set -u
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+MARS=${MARS:-Mars.jar}
+SIM=${SIM:-java -jar $MARS nc}
+WORK=$(mktemp -d)
+trap 'rm -rf "$WORK"' EXIT
+
+# 编译编译器
+javac -nowarn -encoding UTF-8 -cp "$WORK/classes" -sourcepath "$ROOT/Compiler" -d "$WORK/classes" $(find "$ROOT/Compiler" -name '*.java' -not -path '*/out/*') || exit 1
+
+pass=0
+fail=0
+for dir in "$ROOT"/tests/regression/*/; do
+    name=$(basename "$dir")
+    run="$WORK/$name"
+    mkdir -p "$run"
+    cp "$dir/testfile.txt" "$run/"
+    (cd "$run" && java -cp "$WORK/classes" Compiler "$@" > compile.log 2>&1)
+    if [ -f "$dir/error.txt" ]; then
+        # 有编译错误的程序只比较 error.txt
+        actual="$run/error.txt"
+        expected="$dir/error.txt"
+    else
+        input="$dir/input.txt"
+        [ -f "$input" ] || input=/dev/null
+        (cd "$run" && $SIM mips.txt < "$input" > out.txt 2> sim.log)
+        actual="$run/out.txt"
+        expected="$dir/output.txt"
+    fi
+    if diff -B -Z -q "$actual" "$expected" > /dev/null; then
+        pass=$((pass + 1))
+    else
+        fail=$((fail + 1))
+        echo "FAIL $name"
+        diff -B -Z "$actual" "$expected" | head -10
+    fi
+done
+echo "regression: $pass passed, $fail failed"
+[ "$fail" -eq 0 ]